@@ -0,0 +1,50 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves each pooled id generator past the highest id already in its table.
+ * Rows created under the old IDENTITY strategy would otherwise collide with
+ * the first ids handed out by the table generator.
+ *
+ * Runs after the EntityManagerFactory (and so the schema update) and before
+ * the web server accepts requests.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdGeneratorSeeder {
+
+    // Must match the pkColumnValue / allocationSize of the @TableGenerator on each entity
+    static final List<String> POOLED_TABLES = List.of("vehicles", "customer_vehicles", "audit_logs", "trip_history", "booking");
+    static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneratorSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void seed() {
+        for (String table : POOLED_TABLES) {
+            try {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                // Pooled optimizer hands out (next_val - allocationSize, next_val], so keep one block of headroom
+                long floor = (maxId != null ? maxId : 0L) + ALLOCATION_SIZE + 1;
+
+                int updated = jdbcTemplate.update(
+                        "UPDATE id_generators SET next_val = GREATEST(next_val, ?) WHERE sequence_name = ?", floor, table);
+                if (updated == 0) {
+                    jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)", table, floor);
+                }
+            } catch (Exception e) {
+                System.err.println("Id Generator Seed Error (" + table + "): " + e.getMessage());
+            }
+        }
+    }
+}
@@ -7,12 +7,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -35,9 +38,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 String email = jwtUtil.extractUsername(token);
                 if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     // Pass email (String) to validateToken
-                    if (userRepository.findByEmail(email).isPresent() && jwtUtil.validateToken(token, email)) {
+                    var user = userRepository.findByEmail(email);
+                    if (user.isPresent() && jwtUtil.validateToken(token, email)) {
                         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                email, null, Collections.emptyList());
+                                email, null, authoritiesFor(user.get().getRoleId()));
                         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authToken);
                     }
@@ -48,4 +52,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    /** ROLE_ authority for a user's role id (1 admin, 2 manager, 3 driver, 4 customer, as on the login screen). */
+    public static List<GrantedAuthority> authoritiesFor(Integer roleId) {
+        if (roleId == null) return Collections.emptyList();
+        switch (roleId) {
+            case 1: return List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+            case 2: return List.of(new SimpleGrantedAuthority("ROLE_MANAGER"));
+            case 3: return List.of(new SimpleGrantedAuthority("ROLE_DRIVER"));
+            case 4: return List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"));
+            default: return Collections.emptyList();
+        }
+    }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.example.demo.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -50,8 +51,13 @@ public class SecurityConfig {
                                 "/api/feedback/all",
                                 "/api/redistribute",
                                 "/api/auth/redistribute",
+                                "/ws/**", // SockJS handshake; STOMP CONNECT carries the JWT
                                 "/error"
                         ).permitAll()
+                        // Device telemetry overwrites live unit state: drivers' devices and admins only
+                        .requestMatchers(HttpMethod.POST, "/api/telemetry/ingest").hasAnyRole("DRIVER", "ADMIN")
+                        // Retraining scans the whole trip history
+                        .requestMatchers(HttpMethod.POST, "/api/ai/eta/train").hasRole("ADMIN")
                         // ADDED: Explicitly permit or require authentication for bookings
                         .requestMatchers("/api/bookings/**").authenticated()
                         .requestMatchers("/api/bookings/all").hasRole("ADMIN")
@@ -0,0 +1,123 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authenticates STOMP sessions from the JWT in the CONNECT frame's
+ * {@code Authorization: Bearer ...} header (SockJS cannot send HTTP headers,
+ * so the handshake itself is open).
+ *
+ * The session principal is named after the numeric user id the bookings are
+ * keyed by, so {@code /user/{userId}/queue/trip} reaches exactly that user's
+ * sessions. A CONNECT without a token or with a bad one is refused: live fleet
+ * telemetry topics are no more public than {@code /api/vehicles}. SUBSCRIBE
+ * and SEND frames on a session without a principal are refused too, and only
+ * drivers and admins may SEND device telemetry ({@code /app/telemetry}), as on
+ * the HTTP ingest. Raw {@code /queue/...}
+ * subscriptions are refused too: per-user queues are only reachable through
+ * the {@code /user} prefix, which pins them to the subscriber's own session.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final String TELEMETRY_INGEST = "/app/telemetry";
+    private static final Set<String> INGEST_ROLES = Set.of("ROLE_DRIVER", "ROLE_ADMIN");
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    // Lazy: the broker channel is built before JPA repositories are ready
+    @Autowired
+    @Lazy
+    private UserRepository userRepository;
+
+    private final AtomicLong authenticated = new AtomicLong();
+    private final AtomicLong anonymous = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) return message;
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String header = accessor.getFirstNativeHeader("Authorization");
+            if (header == null || !header.startsWith("Bearer ")) {
+                anonymous.incrementAndGet();
+                rejected.incrementAndGet();
+                throw new MessageDeliveryException("AUTHENTICATION_REQUIRED");
+            }
+            User user = resolveUser(header.substring(7));
+            if (user == null) {
+                rejected.incrementAndGet();
+                throw new MessageDeliveryException("INVALID_TOKEN");
+            }
+            accessor.setUser(new UsernamePasswordAuthenticationToken(String.valueOf(user.getUserId()), null,
+                    JwtAuthenticationFilter.authoritiesFor(user.getRoleId())));
+            authenticated.incrementAndGet();
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            if (accessor.getUser() == null) {
+                rejected.incrementAndGet();
+                throw new MessageDeliveryException("AUTHENTICATION_REQUIRED");
+            }
+            if (destination != null && destination.startsWith("/queue/")) {
+                rejected.incrementAndGet();
+                throw new MessageDeliveryException("USE_USER_PREFIX");
+            }
+        } else if (StompCommand.SEND.equals(accessor.getCommand())) {
+            if (accessor.getUser() == null) {
+                rejected.incrementAndGet();
+                throw new MessageDeliveryException("AUTHENTICATION_REQUIRED");
+            }
+            if (TELEMETRY_INGEST.equals(accessor.getDestination()) && !canIngest(accessor.getUser())) {
+                rejected.incrementAndGet();
+                throw new MessageDeliveryException("FORBIDDEN");
+            }
+        }
+        return message;
+    }
+
+    private User resolveUser(String token) {
+        try {
+            String email = jwtUtil.extractUsername(token);
+            if (email == null || !jwtUtil.validateToken(token, email)) return null;
+            Optional<User> user = userRepository.findByEmail(email);
+            return user.isPresent() && user.get().getUserId() != null ? user.get() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean canIngest(Principal user) {
+        if (!(user instanceof Authentication)) return false;
+        for (GrantedAuthority authority : ((Authentication) user).getAuthorities()) {
+            if (INGEST_ROLES.contains(authority.getAuthority())) return true;
+        }
+        return false;
+    }
+
+    public long getAuthenticatedConnects() { return authenticated.get(); }
+    /** Token-less CONNECTs, all refused (also counted in {@link #getRejectedFrames()}). */
+    public long getAnonymousConnects() { return anonymous.get(); }
+    public long getRejectedFrames() { return rejected.get(); }
+}
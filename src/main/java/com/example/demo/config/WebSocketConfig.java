@@ -1,6 +1,8 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -10,11 +12,17 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a memory-based message broker to carry messages back to the client on destinations prefixed with /topic
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic", "/queue");
+        // Client -> server frames: /app/telemetry is handled by TelemetryController.ingestFrame
         config.setApplicationDestinationPrefixes("/app");
+        // Per-session replies (e.g. ingest ACK/NACK) and per-user trip updates on /user/queue/...
+        config.setUserDestinationPrefix("/user");
     }
 
     @Override
@@ -24,4 +32,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins("http://localhost:3000") // Your React URL
                 .withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // JWT on CONNECT names the session after its user, for /user/queue/trip
+        registration.interceptors(stompAuthChannelInterceptor);
+    }
 }
\ No newline at end of file
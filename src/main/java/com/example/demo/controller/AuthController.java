@@ -9,6 +9,7 @@ import com.example.demo.entity.*;
 import com.example.demo.repository.*;
 import com.example.demo.config.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,6 +21,11 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 import com.example.demo.service.VehicleRequestService;
+import com.example.demo.service.TelemetryStateStore;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.VehicleSpatialIndex;
+import com.example.demo.service.BookingStateService;
+import com.example.demo.service.TelemetrySubscriptionRegistry;
 
 @RestController
 @RequestMapping("/api")
@@ -45,6 +51,21 @@ public class AuthController {
     @Autowired
     private MaintenanceLogRepository maintenanceLogRepository;
 
+    @Autowired
+    private TelemetryStateStore telemetryStore;
+
+    @Autowired
+    private VehicleSpatialIndex spatialIndex;
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Autowired
+    private BookingStateService bookingStateService;
+
+    @Value("${redistribution.max-radius-km:5}")
+    private double redistributionRadiusKm = 5;
+
     @Autowired
     public AuthController(
             UserRepository userRepository,
@@ -229,7 +250,7 @@ public class AuthController {
     public ResponseEntity<?> getCustomerFleet(@PathVariable Long userId) {
         try {
             List<CustomerVehicle> fleet = customerVehicleRepository.findByUserId(userId);
-            return ResponseEntity.ok(fleet != null ? fleet : Collections.emptyList());
+            return ResponseEntity.ok(fleet != null ? telemetryStore.overlay(fleet) : Collections.emptyList());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error fetching fleet: " + e.getMessage());
         }
@@ -257,11 +278,13 @@ public class AuthController {
     // Fixes the AUTHORIZATION_SYNC_ERROR in image_7c8dfd.png
     @PutMapping("/admin/approve/{id}")
     public ResponseEntity<?> approveAssetSync(@PathVariable Long id) {
-        return bookingRepository.findById(id).map(booking -> {
-            booking.setStatus("APPROVED");
-            bookingRepository.save(booking);
-            return ResponseEntity.ok(Map.of("message", "AUTHORIZED_SUCCESSFULLY"));
-        }).orElse(ResponseEntity.notFound().build());
+        // Same PENDING -> APPROVED transition (and trip plan) as /api/bookings/approve
+        BookingStateService.Result result = bookingStateService.approve(id);
+        if (result.getOutcome() == BookingStateService.Outcome.NOT_FOUND) return ResponseEntity.notFound().build();
+        if (!result.isApplied()) {
+            return ResponseEntity.status(409).body(Map.of("message", "INVALID_TRANSITION", "status", result.getCurrentStatus()));
+        }
+        return ResponseEntity.ok(Map.of("message", "AUTHORIZED_SUCCESSFULLY"));
     }
     @PutMapping("/admin/vehicles/reject/{id}")
     public ResponseEntity<?> rejectVehicle(@PathVariable Long id) {
@@ -517,6 +540,34 @@ public class AuthController {
         return ResponseEntity.ok(vehicles);
     }
 
+    /**
+     * k nearest indexed vehicles to a point ({@code lat}/{@code lon}) or a
+     * place ({@code near}: sector name or "lat,lon"), nearest first.
+     */
+    @GetMapping("/vehicles/nearest")
+    public ResponseEntity<?> getNearestVehicles(@RequestParam(required = false) Double lat,
+                                                @RequestParam(required = false) Double lon,
+                                                @RequestParam(required = false) String near,
+                                                @RequestParam(defaultValue = "5") int k,
+                                                @RequestParam(defaultValue = "AVAILABLE") String status,
+                                                @RequestParam(defaultValue = "0") int minSeats) {
+        double[] point;
+        if (lat != null && lon != null) {
+            point = new double[]{lat, lon};
+        } else {
+            try {
+                point = roadGraphService.resolve(near);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("message", "Provide lat and lon, or near: " + e.getMessage()));
+            }
+        }
+        if (k < 1 || k > 1000) {
+            return ResponseEntity.badRequest().body(Map.of("message", "k must be between 1 and 1000"));
+        }
+        String wanted = "ANY".equalsIgnoreCase(status) ? null : status;
+        return ResponseEntity.ok(spatialIndex.nearest(point[0], point[1], k, wanted, minSeats));
+    }
+
     @GetMapping("/vehicles/master/{id}")
     public ResponseEntity<?> getVehicleById(@PathVariable Integer id) {
         return vehicleRepository.findById(id.longValue()) // Removed semicolon here
@@ -526,9 +577,10 @@ public class AuthController {
 
     @GetMapping("/customer/vehicles/all")
     public ResponseEntity<List<CustomerVehicle>> getAllCustomerLinks() {
-        return ResponseEntity.ok(customerVehicleRepository.findAll());
+        return ResponseEntity.ok(telemetryStore.overlay(customerVehicleRepository.findAll()));
     }
 
+    @Transactional
     @PutMapping("/vehicles/authorize-service/{id}")
     public ResponseEntity<?> authorizeService(@PathVariable Integer id, Authentication auth) {
         return vehicleRepository.findById(id.longValue()).map(v -> {
@@ -546,13 +598,13 @@ public class AuthController {
             v.setStatus("AVAILABLE");
             vehicleRepository.save(v);
 
-            customerVehicleRepository.findAll().stream()
-                    .filter(cv -> cv.getVehicleId().equals(v.getId().longValue()))
-                    .forEach(cv -> {
-                        cv.setStatus("approved");
-                        cv.setMaintenanceIssue(null);
-                        customerVehicleRepository.save(cv);
-                    });
+            // One batched UPDATE for all links of this unit, committed with the reset above
+            List<CustomerVehicle> links = customerVehicleRepository.findByVehicleId(v.getId());
+            links.forEach(cv -> {
+                cv.setStatus("approved");
+                cv.setMaintenanceIssue(null);
+            });
+            customerVehicleRepository.saveAll(links);
 
             return ResponseEntity.ok(Map.of("status", "success", "message", "SERVICE_LOGGED_AND_RESET"));
         }).orElse(ResponseEntity.notFound().build());
@@ -575,11 +627,33 @@ public class AuthController {
             String toSector = (String) payload.get("toSector");
             int unitCount = Integer.parseInt(payload.get("unitCount").toString());
 
-            Pageable limit = PageRequest.of(0, unitCount);
-
-            List<Vehicle> unitsToMove = vehicleRepository.findTopNByLocationAndStatus(
-                    fromSector, "AVAILABLE", limit
-            );
+            double[] origin = resolveOrNull(fromSector);
+            double[] destination = resolveOrNull(toSector);
+
+            // Available units within the redistribution radius of the origin, nearest first,
+            // skipping any already in the target sector; exact sector match otherwise
+            List<Vehicle> unitsToMove = new ArrayList<>();
+            if (origin != null && spatialIndex != null && spatialIndex.size() > 0) {
+                List<Long> ids = new ArrayList<>();
+                for (VehicleSpatialIndex.Neighbor n : spatialIndex.within(origin[0], origin[1],
+                        redistributionRadiusKm * 1000, "AVAILABLE", 0)) {
+                    ids.add(n.getId());
+                }
+                String targetKey = TelemetrySubscriptionRegistry.sectorKey(toSector);
+                Map<Long, Vehicle> byId = new HashMap<>();
+                for (Vehicle v : vehicleRepository.findAllById(ids)) byId.put(v.getId(), v);
+                for (Long id : ids) {
+                    if (unitsToMove.size() == unitCount) break;
+                    Vehicle v = byId.get(id);
+                    if (v == null || !"AVAILABLE".equalsIgnoreCase(v.getStatus())) continue;
+                    if (targetKey != null && targetKey.equals(TelemetrySubscriptionRegistry.sectorKey(v.getLocation()))) continue;
+                    unitsToMove.add(v);
+                }
+            }
+            if (unitsToMove.isEmpty()) {
+                Pageable limit = PageRequest.of(0, unitCount);
+                unitsToMove = vehicleRepository.findTopNByLocationAndStatus(fromSector, "AVAILABLE", limit);
+            }
 
             if (unitsToMove.isEmpty()) {
                 return ResponseEntity.badRequest()
@@ -589,6 +663,8 @@ public class AuthController {
             for (Vehicle vehicle : unitsToMove) {
                 vehicle.setLocation(toSector);
                 vehicle.setSpeed(0.0);
+                vehicle.setLatitude(destination != null ? destination[0] : null);
+                vehicle.setLongitude(destination != null ? destination[1] : null);
             }
 
             vehicleRepository.saveAll(unitsToMove);
@@ -606,6 +682,15 @@ public class AuthController {
         }
     }
 
+    private double[] resolveOrNull(String place) {
+        if (roadGraphService == null) return null;
+        try {
+            return roadGraphService.resolve(place);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     // --- 13. TRIP LIFECYCLE ---
    /* @PutMapping({"/driver/trip/status/{id:.+}", "/driver/trip/status/{id}"})
     public ResponseEntity<?> confirmPickup(@PathVariable String id) {
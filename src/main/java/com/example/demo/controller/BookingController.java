@@ -1,16 +1,27 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.StompAuthChannelInterceptor;
 import com.example.demo.entity.Booking;
 import com.example.demo.entity.TripHistory;
+import com.example.demo.model.BookingTicket;
 import com.example.demo.repository.BookingRepository;
 import com.example.demo.repository.TripHistoryRepository;
 import com.example.demo.repository.VehicleRepository;
+import com.example.demo.service.ActiveTripEngine;
+import com.example.demo.service.BookingIntakeService;
+import com.example.demo.service.BookingStateService;
+import com.example.demo.service.IdempotencyStore;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.TripUpdatePublisher;
+import com.example.demo.service.VehicleMatchingService;
+import com.example.demo.service.VehicleSpatialIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.*;
 
 @RestController
@@ -27,131 +38,215 @@ public class BookingController {
     @Autowired
     private VehicleRepository vehicleRepository;
 
-    // --- DASHBOARD SYNC & LIVE SIMULATION ---
+    @Autowired
+    private VehicleSpatialIndex spatialIndex;
 
-    @GetMapping("/bookings/user/{userId}")
-    public ResponseEntity<?> getBookingsByUser(@PathVariable String userId) {
-        List<Booking> bookings = bookingRepository.findByUserId(userId);
+    @Autowired
+    private RoadGraphService roadGraphService;
 
-        if (bookings != null) {
-            for (Booking b : bookings) {
-                // Real-time calculation for active missions
-                if ("TRIP_ACTIVE".equals(b.getStatus())) {
-                    simulateLiveMetrics(b);
-                }
-            }
-        }
-        return ResponseEntity.ok(bookings != null ? bookings : Collections.emptyList());
-    }
+    @Autowired
+    private BookingStateService bookingStateService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private BookingIntakeService bookingIntakeService;
+
+    @Autowired
+    private ActiveTripEngine activeTripEngine;
+
+    @Autowired
+    private TripUpdatePublisher tripUpdates;
 
-    private void simulateLiveMetrics(Booking b) {
-        // Mission Parameters: 248.25 KM trip (e.g., Chennai route)
-        double totalDist = 248.25;
-        long totalMinutes = 192; // Approx 3.2 hours
+    @Autowired
+    private StompAuthChannelInterceptor stompAuth;
 
-        long minutesElapsed = Duration.between(b.getBookingTime(), LocalDateTime.now()).toMinutes();
+    @Autowired
+    private VehicleMatchingService vehicleMatchingService;
 
-        // Calculate Distance and Progress
-        double distanceCovered = (double) minutesElapsed * (totalDist / totalMinutes);
-        double remainingDist = Math.max(0, totalDist - distanceCovered);
-        int progress = (int) Math.min(100, (distanceCovered / totalDist) * 100);
+    // --- DASHBOARD SYNC & LIVE SIMULATION ---
 
-        // Calculate Energy Drain (Starts at 100%, drops as progress increases)
-        int energyLeft = Math.max(0, 100 - progress);
+    @GetMapping("/bookings/user/{userId}")
+    public ResponseEntity<?> getBookingsByUser(@PathVariable String userId) {
+        // Pre-encoded by the trip engine tick: no query, no per-request metrics
+        byte[] snapshot = activeTripEngine.snapshot(userId);
+        if (snapshot != null) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(snapshot);
+        }
+        List<Booking> bookings = bookingRepository.findByUserId(userId);
+        return ResponseEntity.ok(bookings != null ? activeTripEngine.render(bookings) : Collections.emptyList());
+    }
 
-        // Generate dynamic Velocity (60-80 KM/H)
-        int currentVelocity = 60 + new Random().nextInt(20);
+    // Live engine and push counters: connections, messages per event, send latency
+    @GetMapping("/bookings/live/stats")
+    public ResponseEntity<?> getLiveStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("engine", activeTripEngine.stats());
+        Map<String, Object> push = new LinkedHashMap<>(tripUpdates.stats());
+        push.put("authenticatedConnects", stompAuth.getAuthenticatedConnects());
+        push.put("anonymousConnects", stompAuth.getAnonymousConnects());
+        push.put("rejectedFrames", stompAuth.getRejectedFrames());
+        stats.put("push", push);
+        stats.put("idempotency", idempotencyStore.stats());
+        stats.put("intake", bookingIntakeService.stats());
+        return ResponseEntity.ok(stats);
+    }
 
-        // Update Entity fields for JSON response
-        b.setDistance(String.format("%.2f", remainingDist));
-        b.setDuration(String.format("%.1f", Math.max(0, 3.2 - (minutesElapsed / 60.0))));
-        b.setProgress(progress);
-        b.setVelocity(String.valueOf(currentVelocity));
-        b.setEnergy(energyLeft);
+    /** Pushes the user's refreshed bookings on /user/queue/trip; the save has committed, so the engine is current. */
+    private void pushTripUpdate(String userId, String event) {
+        if (tripUpdates != null && activeTripEngine != null) {
+            tripUpdates.push(userId, event, activeTripEngine.snapshot(userId));
+        }
     }
 
     // --- AUTHORIZATION LOGIC ---
 
+    // Optional Idempotency-Key header on every transition: a retried request replays the first response.
+    // Keys are per caller and pinned to the booking / user / body they were first sent with.
+
     @PutMapping("/bookings/approve/{id}")
-    public ResponseEntity<?> approveBooking(@PathVariable String id) {
+    public ResponseEntity<?> approveBooking(@PathVariable String id,
+                                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                            Authentication authentication) {
+        Long numericId;
         try {
-            Long numericId = Long.parseLong(id.contains(":") ? id.split(":")[0] : id);
-            Optional<Booking> booking = bookingRepository.findById(numericId);
-
-            if (booking.isPresent()) {
-                Booking b = booking.get();
-                b.setStatus("APPROVED");
-                b.setDistance("248.25");
-                b.setDuration("3.2");
-                b.setProgress(0);
-                b.setEnergy(100);
-                bookingRepository.save(b);
-                return ResponseEntity.ok(Map.of("message", "BOOKING_AUTHORIZED", "status", "success"));
-            }
-            return ResponseEntity.status(404).body(Map.of("message", "ID not found"));
-        } catch (Exception e) {
+            numericId = Long.parseLong(id.contains(":") ? id.split(":")[0] : id);
+        } catch (NumberFormatException e) {
             return ResponseEntity.status(400).body(Map.of("message", "ERROR"));
         }
+        return idempotencyStore.execute("approve", caller(authentication), "booking:" + numericId, idempotencyKey, () -> {
+            BookingStateService.Result result = bookingStateService.approve(numericId);
+            if (result.getOutcome() == BookingStateService.Outcome.NOT_FOUND) {
+                return ResponseEntity.status(404).body(Map.of("message", "ID not found"));
+            }
+            if (!result.isApplied()) return conflict(result);
+            pushTripUpdate(result.getBooking().getUserId(), "APPROVED");
+            return ResponseEntity.ok(Map.of("message", "BOOKING_AUTHORIZED", "status", "success"));
+        });
     }
 
-    // --- BOOKING WORKFLOW ---
+    @PutMapping("/bookings/reject/{id}")
+    public ResponseEntity<?> rejectBooking(@PathVariable Long id,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                           Authentication authentication) {
+        return idempotencyStore.execute("reject", caller(authentication), "booking:" + id, idempotencyKey, () -> {
+            BookingStateService.Result result = bookingStateService.reject(id);
+            if (result.getOutcome() == BookingStateService.Outcome.NOT_FOUND) {
+                return ResponseEntity.status(404).body(Map.of("message", "ID not found"));
+            }
+            if (!result.isApplied()) return conflict(result);
+            Booking rejected = activeTripEngine.find(id);
+            if (rejected != null) pushTripUpdate(rejected.getUserId(), "REJECTED");
+            return ResponseEntity.ok(Map.of("message", "BOOKING_REJECTED", "status", "success"));
+        });
+    }
 
-    @PostMapping("/bookings/create")
-    public ResponseEntity<?> createBooking(@RequestBody Booking booking) {
-        booking.setStatus("PENDING");
-        booking.setDistance("248.25");
-        booking.setDuration("3.2");
-        booking.setProgress(0);
-        booking.setEnergy(100);
-        booking.setVelocity("0");
-        Booking saved = bookingRepository.save(booking);
-        return ResponseEntity.ok(Map.of("message", "SYNC_INITIALIZED", "id", saved.getId()));
+    // Lost a race or out of order: 409 with the state the booking is actually in
+    private static ResponseEntity<?> conflict(BookingStateService.Result result) {
+        return ResponseEntity.status(409).body(Map.of("message", "INVALID_TRANSITION",
+                "status", result.getCurrentStatus()));
     }
 
-    @PutMapping("/driver/trip/status/{userId}")
-    public ResponseEntity<?> confirmPickup(@PathVariable String userId) {
-        List<Booking> bookings = bookingRepository.findByUserId(userId);
-        Optional<Booking> target = bookings.stream()
-                .filter(b -> "APPROVED".equals(b.getStatus()))
-                .findFirst();
+    private static String caller(Authentication authentication) {
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
 
-        if (target.isEmpty()) return ResponseEntity.status(404).body(Map.of("message", "NOT_FOUND"));
+    // --- BOOKING WORKFLOW ---
 
-        Booking b = target.get();
-        b.setStatus("TRIP_ACTIVE");
-        b.setBookingTime(LocalDateTime.now()); // Mark start time for the clock
-        bookingRepository.save(b);
-        return ResponseEntity.ok(Map.of("message", "TRIP_ACTIVE", "status", "TRIP_ACTIVE"));
+    @PostMapping("/bookings/create")
+    public ResponseEntity<?> createBooking(@RequestBody Booking booking,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                           Authentication authentication) {
+        return idempotencyStore.execute("create", caller(authentication), createTarget(booking), idempotencyKey,
+                () -> create(booking));
     }
 
-    @PutMapping("/driver/trip/drop/{userId}")
-    public ResponseEntity<?> completeTrip(@PathVariable String userId) {
-        List<Booking> bookings = bookingRepository.findByUserId(userId);
-        Optional<Booking> active = bookings.stream()
-                .filter(b -> "TRIP_ACTIVE".equals(b.getStatus()))
-                .findFirst();
+    // The fields a client chooses; a retry must resend the same booking
+    private static String createTarget(Booking booking) {
+        if (booking == null) return "";
+        return String.join("|", String.valueOf(booking.getUserId()), String.valueOf(booking.getVehicleModel()),
+                String.valueOf(booking.getPickupLocation()), String.valueOf(booking.getDropLocation()),
+                String.valueOf(booking.getAssignedVehicleId()));
+    }
 
-        if (active.isEmpty()) return ResponseEntity.status(404).body(Map.of("message", "NO_ACTIVE_TRIP"));
+    // Queued, not saved: 202 with a ticket right away; the intake consumer plans and commits in batches
+    private ResponseEntity<?> create(Booking booking) {
+        String missing = BookingIntakeService.missingField(booking);
+        if (missing != null) {
+            return ResponseEntity.badRequest().body(Map.of("message", missing));
+        }
+        BookingTicket ticket = bookingIntakeService.submit(booking);
+        if (ticket == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .body(Map.of("message", "INTAKE_BUSY"));
+        }
 
-        Booking current = active.get();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("message", "SYNC_INITIALIZED");
+        response.put("ticket", ticket.getTicket());
+        response.put("status", ticket.getStatus());
+        // Closest available unit to the pickup, when the pickup resolves to a point
+        VehicleSpatialIndex.Neighbor nearest = nearestAvailable(booking.getPickupLocation());
+        if (nearest != null) {
+            response.put("nearestVehicleId", nearest.getId());
+            response.put("nearestVehicleMeters", Math.round(nearest.getDistanceMeters()));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
 
-        // Before deleting, simulate metrics one last time to get final values
-        simulateLiveMetrics(current);
+    // QUEUED until the intake batch commits, then COMMITTED with bookingId (or REJECTED / FAILED with a message)
+    @GetMapping("/bookings/ticket/{ticket}")
+    public ResponseEntity<?> getTicket(@PathVariable String ticket) {
+        BookingTicket found = bookingIntakeService.ticket(ticket);
+        if (found == null) {
+            return ResponseEntity.status(404).body(Map.of("message", "TICKET_NOT_FOUND"));
+        }
+        return ResponseEntity.ok(found);
+    }
 
-        // Save to History
-        TripHistory history = new TripHistory();
-        history.setUserId(current.getUserId());
-        history.setVehicleModel(current.getVehicleModel());
-        history.setPickupLocation(current.getPickupLocation());
-        history.setDropLocation(current.getDropLocation());
-        history.setDistance("248.25"); // Log total distance
-        history.setDuration("3.2");
-        history.setCompletedAt(LocalDateTime.now());
+    private VehicleSpatialIndex.Neighbor nearestAvailable(String place) {
+        if (spatialIndex == null || roadGraphService == null || place == null) return null;
+        try {
+            double[] point = roadGraphService.resolve(place);
+            List<VehicleSpatialIndex.Neighbor> found = spatialIndex.nearest(point[0], point[1], 1, "AVAILABLE", 0);
+            return found.isEmpty() ? null : found.get(0);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
-        tripHistoryRepository.save(history);
-        bookingRepository.delete(current);
+    @PutMapping("/driver/trip/status/{userId}")
+    public ResponseEntity<?> confirmPickup(@PathVariable String userId,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                           Authentication authentication) {
+        return idempotencyStore.execute("pickup", caller(authentication), "user:" + userId, idempotencyKey, () -> {
+            // One conditional UPDATE: the trip clock starts only if the booking is still APPROVED
+            BookingStateService.Result result = bookingStateService.start(userId);
+            if (result.getOutcome() == BookingStateService.Outcome.NOT_FOUND) {
+                return ResponseEntity.status(404).body(Map.of("message", "NOT_FOUND"));
+            }
+            if (!result.isApplied()) return conflict(result);
+            pushTripUpdate(userId, "PICKED_UP");
+            return ResponseEntity.ok(Map.of("message", "TRIP_ACTIVE", "status", "TRIP_ACTIVE"));
+        });
+    }
 
-        return ResponseEntity.ok(Map.of("message", "NODE_RELEASED", "status", "SUCCESS"));
+    @PutMapping("/driver/trip/drop/{userId}")
+    public ResponseEntity<?> completeTrip(@PathVariable String userId,
+                                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                          Authentication authentication) {
+        return idempotencyStore.execute("drop", caller(authentication), "user:" + userId, idempotencyKey, () -> {
+            // Conditional delete and history insert in one transaction: recorded exactly once
+            BookingStateService.Result result = bookingStateService.complete(userId);
+            if (result.getOutcome() == BookingStateService.Outcome.NOT_FOUND) {
+                return ResponseEntity.status(404).body(Map.of("message", "NO_ACTIVE_TRIP"));
+            }
+            if (!result.isApplied()) return conflict(result);
+            pushTripUpdate(userId, "DROPPED");
+            return ResponseEntity.ok(Map.of("message", "NODE_RELEASED", "status", "SUCCESS"));
+        });
     }
 
     // --- DASHBOARD ANALYTICS ---
@@ -170,6 +265,23 @@ public class BookingController {
         return ResponseEntity.ok(bookingRepository.findAll());
     }
 
+    // --- VEHICLE MATCHING ---
+
+    // Solves every unassigned PENDING booking against the available fleet at once and reserves the pairs
+    @PostMapping("/bookings/match")
+    public ResponseEntity<?> matchPendingBookings() {
+        try {
+            return ResponseEntity.ok(vehicleMatchingService.matchPending());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", "MATCHING_ERROR: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/bookings/match/stats")
+    public ResponseEntity<?> getMatchingStats() {
+        return ResponseEntity.ok(vehicleMatchingService.stats());
+    }
+
     @GetMapping("/driver/trips/history/{userId}")
     public ResponseEntity<List<TripHistory>> getHistory(@PathVariable String userId) {
         return ResponseEntity.ok(tripHistoryRepository.findByUserIdOrderByCompletedAtDesc(userId));
@@ -1,19 +1,202 @@
-/*package com.example.demo.controller;
+package com.example.demo.controller;
 
+import com.example.demo.model.EncodedRoute;
+import com.example.demo.model.MatrixRequest;
 import com.example.demo.model.RouteResponse;
 import com.example.demo.service.AiRouteService;
+import com.example.demo.service.DistanceMatrixService;
+import com.example.demo.service.EtaPredictionService;
+import com.example.demo.service.IsochroneService;
+import com.example.demo.service.LoadOptimizerService;
+import com.example.demo.service.PolylineCodec;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.TrafficOverlay;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/ai")
 @CrossOrigin(origins = "http://localhost:3000")
 public class RouteController {
+    private static final MediaType POLYLINE_JSON = MediaType.parseMediaType(PolylineCodec.POLYLINE_JSON);
+
     @Autowired
     private AiRouteService aiRouteService;
 
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Autowired
+    private TrafficOverlay trafficOverlay;
+
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    @Autowired
+    private LoadOptimizerService loadOptimizerService;
+
+    @Autowired
+    private EtaPredictionService etaPredictionService;
+
+    @Autowired
+    private IsochroneService isochroneService;
+
+    // from / to: place name ("Sector 7G") or "lat,lon"; algorithm: ch (default) | astar | bidirectional
+    // zoom (0-22): drop points that would move the line by less than half a map pixel
+    // Accept: application/json (coordinate pairs, default) | application/vnd.neurofleet.polyline+json
+    //         (encoded polyline, precision 5) | application/octet-stream (delta-varint, precision 6, metrics in headers)
     @GetMapping("/route")
-    public RouteResponse getRoute(@RequestParam String from, @RequestParam String to) {
-        return aiRouteService.getOptimizedRoute(from, to);
+    public ResponseEntity<?> getRoute(@RequestParam String from, @RequestParam String to,
+                                      @RequestParam(required = false) String algorithm,
+                                      @RequestParam(required = false) Integer zoom,
+                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        try {
+            MediaType format = negotiate(accept);
+            RouteResponse route = aiRouteService.getOptimizedRoute(from, to, algorithm);
+            if (route == null) {
+                return ResponseEntity.status(404).contentType(MediaType.APPLICATION_JSON).body(Map.of("message", "NO_ROUTE"));
+            }
+            double[] path = route.getPath();
+            if (zoom != null && path.length > 0) {
+                path = PolylineCodec.simplify(path, PolylineCodec.toleranceForZoom(zoom, path[0]));
+            }
+
+            if (MediaType.APPLICATION_OCTET_STREAM.equals(format)) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header("X-Route-Distance-Km", String.valueOf(route.getTotalDistance()))
+                        .header("X-Route-Eta-Minutes", String.valueOf(route.getEstimatedTime()))
+                        .body(PolylineCodec.encodeBinary(path, 6));
+            }
+            if (POLYLINE_JSON.equals(format)) {
+                return ResponseEntity.ok().contentType(POLYLINE_JSON)
+                        .body(new EncodedRoute(route, PolylineCodec.encode(path, 5), 5, path.length / 2));
+            }
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(path == route.getPath() ? route : route.withPath(path));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Highest-quality acceptable route format; JSON when nothing more specific is asked for
+    private static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) return MediaType.APPLICATION_JSON;
+        List<MediaType> types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        types.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : types) {
+            if (type.getQualityValue() == 0) continue;
+            if (type.equalsTypeAndSubtype(POLYLINE_JSON)) return POLYLINE_JSON;
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_OCTET_STREAM)) return MediaType.APPLICATION_OCTET_STREAM;
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) return MediaType.APPLICATION_JSON;
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    // Body: {"origins": [...], "destinations": [...]} as place names or "lat,lon"; durations in s, distances in m
+    @PostMapping("/matrix")
+    public ResponseEntity<?> getMatrix(@RequestBody MatrixRequest request) {
+        try {
+            return ResponseEntity.ok(distanceMatrixService.compute(request.getOrigins(), request.getDestinations()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Assigns PENDING bookings to AVAILABLE vehicles with stop sequences; budgetMs caps the search time
+    @PostMapping("/load-plan")
+    public ResponseEntity<?> getLoadPlan(@RequestParam(required = false) Long budgetMs) {
+        try {
+            return ResponseEntity.ok(loadOptimizerService.optimize(budgetMs));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Trip duration from the ETA model: give distanceKm, or from / to to use the road route's distance
+    @GetMapping("/eta")
+    public ResponseEntity<?> getEta(@RequestParam(required = false) Double distanceKm,
+                                    @RequestParam(required = false) String from,
+                                    @RequestParam(required = false) String to,
+                                    @RequestParam(required = false) String vehicleModel) {
+        try {
+            double km;
+            if (distanceKm != null) {
+                km = distanceKm;
+            } else {
+                RouteResponse route = aiRouteService.getOptimizedRoute(from, to);
+                if (route == null) return ResponseEntity.status(404).body(Map.of("message", "NO_ROUTE"));
+                km = route.getTotalDistance();
+            }
+            if (!(km >= 0)) return ResponseEntity.badRequest().body(Map.of("message", "distanceKm must be >= 0"));
+            Map<String, Object> eta = new LinkedHashMap<>();
+            eta.put("distanceKm", km);
+            eta.put("estimatedMinutes", etaPredictionService.predictMinutes(km, LocalDateTime.now(), vehicleModel));
+            eta.put("source", etaPredictionService.getModel() != null ? "MODEL" : "FALLBACK");
+            return ResponseEntity.ok(eta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Retrains the ETA model from trip history and swaps it in; reports holdout accuracy (ADMIN only)
+    @PostMapping("/eta/train")
+    public Map<String, Object> trainEta() {
+        return etaPredictionService.train();
+    }
+
+    @GetMapping("/eta/model")
+    public Map<String, Object> getEtaModel() {
+        return etaPredictionService.stats();
+    }
+
+    // Area reachable within `minutes` under current traffic from a place name or "lat,lon"
+    @GetMapping("/isochrone")
+    public ResponseEntity<?> getIsochrone(@RequestParam String place, @RequestParam(defaultValue = "15") int minutes) {
+        try {
+            return ResponseEntity.ok(isochroneService.compute(place, minutes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Per-sector isochrones with the available units inside, coverage gaps and suggested redistribution moves
+    @GetMapping("/coverage")
+    public ResponseEntity<?> getCoverage(@RequestParam(defaultValue = "10") int minutes) {
+        try {
+            return ResponseEntity.ok(isochroneService.coverage(minutes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/isochrone/cache")
+    public Map<String, Object> getIsochroneCache() {
+        return isochroneService.stats();
+    }
+
+    @GetMapping("/graph")
+    public Map<String, Object> getGraph() {
+        return roadGraphService.stats();
+    }
+
+    @GetMapping("/traffic")
+    public Map<String, Object> getTraffic() {
+        return trafficOverlay.stats();
+    }
+
+    @GetMapping("/route/cache")
+    public Map<String, Object> getRouteCache() {
+        return aiRouteService.getCacheStats();
     }
-}*/
\ No newline at end of file
+}
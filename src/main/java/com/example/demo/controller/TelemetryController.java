@@ -0,0 +1,145 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.LiveTelemetry;
+import com.example.demo.model.TelemetryHistory;
+import com.example.demo.model.TelemetryReading;
+import com.example.demo.service.ShardedTelemetrySimulator;
+import com.example.demo.service.TelemetryFramePublisher;
+import com.example.demo.service.TelemetryHistoryStore;
+import com.example.demo.service.TelemetryIngestService;
+import com.example.demo.service.TelemetryStateStore;
+import com.example.demo.service.TelemetryTickScheduler;
+import com.example.demo.service.TelemetrySubscriptionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/telemetry")
+@CrossOrigin(origins = "http://localhost:3000")
+public class TelemetryController {
+
+    @Autowired
+    private TelemetryStateStore telemetryStore;
+
+    @Autowired
+    private ShardedTelemetrySimulator shardedSimulator;
+
+    @Autowired
+    private TelemetryIngestService ingestService;
+
+    @Autowired
+    private TelemetryHistoryStore historyStore;
+
+    @Autowired
+    private TelemetrySubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private TelemetryFramePublisher framePublisher;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    // --- LIVE READS (served from memory, never MySQL) ---
+
+    @GetMapping("/live")
+    public ResponseEntity<List<LiveTelemetry>> getLiveTelemetry() {
+        return ResponseEntity.ok(telemetryStore.snapshot());
+    }
+
+    @GetMapping("/live/{vehicleId}")
+    public ResponseEntity<?> getLiveTelemetry(@PathVariable Long vehicleId) {
+        LiveTelemetry live = telemetryStore.get(vehicleId);
+        if (live == null) {
+            return ResponseEntity.status(404).body(Map.of("message", "UNIT_NOT_TRACKED"));
+        }
+        return ResponseEntity.ok(live);
+    }
+
+    // Who is listening: fleet, per-sector and per-unit topic counts
+    @GetMapping("/subscriptions")
+    public ResponseEntity<Map<String, Object>> getSubscriptionStats() {
+        return ResponseEntity.ok(subscriptionRegistry.stats());
+    }
+
+    // Encode/send counters, keyframe cache hits and bytes allocated by the last broadcast tick
+    @GetMapping("/broadcast/stats")
+    public ResponseEntity<Map<String, Object>> getBroadcastStats() {
+        return ResponseEntity.ok(framePublisher.stats());
+    }
+
+    // --- HISTORY (memory-mapped segments, never MySQL) ---
+
+    // from/to are epoch millis; defaults to the last hour. resolution: auto | raw | 1m | 1h
+    @GetMapping("/{vehicleId}/range")
+    public ResponseEntity<?> getTelemetryRange(@PathVariable Long vehicleId,
+                                               @RequestParam(required = false) Long from,
+                                               @RequestParam(required = false) Long to,
+                                               @RequestParam(defaultValue = "auto") String resolution) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - 3_600_000L;
+        if (start >= end) {
+            return ResponseEntity.badRequest().body(Map.of("message", "INVALID_RANGE"));
+        }
+        try {
+            TelemetryHistory history = historyStore.range(vehicleId, start, end, resolution);
+            return ResponseEntity.ok(history);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/history/stats")
+    public ResponseEntity<Map<String, Object>> getHistoryStats() {
+        return ResponseEntity.ok(historyStore.stats());
+    }
+
+    // --- DEVICE INGEST ---
+
+    // Batch HTTP intake: 202 when every reading was queued, 429 when the buffer filled up
+    @PostMapping("/ingest")
+    public ResponseEntity<?> ingest(@RequestBody List<TelemetryReading> readings) {
+        int accepted = ingestService.offerAll(readings);
+        int rejected = readings.size() - accepted;
+        Map<String, Object> body = Map.of("accepted", accepted, "rejected", rejected);
+        if (rejected > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .body(body);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+    }
+
+    // STOMP intake on /app/telemetry; ACK/NACK goes back on /user/queue/telemetry-ack
+    @MessageMapping("/telemetry")
+    @SendToUser("/queue/telemetry-ack")
+    public Map<String, Object> ingestFrame(List<TelemetryReading> readings) {
+        int accepted = ingestService.offerAll(readings);
+        int rejected = readings.size() - accepted;
+        return Map.of("status", rejected == 0 ? "ACK" : "NACK", "accepted", accepted, "rejected", rejected);
+    }
+
+    @GetMapping("/ingest/stats")
+    public ResponseEntity<Map<String, Object>> getIngestStats() {
+        return ResponseEntity.ok(ingestService.stats());
+    }
+
+    // --- SCHEDULING / LOAD GENERATOR ---
+
+    // Per job: tick duration, start lag, overruns and skipped / caught-up ticks
+    @GetMapping("/scheduler")
+    public ResponseEntity<Map<String, Object>> getSchedulerStats() {
+        return ResponseEntity.ok(tickScheduler.stats());
+    }
+
+    @GetMapping("/simulator")
+    public ResponseEntity<Map<String, Object>> getSimulatorStats() {
+        return ResponseEntity.ok(shardedSimulator.stats());
+    }
+}
@@ -6,8 +6,11 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "audit_logs")
 public class AuditLog {
+    // Pooled table ids (MySQL has no sequences) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "audit_logs_ids")
+    @TableGenerator(name = "audit_logs_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "audit_logs", allocationSize = 50)
     private Long id;
 
     private String vehicleModel;
@@ -1,14 +1,19 @@
 package com.example.demo.entity;
 
+import com.example.demo.service.BookingChangeListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "booking")
+@EntityListeners(BookingChangeListener.class)
 public class Booking {
 
+    // Pooled table ids (MySQL has no sequences) so the intake queue's inserts go out as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "booking_ids")
+    @TableGenerator(name = "booking_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "booking", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id")
@@ -18,7 +23,16 @@ public class Booking {
     private String vehicleModel;
 
     @Column(name = "status")
-    private String status; // PENDING, APPROVED, TRIP_ACTIVE, REJECTED
+    private String status; // BookingStatus: PENDING, APPROVED, TRIP_ACTIVE, REJECTED
+
+    // Optimistic lock; conditional status updates bump it too. Existing rows start at 0
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Unit reserved by the matching engine (set with a conditional UPDATE); null until matched
+    @Column(name = "assigned_vehicle_id")
+    private Long assignedVehicleId;
 
     @Column(name = "pickup_location")
     private String pickupLocation;
@@ -61,6 +75,12 @@ public class Booking {
     public String getVehicleModel() { return vehicleModel; }
     public void setVehicleModel(String vehicleModel) { this.vehicleModel = vehicleModel; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public Long getAssignedVehicleId() { return assignedVehicleId; }
+    public void setAssignedVehicleId(Long assignedVehicleId) { this.assignedVehicleId = assignedVehicleId; }
+
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
@@ -0,0 +1,44 @@
+package com.example.demo.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Booking lifecycle. The column stays a plain string (the dashboards filter
+ * on it), this enum only says which moves are legal:
+ * <pre>
+ *   PENDING -> APPROVED -> TRIP_ACTIVE -> COMPLETED
+ *      \           \
+ *       +-----------+--> REJECTED
+ * </pre>
+ * A COMPLETED booking leaves the bookings table: it lives on as its
+ * trip_history row.
+ */
+public enum BookingStatus {
+    PENDING, APPROVED, TRIP_ACTIVE, COMPLETED, REJECTED;
+
+    /** States that may move to this one. */
+    public Set<BookingStatus> sources() {
+        switch (this) {
+            case APPROVED: return EnumSet.of(PENDING);
+            case TRIP_ACTIVE: return EnumSet.of(APPROVED);
+            case COMPLETED: return EnumSet.of(TRIP_ACTIVE);
+            case REJECTED: return EnumSet.of(PENDING, APPROVED);
+            default: return Collections.emptySet();
+        }
+    }
+
+    public boolean canMoveTo(BookingStatus target) {
+        return target.sources().contains(this);
+    }
+
+    /** Column values of {@link #sources()}, for {@code WHERE status IN (...)}. */
+    public List<String> sourceNames() {
+        List<String> names = new ArrayList<>();
+        for (BookingStatus source : sources()) names.add(source.name());
+        return names;
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.demo.entity;
 
+import com.example.demo.service.CustomerVehicleChangeListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "customer_vehicles")
+@EntityListeners(CustomerVehicleChangeListener.class)
+@DynamicUpdate // status edits must not overwrite telemetry columns owned by the write-behind flusher
 public class CustomerVehicle {
 
+    // Pooled table ids (MySQL has no sequences) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "customer_vehicles_ids")
+    @TableGenerator(name = "customer_vehicles_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "customer_vehicles", allocationSize = 50)
     private Long id;
 
     private Long userId;
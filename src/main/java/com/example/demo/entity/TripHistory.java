@@ -6,8 +6,11 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "trip_history")
 public class TripHistory {
+    // Pooled table ids (MySQL has no sequences) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "trip_history_ids")
+    @TableGenerator(name = "trip_history_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "trip_history", allocationSize = 50)
     private Long id;
 
     private String userId;
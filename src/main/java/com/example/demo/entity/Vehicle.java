@@ -1,14 +1,19 @@
 package com.example.demo.entity;
 
+import com.example.demo.service.VehicleChangeListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "vehicles")
+@EntityListeners(VehicleChangeListener.class)
 public class Vehicle {
+    // Pooled table ids (MySQL has no sequences) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "vehicles_ids")
+    @TableGenerator(name = "vehicles_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "vehicles", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -22,6 +27,10 @@ public class Vehicle {
     @Column(name = "sector")
     private String sector;
 
+    // Last known position; live telemetry fixes take precedence in VehicleSpatialIndex
+    private Double latitude;
+    private Double longitude;
+
     private Integer fuel;
 
     // Field is Double
@@ -59,6 +68,12 @@ public class Vehicle {
     public String getSector() { return sector; }
     public void setSector(String sector) { this.sector = sector; }
 
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+
     public Integer getFuel() { return fuel; }
     public void setFuel(Integer fuel) { this.fuel = fuel; }
 
@@ -0,0 +1,59 @@
+package com.example.demo.model;
+
+/**
+ * Receipt for a booking accepted into the intake queue. Starts QUEUED and
+ * ends COMMITTED (with the booking id), REJECTED (failed validation) or
+ * FAILED (the insert did not go through); {@code message} says why.
+ * {@code vehicleId} follows once the matching engine reserves a unit.
+ */
+public class BookingTicket {
+    public static final String QUEUED = "QUEUED";
+    public static final String COMMITTED = "COMMITTED";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";
+
+    private String ticket;
+    private String userId;
+    private volatile String status = QUEUED;
+    private volatile Long bookingId;
+    private volatile String message;
+    private volatile Long vehicleId;
+    private long queuedAt;
+    private volatile long resolvedAt;
+
+    public BookingTicket() {}
+
+    public BookingTicket(String ticket, String userId, long queuedAt) {
+        this.ticket = ticket;
+        this.userId = userId;
+        this.queuedAt = queuedAt;
+    }
+
+    /** Sets the final state; bookingId before status, so a reader seeing COMMITTED also sees the id. */
+    public void resolve(String status, Long bookingId, String message) {
+        this.bookingId = bookingId;
+        this.message = message;
+        this.resolvedAt = System.currentTimeMillis();
+        this.status = status;
+    }
+
+    public boolean isResolved() { return !QUEUED.equals(status); }
+
+    // Getters and Setters
+    public String getTicket() { return ticket; }
+    public void setTicket(String ticket) { this.ticket = ticket; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+    public Long getVehicleId() { return vehicleId; }
+    public void setVehicleId(Long vehicleId) { this.vehicleId = vehicleId; }
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    public long getQueuedAt() { return queuedAt; }
+    public void setQueuedAt(long queuedAt) { this.queuedAt = queuedAt; }
+    public long getResolvedAt() { return resolvedAt; }
+    public void setResolvedAt(long resolvedAt) { this.resolvedAt = resolvedAt; }
+}
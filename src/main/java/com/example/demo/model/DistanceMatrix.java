@@ -0,0 +1,36 @@
+package com.example.demo.model;
+
+/**
+ * Travel durations and distances between every origin and destination,
+ * as flat row-major arrays: entry (i, j) is at {@code i * destinations + j}.
+ * Unreachable pairs are -1.
+ */
+public class DistanceMatrix {
+    private final int origins;
+    private final int destinations;
+    private final float[] durations; // seconds, under current traffic
+    private final float[] distances; // metres along the fastest path
+    private final long trafficVersion;
+    private final double computeMillis;
+
+    public DistanceMatrix(int origins, int destinations, float[] durations, float[] distances,
+                          long trafficVersion, double computeMillis) {
+        this.origins = origins;
+        this.destinations = destinations;
+        this.durations = durations;
+        this.distances = distances;
+        this.trafficVersion = trafficVersion;
+        this.computeMillis = computeMillis;
+    }
+
+    // Getters
+    public int getOrigins() { return origins; }
+    public int getDestinations() { return destinations; }
+    public float[] getDurations() { return durations; }
+    public float[] getDistances() { return distances; }
+    public long getTrafficVersion() { return trafficVersion; }
+    public double getComputeMillis() { return computeMillis; }
+
+    public float duration(int origin, int destination) { return durations[origin * destinations + destination]; }
+    public float distance(int origin, int destination) { return distances[origin * destinations + destination]; }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.model;
+
+/**
+ * Route body for clients that accept {@code application/vnd.neurofleet.polyline+json}:
+ * the geometry as an encoded polyline string instead of coordinate pairs.
+ */
+public class EncodedRoute {
+    private String polyline;
+    private int precision;
+    private int points;
+    private double totalDistance;
+    private double estimatedTime;
+    private String suggestion;
+
+    public EncodedRoute() {}
+
+    public EncodedRoute(RouteResponse route, String polyline, int precision, int points) {
+        this.polyline = polyline;
+        this.precision = precision;
+        this.points = points;
+        this.totalDistance = route.getTotalDistance();
+        this.estimatedTime = route.getEstimatedTime();
+        this.suggestion = route.getSuggestion();
+    }
+
+    // Getters and Setters
+    public String getPolyline() { return polyline; }
+    public void setPolyline(String polyline) { this.polyline = polyline; }
+    public int getPrecision() { return precision; }
+    public void setPrecision(int precision) { this.precision = precision; }
+    public int getPoints() { return points; }
+    public void setPoints(int points) { this.points = points; }
+    public double getTotalDistance() { return totalDistance; }
+    public void setTotalDistance(double totalDistance) { this.totalDistance = totalDistance; }
+    public double getEstimatedTime() { return estimatedTime; }
+    public void setEstimatedTime(double estimatedTime) { this.estimatedTime = estimatedTime; }
+    public String getSuggestion() { return suggestion; }
+    public void setSuggestion(String suggestion) { this.suggestion = suggestion; }
+}
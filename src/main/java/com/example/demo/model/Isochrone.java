@@ -0,0 +1,46 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Area reachable from a road node within a travel-time budget, as a polygon
+ * of [lat, lng] vertices (held flat, written as pairs like route coordinates).
+ * Latitude and longitude are those of the node the query point snapped to.
+ */
+public class Isochrone {
+    private double latitude;
+    private double longitude;
+    private int minutes;
+    private double[] polygon = new double[0];
+    private int reachableNodes;
+    private double areaKm2;
+    private long trafficVersion;
+    private long computedAt;
+    private long computeMicros;
+
+    // Getters and Setters
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+    public int getMinutes() { return minutes; }
+    public void setMinutes(int minutes) { this.minutes = minutes; }
+    /** Flat vertices (lat0, lng0, lat1, lng1, ...), counter-clockwise, not closed. Shared: do not modify. */
+    @JsonProperty("polygon")
+    @JsonSerialize(using = RouteResponse.PathSerializer.class)
+    public double[] getPolygon() { return polygon; }
+    @JsonIgnore
+    public void setPolygon(double[] polygon) { this.polygon = polygon; }
+    public int getReachableNodes() { return reachableNodes; }
+    public void setReachableNodes(int reachableNodes) { this.reachableNodes = reachableNodes; }
+    public double getAreaKm2() { return areaKm2; }
+    public void setAreaKm2(double areaKm2) { this.areaKm2 = areaKm2; }
+    public long getTrafficVersion() { return trafficVersion; }
+    public void setTrafficVersion(long trafficVersion) { this.trafficVersion = trafficVersion; }
+    public long getComputedAt() { return computedAt; }
+    public void setComputedAt(long computedAt) { this.computedAt = computedAt; }
+    public long getComputeMicros() { return computeMicros; }
+    public void setComputeMicros(long computeMicros) { this.computeMicros = computeMicros; }
+}
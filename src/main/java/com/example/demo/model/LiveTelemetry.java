@@ -0,0 +1,38 @@
+package com.example.demo.model;
+
+/**
+ * Read-only view of one unit's hot telemetry as held by the in-memory store.
+ */
+public class LiveTelemetry {
+    private final long vehicleId;
+    private final double speed;
+    private final double fuel;
+    private final double tirePressure;
+    private final String vehicleCondition;
+    private final Double latitude;
+    private final Double longitude;
+    private final long version;
+
+    public LiveTelemetry(long vehicleId, double speed, double fuel, double tirePressure,
+                         String vehicleCondition, double latitude, double longitude, long version) {
+        this.vehicleId = vehicleId;
+        this.speed = speed;
+        this.fuel = fuel;
+        this.tirePressure = tirePressure;
+        this.vehicleCondition = vehicleCondition;
+        // NaN means "no fix yet"; surfaced as null rather than a non-JSON number
+        this.latitude = Double.isNaN(latitude) ? null : latitude;
+        this.longitude = Double.isNaN(longitude) ? null : longitude;
+        this.version = version;
+    }
+
+    // Getters
+    public long getVehicleId() { return vehicleId; }
+    public double getSpeed() { return speed; }
+    public double getFuel() { return fuel; }
+    public double getTirePressure() { return tirePressure; }
+    public String getVehicleCondition() { return vehicleCondition; }
+    public Double getLatitude() { return latitude; }
+    public Double getLongitude() { return longitude; }
+    public long getVersion() { return version; }
+}
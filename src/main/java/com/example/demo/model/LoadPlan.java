@@ -0,0 +1,81 @@
+package com.example.demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output of the load optimizer: one stop sequence per available vehicle,
+ * the bookings no vehicle could take, and solution quality metrics.
+ */
+public class LoadPlan {
+    private List<VehicleRoute> vehicles = new ArrayList<>();
+    private List<Long> unassignedBookings = new ArrayList<>();
+    private Map<String, Object> metrics;
+
+    /** Field names match what the LoadOptimizer screen reads (id, name, loadPercentage). */
+    public static class VehicleRoute {
+        private Long id;
+        private String name;
+        private int seats;
+        private int peakLoad;
+        private int loadPercentage; // peak occupancy as % of seats
+        private double durationMinutes;
+        private double distanceKm;
+        private List<Stop> stops = new ArrayList<>();
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public int getSeats() { return seats; }
+        public void setSeats(int seats) { this.seats = seats; }
+        public int getPeakLoad() { return peakLoad; }
+        public void setPeakLoad(int peakLoad) { this.peakLoad = peakLoad; }
+        public int getLoadPercentage() { return loadPercentage; }
+        public void setLoadPercentage(int loadPercentage) { this.loadPercentage = loadPercentage; }
+        public double getDurationMinutes() { return durationMinutes; }
+        public void setDurationMinutes(double durationMinutes) { this.durationMinutes = durationMinutes; }
+        public double getDistanceKm() { return distanceKm; }
+        public void setDistanceKm(double distanceKm) { this.distanceKm = distanceKm; }
+        public List<Stop> getStops() { return stops; }
+        public void setStops(List<Stop> stops) { this.stops = stops; }
+    }
+
+    public static class Stop {
+        private Long bookingId;
+        private String type; // PICKUP, DROP
+        private String location;
+        private double etaMinutes; // from plan start
+        private int load;          // seats occupied after the stop
+
+        public Stop() {}
+
+        public Stop(Long bookingId, String type, String location, double etaMinutes, int load) {
+            this.bookingId = bookingId;
+            this.type = type;
+            this.location = location;
+            this.etaMinutes = etaMinutes;
+            this.load = load;
+        }
+
+        public Long getBookingId() { return bookingId; }
+        public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getLocation() { return location; }
+        public void setLocation(String location) { this.location = location; }
+        public double getEtaMinutes() { return etaMinutes; }
+        public void setEtaMinutes(double etaMinutes) { this.etaMinutes = etaMinutes; }
+        public int getLoad() { return load; }
+        public void setLoad(int load) { this.load = load; }
+    }
+
+    // Getters and Setters
+    public List<VehicleRoute> getVehicles() { return vehicles; }
+    public void setVehicles(List<VehicleRoute> vehicles) { this.vehicles = vehicles; }
+    public List<Long> getUnassignedBookings() { return unassignedBookings; }
+    public void setUnassignedBookings(List<Long> unassignedBookings) { this.unassignedBookings = unassignedBookings; }
+    public Map<String, Object> getMetrics() { return metrics; }
+    public void setMetrics(Map<String, Object> metrics) { this.metrics = metrics; }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+public class MatrixRequest {
+    private List<String> origins;      // place names or "lat,lon"
+    private List<String> destinations;
+
+    // Getters and Setters
+    public List<String> getOrigins() { return origins; }
+    public void setOrigins(List<String> origins) { this.origins = origins; }
+    public List<String> getDestinations() { return destinations; }
+    public void setDestinations(List<String> destinations) { this.destinations = destinations; }
+}
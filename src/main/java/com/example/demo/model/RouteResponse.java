@@ -1,19 +1,78 @@
 package com.example.demo.model;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
+@JsonPropertyOrder({"coordinates", "totalDistance", "estimatedTime", "suggestion"})
 public class RouteResponse {
-    private List<double[]> coordinates; // [lat, lng] for map polyline
+    // [lat, lng] for map polyline, held flat (lat0, lng0, lat1, lng1, ...) and written as pairs
+    private double[] path = new double[0];
     private double totalDistance;
     private double estimatedTime;
     private String suggestion;
 
+    /** Copy with another geometry (e.g. simplified for a zoom level); the original is left untouched. */
+    public RouteResponse withPath(double[] path) {
+        RouteResponse copy = new RouteResponse();
+        copy.path = path;
+        copy.totalDistance = totalDistance;
+        copy.estimatedTime = estimatedTime;
+        copy.suggestion = suggestion;
+        return copy;
+    }
+
     // Getters and Setters
-    public List<double[]> getCoordinates() { return coordinates; }
-    public void setCoordinates(List<double[]> coordinates) { this.coordinates = coordinates; }
+    @JsonIgnore
+    public List<double[]> getCoordinates() {
+        List<double[]> pairs = new ArrayList<>(path.length / 2);
+        for (int i = 0; i + 1 < path.length; i += 2) pairs.add(new double[]{path[i], path[i + 1]});
+        return pairs;
+    }
+    @JsonIgnore
+    public void setCoordinates(List<double[]> coordinates) {
+        double[] flat = new double[coordinates.size() * 2];
+        for (int i = 0; i < coordinates.size(); i++) {
+            flat[2 * i] = coordinates.get(i)[0];
+            flat[2 * i + 1] = coordinates.get(i)[1];
+        }
+        this.path = flat;
+    }
+    /** Flat geometry. Callers must not modify: cached routes are shared. */
+    @JsonProperty("coordinates")
+    @JsonSerialize(using = PathSerializer.class)
+    public double[] getPath() { return path; }
+    public void setPath(double[] path) { this.path = path; }
     public double getTotalDistance() { return totalDistance; }
     public void setTotalDistance(double totalDistance) { this.totalDistance = totalDistance; }
     public double getEstimatedTime() { return estimatedTime; }
     public void setEstimatedTime(double estimatedTime) { this.estimatedTime = estimatedTime; }
     public String getSuggestion() { return suggestion; }
     public void setSuggestion(String suggestion) { this.suggestion = suggestion; }
-}
\ No newline at end of file
+
+    /** Streams the flat array as nested pairs without building per-point arrays. */
+    public static class PathSerializer extends StdSerializer<double[]> {
+        public PathSerializer() {
+            super(double[].class);
+        }
+
+        @Override
+        public void serialize(double[] path, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray();
+            for (int i = 0; i + 1 < path.length; i += 2) {
+                gen.writeStartArray();
+                gen.writeNumber(path[i]);
+                gen.writeNumber(path[i + 1]);
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
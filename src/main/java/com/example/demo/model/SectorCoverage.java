@@ -0,0 +1,37 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * One sector's reach: its isochrone and the available units inside it.
+ * {@code surplus} is units beyond the sector's target (negative: a gap).
+ */
+public class SectorCoverage {
+    private String sector;
+    private Isochrone isochrone;
+    private int availableUnits;
+    private List<Long> unitIds;
+    private int surplus;
+
+    public SectorCoverage() {}
+
+    public SectorCoverage(String sector, Isochrone isochrone, List<Long> unitIds, int targetUnits) {
+        this.sector = sector;
+        this.isochrone = isochrone;
+        this.unitIds = unitIds;
+        this.availableUnits = unitIds.size();
+        this.surplus = unitIds.size() - targetUnits;
+    }
+
+    // Getters and Setters
+    public String getSector() { return sector; }
+    public void setSector(String sector) { this.sector = sector; }
+    public Isochrone getIsochrone() { return isochrone; }
+    public void setIsochrone(Isochrone isochrone) { this.isochrone = isochrone; }
+    public int getAvailableUnits() { return availableUnits; }
+    public void setAvailableUnits(int availableUnits) { this.availableUnits = availableUnits; }
+    public List<Long> getUnitIds() { return unitIds; }
+    public void setUnitIds(List<Long> unitIds) { this.unitIds = unitIds; }
+    public int getSurplus() { return surplus; }
+    public void setSurplus(int surplus) { this.surplus = surplus; }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.model;
+
+/**
+ * Vehicle condition codes derived from telemetry. Stored as the ordinal (byte)
+ * in hot paths; {@link #name()} is only used when a string leaves the server.
+ */
+public enum TelemetryCondition {
+    OPTIMAL,
+    CRITICAL_FUEL_LEVEL,
+    LOW_TIRE_PRESSURE,
+    OVER_INFLATED_TIRES,
+    HIGH_SPEED_ALERT,
+    LOW_FUEL_RESERVE;
+
+    private static final TelemetryCondition[] BY_CODE = values();
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static TelemetryCondition of(byte code) {
+        return BY_CODE[code];
+    }
+
+    /** Lenient parse for values already persisted; anything unknown is re-derived on the next tick. */
+    public static TelemetryCondition fromName(String name) {
+        if (name != null) {
+            for (TelemetryCondition c : BY_CODE) {
+                if (c.name().equals(name)) return c;
+            }
+        }
+        return OPTIMAL;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Payload pushed on /topic/vehicles.
+ * KEYFRAME carries the full fleet in "vehicles"; DELTA carries only the
+ * changed fields per unit in "changes" plus ids that left the fleet in "removed".
+ */
+public class TelemetryFrame {
+    public static final String KEYFRAME = "KEYFRAME";
+    public static final String DELTA = "DELTA";
+
+    private String type;
+    private long sequence;
+    private long timestamp;
+    private List<VehicleSnapshot> vehicles;
+    private List<Map<String, Object>> changes;
+    private List<Long> removed;
+
+    public static TelemetryFrame keyframe(long sequence, List<VehicleSnapshot> vehicles) {
+        TelemetryFrame frame = new TelemetryFrame();
+        frame.type = KEYFRAME;
+        frame.sequence = sequence;
+        frame.timestamp = System.currentTimeMillis();
+        frame.vehicles = vehicles;
+        return frame;
+    }
+
+    public static TelemetryFrame delta(long sequence, List<Map<String, Object>> changes, List<Long> removed) {
+        TelemetryFrame frame = new TelemetryFrame();
+        frame.type = DELTA;
+        frame.sequence = sequence;
+        frame.timestamp = System.currentTimeMillis();
+        frame.changes = changes;
+        frame.removed = removed;
+        return frame;
+    }
+
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+    public List<VehicleSnapshot> getVehicles() { return vehicles; }
+    public void setVehicles(List<VehicleSnapshot> vehicles) { this.vehicles = vehicles; }
+    public List<Map<String, Object>> getChanges() { return changes; }
+    public void setChanges(List<Map<String, Object>> changes) { this.changes = changes; }
+    public List<Long> getRemoved() { return removed; }
+    public void setRemoved(List<Long> removed) { this.removed = removed; }
+}
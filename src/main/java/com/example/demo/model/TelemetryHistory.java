@@ -0,0 +1,39 @@
+package com.example.demo.model;
+
+/**
+ * One unit's telemetry over a time range, returned column-wise
+ * (parallel arrays) so long ranges stay compact on the wire.
+ */
+public class TelemetryHistory {
+    private final long vehicleId;
+    private final String resolution;
+    private final long from;
+    private final long to;
+    private final long[] timestamps;
+    private final float[] speed;
+    private final float[] fuel;
+    private final float[] tirePressure;
+
+    public TelemetryHistory(long vehicleId, String resolution, long from, long to,
+                            long[] timestamps, float[] speed, float[] fuel, float[] tirePressure) {
+        this.vehicleId = vehicleId;
+        this.resolution = resolution;
+        this.from = from;
+        this.to = to;
+        this.timestamps = timestamps;
+        this.speed = speed;
+        this.fuel = fuel;
+        this.tirePressure = tirePressure;
+    }
+
+    // Getters
+    public long getVehicleId() { return vehicleId; }
+    public String getResolution() { return resolution; }
+    public long getFrom() { return from; }
+    public long getTo() { return to; }
+    public int getPoints() { return timestamps.length; }
+    public long[] getTimestamps() { return timestamps; }
+    public float[] getSpeed() { return speed; }
+    public float[] getFuel() { return fuel; }
+    public float[] getTirePressure() { return tirePressure; }
+}
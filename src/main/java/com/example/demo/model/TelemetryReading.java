@@ -0,0 +1,38 @@
+package com.example.demo.model;
+
+/**
+ * One reading pushed by a device. {@code sequence} is optional, per vehicle and
+ * monotonically increasing; when sent, replays and out-of-order duplicates are
+ * dropped, when absent the reading is applied in arrival order.
+ * Fields left null keep the unit's current value.
+ */
+public class TelemetryReading {
+    private Long vehicleId;
+    private Long sequence;
+    private Long timestamp;
+    private Double speed;
+    private Double fuel;
+    private Double tirePressure;
+    private Double latitude;
+    private Double longitude;
+
+    public TelemetryReading() {}
+
+    // Getters and Setters
+    public Long getVehicleId() { return vehicleId; }
+    public void setVehicleId(Long vehicleId) { this.vehicleId = vehicleId; }
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
+    public Long getTimestamp() { return timestamp; }
+    public void setTimestamp(Long timestamp) { this.timestamp = timestamp; }
+    public Double getSpeed() { return speed; }
+    public void setSpeed(Double speed) { this.speed = speed; }
+    public Double getFuel() { return fuel; }
+    public void setFuel(Double fuel) { this.fuel = fuel; }
+    public Double getTirePressure() { return tirePressure; }
+    public void setTirePressure(Double tirePressure) { this.tirePressure = tirePressure; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.model;
+
+import com.example.demo.entity.Vehicle;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable copy of the broadcast-relevant fields of a {@link Vehicle},
+ * kept per id so each tick can diff against what managers last received.
+ */
+public final class VehicleSnapshot {
+    /** Baseline for units seen for the first time: every non-null field counts as changed. */
+    public static final VehicleSnapshot EMPTY = new VehicleSnapshot(new Vehicle());
+
+    private final Long id;
+    private final String model;
+    private final String status;
+    private final String location;
+    private final String sector;
+    private final Integer fuel;
+    private final Double speed;
+    private final Integer seats;
+    private final Double price;
+    private final String vehicleCondition;
+    private final Double tirePressure;
+    private final Double totalDistance;
+
+    public VehicleSnapshot(Vehicle v) {
+        this.id = v.getId();
+        this.model = v.getModel();
+        this.status = v.getStatus();
+        this.location = v.getLocation();
+        this.sector = v.getSector();
+        this.fuel = v.getFuel();
+        this.speed = v.getSpeed();
+        this.seats = v.getSeats();
+        this.price = v.getPrice();
+        this.vehicleCondition = v.getVehicleCondition();
+        this.tirePressure = v.getTirePressure();
+        this.totalDistance = v.getTotalDistance();
+    }
+
+    private VehicleSnapshot(VehicleSnapshot base, LiveTelemetry live) {
+        this.id = base.id;
+        this.model = base.model;
+        this.status = base.status;
+        this.location = base.location;
+        this.sector = base.sector;
+        this.fuel = (int) Math.round(live.getFuel());
+        this.speed = live.getSpeed();
+        this.seats = base.seats;
+        this.price = base.price;
+        this.vehicleCondition = live.getVehicleCondition();
+        this.tirePressure = live.getTirePressure();
+        this.totalDistance = base.totalDistance;
+    }
+
+    /** Placeholder master data for a load-test unit that has no row in the vehicles table. */
+    public static VehicleSnapshot synthetic(long id) {
+        Vehicle v = new Vehicle();
+        v.setId(id);
+        v.setModel("SIM-" + (-id));
+        v.setStatus("IN_USE");
+        return new VehicleSnapshot(v);
+    }
+
+    /** Same unit with hot telemetry taken from the in-memory store instead of the row. */
+    public VehicleSnapshot withTelemetry(LiveTelemetry live) {
+        return live == null ? this : new VehicleSnapshot(this, live);
+    }
+
+    /**
+     * Fields whose value differs from {@code previous}, always including "id".
+     * An empty result means nothing changed.
+     */
+    public Map<String, Object> diff(VehicleSnapshot previous) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        put(changes, "model", model, previous.model);
+        put(changes, "status", status, previous.status);
+        put(changes, "location", location, previous.location);
+        put(changes, "sector", sector, previous.sector);
+        put(changes, "fuel", fuel, previous.fuel);
+        put(changes, "speed", speed, previous.speed);
+        put(changes, "seats", seats, previous.seats);
+        put(changes, "price", price, previous.price);
+        put(changes, "vehicleCondition", vehicleCondition, previous.vehicleCondition);
+        put(changes, "tirePressure", tirePressure, previous.tirePressure);
+        put(changes, "totalDistance", totalDistance, previous.totalDistance);
+        if (!changes.isEmpty()) {
+            Map<String, Object> withId = new LinkedHashMap<>();
+            withId.put("id", id);
+            withId.putAll(changes);
+            return withId;
+        }
+        return changes;
+    }
+
+    private static void put(Map<String, Object> changes, String field, Object current, Object previous) {
+        if (!Objects.equals(current, previous)) {
+            changes.put(field, current);
+        }
+    }
+
+    // Getters (serialized in keyframes)
+    public Long getId() { return id; }
+    public String getModel() { return model; }
+    public String getStatus() { return status; }
+    public String getLocation() { return location; }
+    public String getSector() { return sector; }
+    public Integer getFuel() { return fuel; }
+    public Double getSpeed() { return speed; }
+    public Integer getSeats() { return seats; }
+    public Double getPrice() { return price; }
+    public String getVehicleCondition() { return vehicleCondition; }
+    public Double getTirePressure() { return tirePressure; }
+    public Double getTotalDistance() { return totalDistance; }
+}
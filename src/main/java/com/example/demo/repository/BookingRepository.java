@@ -3,8 +3,15 @@ package com.example.demo.repository;
 import com.example.demo.entity.Booking;
 import com.example.demo.entity.Vehicle;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
@@ -19,4 +26,42 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
      * when calculating dashboard statistics.
      */
     long countByStatus(String status);
-}
\ No newline at end of file
+
+    Optional<Booking> findFirstByUserIdAndStatusOrderByIdAsc(String userId, String status);
+
+    @Query("SELECT b.status FROM Booking b WHERE b.id = :id")
+    Optional<String> findStatusById(@Param("id") Long id);
+
+    // --- CONDITIONAL TRANSITIONS (one statement each; 0 rows = the booking was not in a source state) ---
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :to, b.version = b.version + 1 WHERE b.id = :id AND b.status IN :from")
+    int transition(@Param("id") Long id, @Param("from") Collection<String> from, @Param("to") String to);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :to, b.distance = :distance, b.duration = :duration, b.progress = 0, "
+            + "b.energy = 100, b.version = b.version + 1 WHERE b.id = :id AND b.status IN :from")
+    int approve(@Param("id") Long id, @Param("from") Collection<String> from, @Param("to") String to,
+                @Param("distance") String distance, @Param("duration") String duration);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :to, b.bookingTime = :startedAt, b.version = b.version + 1 "
+            + "WHERE b.id = :id AND b.status IN :from")
+    int start(@Param("id") Long id, @Param("from") Collection<String> from, @Param("to") String to,
+              @Param("startedAt") LocalDateTime startedAt);
+
+    // Reserves a unit for a booking still in :status with none reserved yet
+    @Modifying
+    @Query("UPDATE Booking b SET b.assignedVehicleId = :vehicleId, b.version = b.version + 1 "
+            + "WHERE b.id = :id AND b.status = :status AND b.assignedVehicleId IS NULL")
+    int assignVehicle(@Param("id") Long id, @Param("vehicleId") Long vehicleId, @Param("status") String status);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.assignedVehicleId = NULL, b.version = b.version + 1 "
+            + "WHERE b.id = :id AND b.assignedVehicleId = :vehicleId")
+    int unassignVehicle(@Param("id") Long id, @Param("vehicleId") Long vehicleId);
+
+    @Modifying
+    @Query("DELETE FROM Booking b WHERE b.id = :id AND b.status = :status")
+    int deleteByIdAndStatus(@Param("id") Long id, @Param("status") String status);
+}
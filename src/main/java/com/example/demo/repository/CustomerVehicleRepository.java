@@ -8,4 +8,5 @@ public interface CustomerVehicleRepository extends JpaRepository<CustomerVehicle
     List<CustomerVehicle> findByUserId(Long userId);
     // Add this line to fix the compilation error
     List<CustomerVehicle> findByStatus(String status);
+    List<CustomerVehicle> findByVehicleId(Long vehicleId);
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.example.demo.repository;
 import com.example.demo.entity.Vehicle;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -29,4 +30,9 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     );
 
     List<Vehicle> findByModelContainingIgnoreCase(String model);
+
+    // Conditional status change (claim or release); 0 rows = the unit was not in :from
+    @Modifying
+    @Query("UPDATE Vehicle v SET v.status = :to WHERE v.id = :id AND v.status = :from")
+    int transition(@Param("id") Long id, @Param("from") String from, @Param("to") String to);
 }
\ No newline at end of file
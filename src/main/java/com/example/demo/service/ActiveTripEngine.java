@@ -0,0 +1,354 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.repository.BookingRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Owns the live state of every booking so the dashboard poll never touches
+ * the database or computes anything.
+ *
+ * The engine keeps its own copy of each current booking, grouped by user.
+ * One scheduled tick advances the progress, remaining distance, remaining
+ * time, energy and velocity of every TRIP_ACTIVE trip from its planned
+ * distance and duration, then re-encodes the JSON of the users it touched. A
+ * read returns that user's pre-encoded, immutable byte[] as is.
+ *
+ * Kept current by {@link BookingChangeListener} after each committed write or
+ * delete; seeded from the bookings table on the first tick. Until then
+ * {@link #snapshot} returns null and callers fall back to {@link #render}.
+ * Users with a live trip and an open socket also get each tick's array pushed
+ * through {@link TripUpdatePublisher}.
+ */
+@Component
+public class ActiveTripEngine {
+
+    public static final String TRIP_ACTIVE = "TRIP_ACTIVE";
+    private static final byte[] EMPTY = "[]".getBytes(StandardCharsets.UTF_8);
+
+    // Assumed plan for bookings that carry none: 248.25 km in 3.2 h
+    private static final double DEFAULT_KM = 248.25;
+    private static final double DEFAULT_HOURS = 3.2;
+
+    // Repository only needed once running; lazy so the JPA listener can depend on this bean
+    @Autowired
+    @Lazy
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Autowired
+    private TripUpdatePublisher tripUpdates;
+
+    @Value("${trips.engine.tick-ms:1000}")
+    private long tickMs = 1000;
+
+    /** One booking as committed, the served view with live metrics, and the plan those derive from. */
+    private static final class Trip {
+        final Booking base;
+        final Booking view;
+        final double plannedKm;
+        final double plannedHours;
+
+        Trip(Booking base) {
+            this.base = base;
+            this.view = copyOf(base);
+            this.plannedKm = parseOr(base.getDistance(), DEFAULT_KM);
+            this.plannedHours = parseOr(base.getDuration(), DEFAULT_HOURS);
+        }
+    }
+
+    private final ObjectWriter writer;
+    private final Object lock = new Object();
+    private final Map<Long, Trip> trips = new HashMap<>();              // guarded by lock
+    private final Map<String, TreeMap<Long, Trip>> byUser = new HashMap<>(); // guarded by lock, id order
+    private final Map<Long, Trip> active = new HashMap<>();             // guarded by lock
+    private final Set<Long> removedBeforeSeed = new HashSet<>();        // guarded by lock
+    private final Map<String, byte[]> snapshots = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+    private volatile boolean seeded = false;
+
+    private final LongAdder reads = new LongAdder();
+    private volatile long ticks, lastTickMicros;
+
+    public ActiveTripEngine(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(new TypeReference<List<Booking>>() { });
+    }
+
+    @PostConstruct
+    public void init() {
+        if (tickScheduler != null) {
+            tickScheduler.register("active-trips", tickMs, TelemetryTickScheduler.OverrunPolicy.SKIP, this::tick);
+        }
+    }
+
+    // --- READS ---
+
+    /** The user's bookings as a JSON array, or null until the engine is seeded. */
+    public byte[] snapshot(String userId) {
+        if (!seeded) return null;
+        reads.increment();
+        byte[] json = userId == null ? null : snapshots.get(userId);
+        return json != null ? json : EMPTY;
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /** Committed copy of the booking, or null if the engine does not hold it. */
+    public Booking find(Long bookingId) {
+        synchronized (lock) {
+            Trip trip = trips.get(bookingId);
+            return trip == null ? null : copyOf(trip.base);
+        }
+    }
+
+    /** Committed copy of the user's lowest-id booking in {@code status}, or null. */
+    public Booking find(String userId, String status) {
+        synchronized (lock) {
+            TreeMap<Long, Trip> own = byUser.get(userId);
+            if (own == null) return null;
+            for (Trip trip : own.values()) {
+                if (Objects.equals(status, trip.base.getStatus())) return copyOf(trip.base);
+            }
+            return null;
+        }
+    }
+
+    /** Committed copies of every held booking in {@code status}, in id order. */
+    public List<Booking> withStatus(String status) {
+        List<Booking> found = new ArrayList<>();
+        synchronized (lock) {
+            for (Trip trip : trips.values()) {
+                if (Objects.equals(status, trip.base.getStatus())) found.add(copyOf(trip.base));
+            }
+        }
+        found.sort(Comparator.comparing(Booking::getId));
+        return found;
+    }
+
+    /** Copies of {@code bookings} with live metrics applied, for reads the engine cannot serve yet. */
+    public List<Booking> render(List<Booking> bookings) {
+        List<Booking> views = new ArrayList<>(bookings.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Booking booking : bookings) {
+            Trip trip = new Trip(booking);
+            if (TRIP_ACTIVE.equals(trip.view.getStatus())) advance(trip, now, 60 + random.nextInt(20));
+            views.add(trip.view);
+        }
+        return views;
+    }
+
+    // --- UPDATES ---
+
+    public void tick() {
+        try {
+            if (!seeded) seed();
+            long started = System.nanoTime();
+            Set<String> touched = new HashSet<>();
+            synchronized (lock) {
+                LocalDateTime now = LocalDateTime.now();
+                for (Trip trip : active.values()) {
+                    advance(trip, now, 60 + random.nextInt(20));
+                    touched.add(trip.view.getUserId());
+                }
+                for (String userId : touched) publish(userId);
+            }
+            // Connected drivers get the fresh metrics pushed instead of polling for them
+            if (tripUpdates != null) {
+                for (String userId : touched) tripUpdates.push(userId, "PROGRESS", snapshots.get(userId));
+            }
+            ticks++;
+            lastTickMicros = (System.nanoTime() - started) / 1_000;
+        } catch (Exception e) {
+            System.err.println("Active Trip Engine Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the table once. Listener writes can land while the query runs, so a
+     * row only goes in if the engine holds nothing newer for it (by version) and
+     * it was not deleted in the meantime.
+     */
+    private void seed() {
+        List<Booking> rows = bookingRepository.findAll();
+        synchronized (lock) {
+            if (seeded) return;
+            for (Booking row : rows) {
+                if (row.getId() == null || removedBeforeSeed.contains(row.getId())) continue;
+                Trip held = trips.get(row.getId());
+                if (held != null && !isOlder(held.base.getVersion(), row.getVersion())) continue;
+                upsert(row);
+            }
+            removedBeforeSeed.clear();
+            seeded = true;
+        }
+    }
+
+    private static boolean isOlder(Long held, Long row) {
+        return (held == null ? 0 : held) < (row == null ? 0 : row);
+    }
+
+    /** Applies a committed write: takes a private copy and republishes its user. */
+    public void upsert(Booking booking) {
+        if (booking == null || booking.getId() == null) return;
+        Trip trip = new Trip(copyOf(booking));
+        synchronized (lock) {
+            Trip previous = detach(booking.getId());
+            trips.put(booking.getId(), trip);
+            byUser.computeIfAbsent(trip.view.getUserId(), u -> new TreeMap<>()).put(booking.getId(), trip);
+            if (TRIP_ACTIVE.equals(trip.view.getStatus())) {
+                active.put(booking.getId(), trip);
+                advance(trip, LocalDateTime.now(), 60 + random.nextInt(20));
+            }
+            if (previous != null && !Objects.equals(previous.view.getUserId(), trip.view.getUserId())) {
+                publish(previous.view.getUserId());
+            }
+            publish(trip.view.getUserId());
+        }
+    }
+
+    /**
+     * Applies a committed change that bypassed the entity listener (a
+     * conditional UPDATE): edits a copy of the held booking and republishes.
+     */
+    public void apply(Long bookingId, Consumer<Booking> change) {
+        synchronized (lock) {
+            Trip trip = trips.get(bookingId);
+            if (trip == null) return;
+            Booking next = copyOf(trip.base);
+            change.accept(next);
+            upsert(next);
+        }
+    }
+
+    public void remove(Long bookingId) {
+        if (bookingId == null) return;
+        synchronized (lock) {
+            if (!seeded) removedBeforeSeed.add(bookingId);
+            Trip previous = detach(bookingId);
+            if (previous != null) publish(previous.view.getUserId());
+        }
+    }
+
+    // Caller holds the lock
+    private Trip detach(Long bookingId) {
+        Trip previous = trips.remove(bookingId);
+        if (previous == null) return null;
+        active.remove(bookingId);
+        TreeMap<Long, Trip> own = byUser.get(previous.view.getUserId());
+        if (own != null) {
+            own.remove(bookingId);
+            if (own.isEmpty()) byUser.remove(previous.view.getUserId());
+        }
+        return previous;
+    }
+
+    // Caller holds the lock
+    private void publish(String userId) {
+        if (userId == null) return;
+        TreeMap<Long, Trip> own = byUser.get(userId);
+        if (own == null) {
+            snapshots.remove(userId);
+            return;
+        }
+        List<Booking> views = new ArrayList<>(own.size());
+        for (Trip trip : own.values()) views.add(trip.view);
+        try {
+            snapshots.put(userId, writer.writeValueAsBytes(views));
+        } catch (JsonProcessingException e) {
+            System.err.println("Active Trip Engine Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Live metrics from elapsed time against the plan: covered distance at the
+     * planned average speed, remaining distance and hours, progress, energy
+     * (100% at pickup, draining with progress) and the current velocity.
+     */
+    private static void advance(Trip trip, LocalDateTime now, int velocityKmh) {
+        Booking b = trip.view;
+        long totalMinutes = Math.max(1, Math.round(trip.plannedHours * 60));
+        long minutesElapsed = b.getBookingTime() == null ? 0 : Duration.between(b.getBookingTime(), now).toMinutes();
+
+        double distanceCovered = (double) minutesElapsed * (trip.plannedKm / totalMinutes);
+        double remainingDist = Math.max(0, trip.plannedKm - distanceCovered);
+        int progress = trip.plannedKm <= 0 ? 100 : (int) Math.min(100, (distanceCovered / trip.plannedKm) * 100);
+
+        b.setDistance(String.format(Locale.ROOT, "%.2f", remainingDist));
+        b.setDuration(String.format(Locale.ROOT, "%.1f", Math.max(0, trip.plannedHours - (minutesElapsed / 60.0))));
+        b.setProgress(progress);
+        b.setVelocity(String.valueOf(velocityKmh));
+        b.setEnergy(Math.max(0, 100 - progress));
+    }
+
+    private static Booking copyOf(Booking source) {
+        Booking copy = new Booking();
+        copy.setId(source.getId());
+        copy.setVersion(source.getVersion());
+        copy.setUserId(source.getUserId());
+        copy.setVehicleModel(source.getVehicleModel());
+        copy.setStatus(source.getStatus());
+        copy.setAssignedVehicleId(source.getAssignedVehicleId());
+        copy.setPickupLocation(source.getPickupLocation());
+        copy.setDropLocation(source.getDropLocation());
+        copy.setBookingTime(source.getBookingTime());
+        copy.setDistance(source.getDistance());
+        copy.setDuration(source.getDuration());
+        copy.setProgress(source.getProgress());
+        copy.setVelocity(source.getVelocity());
+        copy.setEnergy(source.getEnergy());
+        return copy;
+    }
+
+    private static double parseOr(String value, double fallback) {
+        try {
+            return value != null ? Double.parseDouble(value) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            stats.put("bookings", trips.size());
+            stats.put("activeTrips", active.size());
+            stats.put("users", byUser.size());
+        }
+        stats.put("seeded", seeded);
+        stats.put("ticks", ticks);
+        stats.put("lastTickMicros", lastTickMicros);
+        stats.put("reads", reads.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+
+/**
+ * Per-unit due times for a simulator that ticks at the finest interval but
+ * only updates each unit as often as its activity needs: moving units every
+ * {@code movingMs}, parked units every {@code parkedMs}.
+ *
+ * Indexed by the caller's unit index (store slot or simulator index). Indexes
+ * may be worked on from different threads as long as each index has one owner.
+ */
+public class AdaptiveTickPlan {
+
+    private final long movingMs;
+    private final long parkedMs;
+
+    private long[] owner = new long[0];
+    private long[] lastRun = new long[0];
+    private long[] nextDue = new long[0];
+
+    public AdaptiveTickPlan(long movingMs, long parkedMs) {
+        this.movingMs = movingMs;
+        this.parkedMs = parkedMs;
+    }
+
+    /** Sizes the plan up front; required before indexes are used from several threads. */
+    public void ensureCapacity(int units) {
+        if (units <= owner.length) return;
+        int capacity = Math.max(units, owner.length * 2);
+        owner = Arrays.copyOf(owner, capacity);
+        lastRun = Arrays.copyOf(lastRun, capacity);
+        nextDue = Arrays.copyOf(nextDue, capacity);
+    }
+
+    /** True when {@code index} should be updated at {@code now}; a new unit at the index is always due. */
+    public boolean isDue(int index, long unitId, long now) {
+        ensureCapacity(index + 1);
+        if (owner[index] != unitId) {
+            owner[index] = unitId;
+            lastRun[index] = now;
+            nextDue[index] = now;
+        }
+        // Half a base tick of slack so scheduling jitter doesn't push a unit to the following tick
+        return now + movingMs / 2 >= nextDue[index];
+    }
+
+    /** Milliseconds since the unit was last updated (its simulation time step). */
+    public long elapsed(int index, long now) {
+        return Math.max(0, now - lastRun[index]);
+    }
+
+    public void completed(int index, long now, boolean moving) {
+        completed(index, now, moving ? movingMs : parkedMs);
+    }
+
+    /** Records an update and schedules the next one {@code intervalMs} out. */
+    public void completed(int index, long now, long intervalMs) {
+        lastRun[index] = now;
+        nextDue[index] = now + Math.max(movingMs, intervalMs);
+    }
+
+    public long getMovingMs() { return movingMs; }
+    public long getParkedMs() { return parkedMs; }
+}
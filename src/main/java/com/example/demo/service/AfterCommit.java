@@ -0,0 +1,27 @@
+package com.example.demo.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects (engine, index and store updates, pushes)
+ * until the surrounding transaction commits, so a rollback never leaves them
+ * ahead of the database. Outside a transaction the action runs immediately.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
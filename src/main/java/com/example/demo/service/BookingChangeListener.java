@@ -0,0 +1,34 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Booking;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link Booking}: hands each committed write or delete to
+ * {@link ActiveTripEngine} so the dashboard snapshots stay current without
+ * the poll ever reading the table.
+ */
+@Component
+public class BookingChangeListener {
+
+    private final ActiveTripEngine engine;
+
+    public BookingChangeListener(ActiveTripEngine engine) {
+        this.engine = engine;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Booking booking) {
+        AfterCommit.run(() -> engine.upsert(booking));
+    }
+
+    @PostRemove
+    public void onRemove(Booking booking) {
+        Long id = booking.getId();
+        AfterCommit.run(() -> engine.remove(id));
+    }
+}
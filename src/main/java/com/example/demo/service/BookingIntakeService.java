@@ -0,0 +1,312 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.BookingStatus;
+import com.example.demo.model.BookingTicket;
+import com.example.demo.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous intake for new bookings.
+ *
+ * The create endpoint only checks the required fields, takes a ticket and
+ * enqueues into a bounded {@link MpscRingBuffer}; a full buffer is reported
+ * so the endpoint can answer 429. A single consumer thread drains whatever
+ * has queued up (at most {@code batch-size}), validates and plans each
+ * booking, and inserts the lot with one saveAll in one transaction, which
+ * Hibernate sends as JDBC batches (bookings use pooled table ids for that).
+ * Under load batches grow by themselves; when idle a booking commits alone.
+ *
+ * A batch that fails is retried row by row so one bad booking only fails
+ * its own ticket. Each ticket ends COMMITTED, REJECTED or FAILED, readable
+ * via {@link #ticket} for {@code ticket-ttl-ms}. Each committed batch is
+ * then matched to vehicles in one solve ({@link VehicleMatchingService}) and
+ * pushed to the users' trip queues with the reserved units.
+ */
+@Service
+public class BookingIntakeService {
+
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    // Idle consumer sleeps until submit() wakes it; the timeout only paces the ticket sweep
+    private static final long IDLE_PARK_NANOS = 10_000_000_000L;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingStateService bookingStateService;
+
+    @Autowired
+    private ActiveTripEngine activeTripEngine;
+
+    @Autowired
+    private TripUpdatePublisher tripUpdates;
+
+    @Autowired
+    private VehicleMatchingService vehicleMatchingService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${bookings.intake.buffer-size:8192}")
+    private int bufferSize = 8192;
+
+    @Value("${bookings.intake.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${bookings.intake.ticket-ttl-ms:600000}")
+    private long ticketTtlMs = 600_000;
+
+    @Value("${matching.on-create:true}")
+    private boolean matchOnCreate = true;
+
+    private static final class Pending {
+        final BookingTicket ticket;
+        final Booking booking;
+
+        Pending(BookingTicket ticket, Booking booking) {
+            this.ticket = ticket;
+            this.booking = booking;
+        }
+    }
+
+    private MpscRingBuffer<Pending> buffer;
+    private TransactionTemplate transactions;
+    private Thread consumer;
+    private volatile boolean running;
+    private volatile boolean idle;
+    private final Map<String, BookingTicket> tickets = new ConcurrentHashMap<>();
+    private long lastSweep = System.currentTimeMillis();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejectedFull = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong queueToCommitMillis = new AtomicLong();
+    private volatile int largestBatch;
+    private volatile long lastBatchMillis;
+
+    @PostConstruct
+    public void start() {
+        buffer = new MpscRingBuffer<>(bufferSize);
+        if (transactionManager != null) transactions = new TransactionTemplate(transactionManager);
+        running = true;
+        consumer = new Thread(this::consumeLoop, "booking-intake");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Let the consumer commit what is already queued before the datasource goes away
+        running = false;
+        if (consumer == null) return;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (buffer.size() > 0) System.err.println("Booking Intake: " + buffer.size() + " bookings not committed at shutdown");
+    }
+
+    // --- PRODUCER SIDE (request threads) ---
+
+    /** Missing required field, or null when the booking may be queued. */
+    public static String missingField(Booking booking) {
+        if (booking == null) return "BOOKING_REQUIRED";
+        if (isBlank(booking.getUserId())) return "USER_ID_REQUIRED";
+        if (isBlank(booking.getPickupLocation())) return "PICKUP_REQUIRED";
+        if (isBlank(booking.getDropLocation())) return "DROP_REQUIRED";
+        return null;
+    }
+
+    /** @return the QUEUED ticket, or null when the buffer is full and the booking was not taken */
+    public BookingTicket submit(Booking booking) {
+        BookingTicket ticket = new BookingTicket(UUID.randomUUID().toString(), booking.getUserId(),
+                System.currentTimeMillis());
+        tickets.put(ticket.getTicket(), ticket);
+        if (!buffer.offer(new Pending(ticket, booking))) {
+            tickets.remove(ticket.getTicket());
+            rejectedFull.incrementAndGet();
+            return null;
+        }
+        accepted.incrementAndGet();
+        // Pairs with the recheck in consumeLoop: either it sees this booking or we see it idle
+        if (idle) LockSupport.unpark(consumer);
+        return ticket;
+    }
+
+    public BookingTicket ticket(String ticketId) {
+        return ticketId == null ? null : tickets.get(ticketId);
+    }
+
+    // --- CONSUMER SIDE (single thread) ---
+
+    private void consumeLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            try {
+                batch.clear();
+                buffer.drain(batch::add, batchSize);
+                sweepTickets();
+                if (batch.isEmpty()) {
+                    idle = true;
+                    // A claimed slot not yet published still counts: spin past it instead of sleeping
+                    if (buffer.size() == 0 && running) LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    else Thread.onSpinWait();
+                    idle = false;
+                    continue;
+                }
+                process(batch);
+            } catch (Exception e) {
+                System.err.println("Booking Intake Error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void process(List<Pending> drained) {
+        long started = System.currentTimeMillis();
+        List<Pending> valid = new ArrayList<>(drained.size());
+        for (Pending pending : drained) {
+            String problem = prepare(pending.booking);
+            if (problem != null) {
+                invalid.incrementAndGet();
+                pending.ticket.resolve(BookingTicket.REJECTED, null, problem);
+                continue;
+            }
+            valid.add(pending);
+        }
+        if (valid.isEmpty()) return;
+
+        List<Pending> done = new ArrayList<>(valid.size());
+        try {
+            save(valid);
+            done.addAll(valid);
+        } catch (Exception batchError) {
+            // Nothing committed; isolate the row that broke the batch so the rest still goes in
+            for (Pending pending : valid) {
+                pending.booking.setId(null);
+                pending.booking.setVersion(null);
+                try {
+                    save(List.of(pending));
+                    done.add(pending);
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    pending.ticket.resolve(BookingTicket.FAILED, null, "INSERT_FAILED");
+                    System.err.println("Booking Intake Insert Error: " + e.getMessage());
+                }
+            }
+        }
+        committed(done);
+        batches.incrementAndGet();
+        if (drained.size() > largestBatch) largestBatch = drained.size();
+        lastBatchMillis = System.currentTimeMillis() - started;
+    }
+
+    // Validates and fills in the server-owned fields; returns the problem or null
+    private String prepare(Booking booking) {
+        String missing = missingField(booking);
+        if (missing != null) return missing;
+        if (tooLong(booking.getUserId()) || tooLong(booking.getPickupLocation())
+                || tooLong(booking.getDropLocation()) || tooLong(booking.getVehicleModel())) {
+            return "FIELD_TOO_LONG";
+        }
+        booking.setId(null);
+        booking.setVersion(null);
+        booking.setStatus(BookingStatus.PENDING.name());
+        if (bookingStateService != null) bookingStateService.plan(booking);
+        booking.setProgress(0);
+        booking.setEnergy(100);
+        booking.setVelocity("0");
+        return null;
+    }
+
+    private void save(List<Pending> rows) {
+        List<Booking> bookings = new ArrayList<>(rows.size());
+        for (Pending pending : rows) bookings.add(pending.booking);
+        if (transactions != null) {
+            transactions.executeWithoutResult(status -> bookingRepository.saveAll(bookings));
+        } else {
+            bookingRepository.saveAll(bookings);
+        }
+    }
+
+    // Persisted (ids assigned to the same instances) and handed to the engine by the entity listener
+    private void committed(List<Pending> rows) {
+        long now = System.currentTimeMillis();
+        Set<String> users = new LinkedHashSet<>();
+        for (Pending pending : rows) {
+            pending.ticket.resolve(BookingTicket.COMMITTED, pending.booking.getId(), null);
+            queueToCommitMillis.addAndGet(now - pending.ticket.getQueuedAt());
+            users.add(pending.ticket.getUserId());
+        }
+        committed.addAndGet(rows.size());
+        if (vehicleMatchingService != null && matchOnCreate && !rows.isEmpty()) {
+            List<Booking> created = new ArrayList<>(rows.size());
+            for (Pending pending : rows) created.add(pending.booking);
+            try {
+                vehicleMatchingService.match(created);
+            } catch (Exception e) {
+                System.err.println("Booking Intake Matching Error: " + e.getMessage());
+            }
+            for (Pending pending : rows) pending.ticket.setVehicleId(pending.booking.getAssignedVehicleId());
+        }
+        if (tripUpdates != null && activeTripEngine != null) {
+            for (String userId : users) tripUpdates.push(userId, "CREATED", activeTripEngine.snapshot(userId));
+        }
+    }
+
+    private void sweepTickets() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < 10_000) return;
+        lastSweep = now;
+        tickets.values().removeIf(t -> t.isResolved() && now - t.getResolvedAt() > ticketTtlMs);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean tooLong(String value) {
+        return value != null && value.length() > MAX_FIELD_LENGTH;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long done = committed.get();
+        stats.put("bufferCapacity", buffer.capacity());
+        stats.put("bufferDepth", buffer.size());
+        stats.put("accepted", accepted.get());
+        stats.put("rejectedBufferFull", rejectedFull.get());
+        stats.put("committed", done);
+        stats.put("invalid", invalid.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        stats.put("largestBatch", largestBatch);
+        stats.put("lastBatchMillis", lastBatchMillis);
+        stats.put("avgQueueToCommitMillis", done == 0 ? 0.0 : (double) queueToCommitMillis.get() / done);
+        stats.put("trackedTickets", tickets.size());
+        return stats;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.BookingStatus;
+import com.example.demo.entity.TripHistory;
+import com.example.demo.model.RouteResponse;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TripHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Booking transitions along {@link BookingStatus}, each one transaction.
+ *
+ * Every move is a conditional statement ({@code UPDATE ... WHERE id = ? AND
+ * status IN (sources)}, bumping the version), so two racing admins or a
+ * retried driver tap cannot both win: the loser sees 0 rows and gets a
+ * CONFLICT with the state it lost to. Completing a trip deletes the active
+ * booking conditionally and writes its history row in the same transaction,
+ * so a trip is recorded exactly once. Approval plans the trip (route + ETA)
+ * before its transaction opens, so no connection waits on routing.
+ *
+ * The booking to act on comes from {@link ActiveTripEngine}'s committed copy
+ * when it holds one, leaving the conditional statement as the only round
+ * trip; the engine is told about each change after commit, since bulk
+ * statements skip the entity listener.
+ */
+@Service
+public class BookingStateService {
+
+    // Legacy assumption for trips that cannot be routed: 248.25 km in 3.2 h
+    public static final String DEFAULT_DISTANCE_KM = "248.25";
+    public static final String DEFAULT_DURATION_HOURS = "3.2";
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TripHistoryRepository tripHistoryRepository;
+
+    @Autowired
+    private ActiveTripEngine activeTripEngine;
+
+    @Autowired
+    private AiRouteService aiRouteService;
+
+    @Autowired
+    private EtaPredictionService etaPredictionService;
+
+    @Autowired
+    private VehicleMatchingService vehicleMatchingService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactions;
+
+    public enum Outcome { APPLIED, NOT_FOUND, CONFLICT }
+
+    /** What a transition did; {@code currentStatus} is the blocking state on CONFLICT. */
+    public static final class Result {
+        private final Outcome outcome;
+        private final Booking booking;
+        private final String currentStatus;
+
+        Result(Outcome outcome, Booking booking, String currentStatus) {
+            this.outcome = outcome;
+            this.booking = booking;
+            this.currentStatus = currentStatus;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public Booking getBooking() { return booking; }
+        public String getCurrentStatus() { return currentStatus; }
+        public boolean isApplied() { return outcome == Outcome.APPLIED; }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (transactionManager != null) transactions = new TransactionTemplate(transactionManager);
+    }
+
+    // --- TRANSITIONS ---
+
+    /**
+     * PENDING -> APPROVED with the planned route distance and predicted duration.
+     * The plan is computed first, outside any transaction; only the conditional
+     * update that carries it runs in one.
+     */
+    public Result approve(Long bookingId) {
+        Booking booking = load(bookingId);
+        if (booking == null) return notFound();
+        plan(booking);
+        return inTransaction(() -> applyApproval(bookingId, booking));
+    }
+
+    private Result applyApproval(Long bookingId, Booking booking) {
+        BookingStatus to = BookingStatus.APPROVED;
+        int updated = bookingRepository.approve(bookingId, to.sourceNames(), to.name(),
+                booking.getDistance(), booking.getDuration());
+        if (updated == 0) return conflict(bookingId, booking);
+        booking.setStatus(to.name());
+        booking.setProgress(0);
+        booking.setEnergy(100);
+        String distance = booking.getDistance(), duration = booking.getDuration();
+        AfterCommit.run(() -> activeTripEngine.apply(bookingId, b -> {
+            b.setStatus(to.name());
+            b.setDistance(distance);
+            b.setDuration(duration);
+            b.setProgress(0);
+            b.setEnergy(100);
+            b.setVersion(next(b.getVersion()));
+        }));
+        return new Result(Outcome.APPLIED, booking, to.name());
+    }
+
+    /** PENDING or APPROVED -> REJECTED, handing back any reserved unit. */
+    @Transactional
+    public Result reject(Long bookingId) {
+        BookingStatus to = BookingStatus.REJECTED;
+        int updated = bookingRepository.transition(bookingId, to.sourceNames(), to.name());
+        if (updated == 0) return conflict(bookingId, null);
+        if (vehicleMatchingService != null) {
+            Booking booking = load(bookingId);
+            if (booking != null) vehicleMatchingService.release(booking.getAssignedVehicleId());
+        }
+        AfterCommit.run(() -> activeTripEngine.apply(bookingId, b -> {
+            b.setStatus(to.name());
+            b.setVersion(next(b.getVersion()));
+        }));
+        return new Result(Outcome.APPLIED, null, to.name());
+    }
+
+    /** The user's first APPROVED booking -> TRIP_ACTIVE; the trip clock starts now. */
+    @Transactional
+    public Result start(String userId) {
+        Booking booking = loadFirst(userId, BookingStatus.APPROVED);
+        if (booking == null) return notFound();
+        BookingStatus to = BookingStatus.TRIP_ACTIVE;
+        LocalDateTime startedAt = LocalDateTime.now();
+        int updated = bookingRepository.start(booking.getId(), to.sourceNames(), to.name(), startedAt);
+        if (updated == 0) return conflict(booking.getId(), booking);
+        booking.setStatus(to.name());
+        booking.setBookingTime(startedAt);
+        Long bookingId = booking.getId();
+        AfterCommit.run(() -> activeTripEngine.apply(bookingId, b -> {
+            b.setStatus(to.name());
+            b.setBookingTime(startedAt);
+            b.setVersion(next(b.getVersion()));
+        }));
+        return new Result(Outcome.APPLIED, booking, to.name());
+    }
+
+    /**
+     * The user's TRIP_ACTIVE booking -> COMPLETED: deleted (only if still
+     * active) and recorded in trip history, atomically; its unit is freed.
+     */
+    @Transactional
+    public Result complete(String userId) {
+        Booking booking = loadFirst(userId, BookingStatus.TRIP_ACTIVE);
+        if (booking == null) return notFound();
+        int deleted = bookingRepository.deleteByIdAndStatus(booking.getId(), BookingStatus.TRIP_ACTIVE.name());
+        if (deleted == 0) return conflict(booking.getId(), booking);
+
+        LocalDateTime now = LocalDateTime.now();
+        double actualHours = booking.getBookingTime() == null ? 0
+                : Duration.between(booking.getBookingTime(), now).toSeconds() / 3600.0;
+        TripHistory history = new TripHistory();
+        history.setUserId(booking.getUserId());
+        history.setVehicleModel(booking.getVehicleModel());
+        history.setPickupLocation(booking.getPickupLocation());
+        history.setDropLocation(booking.getDropLocation());
+        // Planned distance and actual duration: the ETA model trains on these
+        history.setDistance(booking.getDistance() != null ? booking.getDistance() : DEFAULT_DISTANCE_KM);
+        history.setDuration(String.format(Locale.ROOT, "%.2f", actualHours));
+        history.setCompletedAt(now);
+        tripHistoryRepository.save(history);
+        if (vehicleMatchingService != null) vehicleMatchingService.release(booking.getAssignedVehicleId());
+
+        booking.setStatus(BookingStatus.COMPLETED.name());
+        Long bookingId = booking.getId();
+        AfterCommit.run(() -> activeTripEngine.remove(bookingId));
+        return new Result(Outcome.APPLIED, booking, BookingStatus.COMPLETED.name());
+    }
+
+    // --- PLANNING ---
+
+    /** Sets distance (km) from the road route and duration (hours) from the ETA model; legacy values if unroutable. */
+    public void plan(Booking b) {
+        b.setDistance(DEFAULT_DISTANCE_KM);
+        b.setDuration(DEFAULT_DURATION_HOURS);
+        if (aiRouteService == null || etaPredictionService == null) return;
+        try {
+            RouteResponse route = aiRouteService.getOptimizedRoute(b.getPickupLocation(), b.getDropLocation());
+            if (route == null) return;
+            double minutes = etaPredictionService.predictMinutes(route.getTotalDistance(), LocalDateTime.now(),
+                    b.getVehicleModel());
+            b.setDistance(String.format(Locale.ROOT, "%.2f", route.getTotalDistance()));
+            b.setDuration(String.format(Locale.ROOT, "%.1f", minutes / 60.0));
+        } catch (IllegalArgumentException e) {
+            // Unknown pickup or drop: keep the legacy plan
+        }
+    }
+
+    // --- HELPERS ---
+
+    private Result inTransaction(Supplier<Result> work) {
+        return transactions != null ? transactions.execute(status -> work.get()) : work.get();
+    }
+
+    // Engine copy when it holds the booking (no query); the table otherwise
+    private Booking load(Long bookingId) {
+        if (activeTripEngine != null && activeTripEngine.isSeeded()) {
+            Booking held = activeTripEngine.find(bookingId);
+            if (held != null) return held;
+        }
+        return bookingRepository.findById(bookingId).orElse(null);
+    }
+
+    private Booking loadFirst(String userId, BookingStatus status) {
+        if (activeTripEngine != null && activeTripEngine.isSeeded()) {
+            Booking held = activeTripEngine.find(userId, status.name());
+            if (held != null) return held;
+        }
+        return bookingRepository.findFirstByUserIdAndStatusOrderByIdAsc(userId, status.name()).orElse(null);
+    }
+
+    private Result conflict(Long bookingId, Booking booking) {
+        String current = bookingRepository.findStatusById(bookingId).orElse(null);
+        if (current == null) return notFound();
+        return new Result(Outcome.CONFLICT, booking, current);
+    }
+
+    private static Result notFound() {
+        return new Result(Outcome.NOT_FOUND, null, null);
+    }
+
+    private static Long next(Long version) {
+        return version == null ? 1L : version + 1;
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy over a {@link RoadGraph}, stored in a memory-mapped file.
+ *
+ * Preprocessing contracts nodes one by one (cheapest first, by edge difference
+ * plus already-contracted neighbours), adding a shortcut u -> w whenever the
+ * only shortest u -> w path ran through the contracted node. A query then runs
+ * a bidirectional Dijkstra that only ever climbs to higher-ranked nodes, which
+ * settles a few hundred nodes instead of tens of thousands.
+ *
+ * Layout (all little-endian):
+ * <pre>
+ *   header (32 B): magic, format, nodeCount, edgeCount, graph fingerprint (long)
+ *   upOffsets   int[nodeCount + 1]   edges leaving u toward higher rank
+ *   upEdges     int[...]
+ *   downOffsets int[nodeCount + 1]   edges entering v from higher rank
+ *   downEdges   int[...]
+ *   from, to    int[edgeCount]
+ *   weight      float[edgeCount]     free-flow seconds
+ *   length      float[edgeCount]     metres
+ *   child1      int[edgeCount]       original edge id, or first half of a shortcut
+ *   child2      int[edgeCount]       -1, or second half of a shortcut
+ * </pre>
+ * The file records a fingerprint of the graph it was built from; {@link #open}
+ * refuses a file built for a different graph, so a changed road network is
+ * re-contracted instead of served stale.
+ */
+public final class ContractionHierarchy {
+
+    private static final int MAGIC = 0x4E464348; // "NFCH"
+    private static final int FORMAT = 2;
+    private static final int HEADER_BYTES = 32;
+
+    private final MappedByteBuffer buffer;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int upOffsetsCol, upEdgesCol, downOffsetsCol, downEdgesCol;
+    private final int fromCol, toCol, weightCol, lengthCol, child1Col, child2Col;
+
+    private ContractionHierarchy(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.nodeCount = buffer.getInt(8);
+        this.edgeCount = buffer.getInt(12);
+        this.upOffsetsCol = HEADER_BYTES;
+        this.upEdgesCol = upOffsetsCol + 4 * (nodeCount + 1);
+        int upCount = buffer.getInt(upOffsetsCol + 4 * nodeCount);
+        this.downOffsetsCol = upEdgesCol + 4 * upCount;
+        this.downEdgesCol = downOffsetsCol + 4 * (nodeCount + 1);
+        int downCount = buffer.getInt(downOffsetsCol + 4 * nodeCount);
+        this.fromCol = downEdgesCol + 4 * downCount;
+        this.toCol = fromCol + 4 * edgeCount;
+        this.weightCol = toCol + 4 * edgeCount;
+        this.lengthCol = weightCol + 4 * edgeCount;
+        this.child1Col = lengthCol + 4 * edgeCount;
+        this.child2Col = child1Col + 4 * edgeCount;
+    }
+
+    // --- QUERY ACCESS ---
+
+    public int nodeCount() { return nodeCount; }
+    public int edgeCount() { return edgeCount; }
+
+    public int firstUp(int node) { return buffer.getInt(upOffsetsCol + 4 * node); }
+    public int lastUp(int node) { return buffer.getInt(upOffsetsCol + 4 * (node + 1)); }
+    public int upEdge(int index) { return buffer.getInt(upEdgesCol + 4 * index); }
+
+    public int firstDown(int node) { return buffer.getInt(downOffsetsCol + 4 * node); }
+    public int lastDown(int node) { return buffer.getInt(downOffsetsCol + 4 * (node + 1)); }
+    public int downEdge(int index) { return buffer.getInt(downEdgesCol + 4 * index); }
+
+    public int from(int edge) { return buffer.getInt(fromCol + 4 * edge); }
+    public int to(int edge) { return buffer.getInt(toCol + 4 * edge); }
+    public float weight(int edge) { return buffer.getFloat(weightCol + 4 * edge); }
+    public float length(int edge) { return buffer.getFloat(lengthCol + 4 * edge); }
+
+    /** For an original edge, its id in the road graph; for a shortcut, its first half. */
+    public int child1(int edge) { return buffer.getInt(child1Col + 4 * edge); }
+
+    /** Second half of a shortcut, or -1 for an original edge. */
+    public int child2(int edge) { return buffer.getInt(child2Col + 4 * edge); }
+
+    public int shortcutCount() {
+        int shortcuts = 0;
+        for (int e = 0; e < edgeCount; e++) if (child2(e) >= 0) shortcuts++;
+        return shortcuts;
+    }
+
+    // --- PERSISTENCE ---
+
+    /** Maps an existing hierarchy, failing if it is missing, corrupt or built for another graph. */
+    public static ContractionHierarchy open(Path path, RoadGraph graph) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (file.length() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+                throw new IOException("Not a contraction hierarchy: " + path);
+            }
+            if (buffer.getInt(8) != graph.nodeCount() || buffer.getLong(16) != fingerprint(graph)) {
+                throw new IOException("Contraction hierarchy was built for a different graph: " + path);
+            }
+            return new ContractionHierarchy(buffer);
+        }
+    }
+
+    /** Contracts {@code graph}, writes the result to {@code path} (atomically) and maps it. */
+    public static ContractionHierarchy build(RoadGraph graph, Path path) throws IOException {
+        Contractor contractor = new Contractor(graph);
+        contractor.contractAll();
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        contractor.write(tmp, fingerprint(graph));
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path, graph);
+    }
+
+    public static ContractionHierarchy openOrBuild(RoadGraph graph, Path path) throws IOException {
+        if (Files.isRegularFile(path)) {
+            try {
+                return open(path, graph);
+            } catch (IOException e) {
+                System.out.println("Rebuilding contraction hierarchy: " + e.getMessage());
+            }
+        }
+        return build(graph, path);
+    }
+
+    /** FNV-1a over the graph's topology and weights. */
+    public static long fingerprint(RoadGraph graph) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, FORMAT);
+        hash = mix(hash, graph.nodeCount());
+        hash = mix(hash, graph.edgeCount());
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            hash = mix(hash, graph.source(e));
+            hash = mix(hash, graph.target(e));
+            hash = mix(hash, Float.floatToIntBits(graph.weight(e)));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Preprocessing state: a shrinking adjacency over uncontracted nodes plus a
+     * growing edge table (original edges, then shortcuts), contracted in
+     * lazy-updated priority order.
+     */
+    private static final class Contractor {
+        // Priority estimates use a cheap witness search; real contraction a thorough one
+        private static final int ESTIMATE_SETTLE_LIMIT = 50;
+        private static final int WITNESS_SETTLE_LIMIT = 500;
+
+        private final int n;
+
+        // Edge table
+        private int[] from = new int[1024], to = new int[1024], child1 = new int[1024], child2 = new int[1024];
+        private float[] weight = new float[1024], length = new float[1024];
+        private int edges;
+
+        // Adjacency among uncontracted nodes: edge ids per node
+        private final int[][] out, in;
+        private final int[] outSize, inSize;
+
+        private final boolean[] contracted;
+        private final int[] rank;
+        private final int[] deletedNeighbours;
+
+        // Witness search scratch
+        private final float[] dist;
+        private final int[] seen;
+        private int generation;
+        private final IndexedMinHeap witnessHeap;
+        private final RoadGraph graph;
+
+        Contractor(RoadGraph graph) {
+            this.graph = graph;
+            this.n = graph.nodeCount();
+            out = new int[n][];
+            in = new int[n][];
+            outSize = new int[n];
+            inSize = new int[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new int[4];
+                in[v] = new int[4];
+            }
+            contracted = new boolean[n];
+            rank = new int[n];
+            deletedNeighbours = new int[n];
+            dist = new float[n];
+            seen = new int[n];
+            witnessHeap = new IndexedMinHeap(n);
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                addOrImprove(graph.source(e), graph.target(e), graph.weight(e), e, -1);
+            }
+        }
+
+        void contractAll() {
+            IndexedMinHeap queue = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) queue.push(v, priority(v));
+            int order = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.pop();
+                float current = priority(v);
+                if (!queue.isEmpty() && current > queue.peekKey()) {
+                    queue.push(v, current); // stale key: requeue and try the new minimum
+                    continue;
+                }
+                contract(v);
+                rank[v] = order++;
+                for (int i = 0; i < outSize[v]; i++) touch(queue, to[out[v][i]]);
+                for (int i = 0; i < inSize[v]; i++) touch(queue, from[in[v][i]]);
+            }
+        }
+
+        private void touch(IndexedMinHeap queue, int neighbour) {
+            if (contracted[neighbour]) return;
+            deletedNeighbours[neighbour]++;
+            queue.update(neighbour, priority(neighbour));
+        }
+
+        private float priority(int v) {
+            int shortcuts = shortcuts(v, false);
+            return 2 * (shortcuts - outSize[v] - inSize[v]) + deletedNeighbours[v];
+        }
+
+        private void contract(int v) {
+            shortcuts(v, true);
+            contracted[v] = true;
+            for (int i = 0; i < outSize[v]; i++) remove(in, inSize, to[out[v][i]], out[v][i]);
+            for (int i = 0; i < inSize[v]; i++) remove(out, outSize, from[in[v][i]], in[v][i]);
+        }
+
+        /** Counts (or adds) the shortcuts needed to bypass {@code v}. */
+        private int shortcuts(int v, boolean add) {
+            int count = 0;
+            float maxOut = 0;
+            for (int j = 0; j < outSize[v]; j++) maxOut = Math.max(maxOut, weight[out[v][j]]);
+            for (int i = 0; i < inSize[v]; i++) {
+                int inEdge = in[v][i];
+                int u = from[inEdge];
+                float viaV = weight[inEdge];
+                witnessSearch(u, v, viaV + maxOut, add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+                for (int j = 0; j < outSize[v]; j++) {
+                    int outEdge = out[v][j];
+                    int w = to[outEdge];
+                    if (w == u) continue;
+                    float cost = viaV + weight[outEdge];
+                    if (seen[w] == generation && dist[w] <= cost) continue; // witness path avoids v
+                    count++;
+                    if (add) addOrImprove(u, w, cost, inEdge, outEdge);
+                }
+            }
+            return count;
+        }
+
+        /** Bounded Dijkstra from {@code source} over uncontracted nodes, never entering {@code skip}. */
+        private void witnessSearch(int source, int skip, float limit, int settleLimit) {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                generation = 1;
+            }
+            dist[source] = 0;
+            seen[source] = generation;
+            witnessHeap.push(source, 0);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && witnessHeap.peekKey() <= limit && settled++ < settleLimit) {
+                int u = witnessHeap.pop();
+                float du = dist[u];
+                for (int i = 0; i < outSize[u]; i++) {
+                    int e = out[u][i];
+                    int w = to[e];
+                    if (w == skip) continue;
+                    float dw = du + weight[e];
+                    if (seen[w] != generation || dw < dist[w]) {
+                        dist[w] = dw;
+                        seen[w] = generation;
+                        witnessHeap.push(w, dw);
+                    }
+                }
+            }
+            witnessHeap.clear();
+        }
+
+        private void addOrImprove(int u, int w, float cost, int first, int second) {
+            for (int i = 0; i < outSize[u]; i++) {
+                int e = out[u][i];
+                if (to[e] != w) continue;
+                if (weight[e] > cost) {
+                    // Neither endpoint is contracted yet, so no shortcut refers to e
+                    weight[e] = cost;
+                    length[e] = lengthOf(first, second);
+                    child1[e] = first;
+                    child2[e] = second;
+                }
+                return;
+            }
+            if (edges == from.length) {
+                int grown = edges * 2;
+                from = Arrays.copyOf(from, grown);
+                to = Arrays.copyOf(to, grown);
+                weight = Arrays.copyOf(weight, grown);
+                length = Arrays.copyOf(length, grown);
+                child1 = Arrays.copyOf(child1, grown);
+                child2 = Arrays.copyOf(child2, grown);
+            }
+            int e = edges++;
+            from[e] = u;
+            to[e] = w;
+            weight[e] = cost;
+            length[e] = lengthOf(first, second);
+            child1[e] = first;
+            child2[e] = second;
+            append(out, outSize, u, e);
+            append(in, inSize, w, e);
+        }
+
+        // Children of a shortcut are edges at a node being contracted, so their lengths are final
+        private float lengthOf(int first, int second) {
+            return second < 0 ? graph.length(first) : length[first] + length[second];
+        }
+
+        private static void append(int[][] lists, int[] sizes, int node, int edge) {
+            if (sizes[node] == lists[node].length) lists[node] = Arrays.copyOf(lists[node], sizes[node] * 2);
+            lists[node][sizes[node]++] = edge;
+        }
+
+        private static void remove(int[][] lists, int[] sizes, int node, int edge) {
+            int[] list = lists[node];
+            for (int i = 0; i < sizes[node]; i++) {
+                if (list[i] == edge) {
+                    list[i] = list[--sizes[node]];
+                    return;
+                }
+            }
+        }
+
+        void write(Path path, long fingerprint) throws IOException {
+            // Each edge belongs to the search side of its lower-ranked endpoint
+            int[] upOffsets = new int[n + 1];
+            int[] downOffsets = new int[n + 1];
+            for (int e = 0; e < edges; e++) {
+                if (rank[to[e]] > rank[from[e]]) upOffsets[from[e] + 1]++;
+                else downOffsets[to[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                upOffsets[v + 1] += upOffsets[v];
+                downOffsets[v + 1] += downOffsets[v];
+            }
+            int[] upEdges = new int[upOffsets[n]];
+            int[] downEdges = new int[downOffsets[n]];
+            int[] upFill = Arrays.copyOf(upOffsets, n);
+            int[] downFill = Arrays.copyOf(downOffsets, n);
+            for (int e = 0; e < edges; e++) {
+                if (rank[to[e]] > rank[from[e]]) upEdges[upFill[from[e]]++] = e;
+                else downEdges[downFill[to[e]]++] = e;
+            }
+
+            long size = HEADER_BYTES + 4L * (2 * (n + 1) + upEdges.length + downEdges.length + 6L * edges);
+            Files.deleteIfExists(path);
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(size);
+                MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(FORMAT).putInt(n).putInt(edges).putLong(fingerprint).putLong(0);
+                for (int value : upOffsets) buffer.putInt(value);
+                for (int value : upEdges) buffer.putInt(value);
+                for (int value : downOffsets) buffer.putInt(value);
+                for (int value : downEdges) buffer.putInt(value);
+                for (int e = 0; e < edges; e++) buffer.putInt(from[e]);
+                for (int e = 0; e < edges; e++) buffer.putInt(to[e]);
+                for (int e = 0; e < edges; e++) buffer.putFloat(weight[e]);
+                for (int e = 0; e < edges; e++) buffer.putFloat(length[e]);
+                for (int e = 0; e < edges; e++) buffer.putInt(child1[e]);
+                for (int e = 0; e < edges; e++) buffer.putInt(child2[e]);
+                buffer.force();
+            }
+        }
+    }
+}
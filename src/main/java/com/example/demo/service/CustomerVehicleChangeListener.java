@@ -0,0 +1,39 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.CustomerVehicle;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link CustomerVehicle}: keeps the telemetry store's
+ * membership in step with link approvals so the simulator never has to
+ * re-query approved rows.
+ */
+@Component
+public class CustomerVehicleChangeListener {
+
+    private final TelemetryStateStore store;
+
+    public CustomerVehicleChangeListener(TelemetryStateStore store) {
+        this.store = store;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(CustomerVehicle link) {
+        if ("approved".equals(link.getStatus())) {
+            AfterCommit.run(() -> store.track(link));
+        } else {
+            Long vehicleId = link.getVehicleId();
+            AfterCommit.run(() -> store.untrack(vehicleId));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(CustomerVehicle link) {
+        Long vehicleId = link.getVehicleId();
+        AfterCommit.run(() -> store.untrack(vehicleId));
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.demo.service;
+
+import com.example.demo.model.DistanceMatrix;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Many-to-many travel times for dispatch planning.
+ *
+ * Each origin runs one Dijkstra over the live traffic weights that stops once
+ * all destinations are settled; origins are spread over a dedicated
+ * ForkJoinPool, each worker reusing its own {@link RouteSearch}. All rows read
+ * the same traffic snapshot, so the matrix is internally consistent.
+ *
+ * When no edge is congested, or a caller asks for free flow explicitly, the
+ * contraction hierarchy answers instead with bucket-based many-to-many: one
+ * backward upward search per destination files (destination, time, metres)
+ * into buckets at every node it settles, then one forward upward search per
+ * origin scans the buckets of the nodes it settles. Both searches touch only
+ * a few hundred nodes, so large square matrices cost milliseconds per row.
+ */
+@Service
+public class DistanceMatrixService {
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Autowired
+    private TrafficOverlay trafficOverlay;
+
+    @Value("${routing.matrix.parallelism:0}")
+    private int parallelism = 0;
+
+    @Value("${routing.matrix.max-cells:250000}")
+    private int maxCells = 250_000;
+
+    // In-process planners (load optimizer); two float arrays per matrix, so 20M cells is ~160 MB
+    @Value("${routing.matrix.max-plan-cells:20000000}")
+    private int maxPlanCells = 20_000_000;
+
+    private ForkJoinPool pool;
+    private final ThreadLocal<RouteSearch> searches =
+            ThreadLocal.withInitial(() -> new RouteSearch(roadGraphService.getGraph()));
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @throws IllegalArgumentException for an empty or oversized request or an unknown place
+     */
+    public DistanceMatrix compute(List<String> origins, List<String> destinations) {
+        if (origins == null || origins.isEmpty() || destinations == null || destinations.isEmpty()) {
+            throw new IllegalArgumentException("Origins and destinations are required");
+        }
+        if ((long) origins.size() * destinations.size() > maxCells) {
+            throw new IllegalArgumentException("Matrix too large: " + origins.size() + "x" + destinations.size()
+                    + " exceeds " + maxCells + " cells");
+        }
+        RoadGraph graph = roadGraphService.getGraph();
+        int[] sources = snap(graph, origins);
+        int[] targets = snap(graph, destinations);
+        return compute(sources, targets);
+    }
+
+    /**
+     * Matrix between already-snapped graph nodes, under current traffic.
+     *
+     * @throws IllegalArgumentException when it would exceed {@code routing.matrix.max-plan-cells}
+     */
+    public DistanceMatrix compute(int[] sources, int[] targets) {
+        long start = System.nanoTime();
+        int cells = checkedCells(sources, targets);
+        TrafficOverlay.Snapshot snapshot = trafficOverlay.current();
+        ContractionHierarchy hierarchy = roadGraphService.getHierarchy();
+        float[] durations = new float[cells];
+        float[] distances = new float[cells];
+        if (snapshot.isFreeFlow() && hierarchy != null) {
+            buckets(sources, targets, hierarchy, durations, distances);
+        } else {
+            dijkstra(sources, targets, snapshot.weights(), durations, distances);
+        }
+        return new DistanceMatrix(sources.length, targets.length, durations, distances, snapshot.getVersion(),
+                (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Free-flow matrix regardless of live traffic, for planners that look
+     * further ahead than the current congestion lasts (traffic version 0).
+     *
+     * @throws IllegalArgumentException when it would exceed {@code routing.matrix.max-plan-cells}
+     */
+    public DistanceMatrix computeFreeFlow(int[] sources, int[] targets) {
+        long start = System.nanoTime();
+        int cells = checkedCells(sources, targets);
+        ContractionHierarchy hierarchy = roadGraphService.getHierarchy();
+        float[] durations = new float[cells];
+        float[] distances = new float[cells];
+        if (hierarchy != null) {
+            buckets(sources, targets, hierarchy, durations, distances);
+        } else {
+            dijkstra(sources, targets, roadGraphService.getGraph().weights(), durations, distances);
+        }
+        return new DistanceMatrix(sources.length, targets.length, durations, distances, 0,
+                (System.nanoTime() - start) / 1e6);
+    }
+
+    /** Long multiply, so an oversized request fails here instead of overflowing into a bad allocation. */
+    private int checkedCells(int[] sources, int[] targets) {
+        long cells = (long) sources.length * targets.length;
+        if (cells > maxPlanCells) {
+            throw new IllegalArgumentException("Matrix too large: " + sources.length + "x" + targets.length
+                    + " exceeds " + maxPlanCells + " cells");
+        }
+        return (int) cells;
+    }
+
+    // --- ONE-TO-MANY DIJKSTRA ---
+
+    private void dijkstra(int[] sources, int[] targets, float[] weights, float[] durations, float[] distances) {
+        int cols = targets.length;
+        List<Callable<Void>> rows = new ArrayList<>(sources.length);
+        for (int i = 0; i < sources.length; i++) {
+            int row = i;
+            rows.add(() -> {
+                searches.get().oneToMany(sources[row], targets, weights, durations, distances, row * cols);
+                return null;
+            });
+        }
+        runAll(rows);
+    }
+
+    // --- HIERARCHY BUCKETS ---
+
+    /** Settled nodes of one backward search, in settle order. */
+    private static final class Space {
+        int size;
+        int[] nodes = new int[64];
+        float[] durations = new float[64];
+        float[] meters = new float[64];
+
+        void add(int node, float duration, float distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                durations = Arrays.copyOf(durations, size * 2);
+                meters = Arrays.copyOf(meters, size * 2);
+            }
+            nodes[size] = node;
+            durations[size] = duration;
+            meters[size++] = distance;
+        }
+    }
+
+    private void buckets(int[] sources, int[] targets, ContractionHierarchy hierarchy,
+                         float[] durations, float[] distances) {
+        int cols = targets.length;
+        Space[] spaces = new Space[cols];
+        List<Callable<Void>> backward = new ArrayList<>(cols);
+        for (int j = 0; j < cols; j++) {
+            int col = j;
+            backward.add(() -> {
+                Space space = new Space();
+                searches.get().upward(targets[col], false, hierarchy, space::add);
+                spaces[col] = space;
+                return null;
+            });
+        }
+        runAll(backward);
+
+        // Counting sort of all (node, destination) entries into per-node buckets
+        int n = hierarchy.nodeCount();
+        int[] offsets = new int[n + 1];
+        for (Space space : spaces) {
+            for (int i = 0; i < space.size; i++) offsets[space.nodes[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+        int[] bucketTarget = new int[offsets[n]];
+        float[] bucketDuration = new float[offsets[n]];
+        float[] bucketMeters = new float[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int j = 0; j < cols; j++) {
+            Space space = spaces[j];
+            for (int i = 0; i < space.size; i++) {
+                int slot = fill[space.nodes[i]]++;
+                bucketTarget[slot] = j;
+                bucketDuration[slot] = space.durations[i];
+                bucketMeters[slot] = space.meters[i];
+            }
+        }
+
+        List<Callable<Void>> forward = new ArrayList<>(sources.length);
+        for (int i = 0; i < sources.length; i++) {
+            int base = i * cols;
+            int source = sources[i];
+            forward.add(() -> {
+                Arrays.fill(durations, base, base + cols, Float.POSITIVE_INFINITY);
+                searches.get().upward(source, true, hierarchy, (node, duration, meters) -> {
+                    for (int b = offsets[node], end = offsets[node + 1]; b < end; b++) {
+                        int cell = base + bucketTarget[b];
+                        float total = duration + bucketDuration[b];
+                        if (total < durations[cell]) {
+                            durations[cell] = total;
+                            distances[cell] = meters + bucketMeters[b];
+                        }
+                    }
+                });
+                for (int cell = base; cell < base + cols; cell++) {
+                    if (durations[cell] == Float.POSITIVE_INFINITY) {
+                        durations[cell] = -1f;
+                        distances[cell] = -1f;
+                    }
+                }
+                return null;
+            });
+        }
+        runAll(forward);
+    }
+
+    private void runAll(List<Callable<Void>> tasks) {
+        for (Future<Void> task : pool.invokeAll(tasks)) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Matrix computation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Matrix computation failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    private int[] snap(RoadGraph graph, List<String> places) {
+        int[] nodes = new int[places.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            double[] point = roadGraphService.resolve(places.get(i));
+            nodes[i] = graph.nearestNode(point[0], point[1]);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.demo.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Linear trip-duration model, held as one flat weight array.
+ *
+ * A trip is described by its distance, the hour of the week it starts in and
+ * the vehicle model. The prediction is a fixed overhead plus distance times a
+ * pace (minutes per km) made of a base pace, an offset per hour of day, a
+ * weekend offset and an offset per vehicle model:
+ *
+ * <pre>
+ *   minutes = w[0] + km * (w[1] + w[HOUR + hour] + weekend * w[WEEKEND] + w[MODEL + model])
+ * </pre>
+ *
+ * Weights are fitted by ridge regression (normal equations, Cholesky). The
+ * offsets are penalised and the overhead and base pace are not, so an hour or
+ * model with few trips stays close to the fleet-wide pace; {@code lambda} is
+ * the penalty in units of "average trips", i.e. a bucket with {@code lambda}
+ * trips is pulled halfway to the base pace.
+ *
+ * Inference is a handful of array reads per trip; {@link #predict(double[], int[], int[], double[], int)}
+ * fills a caller-owned array and allocates nothing.
+ */
+public final class EtaModel {
+
+    private static final int MAGIC = 0x4E464554; // "NFET"
+    private static final int FORMAT = 1;
+
+    static final int BIAS = 0, PACE = 1, HOUR = 2, WEEKEND = HOUR + 24, MODEL = WEEKEND + 1;
+
+    private final double[] weights;
+    private final String[] models;
+    private final Map<String, Integer> modelIndex = new HashMap<>();
+    private final int samples;
+    private final long trainedAtMillis;
+
+    private EtaModel(double[] weights, String[] models, int samples, long trainedAtMillis) {
+        this.weights = weights;
+        this.models = models;
+        this.samples = samples;
+        this.trainedAtMillis = trainedAtMillis;
+        for (int i = 0; i < models.length; i++) modelIndex.put(models[i], i);
+    }
+
+    /** Completed trips collected for training, in growable primitive columns. */
+    public static final class Samples {
+        private double[] km = new double[256];
+        private int[] hourOfWeek = new int[256];
+        private String[] model = new String[256];
+        private double[] minutes = new double[256];
+        private int size;
+
+        public void add(double distanceKm, int hourOfWeek, String vehicleModel, double durationMinutes) {
+            if (size == km.length) {
+                int capacity = size * 2;
+                km = Arrays.copyOf(km, capacity);
+                this.hourOfWeek = Arrays.copyOf(this.hourOfWeek, capacity);
+                model = Arrays.copyOf(model, capacity);
+                minutes = Arrays.copyOf(minutes, capacity);
+            }
+            km[size] = distanceKm;
+            this.hourOfWeek[size] = hourOfWeek;
+            model[size] = normalize(vehicleModel);
+            minutes[size] = durationMinutes;
+            size++;
+        }
+
+        public int size() { return size; }
+        public double distanceKm(int i) { return km[i]; }
+        public int hourOfWeek(int i) { return hourOfWeek[i]; }
+        public String vehicleModel(int i) { return model[i]; }
+        public double minutes(int i) { return minutes[i]; }
+    }
+
+    // --- TRAINING ---
+
+    /**
+     * Fits a model to every sample, or to those whose index satisfies {@code i % folds != holdout}
+     * when {@code folds > 1} (for holdout evaluation).
+     *
+     * @param maxModels vehicle models with their own offset, the most frequent first; others share the base pace
+     */
+    public static EtaModel train(Samples data, double lambda, int maxModels, int folds, int holdout) {
+        // Most frequent vehicle models get a feature each
+        Map<String, Integer> counts = new HashMap<>();
+        int used = 0;
+        double meanSquareKm = 0;
+        for (int i = 0; i < data.size; i++) {
+            if (folds > 1 && i % folds == holdout) continue;
+            if (data.model[i] != null) counts.merge(data.model[i], 1, Integer::sum);
+            meanSquareKm += data.km[i] * data.km[i];
+            used++;
+        }
+        if (used == 0) throw new IllegalArgumentException("No trips to train on");
+        meanSquareKm /= used;
+        String[] models = counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(Math.max(0, maxModels))
+                .map(Map.Entry::getKey)
+                .toArray(String[]::new);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < models.length; i++) index.put(models[i], i);
+
+        // Normal equations: each row has at most five non-zero features
+        int p = MODEL + models.length;
+        double[] gram = new double[p * p];
+        double[] rhs = new double[p];
+        int[] cols = new int[5];
+        double[] vals = new double[5];
+        for (int i = 0; i < data.size; i++) {
+            if (folds > 1 && i % folds == holdout) continue;
+            double km = data.km[i];
+            int nnz = 0;
+            cols[nnz] = BIAS; vals[nnz++] = 1;
+            cols[nnz] = PACE; vals[nnz++] = km;
+            cols[nnz] = HOUR + data.hourOfWeek[i] % 24; vals[nnz++] = km;
+            if (isWeekend(data.hourOfWeek[i])) { cols[nnz] = WEEKEND; vals[nnz++] = km; }
+            Integer m = data.model[i] == null ? null : index.get(data.model[i]);
+            if (m != null) { cols[nnz] = MODEL + m; vals[nnz++] = km; }
+            for (int a = 0; a < nnz; a++) {
+                rhs[cols[a]] += vals[a] * data.minutes[i];
+                for (int b = 0; b < nnz; b++) gram[cols[a] * p + cols[b]] += vals[a] * vals[b];
+            }
+        }
+        double penalty = lambda * meanSquareKm;
+        for (int j = HOUR; j < p; j++) gram[j * p + j] += penalty;
+        // A tiny ridge on the unpenalised terms keeps the system solvable for degenerate data
+        gram[BIAS * p + BIAS] += 1e-9;
+        gram[PACE * p + PACE] += 1e-9 * (meanSquareKm + 1);
+
+        return new EtaModel(choleskySolve(gram, rhs, p), models, used, System.currentTimeMillis());
+    }
+
+    /** Solves {@code A x = b} for symmetric positive definite {@code A} (row-major, overwritten). */
+    static double[] choleskySolve(double[] a, double[] b, int n) {
+        for (int j = 0; j < n; j++) {
+            double diagonal = a[j * n + j];
+            for (int k = 0; k < j; k++) diagonal -= a[j * n + k] * a[j * n + k];
+            if (diagonal <= 0) throw new IllegalStateException("Training system is not positive definite");
+            double l = Math.sqrt(diagonal);
+            a[j * n + j] = l;
+            for (int i = j + 1; i < n; i++) {
+                double sum = a[i * n + j];
+                for (int k = 0; k < j; k++) sum -= a[i * n + k] * a[j * n + k];
+                a[i * n + j] = sum / l;
+            }
+        }
+        double[] x = Arrays.copyOf(b, n);
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < i; k++) x[i] -= a[i * n + k] * x[k];
+            x[i] /= a[i * n + i];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            for (int k = i + 1; k < n; k++) x[i] -= a[k * n + i] * x[k];
+            x[i] /= a[i * n + i];
+        }
+        return x;
+    }
+
+    // --- INFERENCE ---
+
+    /** Index of a vehicle model for the batch path, or -1 when it has no offset of its own. */
+    public int modelIndex(String vehicleModel) {
+        Integer index = vehicleModel == null ? null : modelIndex.get(normalize(vehicleModel));
+        return index == null ? -1 : index;
+    }
+
+    public double predict(double distanceKm, int hourOfWeek, int modelIndex) {
+        double pace = weights[PACE] + weights[HOUR + hourOfWeek % 24];
+        if (isWeekend(hourOfWeek)) pace += weights[WEEKEND];
+        if (modelIndex >= 0) pace += weights[MODEL + modelIndex];
+        return Math.max(0, weights[BIAS] + distanceKm * pace);
+    }
+
+    /** Writes {@code count} predictions (minutes) into {@code out}; allocation-free. */
+    public void predict(double[] distanceKm, int[] hourOfWeek, int[] modelIndex, double[] out, int count) {
+        double[] w = weights;
+        for (int i = 0; i < count; i++) {
+            int hour = hourOfWeek[i];
+            int model = modelIndex[i];
+            double pace = w[PACE] + w[HOUR + hour % 24]
+                    + (isWeekend(hour) ? w[WEEKEND] : 0)
+                    + (model >= 0 ? w[MODEL + model] : 0);
+            out[i] = Math.max(0, w[BIAS] + distanceKm[i] * pace);
+        }
+    }
+
+    /** Mean absolute error and mean absolute percentage error over the samples {@code i % folds == holdout}. */
+    public double[] evaluate(Samples data, int folds, int holdout) {
+        double absolute = 0, percentage = 0;
+        int n = 0;
+        for (int i = 0; i < data.size; i++) {
+            if (folds > 1 && i % folds != holdout) continue;
+            double error = Math.abs(predict(data.km[i], data.hourOfWeek[i], modelIndex(data.model[i])) - data.minutes[i]);
+            absolute += error;
+            percentage += error / Math.max(1, data.minutes[i]);
+            n++;
+        }
+        return n == 0 ? new double[]{Double.NaN, Double.NaN} : new double[]{absolute / n, 100 * percentage / n};
+    }
+
+    public static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    private static boolean isWeekend(int hourOfWeek) {
+        return hourOfWeek / 24 >= DayOfWeek.SATURDAY.getValue() - 1;
+    }
+
+    private static String normalize(String vehicleModel) {
+        return vehicleModel == null || vehicleModel.isBlank() ? null : vehicleModel.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public int samples() { return samples; }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("samples", samples);
+        info.put("trainedAtMillis", trainedAtMillis);
+        info.put("overheadMinutes", weights[BIAS]);
+        info.put("baseMinutesPerKm", weights[PACE]);
+        info.put("weekendMinutesPerKm", weights[WEEKEND]);
+        info.put("vehicleModels", models.length);
+        return info;
+    }
+
+    // --- PERSISTENCE ---
+
+    /** Writes the model to {@code path} atomically. */
+    public void write(Path path) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(samples);
+            out.writeLong(trainedAtMillis);
+            out.writeInt(models.length);
+            for (String model : models) out.writeUTF(model);
+            out.writeInt(weights.length);
+            for (double w : weights) out.writeDouble(w);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** @throws IOException when the file is missing, truncated or of another format */
+    public static EtaModel read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) throw new IOException("Not an ETA model: " + path);
+            int samples = in.readInt();
+            long trainedAt = in.readLong();
+            String[] models = new String[in.readInt()];
+            for (int i = 0; i < models.length; i++) models[i] = in.readUTF();
+            int length = in.readInt();
+            if (length != MODEL + models.length) throw new IOException("Corrupt ETA model: " + path);
+            double[] weights = new double[length];
+            for (int i = 0; i < length; i++) weights[i] = in.readDouble();
+            return new EtaModel(weights, models, samples, trainedAt);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.TripHistory;
+import com.example.demo.repository.TripHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Trip duration predictions from an {@link EtaModel} trained on completed
+ * trips ({@link TripHistory}: distance, actual duration, start hour, vehicle
+ * model).
+ *
+ * Training runs offline from serving: {@link #train()} reads the history,
+ * reports holdout accuracy, fits on everything, writes the model file and
+ * swaps it in. At startup the model is loaded from {@code eta.model.path};
+ * when there is no file yet, training runs on the background tick lane at
+ * startup and again every {@code eta.retry-ms} until enough trips exist.
+ * Until a model is available predictions use a fixed average speed.
+ */
+@Service
+public class EtaPredictionService {
+
+    private static final int HOLDOUT_FOLDS = 5;
+
+    @Autowired
+    private TripHistoryRepository tripHistoryRepository;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Value("${eta.model.path:data/eta/eta-model.bin}")
+    private String modelPath = "data/eta/eta-model.bin";
+
+    @Value("${eta.lambda:1.0}")
+    private double lambda = 1.0;
+
+    @Value("${eta.max-vehicle-models:32}")
+    private int maxVehicleModels = 32;
+
+    @Value("${eta.min-trips:50}")
+    private int minTrips = 50;
+
+    @Value("${eta.retry-ms:600000}")
+    private long retryMs = 600_000;
+
+    // 248.25 km in 3.2 h: the trip every booking used to be assumed to be
+    @Value("${eta.fallback-speed-kmh:77.6}")
+    private double fallbackSpeedKmh = 77.6;
+
+    private volatile EtaModel model;
+    private volatile Map<String, Object> lastTraining = Map.of("state", "NOT_TRAINED");
+
+    @PostConstruct
+    public void init() {
+        Path path = Paths.get(modelPath);
+        if (Files.isRegularFile(path)) {
+            try {
+                model = EtaModel.read(path);
+                System.out.println("ETA model loaded from " + path + " (" + model.samples() + " trips)");
+                return;
+            } catch (IOException e) {
+                System.err.println("ETA Model Error: " + e.getMessage() + "; retraining");
+            }
+        }
+        if (tickScheduler != null) {
+            // Reads the whole trip history: keep it off the telemetry threads
+            tickScheduler.register("eta-train", retryMs, TelemetryTickScheduler.OverrunPolicy.SKIP,
+                    TelemetryTickScheduler.Lane.BACKGROUND, this::trainIfMissing);
+        }
+    }
+
+    /** Background retry: trains while there is no model, does nothing once one is serving. */
+    public void trainIfMissing() {
+        if (model == null) train();
+    }
+
+    // --- TRAINING ---
+
+    /** Retrains from the whole trip history; the current model keeps serving until the new one is in place. */
+    public synchronized Map<String, Object> train() {
+        long start = System.nanoTime();
+        EtaModel.Samples samples = new EtaModel.Samples();
+        int skipped = 0;
+        for (TripHistory trip : tripHistoryRepository.findAll()) {
+            if (!addSample(samples, trip)) skipped++;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("trips", samples.size());
+        result.put("skipped", skipped);
+        if (samples.size() < minTrips) {
+            result.put("state", "INSUFFICIENT_DATA");
+            result.put("minTrips", minTrips);
+            lastTraining = result;
+            return result;
+        }
+
+        // Accuracy on trips the model has not seen, then the served model from all of them
+        double absolute = 0, percentage = 0;
+        for (int fold = 0; fold < HOLDOUT_FOLDS; fold++) {
+            double[] errors = EtaModel.train(samples, lambda, maxVehicleModels, HOLDOUT_FOLDS, fold)
+                    .evaluate(samples, HOLDOUT_FOLDS, fold);
+            absolute += errors[0] / HOLDOUT_FOLDS;
+            percentage += errors[1] / HOLDOUT_FOLDS;
+        }
+        EtaModel trained = EtaModel.train(samples, lambda, maxVehicleModels, 1, 0);
+        try {
+            trained.write(Paths.get(modelPath));
+        } catch (IOException e) {
+            System.err.println("ETA Model Error: could not write " + modelPath + ": " + e.getMessage());
+        }
+        model = trained;
+
+        result.put("state", "TRAINED");
+        result.put("holdoutMaeMinutes", Math.round(absolute * 100) / 100.0);
+        result.put("holdoutMapePercent", Math.round(percentage * 100) / 100.0);
+        result.put("trainMillis", (System.nanoTime() - start) / 1_000_000);
+        lastTraining = result;
+        System.out.println("ETA model trained on " + samples.size() + " trips: MAE "
+                + result.get("holdoutMaeMinutes") + " min");
+        return result;
+    }
+
+    // History rows store distance in km and duration in hours, both as text
+    private static boolean addSample(EtaModel.Samples samples, TripHistory trip) {
+        if (trip.getCompletedAt() == null) return false;
+        try {
+            double km = Double.parseDouble(trip.getDistance());
+            double minutes = Double.parseDouble(trip.getDuration()) * 60;
+            if (!(km > 0) || !(minutes > 0) || minutes > 24 * 60) return false;
+            LocalDateTime startedAt = trip.getCompletedAt().minusSeconds((long) (minutes * 60));
+            samples.add(km, EtaModel.hourOfWeek(startedAt), trip.getVehicleModel(), minutes);
+            return true;
+        } catch (NumberFormatException | NullPointerException e) {
+            return false;
+        }
+    }
+
+    // --- PREDICTION ---
+
+    /** The model in service, or null before the first training; batch callers should hold on to one. */
+    public EtaModel getModel() { return model; }
+
+    /** Predicted trip duration in minutes for a trip starting at {@code startAt}. */
+    public double predictMinutes(double distanceKm, LocalDateTime startAt, String vehicleModel) {
+        EtaModel current = model;
+        if (current == null) return distanceKm / fallbackSpeedKmh * 60;
+        return current.predict(distanceKm, EtaModel.hourOfWeek(startAt), current.modelIndex(vehicleModel));
+    }
+
+    /**
+     * Batched form of {@link #predictMinutes}: {@code modelIndex} must come from
+     * {@code model.modelIndex(...)} of the same {@code model} (null for the fallback).
+     */
+    public void predictMinutes(EtaModel model, double[] distanceKm, int[] hourOfWeek, int[] modelIndex,
+                               double[] out, int count) {
+        if (model != null) {
+            model.predict(distanceKm, hourOfWeek, modelIndex, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) out[i] = distanceKm[i] / fallbackSpeedKmh * 60;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        EtaModel current = model;
+        stats.put("model", current != null ? current.describe() : "FALLBACK");
+        stats.put("fallbackSpeedKmh", fallbackSpeedKmh);
+        stats.put("lastTraining", lastTraining);
+        return stats;
+    }
+}
@@ -1,29 +1,285 @@
 package com.example.demo.service;
 
 import com.example.demo.entity.Vehicle;
+import com.example.demo.model.TelemetryFrame;
+import com.example.demo.model.VehicleSnapshot;
 import com.example.demo.repository.VehicleRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @EnableScheduling
 public class FleetTelemetryService {
 
+    public static final String VEHICLES_TOPIC = TelemetrySubscriptionRegistry.FLEET_TOPIC;
+
     @Autowired
     private VehicleRepository vehicleRepository;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private TelemetryFramePublisher publisher;
+
+    @Autowired
+    private VehicleChangeTracker changeTracker;
+
+    @Autowired
+    private TelemetryStateStore telemetryStore;
+
+    @Autowired
+    private TelemetrySubscriptionRegistry subscriptions;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Value("${telemetry.broadcast.tick-ms:5000}")
+    private long tickMs = 5000;
+
+    // Every Nth tick is a full keyframe so late joiners converge without a reload
+    @Value("${telemetry.broadcast.keyframe-ticks:12}")
+    private int keyframeTicks;
+
+    // Last state each manager received, keyed by vehicle id
+    private final Map<Long, VehicleSnapshot> lastBroadcast = new ConcurrentHashMap<>();
 
-    // Push fleet updates to all connected managers every 5 seconds
-    @Scheduled(fixedRate = 5000)
+    private TelemetryStateStore.Cursor telemetryCursor;
+    private volatile boolean seeded = false;
+    private long sequence = 0;
+    // Tick at which the fleet / each sector last changed; keys the publisher's keyframe cache
+    private long fleetVersion = 0;
+    private final Map<String, Long> sectorVersions = new HashMap<>();
+
+    // A late frame is superseded by the next one anyway, so overruns skip instead of bunching up
+    @PostConstruct
+    public void schedule() {
+        tickScheduler.register("broadcast", tickMs, TelemetryTickScheduler.OverrunPolicy.SKIP, this::pushTelemetry);
+    }
+
+    // Push fleet updates to subscribed managers every tick (5 seconds by default)
     public void pushTelemetry() {
-        List<Vehicle> vehicles = vehicleRepository.findAll();
-        // Broadcasts to any frontend subscribed to /topic/vehicles
-        messagingTemplate.convertAndSend("/topic/vehicles", vehicles);
+        if (!seeded) {
+            seed();
+            return;
+        }
+
+        long allocatedAtStart = publisher.beginTick();
+        long started = System.nanoTime();
+        sequence++;
+        Map<Long, String> movedFrom = new HashMap<>();
+        List<Map<String, Object>> changes = collectChanges(movedFrom);
+        Map<Long, String> removed = collectRemovals();
+        // A new subscriber needs the full picture; answer on this tick from memory
+        Set<String> joined = subscriptions.drainJoined();
+        boolean periodic = keyframeTicks > 0 && sequence % keyframeTicks == 0;
+
+        publishFleet(changes, removed, periodic || joined.contains(VEHICLES_TOPIC));
+        publishSectors(changes, movedFrom, removed, joined, periodic);
+        publishVehicles(changes, removed, joined, periodic);
+        publisher.endTick(allocatedAtStart, started);
+    }
+
+    /** Whole-fleet keyframe; its sequence is the tick the fleet last changed at. */
+    public TelemetryFrame keyframe() {
+        return TelemetryFrame.keyframe(fleetVersion, new ArrayList<>(lastBroadcast.values()));
+    }
+
+    // --- FAN-OUT: one frame per subscribed topic, however many sessions share it ---
+
+    private void publishFleet(List<Map<String, Object>> changes, Map<Long, String> removed, boolean keyframe) {
+        if (!subscriptions.hasFleetSubscribers()) return;
+        if (keyframe) {
+            publisher.sendKeyframe(VEHICLES_TOPIC, fleetVersion, this::keyframe);
+        } else if (!changes.isEmpty() || !removed.isEmpty()) {
+            // Broadcasts only the fields that moved since the previous tick
+            publisher.send(VEHICLES_TOPIC, TelemetryFrame.delta(sequence, changes, new ArrayList<>(removed.keySet())));
+        }
+    }
+
+    /**
+     * Groups this tick's changes by sector, for subscribed sectors only.
+     * A unit that changed sector is "removed" from the old sector's stream
+     * and arrives in full on the new one.
+     */
+    private void publishSectors(List<Map<String, Object>> changes, Map<Long, String> movedFrom,
+                                Map<Long, String> removed, Set<String> joined, boolean periodic) {
+        Set<String> sectors = subscriptions.activeSectors();
+        if (sectors.isEmpty()) return;
+
+        Map<String, List<Map<String, Object>>> changesBySector = new HashMap<>();
+        Map<String, List<Long>> removedBySector = new HashMap<>();
+        for (Map<String, Object> change : changes) {
+            Long id = (Long) change.get("id");
+            VehicleSnapshot current = lastBroadcast.get(id);
+            String sector = TelemetrySubscriptionRegistry.sectorKey(current.getSector());
+            boolean moved = movedFrom.containsKey(id);
+            String previousSector = movedFrom.get(id);
+            if (previousSector != null && sectors.contains(previousSector)) {
+                removedBySector.computeIfAbsent(previousSector, k -> new ArrayList<>()).add(id);
+            }
+            if (sector != null && sectors.contains(sector)) {
+                changesBySector.computeIfAbsent(sector, k -> new ArrayList<>())
+                        .add(moved ? current.diff(VehicleSnapshot.EMPTY) : change);
+            }
+        }
+        removed.forEach((id, sector) -> {
+            if (sector != null && sectors.contains(sector)) {
+                removedBySector.computeIfAbsent(sector, k -> new ArrayList<>()).add(id);
+            }
+        });
+
+        Set<String> keyframes = new HashSet<>();
+        for (String sector : sectors) {
+            if (periodic || joined.contains(TelemetrySubscriptionRegistry.sectorTopic(sector))) keyframes.add(sector);
+        }
+        // Sectors whose cached keyframe is stale are re-collected in a single pass over the fleet
+        Set<String> stale = new HashSet<>();
+        for (String sector : keyframes) {
+            if (!publisher.hasKeyframe(TelemetrySubscriptionRegistry.sectorTopic(sector), sectorVersion(sector))) {
+                stale.add(sector);
+            }
+        }
+        Map<String, List<VehicleSnapshot>> snapshots = stale.isEmpty() ? Map.of() : snapshotsBySector(stale);
+
+        for (String sector : sectors) {
+            String topic = TelemetrySubscriptionRegistry.sectorTopic(sector);
+            if (keyframes.contains(sector)) {
+                long version = sectorVersion(sector);
+                publisher.sendKeyframe(topic, version,
+                        () -> TelemetryFrame.keyframe(version, snapshots.getOrDefault(sector, List.of())));
+                continue;
+            }
+            List<Map<String, Object>> sectorChanges = changesBySector.getOrDefault(sector, List.of());
+            List<Long> sectorRemoved = removedBySector.getOrDefault(sector, List.of());
+            if (!sectorChanges.isEmpty() || !sectorRemoved.isEmpty()) {
+                publisher.send(topic, TelemetryFrame.delta(sequence, sectorChanges, sectorRemoved));
+            }
+        }
+    }
+
+    private void publishVehicles(List<Map<String, Object>> changes, Map<Long, String> removed,
+                                 Set<String> joined, boolean periodic) {
+        Set<Long> vehicles = subscriptions.activeVehicles();
+        if (vehicles.isEmpty()) return;
+
+        Map<Long, Map<String, Object>> changesById = new HashMap<>();
+        for (Map<String, Object> change : changes) {
+            Long id = (Long) change.get("id");
+            if (vehicles.contains(id)) changesById.put(id, change);
+        }
+
+        for (Long id : vehicles) {
+            String topic = TelemetrySubscriptionRegistry.vehicleTopic(id);
+            if (removed.containsKey(id)) {
+                publisher.send(topic, TelemetryFrame.delta(sequence, List.of(), List.of(id)));
+            } else if (periodic || joined.contains(topic)) {
+                VehicleSnapshot current = lastBroadcast.get(id);
+                if (current != null) {
+                    publisher.send(topic, TelemetryFrame.keyframe(sequence, List.of(current)));
+                }
+            } else if (changesById.containsKey(id)) {
+                publisher.send(topic, TelemetryFrame.delta(sequence, List.of(changesById.get(id)), List.of()));
+            }
+        }
+    }
+
+    private long sectorVersion(String sector) {
+        return sectorVersions.getOrDefault(sector, 0L);
+    }
+
+    private void touch(String sector) {
+        fleetVersion = sequence;
+        if (sector != null) sectorVersions.put(sector, sequence);
+    }
+
+    // One pass over the fleet for every sector owed a keyframe this tick
+    private Map<String, List<VehicleSnapshot>> snapshotsBySector(Set<String> sectors) {
+        Map<String, List<VehicleSnapshot>> bySector = new HashMap<>();
+        for (VehicleSnapshot snapshot : lastBroadcast.values()) {
+            String sector = TelemetrySubscriptionRegistry.sectorKey(snapshot.getSector());
+            if (sector != null && sectors.contains(sector)) {
+                bySector.computeIfAbsent(sector, k -> new ArrayList<>()).add(snapshot);
+            }
+        }
+        return bySector;
+    }
+
+    // --- CHANGE COLLECTION ---
+
+    // One full read at startup; every later tick only reloads rows the tracker saw written
+    private void seed() {
+        changeTracker.drainChanged();
+        changeTracker.drainRemoved();
+        telemetryCursor = telemetryStore.newCursor();
+        telemetryCursor.forEachChanged(slot -> { }); // everything in the store now counts as seen
+        for (Vehicle v : vehicleRepository.findAll()) {
+            lastBroadcast.put(v.getId(), new VehicleSnapshot(v).withTelemetry(telemetryStore.get(v.getId())));
+        }
+        seeded = true;
+        if (subscriptions.hasFleetSubscribers()) {
+            publisher.sendKeyframe(VEHICLES_TOPIC, fleetVersion, this::keyframe);
+        }
+    }
+
+    private List<Map<String, Object>> collectChanges(Map<Long, String> movedFrom) {
+        Set<Long> dirty = changeTracker.drainChanged();
+        List<Map<String, Object>> changes = new ArrayList<>();
+
+        // Rows written through JPA: reload just those, then lay live telemetry on top
+        if (!dirty.isEmpty()) {
+            for (Vehicle v : vehicleRepository.findAllById(dirty)) {
+                record(new VehicleSnapshot(v).withTelemetry(telemetryStore.get(v.getId())), changes, movedFrom);
+            }
+        }
+
+        // Telemetry-only movement comes straight from the store, no DB read
+        telemetryCursor.forEachChanged(slot -> {
+            long id = telemetryStore.vehicleId(slot);
+            if (id == 0 || dirty.contains(id)) return;
+            VehicleSnapshot previous = lastBroadcast.get(id);
+            if (previous == null && TelemetryStateStore.isSynthetic(id)) {
+                previous = VehicleSnapshot.synthetic(id);
+            }
+            if (previous != null) {
+                record(previous.withTelemetry(telemetryStore.get(id)), changes, movedFrom);
+            }
+        });
+        return changes;
+    }
+
+    private void record(VehicleSnapshot current, List<Map<String, Object>> changes, Map<Long, String> movedFrom) {
+        VehicleSnapshot previous = lastBroadcast.put(current.getId(), current);
+        Map<String, Object> diff = current.diff(previous != null ? previous : VehicleSnapshot.EMPTY);
+        if (diff.isEmpty()) return;
+        changes.add(diff);
+        touch(TelemetrySubscriptionRegistry.sectorKey(current.getSector()));
+        if (previous != null && diff.containsKey("sector")) {
+            String previousSector = TelemetrySubscriptionRegistry.sectorKey(previous.getSector());
+            movedFrom.put(current.getId(), previousSector);
+            touch(previousSector);
+        }
+    }
+
+    // Removed unit id -> the sector key it was last broadcast in
+    private Map<Long, String> collectRemovals() {
+        Map<Long, String> removed = new LinkedHashMap<>();
+        for (Long id : changeTracker.drainRemoved()) {
+            VehicleSnapshot last = lastBroadcast.remove(id);
+            if (last == null) continue;
+            String sector = TelemetrySubscriptionRegistry.sectorKey(last.getSector());
+            removed.put(id, sector);
+            touch(sector);
+        }
+        return removed;
     }
 }
@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Replays the first response for a repeated {@code Idempotency-Key}.
+ *
+ * A client that retries a booking action after a timeout sends the same key;
+ * the action runs once and every retry gets the stored response back. A retry
+ * that arrives while the first attempt is still running gets 409
+ * REQUEST_IN_PROGRESS. Server errors are not stored, so those can be retried
+ * for real. Keys are scoped per caller and action, and each remembers the
+ * target it was first used for (booking id, user id, or the create body): the
+ * same key sent again for a different target gets 422 IDEMPOTENCY_KEY_REUSED
+ * instead of someone else's response. Keys are kept for {@code ttl-minutes},
+ * bounded by {@code max-keys} (oldest dropped first).
+ */
+@Component
+public class IdempotencyStore {
+
+    @Value("${bookings.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes = 1440;
+
+    @Value("${bookings.idempotency.max-keys:100000}")
+    private int maxKeys = 100_000;
+
+    private static final class Entry {
+        final long createdAt = System.currentTimeMillis();
+        final String target;
+        volatile ResponseEntity<?> response;
+
+        Entry(String target) {
+            this.target = target;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong inProgress = new AtomicLong();
+    private final AtomicLong mismatched = new AtomicLong();
+
+    /**
+     * @param caller principal name (or "anonymous"); keys never cross callers
+     * @param target what the action applies to; a replay must name the same one
+     */
+    public ResponseEntity<?> execute(String scope, String caller, String target, String key,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) return action.get();
+        String id = caller + ":" + scope + ":" + key;
+        Entry entry = new Entry(target);
+        Entry existing = entries.putIfAbsent(id, entry);
+        if (existing != null) {
+            if (isExpired(existing)) {
+                entries.remove(id, existing);
+                return execute(scope, caller, target, key, action);
+            }
+            if (!existing.target.equals(target)) {
+                mismatched.incrementAndGet();
+                return ResponseEntity.status(422).body(Map.of("message", "IDEMPOTENCY_KEY_REUSED"));
+            }
+            ResponseEntity<?> stored = existing.response;
+            if (stored == null) {
+                inProgress.incrementAndGet();
+                return ResponseEntity.status(409).body(Map.of("message", "REQUEST_IN_PROGRESS"));
+            }
+            replayed.incrementAndGet();
+            return stored;
+        }
+
+        executed.incrementAndGet();
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            entries.remove(id, entry);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            entries.remove(id, entry);
+        } else {
+            entry.response = response;
+            if (entries.size() > maxKeys) evict();
+        }
+        return response;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() - entry.createdAt > ttlMinutes * 60_000L;
+    }
+
+    // Expired keys first; then the oldest completed ones, down to 90% of the cap so this runs rarely
+    private synchronized void evict() {
+        entries.values().removeIf(e -> e.response != null && isExpired(e));
+        int excess = entries.size() - maxKeys * 9 / 10;
+        if (excess <= 0) return;
+        List<Map.Entry<String, Entry>> completed = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().response != null) completed.add(e);
+        }
+        completed.sort(Comparator.comparingLong(e -> e.getValue().createdAt));
+        for (int i = 0; i < Math.min(excess, completed.size()); i++) {
+            entries.remove(completed.get(i).getKey(), completed.get(i).getValue());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", entries.size());
+        stats.put("executed", executed.get());
+        stats.put("replayed", replayed.get());
+        stats.put("rejectedInProgress", inProgress.get());
+        stats.put("rejectedMismatch", mismatched.get());
+        return stats;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int items (graph nodes) keyed by float, with decrease-key.
+ *
+ * All storage is primitive arrays sized once for the item universe, and
+ * {@link #clear()} only touches items still queued, so a search can reuse
+ * one heap for every query without allocating or scanning the whole graph.
+ */
+public final class IndexedMinHeap {
+
+    private final int[] items;
+    private final float[] keys;
+    private final int[] position; // item -> heap index, -1 when not queued
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        items = new int[capacity];
+        keys = new float[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+    public boolean contains(int item) { return position[item] >= 0; }
+
+    /** Smallest key, or +infinity when empty. */
+    public float peekKey() {
+        return size == 0 ? Float.POSITIVE_INFINITY : keys[0];
+    }
+
+    /** Inserts {@code item}, or lowers its key if already queued with a larger one. */
+    public void push(int item, float key) {
+        int index = position[item];
+        if (index < 0) {
+            index = size++;
+            items[index] = item;
+            keys[index] = key;
+            position[item] = index;
+            siftUp(index);
+        } else if (key < keys[index]) {
+            keys[index] = key;
+            siftUp(index);
+        }
+    }
+
+    /** Sets {@code item}'s key whether it rises or falls, inserting it if absent. */
+    public void update(int item, float key) {
+        int index = position[item];
+        if (index < 0 || key <= keys[index]) {
+            push(item, key);
+        } else {
+            keys[index] = key;
+            siftDown(index);
+        }
+    }
+
+    /** Removes and returns the item with the smallest key. */
+    public int pop() {
+        int top = items[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            items[0] = items[size];
+            keys[0] = keys[size];
+            position[items[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) position[items[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int index) {
+        int item = items[index];
+        float key = keys[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            move(parent, index);
+            index = parent;
+        }
+        place(item, key, index);
+    }
+
+    private void siftDown(int index) {
+        int item = items[index];
+        float key = keys[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child]) child = right;
+            if (key <= keys[child]) break;
+            move(child, index);
+            index = child;
+        }
+        place(item, key, index);
+    }
+
+    private void move(int from, int to) {
+        items[to] = items[from];
+        keys[to] = keys[from];
+        position[items[to]] = to;
+    }
+
+    private void place(int item, float key, int index) {
+        items[index] = item;
+        keys[index] = key;
+        position[item] = index;
+    }
+}
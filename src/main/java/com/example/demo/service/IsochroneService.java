@@ -0,0 +1,354 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Isochrone;
+import com.example.demo.model.SectorCoverage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Isochrones: the area reachable from a place within T minutes under current
+ * traffic, and per-sector coverage built from them.
+ *
+ * One Dijkstra bounded by T settles only the reachable nodes. Every settled
+ * node, plus the point part-way along each edge where the budget runs out,
+ * is binned by bearing around the origin; the farthest point per bin makes a
+ * star-shaped outline, which keeps the dents that water or missing roads
+ * leave (a convex hull would fill them in).
+ *
+ * Results are cached by (snapped node, minutes). An entry stays valid while
+ * the traffic snapshot it was computed on is current, and for
+ * {@code isochrone.max-age-ms} after it is replaced, so changing traffic costs
+ * at most one recomputation per entry per period. All sectors (the named
+ * places) are refreshed on a tick for the configured budgets, in parallel on a
+ * dedicated ForkJoinPool with one {@link RouteSearch} per worker.
+ */
+@Service
+public class IsochroneService {
+
+    private static final double METERS_PER_DEGREE = 111_195.0;
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Autowired
+    private TrafficOverlay trafficOverlay;
+
+    @Autowired
+    private VehicleSpatialIndex spatialIndex;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Value("${isochrone.sector-minutes:10,20}")
+    private int[] sectorMinutes = {10, 20};
+
+    @Value("${isochrone.max-minutes:120}")
+    private int maxMinutes = 120;
+
+    @Value("${isochrone.bearings:72}")
+    private int bearings = 72;
+
+    @Value("${isochrone.max-age-ms:60000}")
+    private long maxAgeMs = 60_000;
+
+    @Value("${isochrone.refresh-ms:60000}")
+    private long refreshMs = 60_000;
+
+    @Value("${isochrone.cache.max-entries:2000}")
+    private int maxEntries = 2000;
+
+    @Value("${isochrone.sector-target-units:1}")
+    private int sectorTargetUnits = 1;
+
+    @Value("${isochrone.parallelism:0}")
+    private int parallelism = 0;
+
+    private ForkJoinPool pool;
+    private final ThreadLocal<RouteSearch> searches =
+            ThreadLocal.withInitial(() -> new RouteSearch(roadGraphService.getGraph()));
+    private final Map<Long, Isochrone> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        if (tickScheduler != null) {
+            tickScheduler.register("sector-isochrones", refreshMs, TelemetryTickScheduler.OverrunPolicy.SKIP,
+                    TelemetryTickScheduler.Lane.BACKGROUND, this::refreshSectors);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // --- QUERIES ---
+
+    /**
+     * @throws IllegalArgumentException for an unknown place or a budget outside 1..max-minutes
+     */
+    public Isochrone compute(String place, int minutes) {
+        checkMinutes(minutes);
+        double[] point = roadGraphService.resolve(place);
+        return get(roadGraphService.getGraph().nearestNode(point[0], point[1]), minutes);
+    }
+
+    /** Isochrones of every sector, in {@link RoadGraphService#getPlaces()} order; stale ones computed in parallel. */
+    public Map<String, Isochrone> sectors(int minutes) {
+        checkMinutes(minutes);
+        RoadGraph graph = roadGraphService.getGraph();
+        List<String> names = new ArrayList<>();
+        List<Callable<Isochrone>> tasks = new ArrayList<>();
+        for (Map.Entry<String, double[]> sector : roadGraphService.getPlaces().entrySet()) {
+            int node = graph.nearestNode(sector.getValue()[0], sector.getValue()[1]);
+            names.add(sector.getKey());
+            tasks.add(() -> get(node, minutes));
+        }
+        Map<String, Isochrone> result = new LinkedHashMap<>();
+        List<Future<Isochrone>> futures = pool.invokeAll(tasks);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                result.put(names.get(i), futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Isochrone computation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Isochrone computation failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Available units inside each sector's isochrone, the sectors short of
+     * {@code isochrone.sector-target-units}, and moves (in /api/redistribute's
+     * payload shape) from the sectors with the largest surplus to close them.
+     * A unit inside several isochrones counts for each.
+     */
+    public Map<String, Object> coverage(int minutes) {
+        Map<String, Isochrone> isochrones = sectors(minutes);
+        List<SectorCoverage> sectors = new ArrayList<>();
+        for (Map.Entry<String, Isochrone> entry : isochrones.entrySet()) {
+            sectors.add(new SectorCoverage(entry.getKey(), entry.getValue(), unitsInside(entry.getValue()),
+                    sectorTargetUnits));
+        }
+
+        List<String> gaps = new ArrayList<>();
+        List<Map<String, Object>> moves = new ArrayList<>();
+        int[] spare = new int[sectors.size()];
+        for (int i = 0; i < spare.length; i++) spare[i] = Math.max(0, sectors.get(i).getSurplus());
+        for (SectorCoverage gap : sectors) {
+            if (gap.getSurplus() >= 0) continue;
+            gaps.add(gap.getSector());
+            int needed = -gap.getSurplus();
+            while (needed > 0) {
+                int donor = -1;
+                for (int i = 0; i < spare.length; i++) {
+                    if (spare[i] > 0 && (donor < 0 || spare[i] > spare[donor])) donor = i;
+                }
+                if (donor < 0) break;
+                int units = Math.min(needed, spare[donor]);
+                spare[donor] -= units;
+                needed -= units;
+                Map<String, Object> move = new LinkedHashMap<>();
+                move.put("fromSector", sectors.get(donor).getSector());
+                move.put("toSector", gap.getSector());
+                move.put("unitCount", units);
+                moves.add(move);
+            }
+        }
+
+        Map<String, Object> coverage = new LinkedHashMap<>();
+        coverage.put("minutes", minutes);
+        coverage.put("targetUnits", sectorTargetUnits);
+        coverage.put("sectors", sectors);
+        coverage.put("gaps", gaps);
+        coverage.put("suggestedMoves", moves);
+        return coverage;
+    }
+
+    /** Recomputes stale sector isochrones for every configured budget (tick job). */
+    public void refreshSectors() {
+        try {
+            for (int minutes : sectorMinutes) sectors(minutes);
+        } catch (RuntimeException e) {
+            System.err.println("Isochrone Refresh Error: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("sectorMinutes", sectorMinutes);
+        stats.put("maxAgeMs", maxAgeMs);
+        return stats;
+    }
+
+    // --- COMPUTATION ---
+
+    private Isochrone get(int node, int minutes) {
+        long key = (long) node << 16 | minutes;
+        TrafficOverlay.Snapshot snapshot = trafficOverlay.current();
+        Isochrone cached = cache.get(key);
+        if (cached != null && (cached.getTrafficVersion() == snapshot.getVersion()
+                || System.currentTimeMillis() - cached.getComputedAt() < maxAgeMs)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Isochrone computed = build(node, minutes, snapshot);
+        if (cache.size() >= maxEntries) cache.clear();
+        cache.put(key, computed);
+        return computed;
+    }
+
+    private Isochrone build(int node, int minutes, TrafficOverlay.Snapshot snapshot) {
+        long start = System.nanoTime();
+        RouteSearch search = searches.get();
+        RoadGraph graph = search.graph();
+        RadialOutline outline = new RadialOutline(graph, snapshot.weights(), minutes * 60f, node, bearings);
+        search.bounded(node, snapshot.weights(), minutes * 60f, outline);
+
+        Isochrone isochrone = new Isochrone();
+        isochrone.setLatitude(graph.latitude(node));
+        isochrone.setLongitude(graph.longitude(node));
+        isochrone.setMinutes(minutes);
+        isochrone.setPolygon(outline.polygon());
+        isochrone.setReachableNodes(search.settledNodes());
+        isochrone.setAreaKm2(Math.round(outline.areaMeters2() / 1e4) / 100.0);
+        isochrone.setTrafficVersion(snapshot.getVersion());
+        isochrone.setComputedAt(System.currentTimeMillis());
+        isochrone.setComputeMicros((System.nanoTime() - start) / 1_000);
+        return isochrone;
+    }
+
+    private List<Long> unitsInside(Isochrone isochrone) {
+        List<Long> ids = new ArrayList<>();
+        double[] polygon = isochrone.getPolygon();
+        if (spatialIndex == null || polygon.length < 6) return ids;
+        double lat0 = isochrone.getLatitude(), lon0 = isochrone.getLongitude();
+        double radius = 0;
+        for (int i = 0; i < polygon.length; i += 2) {
+            radius = Math.max(radius, RoadGraph.distanceMeters(lat0, lon0, polygon[i], polygon[i + 1]));
+        }
+        for (VehicleSpatialIndex.Neighbor unit : spatialIndex.within(lat0, lon0, radius, "AVAILABLE", 0)) {
+            if (contains(polygon, unit.getLatitude(), unit.getLongitude())) ids.add(unit.getId());
+        }
+        return ids;
+    }
+
+    /** Even-odd ray casting over flat [lat, lon] vertices. */
+    static boolean contains(double[] polygon, double lat, double lon) {
+        boolean inside = false;
+        for (int i = 0, j = polygon.length - 2; i < polygon.length; j = i, i += 2) {
+            double latI = polygon[i], lonI = polygon[i + 1], latJ = polygon[j], lonJ = polygon[j + 1];
+            if ((latI > lat) != (latJ > lat) && lon < (lonJ - lonI) * (lat - latI) / (latJ - latI) + lonI) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private void checkMinutes(int minutes) {
+        if (minutes < 1 || minutes > maxMinutes) {
+            throw new IllegalArgumentException("minutes must be between 1 and " + maxMinutes);
+        }
+    }
+
+    /**
+     * Collects the farthest reachable point per bearing bin while the bounded
+     * search settles nodes, in a local equirectangular frame (metres) around
+     * the origin.
+     */
+    private static final class RadialOutline implements RouteSearch.SettledVisitor {
+        private final RoadGraph graph;
+        private final float[] weights;
+        private final float limit;
+        private final double lat0, lon0, kx;
+        private final double[] x, y, r2;
+
+        RadialOutline(RoadGraph graph, float[] weights, float limit, int origin, int bins) {
+            this.graph = graph;
+            this.weights = weights;
+            this.limit = limit;
+            lat0 = graph.latitude(origin);
+            lon0 = graph.longitude(origin);
+            kx = Math.cos(Math.toRadians(lat0)) * METERS_PER_DEGREE;
+            x = new double[bins];
+            y = new double[bins];
+            r2 = new double[bins];
+            Arrays.fill(r2, -1);
+        }
+
+        @Override
+        public void settled(int node, float duration, float meters) {
+            double nx = (graph.longitude(node) - lon0) * kx, ny = (graph.latitude(node) - lat0) * METERS_PER_DEGREE;
+            offer(nx, ny);
+            // Where the budget runs out part-way along an edge
+            for (int e = graph.firstEdge(node), end = graph.lastEdge(node); e < end; e++) {
+                float arrival = duration + weights[e];
+                if (arrival <= limit) continue;
+                int v = graph.target(e);
+                double f = (limit - duration) / weights[e];
+                double vx = (graph.longitude(v) - lon0) * kx, vy = (graph.latitude(v) - lat0) * METERS_PER_DEGREE;
+                offer(nx + f * (vx - nx), ny + f * (vy - ny));
+            }
+        }
+
+        private void offer(double px, double py) {
+            double d2 = px * px + py * py;
+            int bin = (int) ((Math.atan2(py, px) + Math.PI) / (2 * Math.PI) * r2.length) % r2.length;
+            if (d2 > r2[bin]) {
+                r2[bin] = d2;
+                x[bin] = px;
+                y[bin] = py;
+            }
+        }
+
+        /** Vertices in bearing order (counter-clockwise); empty bins are skipped. */
+        double[] polygon() {
+            int count = 0;
+            for (double d : r2) if (d > 0) count++;
+            if (count < 3) return new double[0];
+            double[] polygon = new double[2 * count];
+            for (int bin = 0, j = 0; bin < r2.length; bin++) {
+                if (r2[bin] <= 0) continue;
+                polygon[j++] = lat0 + y[bin] / METERS_PER_DEGREE;
+                polygon[j++] = lon0 + x[bin] / kx;
+            }
+            return polygon;
+        }
+
+        double areaMeters2() {
+            double twiceArea = 0;
+            int first = -1, previous = -1;
+            for (int bin = 0; bin < r2.length; bin++) {
+                if (r2[bin] <= 0) continue;
+                if (previous >= 0) twiceArea += x[previous] * y[bin] - x[bin] * y[previous];
+                else first = bin;
+                previous = bin;
+            }
+            if (first >= 0 && previous != first) twiceArea += x[previous] * y[first] - x[first] * y[previous];
+            return Math.abs(twiceArea) / 2;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.Vehicle;
+import com.example.demo.model.DistanceMatrix;
+import com.example.demo.model.LoadPlan;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.VehicleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Load Optimizer: plans which available vehicle serves which pending booking,
+ * and in what stop order, with {@link VrpSolver}.
+ *
+ * Vehicles are placed at their live telemetry position when they report one,
+ * otherwise at their registered location; bookings whose pickup or drop cannot
+ * be resolved are reported unassigned without entering the solver. At most
+ * {@code vrp.max-vehicles} vehicles enter it: those nearest the pickups, taken
+ * round-robin from {@link VehicleSpatialIndex} so every pickup gets its close
+ * units. Travel times come from one free-flow matrix from every vehicle, pickup
+ * and drop to every pickup and drop (the plan looks further ahead than current
+ * congestion lasts; no route drives to a vehicle start). Fuel is turned into a
+ * range limit, seats into a capacity with one seat per booking.
+ */
+@Service
+public class LoadOptimizerService {
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    @Autowired
+    private TelemetryStateStore store;
+
+    @Autowired
+    private VehicleSpatialIndex spatialIndex;
+
+    @Value("${vrp.time-budget-ms:1200}")
+    private long defaultBudgetMs = 1200;
+
+    @Value("${vrp.max-budget-ms:10000}")
+    private long maxBudgetMs = 10_000;
+
+    @Value("${vrp.max-route-minutes:180}")
+    private double maxRouteMinutes = 180;
+
+    @Value("${vrp.stop-seconds:60}")
+    private double stopSeconds = 60;
+
+    @Value("${vrp.meters-per-fuel-percent:4000}")
+    private double metersPerFuelPercent = 4000;
+
+    @Value("${vrp.default-seats:4}")
+    private int defaultSeats = 4;
+
+    @Value("${vrp.max-bookings:2000}")
+    private int maxBookings = 2000;
+
+    @Value("${vrp.max-vehicles:500}")
+    private int maxVehicles = 500;
+
+    @Value("${vrp.parallelism:0}")
+    private int parallelism = 0;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Plans every AVAILABLE vehicle against every PENDING booking (oldest first). */
+    public LoadPlan optimize(Long budgetMillis) {
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (Vehicle v : vehicleRepository.findAll()) {
+            if ("AVAILABLE".equalsIgnoreCase(v.getStatus())) vehicles.add(v);
+        }
+        List<Booking> bookings = new ArrayList<>(bookingRepository.findByStatus("PENDING"));
+        bookings.sort(Comparator.comparing((Booking b) -> b.getBookingTime() != null ? b.getBookingTime() : LocalDateTime.MIN)
+                .thenComparing(b -> b.getId() != null ? b.getId() : Long.MAX_VALUE));
+        return optimize(vehicles, bookings, budgetMillis != null ? budgetMillis : defaultBudgetMs);
+    }
+
+    /**
+     * @throws IllegalArgumentException when there are more bookings than {@code vrp.max-bookings}
+     */
+    public LoadPlan optimize(List<Vehicle> vehicles, List<Booking> bookings, long budgetMillis) {
+        long start = System.nanoTime();
+        if (bookings.size() > maxBookings) {
+            throw new IllegalArgumentException("Too many bookings: " + bookings.size() + " exceeds " + maxBookings);
+        }
+        long budget = Math.max(0, Math.min(budgetMillis, maxBudgetMs));
+        RoadGraph graph = roadGraphService.getGraph();
+        LoadPlan plan = new LoadPlan();
+
+        // --- SNAP ---
+        List<Booking> routable = new ArrayList<>();
+        List<double[]> pickups = new ArrayList<>();
+        List<int[]> stops = new ArrayList<>();
+        for (Booking b : bookings) {
+            try {
+                double[] pickup = roadGraphService.resolve(b.getPickupLocation());
+                double[] drop = roadGraphService.resolve(b.getDropLocation());
+                routable.add(b);
+                pickups.add(pickup);
+                stops.add(new int[]{graph.nearestNode(pickup[0], pickup[1]), graph.nearestNode(drop[0], drop[1])});
+            } catch (IllegalArgumentException e) {
+                plan.getUnassignedBookings().add(b.getId());
+            }
+        }
+        int unroutable = plan.getUnassignedBookings().size();
+        List<Vehicle> planned = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        for (Vehicle v : candidates(vehicles, pickups)) {
+            double[] position = positionOf(v);
+            if (position != null) {
+                planned.add(v);
+                starts.add(graph.nearestNode(position[0], position[1]));
+            }
+        }
+
+        int vehicleCount = planned.size(), bookingCount = routable.size();
+        int[] nodes = new int[vehicleCount + 2 * bookingCount];
+        int[] seats = new int[vehicleCount];
+        float[] range = new float[vehicleCount];
+        for (int v = 0; v < vehicleCount; v++) {
+            Vehicle vehicle = planned.get(v);
+            nodes[v] = starts.get(v);
+            seats[v] = vehicle.getSeats() != null && vehicle.getSeats() > 0 ? vehicle.getSeats() : defaultSeats;
+            range[v] = (float) ((vehicle.getFuel() != null ? vehicle.getFuel() : 100) * metersPerFuelPercent);
+        }
+        for (int b = 0; b < bookingCount; b++) {
+            nodes[vehicleCount + 2 * b] = stops.get(b)[0];
+            nodes[vehicleCount + 2 * b + 1] = stops.get(b)[1];
+        }
+
+        // --- SOLVE ---
+        int[] stopNodes = Arrays.copyOfRange(nodes, vehicleCount, nodes.length);
+        DistanceMatrix matrix = distanceMatrixService.computeFreeFlow(nodes, stopNodes);
+        VrpSolver solver = new VrpSolver(vehicleCount, bookingCount, matrix.getDurations(), matrix.getDistances(),
+                seats, range, (float) (maxRouteMinutes * 60), (float) stopSeconds);
+        solver.solve(pool, budget, 42L);
+
+        // --- REPORT ---
+        int used = 0, peakSeats = 0, seatsOfUsed = 0;
+        double totalKm = 0;
+        for (int v = 0; v < vehicleCount; v++) {
+            Vehicle vehicle = planned.get(v);
+            LoadPlan.VehicleRoute route = new LoadPlan.VehicleRoute();
+            route.setId(vehicle.getId());
+            route.setName(vehicle.getModel());
+            route.setSeats(seats[v]);
+            int at = v, load = 0, peak = 0;
+            double seconds = 0;
+            for (int k = 0; k < solver.routeLength(v); k++) {
+                int stop = solver.stop(v, k);
+                int location = vehicleCount + stop;
+                Booking booking = routable.get(stop >> 1);
+                boolean pickup = (stop & 1) == 0;
+                seconds += matrix.duration(at, stop);
+                load += pickup ? 1 : -1;
+                peak = Math.max(peak, load);
+                route.getStops().add(new LoadPlan.Stop(booking.getId(), pickup ? "PICKUP" : "DROP",
+                        pickup ? booking.getPickupLocation() : booking.getDropLocation(), seconds / 60.0, load));
+                seconds += stopSeconds;
+                at = location;
+            }
+            route.setPeakLoad(peak);
+            route.setLoadPercentage(peak * 100 / seats[v]);
+            route.setDurationMinutes(solver.routeSeconds(v) / 60.0);
+            route.setDistanceKm(solver.routeMeters(v) / 1000.0);
+            plan.getVehicles().add(route);
+            if (solver.routeLength(v) > 0) {
+                used++;
+                peakSeats += peak;
+                seatsOfUsed += seats[v];
+                totalKm += route.getDistanceKm();
+            }
+        }
+        for (int b : solver.unassigned()) plan.getUnassignedBookings().add(routable.get(b).getId());
+
+        Map<String, Object> metrics = new LinkedHashMap<>(solver.metrics());
+        metrics.put("availableVehicles", vehicles.size());
+        metrics.put("vehicles", vehicleCount);
+        metrics.put("vehiclesUsed", used);
+        metrics.put("bookings", bookings.size());
+        metrics.put("unroutable", unroutable);
+        metrics.put("totalDistanceKm", totalKm);
+        metrics.put("seatUtilizationPercent", seatsOfUsed == 0 ? 0.0 : 100.0 * peakSeats / seatsOfUsed);
+        metrics.put("matrixMillis", matrix.getComputeMillis());
+        metrics.put("totalMillis", (System.nanoTime() - start) / 1e6);
+        plan.setMetrics(metrics);
+        return plan;
+    }
+
+    /**
+     * Up to {@code vrp.max-vehicles} of {@code vehicles}: each pickup in turn takes its next
+     * nearest available unit from the spatial index; topped up in list order if that runs dry.
+     */
+    private List<Vehicle> candidates(List<Vehicle> vehicles, List<double[]> pickups) {
+        if (vehicles.size() <= maxVehicles) return vehicles;
+        Map<Long, Vehicle> byId = new HashMap<>();
+        for (Vehicle v : vehicles) {
+            if (v.getId() != null) byId.put(v.getId(), v);
+        }
+        Set<Vehicle> chosen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Vehicle> ordered = new ArrayList<>(maxVehicles);
+        if (spatialIndex != null && !pickups.isEmpty()) {
+            // Twice the fair share per pickup, since neighbouring pickups see the same units
+            int perPickup = 2 * ((maxVehicles + pickups.size() - 1) / pickups.size());
+            List<List<VehicleSpatialIndex.Neighbor>> nearby = new ArrayList<>(pickups.size());
+            for (double[] p : pickups) nearby.add(spatialIndex.nearest(p[0], p[1], perPickup, "AVAILABLE", 0));
+            for (int rank = 0; rank < perPickup && ordered.size() < maxVehicles; rank++) {
+                for (int i = 0; i < nearby.size() && ordered.size() < maxVehicles; i++) {
+                    if (rank >= nearby.get(i).size()) continue;
+                    Vehicle v = byId.get(nearby.get(i).get(rank).getId());
+                    if (v != null && chosen.add(v)) ordered.add(v);
+                }
+            }
+        }
+        for (int i = 0; i < vehicles.size() && ordered.size() < maxVehicles; i++) {
+            if (chosen.add(vehicles.get(i))) ordered.add(vehicles.get(i));
+        }
+        return ordered;
+    }
+
+    // Live position if the unit reports one, else its registered location; null if neither resolves
+    private double[] positionOf(Vehicle vehicle) {
+        if (store != null && vehicle.getId() != null) {
+            int slot = store.slotOf(vehicle.getId());
+            if (slot >= 0 && !Double.isNaN(store.latitude(slot))) {
+                return new double[]{store.latitude(slot), store.longitude(slot)};
+            }
+        }
+        try {
+            return roadGraphService.resolve(vehicle.getLocation());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
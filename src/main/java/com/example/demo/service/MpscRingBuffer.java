@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer queue (Vyukov-style
+ * sequenced slots). Producers claim a position with one CAS; {@link #offer}
+ * returns false instead of blocking when the buffer is full so callers can
+ * apply backpressure.
+ */
+public class MpscRingBuffer<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0; // written by the single consumer only
+
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.items = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) sequences.set(i, i);
+    }
+
+    public boolean offer(T item) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            long diff = sequence - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.lazySet(index, item);
+                    sequences.set(index, position + 1); // publish
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // full: consumer has not freed this slot yet
+            }
+            // else another producer moved tail; retry
+        }
+    }
+
+    /** Consumer side: hands up to {@code max} items to {@code sink}; returns how many were drained. */
+    public int drain(Consumer<T> sink, int max) {
+        long position = head;
+        int drained = 0;
+        try {
+            while (drained < max) {
+                int index = (int) (position & mask);
+                if (sequences.get(index) != position + 1) break; // empty, or producer not yet published
+                T item = items.get(index);
+                items.lazySet(index, null);
+                sequences.set(index, position + mask + 1); // free the slot for the next lap
+                position++;
+                drained++;
+                sink.accept(item);
+            }
+        } finally {
+            head = position;
+        }
+        return drained;
+    }
+
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
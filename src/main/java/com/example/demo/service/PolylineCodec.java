@@ -0,0 +1,219 @@
+package com.example.demo.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Compact encodings of route geometry, which is held as a flat
+ * {@code [lat0, lon0, lat1, lon1, ...]} array.
+ *
+ * <ul>
+ *   <li>Encoded polyline (Google's algorithm): coordinates rounded to
+ *       10^-precision degrees, delta-coded, zig-zagged and written as 5-bit
+ *       chunks in printable ASCII. Precision 5 is what map libraries expect.</li>
+ *   <li>Delta-varint binary: the same deltas as unsigned LEB128 varints after
+ *       a header of {@code precision} and {@code pointCount} varints. At
+ *       precision 6 (~0.1 m) it is about the size of the precision-5 text and
+ *       needs no string handling on the client.</li>
+ * </ul>
+ *
+ * {@link #simplify} applies Douglas-Peucker so a route drawn at a given zoom
+ * level keeps only the points that move it by at least half a pixel.
+ */
+public final class PolylineCodec {
+
+    /** Accept type for the JSON body with an encoded polyline instead of coordinate arrays. */
+    public static final String POLYLINE_JSON = "application/vnd.neurofleet.polyline+json";
+
+    private static final double EARTH_RADIUS_M = 6_371_000.0;
+    private static final double WEB_MERCATOR_METERS_PER_PIXEL = 156_543.033_92; // zoom 0, equator, 256 px tiles
+
+    private PolylineCodec() {
+    }
+
+    // --- ENCODED POLYLINE ---
+
+    public static String encode(double[] path, int precision) {
+        double factor = Math.pow(10, precision);
+        StringBuilder out = new StringBuilder(path.length * 3);
+        long previousLat = 0, previousLon = 0;
+        for (int i = 0; i + 1 < path.length; i += 2) {
+            long lat = Math.round(path[i] * factor);
+            long lon = Math.round(path[i + 1] * factor);
+            appendChunks(out, zigzag(lat - previousLat));
+            appendChunks(out, zigzag(lon - previousLon));
+            previousLat = lat;
+            previousLon = lon;
+        }
+        return out.toString();
+    }
+
+    /** @throws IllegalArgumentException on truncated or malformed input */
+    public static double[] decode(String encoded, int precision) {
+        double factor = Math.pow(10, precision);
+        double[] path = new double[16];
+        int count = 0;
+        long lat = 0, lon = 0;
+        int[] position = {0};
+        while (position[0] < encoded.length()) {
+            lat += unzigzag(readChunks(encoded, position));
+            lon += unzigzag(readChunks(encoded, position));
+            if (count + 2 > path.length) path = Arrays.copyOf(path, path.length * 2);
+            path[count++] = lat / factor;
+            path[count++] = lon / factor;
+        }
+        return Arrays.copyOf(path, count);
+    }
+
+    private static void appendChunks(StringBuilder out, long value) {
+        while (value >= 0x20) {
+            out.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>>= 5;
+        }
+        out.append((char) (value + 63));
+    }
+
+    private static long readChunks(String encoded, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (position[0] >= encoded.length() || shift > 60) {
+                throw new IllegalArgumentException("Truncated polyline");
+            }
+            int chunk = encoded.charAt(position[0]++) - 63;
+            if (chunk < 0 || chunk > 0x3f) throw new IllegalArgumentException("Invalid polyline character");
+            value |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+            if (chunk < 0x20) return value;
+        }
+    }
+
+    // --- DELTA-VARINT BINARY ---
+
+    public static byte[] encodeBinary(double[] path, int precision) {
+        double factor = Math.pow(10, precision);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + path.length * 2);
+        writeVarint(out, precision);
+        writeVarint(out, path.length / 2);
+        long previousLat = 0, previousLon = 0;
+        for (int i = 0; i + 1 < path.length; i += 2) {
+            long lat = Math.round(path[i] * factor);
+            long lon = Math.round(path[i + 1] * factor);
+            writeVarint(out, zigzag(lat - previousLat));
+            writeVarint(out, zigzag(lon - previousLon));
+            previousLat = lat;
+            previousLon = lon;
+        }
+        return out.toByteArray();
+    }
+
+    /** @throws IllegalArgumentException on truncated or malformed input */
+    public static double[] decodeBinary(byte[] data) {
+        int[] position = {0};
+        int precision = (int) readVarint(data, position);
+        long points = readVarint(data, position);
+        if (precision > 9 || points > data.length) throw new IllegalArgumentException("Invalid binary polyline header");
+        double factor = Math.pow(10, precision);
+        double[] path = new double[(int) points * 2];
+        long lat = 0, lon = 0;
+        for (int i = 0; i < path.length; i += 2) {
+            lat += unzigzag(readVarint(data, position));
+            lon += unzigzag(readVarint(data, position));
+            path[i] = lat / factor;
+            path[i + 1] = lon / factor;
+        }
+        return path;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= data.length) throw new IllegalArgumentException("Truncated binary polyline");
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // --- SIMPLIFICATION ---
+
+    /** Half a Web Mercator pixel at {@code zoom} (0-22) and {@code latitude}, in metres. */
+    public static double toleranceForZoom(int zoom, double latitude) {
+        int z = Math.max(0, Math.min(22, zoom));
+        return WEB_MERCATOR_METERS_PER_PIXEL * Math.cos(Math.toRadians(latitude)) / (1L << z) / 2;
+    }
+
+    /**
+     * Douglas-Peucker: keeps the end points and every point farther than
+     * {@code toleranceMeters} from the simplified line, recursing with an
+     * explicit stack. Distances use a local equirectangular projection, which
+     * is exact enough at route scale.
+     */
+    public static double[] simplify(double[] path, double toleranceMeters) {
+        int n = path.length / 2;
+        if (n <= 2 || toleranceMeters <= 0) return path;
+        double cosLat = Math.cos(Math.toRadians(path[0]));
+        double scale = Math.toRadians(1) * EARTH_RADIUS_M;
+        double tolerance2 = toleranceMeters * toleranceMeters;
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top], first = stack[--top];
+            double ax = path[2 * first + 1] * cosLat * scale, ay = path[2 * first] * scale;
+            double dx = path[2 * last + 1] * cosLat * scale - ax, dy = path[2 * last] * scale - ay;
+            double length2 = dx * dx + dy * dy;
+            int farthest = -1;
+            double max2 = tolerance2;
+            for (int i = first + 1; i < last; i++) {
+                double px = path[2 * i + 1] * cosLat * scale - ax, py = path[2 * i] * scale - ay;
+                double t = length2 == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / length2));
+                double ex = px - t * dx, ey = py - t * dy;
+                double d2 = ex * ex + ey * ey;
+                if (d2 > max2) {
+                    max2 = d2;
+                    farthest = i;
+                }
+            }
+            if (farthest < 0) continue;
+            keep[farthest] = true;
+            if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[top++] = first;
+            stack[top++] = farthest;
+            stack[top++] = farthest;
+            stack[top++] = last;
+        }
+
+        int kept = 0;
+        for (boolean k : keep) if (k) kept++;
+        double[] simplified = new double[kept * 2];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (!keep[i]) continue;
+            simplified[j++] = path[2 * i];
+            simplified[j++] = path[2 * i + 1];
+        }
+        return simplified;
+    }
+}
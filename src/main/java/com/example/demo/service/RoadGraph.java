@@ -0,0 +1,231 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable directed road graph in compressed sparse row form.
+ *
+ * Outgoing edges of node {@code u} are {@code offsets[u] .. offsets[u + 1] - 1};
+ * for edge {@code e}, {@code targets[e]} is its head, {@code weights[e]} the
+ * free-flow travel time in seconds and {@code lengths[e]} its length in metres.
+ * A mirrored reverse index (incoming edges, by forward edge id) serves
+ * backward searches, and a uniform grid over node positions answers
+ * nearest-node snapping.
+ */
+public final class RoadGraph {
+
+    private static final double EARTH_RADIUS_M = 6_371_000.0;
+    private static final double CELL_DEG = 0.005; // ~550 m snapping cells
+
+    private final int nodeCount;
+    private final double[] lat;
+    private final double[] lon;
+
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+    private final float[] weights;
+    private final float[] lengths;
+
+    private final int[] reverseOffsets;
+    private final int[] reverseEdges;
+
+    private final float maxSpeedMps;
+
+    // Snapping grid: nodes of cell c are cellNodes[cellOffsets[c] .. cellOffsets[c + 1] - 1]
+    private final double minLat, minLon;
+    private final int rows, cols;
+    private final int[] cellOffsets;
+    private final int[] cellNodes;
+
+    private RoadGraph(double[] lat, double[] lon, int[] offsets, int[] sources, int[] targets,
+                      float[] weights, float[] lengths) {
+        this.nodeCount = lat.length;
+        this.lat = lat;
+        this.lon = lon;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.weights = weights;
+        this.lengths = lengths;
+
+        int m = targets.length;
+        reverseOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < m; e++) reverseOffsets[targets[e] + 1]++;
+        for (int v = 0; v < nodeCount; v++) reverseOffsets[v + 1] += reverseOffsets[v];
+        reverseEdges = new int[m];
+        int[] fill = Arrays.copyOf(reverseOffsets, nodeCount);
+        for (int e = 0; e < m; e++) reverseEdges[fill[targets[e]]++] = e;
+
+        float fastest = 1f;
+        for (int e = 0; e < m; e++) {
+            if (weights[e] > 0) fastest = Math.max(fastest, lengths[e] / weights[e]);
+        }
+        maxSpeedMps = fastest;
+
+        double loLat = Double.MAX_VALUE, loLon = Double.MAX_VALUE, hiLat = -Double.MAX_VALUE, hiLon = -Double.MAX_VALUE;
+        for (int v = 0; v < nodeCount; v++) {
+            loLat = Math.min(loLat, lat[v]);
+            loLon = Math.min(loLon, lon[v]);
+            hiLat = Math.max(hiLat, lat[v]);
+            hiLon = Math.max(hiLon, lon[v]);
+        }
+        minLat = nodeCount == 0 ? 0 : loLat;
+        minLon = nodeCount == 0 ? 0 : loLon;
+        rows = nodeCount == 0 ? 1 : (int) ((hiLat - loLat) / CELL_DEG) + 1;
+        cols = nodeCount == 0 ? 1 : (int) ((hiLon - loLon) / CELL_DEG) + 1;
+        cellOffsets = new int[rows * cols + 1];
+        for (int v = 0; v < nodeCount; v++) cellOffsets[cellOf(lat[v], lon[v]) + 1]++;
+        for (int c = 0; c < rows * cols; c++) cellOffsets[c + 1] += cellOffsets[c];
+        cellNodes = new int[nodeCount];
+        int[] cellFill = Arrays.copyOf(cellOffsets, rows * cols);
+        for (int v = 0; v < nodeCount; v++) cellNodes[cellFill[cellOf(lat[v], lon[v])]++] = v;
+    }
+
+    // --- TOPOLOGY ---
+
+    public int nodeCount() { return nodeCount; }
+    public int edgeCount() { return targets.length; }
+    public double latitude(int node) { return lat[node]; }
+    public double longitude(int node) { return lon[node]; }
+
+    public int firstEdge(int node) { return offsets[node]; }
+    public int lastEdge(int node) { return offsets[node + 1]; }
+    public int source(int edge) { return sources[edge]; }
+    public int target(int edge) { return targets[edge]; }
+    public float weight(int edge) { return weights[edge]; }
+    public float length(int edge) { return lengths[edge]; }
+
+    /** Incoming edges of {@code node} are {@code reverseEdge(i)} for i in [firstReverse, lastReverse). */
+    public int firstReverse(int node) { return reverseOffsets[node]; }
+    public int lastReverse(int node) { return reverseOffsets[node + 1]; }
+    public int reverseEdge(int index) { return reverseEdges[index]; }
+
+    /** Free-flow weights, indexed by edge id. Callers must not modify. */
+    public float[] weights() { return weights; }
+
+    /** Fastest edge speed in the graph; keeps the A* heuristic admissible. */
+    public float maxSpeedMps() { return maxSpeedMps; }
+
+    // --- GEOMETRY ---
+
+    /** Closest node to the given point, or -1 for an empty graph. */
+    public int nearestNode(double latitude, double longitude) {
+        if (nodeCount == 0) return -1;
+        int row = clamp((int) ((latitude - minLat) / CELL_DEG), rows);
+        int col = clamp((int) ((longitude - minLon) / CELL_DEG), cols);
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        int maxRing = Math.max(rows, cols);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                if (r < 0 || r >= rows) continue;
+                for (int c = col - ring; c <= col + ring; c++) {
+                    if (c < 0 || c >= cols) continue;
+                    if (Math.abs(r - row) != ring && Math.abs(c - col) != ring) continue; // ring border only
+                    int cell = r * cols + c;
+                    for (int i = cellOffsets[cell]; i < cellOffsets[cell + 1]; i++) {
+                        int v = cellNodes[i];
+                        double d = distanceMeters(latitude, longitude, lat[v], lon[v]);
+                        if (d < bestDistance) {
+                            bestDistance = d;
+                            best = v;
+                        }
+                    }
+                }
+            }
+            // Anything in the next ring is at least ring * cell size away
+            if (best >= 0 && bestDistance < ring * CELL_DEG * 111_000.0 * Math.cos(Math.toRadians(latitude))) break;
+        }
+        return best;
+    }
+
+    public double distanceMeters(int a, int b) {
+        return distanceMeters(lat[a], lon[a], lat[b], lon[b]);
+    }
+
+    /** Great-circle (haversine) distance. */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private int cellOf(double latitude, double longitude) {
+        int row = clamp((int) ((latitude - minLat) / CELL_DEG), rows);
+        int col = clamp((int) ((longitude - minLon) / CELL_DEG), cols);
+        return row * cols + col;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    /** Accumulates nodes and edges in any order, then packs them into CSR. */
+    public static final class Builder {
+        private double[] lat = new double[1024];
+        private double[] lon = new double[1024];
+        private int nodes;
+        private int[] from = new int[4096];
+        private int[] to = new int[4096];
+        private float[] weight = new float[4096];
+        private float[] length = new float[4096];
+        private int edges;
+
+        public int addNode(double latitude, double longitude) {
+            if (nodes == lat.length) {
+                lat = Arrays.copyOf(lat, nodes * 2);
+                lon = Arrays.copyOf(lon, nodes * 2);
+            }
+            lat[nodes] = latitude;
+            lon[nodes] = longitude;
+            return nodes++;
+        }
+
+        /** One-way edge; length defaults to the straight-line distance when not positive. */
+        public void addEdge(int source, int target, double lengthMeters, double speedKmh) {
+            if (source == target) return;
+            if (edges == from.length) {
+                from = Arrays.copyOf(from, edges * 2);
+                to = Arrays.copyOf(to, edges * 2);
+                weight = Arrays.copyOf(weight, edges * 2);
+                length = Arrays.copyOf(length, edges * 2);
+            }
+            double meters = lengthMeters > 0 ? lengthMeters : distanceMeters(lat[source], lon[source], lat[target], lon[target]);
+            from[edges] = source;
+            to[edges] = target;
+            length[edges] = (float) meters;
+            weight[edges] = (float) (meters / (Math.max(1.0, speedKmh) / 3.6));
+            edges++;
+        }
+
+        public void addRoad(int a, int b, double lengthMeters, double speedKmh) {
+            addEdge(a, b, lengthMeters, speedKmh);
+            addEdge(b, a, lengthMeters, speedKmh);
+        }
+
+        public int nodeCount() { return nodes; }
+
+        public RoadGraph build() {
+            int[] offsets = new int[nodes + 1];
+            for (int e = 0; e < edges; e++) offsets[from[e] + 1]++;
+            for (int v = 0; v < nodes; v++) offsets[v + 1] += offsets[v];
+            int[] fill = Arrays.copyOf(offsets, nodes);
+            int[] sources = new int[edges];
+            int[] targets = new int[edges];
+            float[] weights = new float[edges];
+            float[] lengths = new float[edges];
+            for (int e = 0; e < edges; e++) {
+                int slot = fill[from[e]]++;
+                sources[slot] = from[e];
+                targets[slot] = to[e];
+                weights[slot] = weight[e];
+                lengths[slot] = length[e];
+            }
+            return new RoadGraph(Arrays.copyOf(lat, nodes), Arrays.copyOf(lon, nodes),
+                    offsets, sources, targets, weights, lengths);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Owns the city road graph used by routing.
+ *
+ * The graph is read once at startup from {@code routing.graph.path}, a CSV
+ * export of the road network (e.g. produced from an OSM extract):
+ * <pre>
+ *   N,nodeId,lat,lon
+ *   E,fromNodeId,toNodeId,lengthMeters,speedKmh,oneway   (oneway: 1/true, else both directions)
+ * </pre>
+ * Lines starting with '#' are ignored; node ids may be any long and are mapped
+ * to dense indices. Without a file, a deterministic synthetic street grid over
+ * Bengaluru is generated so routing works out of the box.
+ *
+ * The graph's contraction hierarchy is mapped from {@code routing.ch.path}. If
+ * that file is missing or was built for another graph, it is rebuilt on a
+ * background thread; until then {@link #getHierarchy()} is null and routing
+ * falls back to A*.
+ */
+@Service
+public class RoadGraphService {
+
+    // Synthetic grid bounds (Bengaluru)
+    private static final double MIN_LAT = 12.85, MAX_LAT = 13.10;
+    private static final double MIN_LON = 77.50, MAX_LON = 77.75;
+
+    @Value("${routing.graph.path:}")
+    private String graphPath = "";
+
+    @Value("${routing.synthetic.grid-size:200}")
+    private int gridSize = 200;
+
+    @Value("${routing.ch.enabled:true}")
+    private boolean hierarchyEnabled = true;
+
+    @Value("${routing.ch.path:data/routing/graph.ch}")
+    private String hierarchyPath = "data/routing/graph.ch";
+
+    private final Map<String, double[]> places = new LinkedHashMap<>();
+    private volatile RoadGraph graph;
+    private String graphSource;
+    private volatile ContractionHierarchy hierarchy;
+    private volatile String hierarchyState = "DISABLED";
+    private volatile long hierarchyMillis;
+
+    public RoadGraphService() {
+        places.put("sector 7g", new double[]{12.9716, 77.5946});
+        places.put("industrial hub", new double[]{12.9500, 77.6000});
+        places.put("central command", new double[]{12.9352, 77.6245});
+    }
+
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        if (graphPath != null && !graphPath.isBlank() && Files.isRegularFile(Paths.get(graphPath))) {
+            try {
+                graph = readCsv(Paths.get(graphPath));
+                graphSource = graphPath;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Road Graph Load Error: " + e.getMessage() + " - falling back to synthetic grid");
+            }
+        }
+        if (graph == null) {
+            graph = syntheticGrid(gridSize, 42L);
+            graphSource = "synthetic-grid-" + gridSize;
+        }
+        System.out.println("Road graph ready: " + graph.nodeCount() + " nodes, " + graph.edgeCount()
+                + " edges from " + graphSource + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        if (hierarchyEnabled) loadHierarchy();
+    }
+
+    private void loadHierarchy() {
+        Path path = Paths.get(hierarchyPath);
+        RoadGraph target = graph;
+        long start = System.nanoTime();
+        try {
+            hierarchy = ContractionHierarchy.open(path, target);
+            hierarchyMillis = (System.nanoTime() - start) / 1_000_000;
+            hierarchyState = "MAPPED";
+            System.out.println("Contraction hierarchy mapped from " + path + " in " + hierarchyMillis + " ms");
+            return;
+        } catch (IOException e) {
+            if (Files.exists(path)) System.out.println("Contraction hierarchy stale: " + e.getMessage());
+        }
+        hierarchyState = "BUILDING";
+        Thread builder = new Thread(() -> {
+            try {
+                hierarchy = ContractionHierarchy.build(target, path);
+                hierarchyMillis = (System.nanoTime() - start) / 1_000_000;
+                hierarchyState = "BUILT";
+                System.out.println("Contraction hierarchy built: " + hierarchy.shortcutCount() + " shortcuts in "
+                        + hierarchyMillis + " ms -> " + path);
+            } catch (IOException | RuntimeException e) {
+                hierarchyState = "FAILED";
+                System.err.println("Contraction Hierarchy Error: " + e.getMessage());
+            }
+        }, "ch-preprocess");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public RoadGraph getGraph() { return graph; }
+
+    /** Named places (sectors), keyed by lower-case name. */
+    public Map<String, double[]> getPlaces() { return Collections.unmodifiableMap(places); }
+
+    /** The mapped hierarchy for the current graph, or null while it is (re)built or when disabled. */
+    public ContractionHierarchy getHierarchy() { return hierarchy; }
+
+    /**
+     * Resolves a named place ("Sector 7G", case-insensitive) or a "lat,lon" pair.
+     *
+     * @throws IllegalArgumentException if the text is neither
+     */
+    public double[] resolve(String place) {
+        if (place == null || place.isBlank()) throw new IllegalArgumentException("Location is required");
+        double[] named = places.get(place.trim().toLowerCase(Locale.ROOT));
+        if (named != null) return named;
+        String[] parts = place.split(",");
+        if (parts.length == 2) {
+            try {
+                double lat = Double.parseDouble(parts[0].trim());
+                double lon = Double.parseDouble(parts[1].trim());
+                if (lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180) return new double[]{lat, lon};
+            } catch (NumberFormatException ignored) {
+                // fall through
+            }
+        }
+        throw new IllegalArgumentException("Unknown location: " + place);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("source", graphSource);
+        stats.put("nodes", graph.nodeCount());
+        stats.put("edges", graph.edgeCount());
+        stats.put("hierarchy", hierarchyState);
+        stats.put("hierarchyMillis", hierarchyMillis);
+        ContractionHierarchy ch = hierarchy;
+        if (ch != null) stats.put("hierarchyEdges", ch.edgeCount());
+        return stats;
+    }
+
+    // --- LOADING ---
+
+    public static RoadGraph readCsv(Path path) throws IOException {
+        RoadGraph.Builder builder = new RoadGraph.Builder();
+        Map<Long, Integer> index = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] f = line.split(",");
+                if ("N".equals(f[0]) && f.length >= 4) {
+                    index.put(Long.parseLong(f[1].trim()),
+                            builder.addNode(Double.parseDouble(f[2].trim()), Double.parseDouble(f[3].trim())));
+                } else if ("E".equals(f[0]) && f.length >= 5) {
+                    Integer from = index.get(Long.parseLong(f[1].trim()));
+                    Integer to = index.get(Long.parseLong(f[2].trim()));
+                    if (from == null || to == null) {
+                        throw new IllegalArgumentException("Edge before its nodes at line " + lineNo);
+                    }
+                    double length = Double.parseDouble(f[3].trim());
+                    double speed = Double.parseDouble(f[4].trim());
+                    boolean oneway = f.length > 5 && ("1".equals(f[5].trim()) || "true".equalsIgnoreCase(f[5].trim()));
+                    if (oneway) builder.addEdge(from, to, length, speed);
+                    else builder.addRoad(from, to, length, speed);
+                } else {
+                    throw new IllegalArgumentException("Malformed graph line " + lineNo + ": " + line);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Street grid with jittered intersections: every 8th line is a ~50 km/h
+     * arterial, the rest ~25 km/h streets, each segment's speed varied by ±20%.
+     */
+    public static RoadGraph syntheticGrid(int size, long seed) {
+        Random random = new Random(seed);
+        RoadGraph.Builder builder = new RoadGraph.Builder();
+        double latStep = (MAX_LAT - MIN_LAT) / (size - 1);
+        double lonStep = (MAX_LON - MIN_LON) / (size - 1);
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                double jitterLat = (random.nextDouble() - 0.5) * latStep * 0.3;
+                double jitterLon = (random.nextDouble() - 0.5) * lonStep * 0.3;
+                builder.addNode(MIN_LAT + r * latStep + jitterLat, MIN_LON + c * lonStep + jitterLon);
+            }
+        }
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int node = r * size + c;
+                if (c + 1 < size) builder.addRoad(node, node + 1, 0, gridSpeed(r % 8 == 0, random));
+                if (r + 1 < size) builder.addRoad(node, node + size, 0, gridSpeed(c % 8 == 0, random));
+            }
+        }
+        return builder.build();
+    }
+
+    private static double gridSpeed(boolean arterial, Random random) {
+        return (arterial ? 50.0 : 25.0) * (0.8 + random.nextDouble() * 0.4);
+    }
+}
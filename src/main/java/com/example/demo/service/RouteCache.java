@@ -0,0 +1,193 @@
+package com.example.demo.service;
+
+import com.example.demo.model.RouteResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of computed routes.
+ *
+ * Keys are normalised to the snapped graph nodes (so "Sector 7G" and its
+ * "lat,lon" share an entry), the algorithm, and the time-of-day bucket the
+ * query falls in. Each entry remembers the road edges of its path, so a
+ * traffic change on some edges evicts exactly the routes that use them.
+ *
+ * The map holds futures: the first caller for a key computes, concurrent
+ * callers for the same key wait on that one computation instead of each
+ * hitting the routing engine.
+ */
+@Component
+public class RouteCache {
+
+    /** A computed route and the road edges it runs over. */
+    public static final class Entry {
+        final RouteResponse route;
+        final int[] edges;
+
+        public Entry(RouteResponse route, int[] edges) {
+            this.route = route;
+            this.edges = edges;
+        }
+
+        /** Null when no road connects the two points (cached as well). */
+        public RouteResponse getRoute() { return route; }
+    }
+
+    static final class Key {
+        final int source, target, bucket;
+        final String algorithm;
+
+        Key(int source, int target, String algorithm, int bucket) {
+            this.source = source;
+            this.target = target;
+            this.algorithm = algorithm;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return source == k.source && target == k.target && bucket == k.bucket && algorithm.equals(k.algorithm);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((source * 31 + target) * 31 + bucket) * 31 + algorithm.hashCode();
+        }
+    }
+
+    @Value("${routing.cache.max-entries:10000}")
+    private int maxEntries = 10_000;
+
+    @Value("${routing.cache.bucket-minutes:15}")
+    private int bucketMinutes = 15;
+
+    private final LinkedHashMap<Key, CompletableFuture<Entry>> entries = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /** Returns the cached route for the pair in the current time bucket, computing it at most once. */
+    public Entry get(int source, int target, String algorithm, Supplier<Entry> compute) {
+        Key key = new Key(source, target, algorithm, currentBucket());
+        CompletableFuture<Entry> future;
+        boolean owner = false;
+        synchronized (entries) {
+            future = entries.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+                owner = true;
+                evictOverflow();
+            }
+        }
+
+        if (!owner) {
+            if (future.isDone()) hits.increment();
+            else coalesced.increment();
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        misses.increment();
+        try {
+            Entry entry = compute.get();
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            // Failures are not cached: waiters see the error, the next caller retries
+            synchronized (entries) {
+                entries.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops every completed route whose path uses one of {@code changedEdges},
+     * and every route still being computed: it may be running on the weights
+     * that just changed, and its edges are not known yet. Callers already
+     * waiting on it get that result; the next lookup recomputes.
+     */
+    public int invalidateEdges(BitSet changedEdges) {
+        if (changedEdges.isEmpty()) return 0;
+        int removed = 0;
+        synchronized (entries) {
+            Iterator<CompletableFuture<Entry>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                CompletableFuture<Entry> future = it.next();
+                if (!future.isDone()) {
+                    it.remove();
+                    removed++;
+                    continue;
+                }
+                if (future.isCompletedExceptionally()) continue;
+                for (int edge : future.join().edges) {
+                    if (changedEdges.get(edge)) {
+                        it.remove();
+                        removed++;
+                        break;
+                    }
+                }
+            }
+        }
+        invalidations.add(removed);
+        return removed;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum(), missCount = misses.sum(), coalescedCount = coalesced.sum();
+        long lookups = hitCount + missCount + coalescedCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("bucketMinutes", bucketMinutes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("coalesced", coalescedCount);
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) (hitCount + coalescedCount) / lookups);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    int currentBucket() {
+        return LocalTime.now().toSecondOfDay() / 60 / Math.max(1, bucketMinutes);
+    }
+
+    // Caller holds the lock; access order puts the least recently used first
+    private void evictOverflow() {
+        Iterator<CompletableFuture<Entry>> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+}
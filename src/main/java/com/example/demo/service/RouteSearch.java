@@ -0,0 +1,446 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+
+/**
+ * Reusable shortest-path search state over one {@link RoadGraph}.
+ *
+ * Distances, parents and heaps are allocated once per instance; a generation
+ * stamp marks which entries belong to the current query, so starting a query
+ * costs nothing proportional to the graph. Not thread-safe: keep one per thread.
+ *
+ * Edge costs come from the {@code weights} array passed to each query (free-flow
+ * or traffic-adjusted seconds, indexed by edge id). After a successful query
+ * the route is available as a sequence of edge ids via {@link #pathEdge(int)}.
+ */
+public final class RouteSearch {
+
+    private final RoadGraph graph;
+
+    private final float[] forwardDistance;
+    private final float[] backwardDistance;
+    private final int[] forwardParent;  // edge that reached the node, forward search
+    private final int[] backwardParent; // edge leaving the node toward the target, backward search
+    private final int[] forwardSeen;
+    private final int[] backwardSeen;
+    private float[] forwardMeters; // one-to-many only, allocated on first use
+    private int[] targetMark;
+    private final IndexedMinHeap forwardHeap;
+    private final IndexedMinHeap backwardHeap;
+    private int generation;
+
+    private int[] pathEdges = new int[256];
+    private int pathLength;
+    private int[] hierarchyEdges = new int[64];
+    private int hierarchyLength;
+    private int[] unpackStack = new int[64];
+    private int settled;
+
+    public RouteSearch(RoadGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        forwardDistance = new float[n];
+        backwardDistance = new float[n];
+        forwardParent = new int[n];
+        backwardParent = new int[n];
+        forwardSeen = new int[n];
+        backwardSeen = new int[n];
+        forwardHeap = new IndexedMinHeap(n);
+        backwardHeap = new IndexedMinHeap(n);
+    }
+
+    /** Receives the nodes settled by {@link #upward}. */
+    public interface SettledVisitor {
+        void settled(int node, float duration, float meters);
+    }
+
+    public RoadGraph graph() { return graph; }
+
+    /**
+     * Bidirectional Dijkstra: grows searches from both ends and stops once the
+     * two frontiers' smallest keys can no longer beat the best meeting point.
+     *
+     * @return cost in weight units (seconds), or +infinity if {@code target} is unreachable
+     */
+    public float bidirectional(int source, int target, float[] weights) {
+        begin();
+        if (source == target) return 0f;
+
+        reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, source, 0f, -1);
+        reach(backwardDistance, backwardSeen, backwardParent, backwardHeap, target, 0f, -1);
+
+        float best = Float.POSITIVE_INFINITY;
+        int meet = -1;
+        while (!forwardHeap.isEmpty() || !backwardHeap.isEmpty()) {
+            float forwardMin = forwardHeap.peekKey();
+            float backwardMin = backwardHeap.peekKey();
+            if (forwardMin + backwardMin >= best) break;
+
+            if (forwardMin <= backwardMin) {
+                int u = forwardHeap.pop();
+                settled++;
+                float du = forwardDistance[u];
+                for (int e = graph.firstEdge(u), end = graph.lastEdge(u); e < end; e++) {
+                    int v = graph.target(e);
+                    float dv = du + weights[e];
+                    if (forwardSeen[v] != generation || dv < forwardDistance[v]) {
+                        reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, v, dv, e);
+                        if (backwardSeen[v] == generation && dv + backwardDistance[v] < best) {
+                            best = dv + backwardDistance[v];
+                            meet = v;
+                        }
+                    }
+                }
+            } else {
+                int u = backwardHeap.pop();
+                settled++;
+                float du = backwardDistance[u];
+                for (int i = graph.firstReverse(u), end = graph.lastReverse(u); i < end; i++) {
+                    int e = graph.reverseEdge(i);
+                    int v = graph.source(e);
+                    float dv = du + weights[e];
+                    if (backwardSeen[v] != generation || dv < backwardDistance[v]) {
+                        reach(backwardDistance, backwardSeen, backwardParent, backwardHeap, v, dv, e);
+                        if (forwardSeen[v] == generation && dv + forwardDistance[v] < best) {
+                            best = dv + forwardDistance[v];
+                            meet = v;
+                        }
+                    }
+                }
+            }
+        }
+        forwardHeap.clear();
+        backwardHeap.clear();
+        if (meet < 0) return Float.POSITIVE_INFINITY;
+
+        // source .. meet from forward parents (collected backwards), then meet .. target
+        for (int v = meet; v != source; v = graph.source(forwardParent[v])) appendPath(forwardParent[v]);
+        reversePath();
+        for (int v = meet; v != target; v = graph.target(backwardParent[v])) appendPath(backwardParent[v]);
+        return best;
+    }
+
+    /**
+     * A* toward {@code target}, guided by straight-line distance at the graph's
+     * fastest speed. Admissible as long as {@code weights} never undercut free flow.
+     */
+    public float astar(int source, int target, float[] weights) {
+        begin();
+        if (source == target) return 0f;
+
+        // Equirectangular distance, shrunk slightly so it never exceeds the haversine length
+        double metersPerDegree = Math.toRadians(1) * 6_371_000.0 * 0.995;
+        double scale = metersPerDegree / graph.maxSpeedMps();
+        double cosLat = Math.cos(Math.toRadians(graph.latitude(target)));
+        double targetLat = graph.latitude(target);
+        double targetLon = graph.longitude(target);
+        reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, source, 0f, -1);
+        float result = Float.POSITIVE_INFINITY;
+        while (!forwardHeap.isEmpty()) {
+            int u = forwardHeap.pop();
+            settled++;
+            if (u == target) {
+                result = forwardDistance[u];
+                break;
+            }
+            float du = forwardDistance[u];
+            for (int e = graph.firstEdge(u), end = graph.lastEdge(u); e < end; e++) {
+                int v = graph.target(e);
+                float dv = du + weights[e];
+                if (forwardSeen[v] != generation || dv < forwardDistance[v]) {
+                    forwardDistance[v] = dv;
+                    forwardSeen[v] = generation;
+                    forwardParent[v] = e;
+                    double dLat = graph.latitude(v) - targetLat;
+                    double dLon = (graph.longitude(v) - targetLon) * cosLat;
+                    forwardHeap.push(v, dv + (float) (Math.sqrt(dLat * dLat + dLon * dLon) * scale));
+                }
+            }
+        }
+        forwardHeap.clear();
+        if (result == Float.POSITIVE_INFINITY) return result;
+
+        for (int v = target; v != source; v = graph.source(forwardParent[v])) appendPath(forwardParent[v]);
+        reversePath();
+        return result;
+    }
+
+    /**
+     * Contraction-hierarchy query: both searches only climb to higher-ranked
+     * nodes, and each stops once its own frontier can no longer improve the best
+     * meeting point. Shortcuts on the found path are unpacked into road edges.
+     * Answers with the hierarchy's free-flow weights.
+     */
+    public float contracted(int source, int target, ContractionHierarchy hierarchy) {
+        begin();
+        if (source == target) return 0f;
+
+        reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, source, 0f, -1);
+        reach(backwardDistance, backwardSeen, backwardParent, backwardHeap, target, 0f, -1);
+
+        float best = Float.POSITIVE_INFINITY;
+        int meet = -1;
+        while (true) {
+            float forwardMin = forwardHeap.peekKey();
+            float backwardMin = backwardHeap.peekKey();
+            if (forwardMin >= best) {
+                forwardHeap.clear();
+                forwardMin = Float.POSITIVE_INFINITY;
+            }
+            if (backwardMin >= best) {
+                backwardHeap.clear();
+                backwardMin = Float.POSITIVE_INFINITY;
+            }
+            if (forwardMin == Float.POSITIVE_INFINITY && backwardMin == Float.POSITIVE_INFINITY) break;
+
+            if (forwardMin <= backwardMin) {
+                int u = forwardHeap.pop();
+                settled++;
+                float du = forwardDistance[u];
+                if (backwardSeen[u] == generation && du + backwardDistance[u] < best) {
+                    best = du + backwardDistance[u];
+                    meet = u;
+                }
+                for (int i = hierarchy.firstUp(u), end = hierarchy.lastUp(u); i < end; i++) {
+                    int e = hierarchy.upEdge(i);
+                    int v = hierarchy.to(e);
+                    float dv = du + hierarchy.weight(e);
+                    if (forwardSeen[v] != generation || dv < forwardDistance[v]) {
+                        reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, v, dv, e);
+                    }
+                }
+            } else {
+                int u = backwardHeap.pop();
+                settled++;
+                float du = backwardDistance[u];
+                if (forwardSeen[u] == generation && du + forwardDistance[u] < best) {
+                    best = du + forwardDistance[u];
+                    meet = u;
+                }
+                for (int i = hierarchy.firstDown(u), end = hierarchy.lastDown(u); i < end; i++) {
+                    int e = hierarchy.downEdge(i);
+                    int v = hierarchy.from(e);
+                    float dv = du + hierarchy.weight(e);
+                    if (backwardSeen[v] != generation || dv < backwardDistance[v]) {
+                        reach(backwardDistance, backwardSeen, backwardParent, backwardHeap, v, dv, e);
+                    }
+                }
+            }
+        }
+        if (meet < 0) return Float.POSITIVE_INFINITY;
+
+        // Hierarchy edges source .. meet .. target, then expand each into road edges
+        hierarchyLength = 0;
+        for (int v = meet; v != source; v = hierarchy.from(forwardParent[v])) appendHierarchy(forwardParent[v]);
+        for (int i = 0, j = hierarchyLength - 1; i < j; i++, j--) {
+            int tmp = hierarchyEdges[i];
+            hierarchyEdges[i] = hierarchyEdges[j];
+            hierarchyEdges[j] = tmp;
+        }
+        for (int v = meet; v != target; v = hierarchy.to(backwardParent[v])) appendHierarchy(backwardParent[v]);
+        for (int i = 0; i < hierarchyLength; i++) unpack(hierarchy, hierarchyEdges[i]);
+        return best;
+    }
+
+    /**
+     * One Dijkstra from {@code source} that stops once every node in
+     * {@code targets} is settled. Writes travel time (weight units) and road
+     * distance in metres along the fastest path into {@code durations} /
+     * {@code meters} at {@code offset + i}; unreachable targets get -1.
+     */
+    public void oneToMany(int source, int[] targets, float[] weights, float[] durations, float[] meters, int offset) {
+        begin();
+        if (forwardMeters == null) {
+            forwardMeters = new float[graph.nodeCount()];
+            targetMark = new int[graph.nodeCount()];
+        }
+        int remaining = 0;
+        for (int target : targets) {
+            if (targetMark[target] != generation) {
+                targetMark[target] = generation;
+                remaining++;
+            }
+        }
+
+        reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, source, 0f, -1);
+        forwardMeters[source] = 0f;
+        while (remaining > 0 && !forwardHeap.isEmpty()) {
+            int u = forwardHeap.pop();
+            settled++;
+            if (targetMark[u] == generation) remaining--;
+            float du = forwardDistance[u];
+            for (int e = graph.firstEdge(u), end = graph.lastEdge(u); e < end; e++) {
+                int v = graph.target(e);
+                float dv = du + weights[e];
+                if (forwardSeen[v] != generation || dv < forwardDistance[v]) {
+                    reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, v, dv, e);
+                    forwardMeters[v] = forwardMeters[u] + graph.length(e);
+                }
+            }
+        }
+        forwardHeap.clear();
+
+        // Either every target was settled or the heap ran dry, so any reached target is final
+        for (int i = 0; i < targets.length; i++) {
+            int target = targets[i];
+            boolean reached = forwardSeen[target] == generation;
+            durations[offset + i] = reached ? forwardDistance[target] : -1f;
+            meters[offset + i] = reached ? forwardMeters[target] : -1f;
+        }
+    }
+
+    /**
+     * Dijkstra from {@code source} bounded by {@code limit} (weight units):
+     * reports every node reachable within the limit, in order of travel time,
+     * with its time and road metres along the fastest path. Nothing beyond the
+     * limit is settled, so the cost follows the reachable area, not the graph.
+     */
+    public void bounded(int source, float[] weights, float limit, SettledVisitor visitor) {
+        begin();
+        if (forwardMeters == null) {
+            forwardMeters = new float[graph.nodeCount()];
+            targetMark = new int[graph.nodeCount()];
+        }
+        reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, source, 0f, -1);
+        forwardMeters[source] = 0f;
+        while (!forwardHeap.isEmpty()) {
+            int u = forwardHeap.pop();
+            float du = forwardDistance[u];
+            if (du > limit) break;
+            settled++;
+            visitor.settled(u, du, forwardMeters[u]);
+            for (int e = graph.firstEdge(u), end = graph.lastEdge(u); e < end; e++) {
+                int v = graph.target(e);
+                float dv = du + weights[e];
+                if (forwardSeen[v] != generation || dv < forwardDistance[v]) {
+                    reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, v, dv, e);
+                    forwardMeters[v] = forwardMeters[u] + graph.length(e);
+                }
+            }
+        }
+        forwardHeap.clear();
+    }
+
+    /**
+     * Exhaustive upward search in a contraction hierarchy, the building block of
+     * bucket-based many-to-many queries: climbs up edges from {@code start}
+     * ({@code forward}) or down edges toward it (backward) and reports every
+     * settled node with its free-flow time and metres. Nodes that a higher
+     * neighbour already reaches more cheaply are stalled: they cannot lie on a
+     * shortest path's upward half, so they are neither reported nor expanded.
+     */
+    public void upward(int start, boolean forward, ContractionHierarchy hierarchy, SettledVisitor visitor) {
+        begin();
+        if (forwardMeters == null) {
+            forwardMeters = new float[graph.nodeCount()];
+            targetMark = new int[graph.nodeCount()];
+        }
+        reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, start, 0f, -1);
+        forwardMeters[start] = 0f;
+        while (!forwardHeap.isEmpty()) {
+            int u = forwardHeap.pop();
+            float du = forwardDistance[u];
+            if (stalled(u, du, forward, hierarchy)) continue;
+            settled++;
+            visitor.settled(u, du, forwardMeters[u]);
+            int end = forward ? hierarchy.lastUp(u) : hierarchy.lastDown(u);
+            for (int i = forward ? hierarchy.firstUp(u) : hierarchy.firstDown(u); i < end; i++) {
+                int e = forward ? hierarchy.upEdge(i) : hierarchy.downEdge(i);
+                int v = forward ? hierarchy.to(e) : hierarchy.from(e);
+                float dv = du + hierarchy.weight(e);
+                if (forwardSeen[v] != generation || dv < forwardDistance[v]) {
+                    reach(forwardDistance, forwardSeen, forwardParent, forwardHeap, v, dv, e);
+                    forwardMeters[v] = forwardMeters[u] + hierarchy.length(e);
+                }
+            }
+        }
+    }
+
+    // Stall-on-demand: an edge from (forward) or to (backward) a higher node that beats du
+    private boolean stalled(int u, float du, boolean forward, ContractionHierarchy hierarchy) {
+        int end = forward ? hierarchy.lastDown(u) : hierarchy.lastUp(u);
+        for (int i = forward ? hierarchy.firstDown(u) : hierarchy.firstUp(u); i < end; i++) {
+            int e = forward ? hierarchy.downEdge(i) : hierarchy.upEdge(i);
+            int v = forward ? hierarchy.from(e) : hierarchy.to(e);
+            if (forwardSeen[v] == generation && forwardDistance[v] + hierarchy.weight(e) < du) return true;
+        }
+        return false;
+    }
+
+    // --- RESULT ---
+
+    public int pathEdgeCount() { return pathLength; }
+    public int pathEdge(int index) { return pathEdges[index]; }
+
+    /** Nodes settled by the last query (search effort). */
+    public int settledNodes() { return settled; }
+
+    /** Sum of edge lengths along the last path, in metres. */
+    public double pathLengthMeters() {
+        double meters = 0;
+        for (int i = 0; i < pathLength; i++) meters += graph.length(pathEdges[i]);
+        return meters;
+    }
+
+    /** Cost of the last path under {@code weights} (e.g. live traffic instead of the weights searched with). */
+    public float pathCost(float[] weights) {
+        float cost = 0;
+        for (int i = 0; i < pathLength; i++) cost += weights[pathEdges[i]];
+        return cost;
+    }
+
+    // --- INTERNALS ---
+
+    private void begin() {
+        pathLength = 0;
+        settled = 0;
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(forwardSeen, 0);
+            Arrays.fill(backwardSeen, 0);
+            if (targetMark != null) Arrays.fill(targetMark, 0);
+            generation = 1;
+        }
+    }
+
+    private void reach(float[] distance, int[] seen, int[] parent, IndexedMinHeap heap, int node, float cost, int edge) {
+        distance[node] = cost;
+        seen[node] = generation;
+        parent[node] = edge;
+        heap.push(node, cost);
+    }
+
+    private void appendPath(int edge) {
+        if (pathLength == pathEdges.length) pathEdges = Arrays.copyOf(pathEdges, pathLength * 2);
+        pathEdges[pathLength++] = edge;
+    }
+
+    private void appendHierarchy(int edge) {
+        if (hierarchyLength == hierarchyEdges.length) hierarchyEdges = Arrays.copyOf(hierarchyEdges, hierarchyLength * 2);
+        hierarchyEdges[hierarchyLength++] = edge;
+    }
+
+    /** Expands a hierarchy edge depth-first (first half before second) into road edges. */
+    private void unpack(ContractionHierarchy hierarchy, int edge) {
+        int top = 0;
+        unpackStack[top++] = edge;
+        while (top > 0) {
+            int e = unpackStack[--top];
+            int second = hierarchy.child2(e);
+            if (second < 0) {
+                appendPath(hierarchy.child1(e));
+                continue;
+            }
+            if (top + 2 > unpackStack.length) unpackStack = Arrays.copyOf(unpackStack, unpackStack.length * 2);
+            unpackStack[top++] = second;
+            unpackStack[top++] = hierarchy.child1(e);
+        }
+    }
+
+    private void reversePath() {
+        for (int i = 0, j = pathLength - 1; i < j; i++, j--) {
+            int tmp = pathEdges[i];
+            pathEdges[i] = pathEdges[j];
+            pathEdges[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Load generator: drives a synthetic fleet of {@code telemetry.simulator.synthetic-fleet-size}
+ * units through the same store -> classifier -> flush/broadcast path real units use.
+ *
+ * Units are partitioned by id range into shards; each shard owns a contiguous
+ * block of the drive-model arrays and its own SplittableRandom, and shards run
+ * in parallel on a dedicated ForkJoinPool. Disabled when the fleet size is 0.
+ *
+ * Drive model per unit: accelerate/brake toward a target speed, follow
+ * straight route legs between random waypoints inside the service area,
+ * burn fuel proportional to distance and speed, refuel when nearly empty,
+ * and occasionally park. The simulator ticks at the moving-unit interval and an
+ * {@link AdaptiveTickPlan} picks the units due: moving ones every tick, parked
+ * ones every parked interval (or when their stop ends, if sooner).
+ */
+@Service
+public class ShardedTelemetrySimulator {
+
+    // Service area (Bengaluru), same region as the AI route coordinates
+    static final double MIN_LAT = 12.85, MAX_LAT = 13.10;
+    static final double MIN_LON = 77.50, MAX_LON = 77.75;
+
+    private static final double ACCEL_KMH_PER_S = 9.0;     // ~2.5 m/s^2
+    private static final double BRAKE_KMH_PER_S = 18.0;
+    private static final double FUEL_PCT_PER_KM = 0.05;    // at standstill speed factor
+    private static final double METERS_PER_DEG_LAT = 111_320.0;
+
+    @Autowired
+    private TelemetryStateStore store;
+
+    @Autowired
+    private TelemetryClassifier classifier;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Value("${telemetry.simulator.synthetic-fleet-size:0}")
+    private int fleetSize;
+
+    @Value("${telemetry.simulator.shards:0}")
+    private int shardCount;
+
+    @Value("${telemetry.scheduler.moving-interval-ms:1000}")
+    private long movingIntervalMs = 1000;
+
+    @Value("${telemetry.scheduler.parked-interval-ms:30000}")
+    private long parkedIntervalMs = 30000;
+
+    @Value("${telemetry.simulator.seed:2026}")
+    private long seed;
+
+    private ForkJoinPool pool;
+    private Shard[] shards = new Shard[0];
+
+    // Drive-model state, indexed by unit (unit i has synthetic id -(i + 1))
+    private int[] slot;
+    private double[] speed, targetSpeed, fuel, tire;
+    private double[] lat, lon, waypointLat, waypointLon;
+    private double[] parkedSeconds;
+    private AdaptiveTickPlan plan;
+
+    private volatile long lastTickNanos;
+    private volatile long lastTickUpdated;
+    private volatile long ticks;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (fleetSize <= 0) return;
+        int parallelism = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(parallelism);
+
+        slot = new int[fleetSize];
+        parkedSeconds = new double[fleetSize];
+        plan = new AdaptiveTickPlan(movingIntervalMs, parkedIntervalMs);
+        plan.ensureCapacity(fleetSize); // shards touch disjoint indexes concurrently
+        speed = new double[fleetSize];
+        targetSpeed = new double[fleetSize];
+        fuel = new double[fleetSize];
+        tire = new double[fleetSize];
+        lat = new double[fleetSize];
+        lon = new double[fleetSize];
+        waypointLat = new double[fleetSize];
+        waypointLon = new double[fleetSize];
+
+        SplittableRandom master = new SplittableRandom(seed);
+        shards = new Shard[parallelism];
+        for (int s = 0; s < parallelism; s++) {
+            int from = (int) ((long) fleetSize * s / parallelism);
+            int to = (int) ((long) fleetSize * (s + 1) / parallelism);
+            shards[s] = new Shard(from, to, master.split());
+            shards[s].init();
+        }
+        tickScheduler.register("sharded-simulator", movingIntervalMs, TelemetryTickScheduler.OverrunPolicy.SKIP, this::tick);
+        System.out.println(">>> Sharded Simulator: " + fleetSize + " synthetic units across " + parallelism + " shards.");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    public void tick() {
+        if (pool == null) return;
+        long started = System.nanoTime();
+        long now = System.currentTimeMillis();
+        try {
+            // Shards stage in parallel; the store classifies and publishes what they staged as one batch
+            store.batch(() -> {
+                List<Callable<Void>> work = new ArrayList<>(shards.length);
+                for (Shard shard : shards) {
+                    work.add(() -> {
+                        shard.advance(now);
+                        return null;
+                    });
+                }
+                pool.invokeAll(work);
+            }, classifier);
+            long updated = 0;
+            for (Shard shard : shards) updated += shard.updated;
+            lastTickUpdated = updated;
+            ticks++;
+        } catch (Exception e) {
+            System.err.println("Sharded Simulation Error: " + e.getMessage());
+        }
+        lastTickNanos = System.nanoTime() - started;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", pool != null);
+        stats.put("syntheticUnits", pool != null ? fleetSize : 0);
+        stats.put("shards", shards.length);
+        stats.put("movingIntervalMs", movingIntervalMs);
+        stats.put("parkedIntervalMs", parkedIntervalMs);
+        stats.put("ticks", ticks);
+        stats.put("lastTickUpdatedUnits", lastTickUpdated);
+        stats.put("lastTickMillis", lastTickNanos / 1_000_000.0);
+        return stats;
+    }
+
+    /** A contiguous id range simulated by one worker with its own random stream. */
+    private final class Shard {
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+        private int updated;
+
+        Shard(int from, int to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        void init() {
+            for (int i = from; i < to; i++) {
+                lat[i] = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+                lon[i] = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+                fuel[i] = 40.0 + random.nextDouble() * 60.0;
+                tire[i] = 30.0 + random.nextDouble() * 4.0;
+                nextLeg(i);
+                slot[i] = store.trackSynthetic(-(i + 1L), lat[i], lon[i]);
+            }
+        }
+
+        /** Advances the units that are due; {@link #updated} counts them. */
+        void advance(long now) {
+            updated = 0;
+            for (int i = from; i < to; i++) {
+                if (!plan.isDue(i, -(i + 1L), now)) continue;
+                if (store.isDeviceFed(slot[i], now)) continue; // real readings win over the drive model
+                double dt = Math.max(plan.elapsed(i, now), movingIntervalMs) / 1000.0;
+                if (parkedSeconds[i] > 0) {
+                    parkedSeconds[i] = Math.max(0.0, parkedSeconds[i] - dt);
+                    speed[i] = 0.0;
+                } else {
+                    // 1. Accelerate / brake toward the leg's target speed
+                    double delta = targetSpeed[i] - speed[i];
+                    double maxStep = (delta >= 0 ? ACCEL_KMH_PER_S : BRAKE_KMH_PER_S) * dt;
+                    speed[i] += Math.max(-maxStep, Math.min(maxStep, delta));
+
+                    // 2. Move along the current leg
+                    double meters = speed[i] / 3.6 * dt;
+                    double remaining = moveTowardWaypoint(i, meters);
+
+                    // 3. Fuel burn grows with distance and speed
+                    fuel[i] = Math.max(0.0, fuel[i] - FUEL_PCT_PER_KM * (meters / 1000.0) * (1.0 + speed[i] / 60.0));
+
+                    if (remaining <= 0) nextLeg(i);
+                    if (fuel[i] < 3.0) {
+                        fuel[i] = 100.0; // refuel stop
+                        parkedSeconds[i] = 30 + random.nextInt(60);
+                    }
+                }
+
+                // 4. Tire pressure warms with speed, with sensor noise
+                tire[i] = Math.max(26.0, Math.min(38.0, tire[i] + (32.0 + speed[i] / 40.0 - tire[i]) * 0.1
+                        + random.nextGaussian() * 0.15));
+
+                store.stage(slot[i], speed[i], fuel[i], tire[i]);
+                store.stagePosition(slot[i], lat[i], lon[i]);
+
+                // Parked: check back at the parked interval, or when the stop is over if that's sooner
+                long interval = parkedSeconds[i] > 0
+                        ? Math.min(parkedIntervalMs, (long) (parkedSeconds[i] * 1000))
+                        : movingIntervalMs;
+                plan.completed(i, now, interval);
+                updated++;
+            }
+        }
+
+        /** Moves unit {@code i} up to {@code meters} toward its waypoint; returns meters left on the leg. */
+        private double moveTowardWaypoint(int i, double meters) {
+            double metersPerDegLon = METERS_PER_DEG_LAT * Math.cos(Math.toRadians(lat[i]));
+            double dy = (waypointLat[i] - lat[i]) * METERS_PER_DEG_LAT;
+            double dx = (waypointLon[i] - lon[i]) * metersPerDegLon;
+            double legMeters = Math.sqrt(dx * dx + dy * dy);
+            if (legMeters <= meters) {
+                lat[i] = waypointLat[i];
+                lon[i] = waypointLon[i];
+                return 0;
+            }
+            double f = meters / legMeters;
+            lat[i] += dy * f / METERS_PER_DEG_LAT;
+            lon[i] += dx * f / metersPerDegLon;
+            return legMeters - meters;
+        }
+
+        private void nextLeg(int i) {
+            waypointLat[i] = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+            waypointLon[i] = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+            targetSpeed[i] = 25.0 + random.nextDouble() * 65.0;
+            if (random.nextInt(10) == 0) parkedSeconds[i] = 5 + random.nextInt(120);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.service;
+
+import com.example.demo.model.TelemetryCondition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Derives {@link TelemetryCondition} codes from speed / fuel / tire pressure
+ * using an ordered threshold rule table (first matching rule wins).
+ *
+ * Rules come from {@code telemetry.rules}, e.g. {@code fuel<5:CRITICAL_FUEL_LEVEL,tire>35:OVER_INFLATED_TIRES}.
+ * The batch form works column-wise over struct-of-arrays input: one tight,
+ * branch-free pass per rule, lowest priority first, so the highest-priority
+ * match is the last write.
+ */
+@Component
+public class TelemetryClassifier {
+
+    public static final String DEFAULT_RULES =
+            "fuel<5:CRITICAL_FUEL_LEVEL,tire<30:LOW_TIRE_PRESSURE,tire>35:OVER_INFLATED_TIRES," +
+            "speed>100:HIGH_SPEED_ALERT,fuel<15:LOW_FUEL_RESERVE";
+
+    public enum Metric { SPEED, FUEL, TIRE }
+
+    /** One row of the rule table: {@code metric < threshold} or {@code metric > threshold}. */
+    public static final class Rule {
+        final Metric metric;
+        final boolean lessThan;
+        final double threshold;
+        final byte code;
+
+        Rule(Metric metric, boolean lessThan, double threshold, TelemetryCondition condition) {
+            this.metric = metric;
+            this.lessThan = lessThan;
+            this.threshold = threshold;
+            this.code = condition.code();
+        }
+
+        boolean matches(double speed, double fuel, double tire) {
+            double value = metric == Metric.SPEED ? speed : metric == Metric.FUEL ? fuel : tire;
+            return lessThan ? value < threshold : value > threshold;
+        }
+    }
+
+    private final Rule[] rules;
+
+    public TelemetryClassifier(@Value("${telemetry.rules:" + DEFAULT_RULES + "}") String ruleTable) {
+        this.rules = parse(ruleTable);
+    }
+
+    static Rule[] parse(String ruleTable) {
+        List<Rule> parsed = new ArrayList<>();
+        for (String entry : ruleTable.split(",")) {
+            String spec = entry.trim();
+            if (spec.isEmpty()) continue;
+            int colon = spec.lastIndexOf(':');
+            int op = Math.max(spec.indexOf('<'), spec.indexOf('>'));
+            if (colon < 0 || op < 0 || op > colon) {
+                throw new IllegalArgumentException("Invalid telemetry rule: " + spec);
+            }
+            Metric metric = Metric.valueOf(spec.substring(0, op).trim().toUpperCase());
+            double threshold = Double.parseDouble(spec.substring(op + 1, colon).trim());
+            TelemetryCondition condition = TelemetryCondition.valueOf(spec.substring(colon + 1).trim());
+            parsed.add(new Rule(metric, spec.charAt(op) == '<', threshold, condition));
+        }
+        return parsed.toArray(new Rule[0]);
+    }
+
+    /** Single reading (ingest path). */
+    public byte classify(double speed, double fuel, double tire) {
+        for (Rule rule : rules) {
+            if (rule.matches(speed, fuel, tire)) return rule.code;
+        }
+        return TelemetryCondition.OPTIMAL.code();
+    }
+
+    /** Classifies slots {@code [from, to)} of the given columns into {@code out}. */
+    public void classify(double[] speed, double[] fuel, double[] tire, byte[] out, int from, int to) {
+        byte optimal = TelemetryCondition.OPTIMAL.code();
+        for (int i = from; i < to; i++) out[i] = optimal;
+
+        for (int r = rules.length - 1; r >= 0; r--) {
+            Rule rule = rules[r];
+            double[] column = rule.metric == Metric.SPEED ? speed : rule.metric == Metric.FUEL ? fuel : tire;
+            double threshold = rule.threshold;
+            byte code = rule.code;
+            if (rule.lessThan) {
+                for (int i = from; i < to; i++) out[i] = column[i] < threshold ? code : out[i];
+            } else {
+                for (int i = from; i < to; i++) out[i] = column[i] > threshold ? code : out[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.demo.service;
+
+import com.example.demo.model.TelemetryFrame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sends telemetry frames as pre-encoded JSON bytes.
+ *
+ * Each frame is serialized exactly once, into a pooled scratch buffer, and the
+ * resulting immutable byte[] becomes the payload of a single broker message;
+ * the simple broker hands that same array to every subscriber of the topic.
+ * Keyframes are also cached per topic with the state version they were built
+ * from, so an unchanged sector or fleet is not re-encoded on later ticks.
+ */
+@Component
+public class TelemetryFramePublisher {
+
+    private static final int POOL_SIZE = 4;
+    private static final int MAX_POOLED_BYTES = 8 * 1024 * 1024;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final ObjectWriter writer;
+    private final BlockingQueue<ScratchBuffer> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final Map<String, EncodedFrame> keyframes = new ConcurrentHashMap<>();
+
+    private final AtomicLong framesEncoded = new AtomicLong();
+    private final AtomicLong bytesEncoded = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong keyframeHits = new AtomicLong();
+    private final AtomicLong keyframeMisses = new AtomicLong();
+    private final AtomicLong ticks = new AtomicLong();
+    private volatile long lastTickAllocatedBytes = -1;
+    private volatile long lastTickNanos;
+
+    public TelemetryFramePublisher(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(TelemetryFrame.class);
+    }
+
+    /** Encodes and sends a one-off frame (deltas, single-unit keyframes). */
+    public void send(String destination, TelemetryFrame frame) {
+        byte[] payload = encode(frame);
+        if (payload != null) dispatch(destination, payload);
+    }
+
+    /**
+     * Sends the keyframe for {@code destination}, re-encoding only when
+     * {@code version} differs from the cached copy's.
+     */
+    public void sendKeyframe(String destination, long version, Supplier<TelemetryFrame> frame) {
+        EncodedFrame cached = keyframes.get(destination);
+        if (cached != null && cached.version == version) {
+            keyframeHits.incrementAndGet();
+            dispatch(destination, cached.payload);
+            return;
+        }
+        keyframeMisses.incrementAndGet();
+        byte[] payload = encode(frame.get());
+        if (payload == null) return;
+        keyframes.put(destination, new EncodedFrame(version, payload));
+        dispatch(destination, payload);
+    }
+
+    /** True if the cached keyframe for {@code destination} was built from {@code version}. */
+    public boolean hasKeyframe(String destination, long version) {
+        EncodedFrame cached = keyframes.get(destination);
+        return cached != null && cached.version == version;
+    }
+
+    /**
+     * Brackets one broadcast tick so the bytes the publishing thread allocated
+     * during it can be reported (HotSpot thread allocation counter).
+     */
+    public long beginTick() {
+        return allocatedBytes();
+    }
+
+    public void endTick(long allocatedAtStart, long startedNanos) {
+        long allocated = allocatedBytes();
+        lastTickAllocatedBytes = allocatedAtStart < 0 || allocated < 0 ? -1 : allocated - allocatedAtStart;
+        lastTickNanos = System.nanoTime() - startedNanos;
+        ticks.incrementAndGet();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long frames = framesEncoded.get();
+        stats.put("ticks", ticks.get());
+        stats.put("framesEncoded", frames);
+        stats.put("bytesEncoded", bytesEncoded.get());
+        stats.put("avgEncodeMicros", frames == 0 ? 0.0 : encodeNanos.get() / 1000.0 / frames);
+        stats.put("messagesSent", messagesSent.get());
+        stats.put("keyframeCacheHits", keyframeHits.get());
+        stats.put("keyframeCacheMisses", keyframeMisses.get());
+        stats.put("cachedKeyframes", keyframes.size());
+        stats.put("lastTickMillis", lastTickNanos / 1_000_000.0);
+        stats.put("lastTickAllocatedBytes", lastTickAllocatedBytes);
+        return stats;
+    }
+
+    // --- ENCODING ---
+
+    byte[] encode(TelemetryFrame frame) {
+        long started = System.nanoTime();
+        ScratchBuffer buffer = pool.poll();
+        if (buffer == null) buffer = new ScratchBuffer();
+        try {
+            buffer.reset();
+            writer.writeValue(buffer, frame);
+            byte[] payload = buffer.toByteArray();
+            framesEncoded.incrementAndGet();
+            bytesEncoded.addAndGet(payload.length);
+            encodeNanos.addAndGet(System.nanoTime() - started);
+            return payload;
+        } catch (IOException e) {
+            System.err.println("Telemetry Encode Error: " + e.getMessage());
+            return null;
+        } finally {
+            // Keep warmed-up buffers, but don't pin one that a huge keyframe blew up
+            if (buffer.capacity() <= MAX_POOLED_BYTES) pool.offer(buffer);
+        }
+    }
+
+    private void dispatch(String destination, byte[] payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+        messagingTemplate.send(destination, message);
+        messagesSent.incrementAndGet();
+    }
+
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemoryEnabled()) return -1;
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static final class EncodedFrame {
+        final long version;
+        final byte[] payload;
+
+        EncodedFrame(long version, byte[] payload) {
+            this.version = version;
+            this.payload = payload;
+        }
+    }
+
+    /** Growable, reusable output buffer; only the final exact-size copy escapes. */
+    static final class ScratchBuffer extends OutputStream {
+        private byte[] bytes = new byte[16 * 1024];
+        private int count;
+
+        void reset() {
+            count = 0;
+        }
+
+        int capacity() {
+            return bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, count);
+        }
+
+        @Override
+        public void write(int b) {
+            ensure(count + 1);
+            bytes[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) {
+            ensure(count + length);
+            System.arraycopy(source, offset, bytes, count, length);
+            count += length;
+        }
+
+        private void ensure(int needed) {
+            if (needed > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+        }
+    }
+}
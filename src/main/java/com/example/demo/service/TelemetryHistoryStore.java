@@ -0,0 +1,517 @@
+package com.example.demo.service;
+
+import com.example.demo.model.TelemetryHistory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only telemetry history on local disk, kept entirely out of MySQL.
+ *
+ * Every sample tick the store's change cursor is drained into the raw series;
+ * the same samples are averaged into 1-minute and 1-hour buckets which are
+ * written to their own series when the bucket closes. Each series is a run of
+ * {@link TelemetrySegment} files, one (or more, if full) per time window:
+ * <pre>
+ *   {dir}/raw/{windowStart}-{part}.seg   window = segment-minutes
+ *   {dir}/1m/...                          window = 1 day
+ *   {dir}/1h/...                          window = 7 days
+ * </pre>
+ * Windows past their series' retention are deleted when a new window opens.
+ * All writes happen on the sampler thread; range queries may run concurrently.
+ *
+ * Finished segments never change, so range queries keep their read-only
+ * mappings in a small LRU ({@code open-segments}) instead of mapping the same
+ * file on every request; a mapping dropped from it (or deleted by retention)
+ * is released when the collector reclaims it. Rollup buckets still open at
+ * shutdown are saved next to their series and picked up on the next start,
+ * so a restart neither loses nor duplicates a bucket.
+ */
+@Service
+public class TelemetryHistoryStore {
+
+    public static final String RAW = "raw";
+    public static final String MINUTE = "1m";
+    public static final String HOUR = "1h";
+
+    private static final long MINUTE_MS = 60_000L;
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+
+    private final TelemetryStateStore store;
+    private final TelemetryStateStore.Cursor cursor;
+
+    private final Series raw;
+    private final Series minutes;
+    private final Series hours;
+    private final Rollup minuteRollup;
+    private final Rollup hourRollup;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Value("${telemetry.history.sample-ms:5000}")
+    private long sampleMs = 5000;
+
+    @Value("${telemetry.history.open-segments:64}")
+    private int maxOpenSegments = 64;
+
+    private final ReaderCache readers = new ReaderCache();
+
+    private volatile long rowsWritten;
+    private volatile long lastSampleNanos;
+
+    public TelemetryHistoryStore(TelemetryStateStore store,
+                                 @Value("${telemetry.history.dir:data/telemetry-history}") String dir,
+                                 @Value("${telemetry.history.segment-minutes:15}") int segmentMinutes,
+                                 @Value("${telemetry.history.segment-capacity:2097152}") int segmentCapacity,
+                                 @Value("${telemetry.history.raw-retention-hours:48}") int rawRetentionHours,
+                                 @Value("${telemetry.history.minute-retention-days:30}") int minuteRetentionDays,
+                                 @Value("${telemetry.history.hour-retention-days:365}") int hourRetentionDays) {
+        this.store = store;
+        this.cursor = store.newCursor();
+        Path root = Paths.get(dir);
+        this.raw = new Series(RAW, root.resolve(RAW), 0, segmentMinutes * MINUTE_MS, segmentCapacity,
+                rawRetentionHours * HOUR_MS, readers);
+        this.minutes = new Series(MINUTE, root.resolve(MINUTE), MINUTE_MS, DAY_MS, segmentCapacity,
+                minuteRetentionDays * DAY_MS, readers);
+        this.hours = new Series(HOUR, root.resolve(HOUR), HOUR_MS, 7 * DAY_MS, segmentCapacity,
+                hourRetentionDays * DAY_MS, readers);
+        this.minuteRollup = new Rollup(minutes);
+        this.hourRollup = new Rollup(hours);
+        minuteRollup.restore();
+        hourRollup.restore();
+    }
+
+    @PostConstruct
+    public void schedule() {
+        // Samples are stamped with the wall clock, so replaying a missed tick adds nothing: skip it
+        tickScheduler.register("history", sampleMs, TelemetryTickScheduler.OverrunPolicy.SKIP, this::sample);
+    }
+
+    @PreDestroy
+    public void close() {
+        // Open buckets are saved, not emitted: the next start keeps filling them
+        minuteRollup.save();
+        hourRollup.save();
+        for (Series series : List.of(raw, minutes, hours)) series.sync();
+    }
+
+    // --- WRITE PATH (sampler thread) ---
+
+    public void sample() {
+        long started = System.nanoTime();
+        try {
+            record(System.currentTimeMillis());
+        } catch (Exception e) {
+            System.err.println("Telemetry History Error: " + e.getMessage());
+        }
+        lastSampleNanos = System.nanoTime() - started;
+    }
+
+    /** Appends every unit changed since the last call, stamped {@code now}. */
+    public void record(long now) {
+        minuteRollup.roll(now);
+        hourRollup.roll(now);
+
+        long[] written = {0};
+        cursor.forEachChanged(slot -> {
+            long vehicleId = store.vehicleId(slot);
+            if (vehicleId == 0) return; // unbound since last sample
+            float speed = (float) store.speed(slot);
+            float fuel = (float) store.fuel(slot);
+            float tire = (float) store.tirePressure(slot);
+            raw.append(vehicleId, now, speed, fuel, tire);
+            minuteRollup.add(slot, vehicleId, speed, fuel, tire);
+            hourRollup.add(slot, vehicleId, speed, fuel, tire);
+            written[0]++;
+        });
+        raw.publish();
+        rowsWritten += written[0];
+    }
+
+    // --- READ PATH ---
+
+    /**
+     * Returns {@code vehicleId}'s samples in [from, to). {@code resolution} is
+     * raw, 1m, 1h, or auto (finest series whose retention covers {@code from}
+     * and that keeps the point count modest).
+     */
+    public TelemetryHistory range(long vehicleId, long from, long to, String resolution) {
+        Series series = resolve(resolution, from, to);
+        Points points = new Points();
+        for (Path file : series.filesOverlapping(from, to)) {
+            try {
+                TelemetrySegment segment = series.segmentFor(file);
+                segment.scan(vehicleId, from, to, points);
+            } catch (IOException e) {
+                System.err.println("Telemetry History Read Error: " + file + " " + e.getMessage());
+            }
+        }
+        return points.toHistory(vehicleId, series.name, from, to);
+    }
+
+    private Series resolve(String resolution, long from, long to) {
+        if (RAW.equalsIgnoreCase(resolution)) return raw;
+        if (MINUTE.equalsIgnoreCase(resolution)) return minutes;
+        if (HOUR.equalsIgnoreCase(resolution)) return hours;
+        if (resolution != null && !"auto".equalsIgnoreCase(resolution)) {
+            throw new IllegalArgumentException("Unknown resolution: " + resolution);
+        }
+        long span = to - from;
+        long age = System.currentTimeMillis() - from;
+        if (span <= 6 * HOUR_MS && age <= raw.retentionMs) return raw;
+        if (span <= 14 * DAY_MS && age <= minutes.retentionMs) return minutes;
+        return hours;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rowsWritten", rowsWritten);
+        stats.put("lastSampleMillis", lastSampleNanos / 1_000_000.0);
+        stats.put("openReadSegments", readers.size());
+        for (Series series : List.of(raw, minutes, hours)) {
+            stats.put(series.name + "Segments", series.filesOverlapping(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2).size());
+        }
+        return stats;
+    }
+
+    /** Read-only mappings of finished segments, least recently used dropped first. */
+    private final class ReaderCache {
+        private final LinkedHashMap<Path, TelemetrySegment> open = new LinkedHashMap<>(64, 0.75f, true);
+
+        synchronized TelemetrySegment get(Path file) {
+            return open.get(file);
+        }
+
+        synchronized void put(Path file, TelemetrySegment segment) {
+            open.put(file, segment);
+            Iterator<TelemetrySegment> it = open.values().iterator();
+            while (open.size() > maxOpenSegments && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+
+        synchronized void drop(Path file) {
+            open.remove(file);
+        }
+
+        synchronized int size() {
+            return open.size();
+        }
+    }
+
+    /** One resolution's chain of segment files. */
+    private static final class Series {
+        final String name;
+        final Path dir;
+        final long resolutionMs;
+        final long windowMs;
+        final int capacity;
+        final long retentionMs;
+        private final ReaderCache readers;
+
+        private volatile TelemetrySegment active;
+        private volatile long activeWindow = Long.MIN_VALUE;
+        private int activePart;
+
+        Series(String name, Path dir, long resolutionMs, long windowMs, int capacity, long retentionMs,
+               ReaderCache readers) {
+            this.name = name;
+            this.dir = dir;
+            this.resolutionMs = resolutionMs;
+            this.windowMs = windowMs;
+            this.capacity = capacity;
+            this.retentionMs = retentionMs;
+            this.readers = readers;
+        }
+
+        void append(long vehicleId, long timestamp, float speed, float fuel, float tire) {
+            long window = timestamp - Math.floorMod(timestamp, windowMs);
+            TelemetrySegment segment = active;
+            if (segment == null || window != activeWindow || segment.isFull()) {
+                segment = roll(window);
+            }
+            segment.append(vehicleId, timestamp, speed, fuel, tire);
+        }
+
+        void publish() {
+            TelemetrySegment segment = active;
+            if (segment != null) segment.publish();
+        }
+
+        void sync() {
+            TelemetrySegment segment = active;
+            if (segment != null) {
+                segment.publish();
+                segment.force();
+            }
+        }
+
+        private TelemetrySegment roll(long window) {
+            sync();
+            int part = window == activeWindow ? activePart + 1 : latestPart(window);
+            try {
+                TelemetrySegment segment = TelemetrySegment.openOrCreate(fileFor(window, part), window, capacity);
+                while (segment.isFull()) { // resuming after a restart into a full part
+                    part++;
+                    segment = TelemetrySegment.openOrCreate(fileFor(window, part), window, capacity);
+                }
+                boolean newWindow = window != activeWindow;
+                readers.drop(segment.getPath()); // writable again (a restart resuming an older window)
+                activeWindow = window;
+                activePart = part;
+                active = segment;
+                if (newWindow) expire(window);
+                return segment;
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot open telemetry segment in " + dir, e);
+            }
+        }
+
+        private Path fileFor(long window, int part) {
+            return dir.resolve(window + "-" + part + ".seg");
+        }
+
+        private int latestPart(long window) {
+            int part = 0;
+            while (Files.exists(fileFor(window, part + 1))) part++;
+            return part;
+        }
+
+        private void expire(long currentWindow) {
+            long cutoff = currentWindow - retentionMs;
+            for (Path file : filesOverlapping(Long.MIN_VALUE / 2, cutoff)) {
+                if (windowOf(file) + windowMs > cutoff) continue;
+                try {
+                    readers.drop(file);
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("Telemetry History Retention Error: " + file + " " + e.getMessage());
+                }
+            }
+        }
+
+        TelemetrySegment segmentFor(Path file) throws IOException {
+            TelemetrySegment segment = active;
+            if (segment != null && segment.getPath().equals(file)) return segment;
+            TelemetrySegment cached = readers.get(file);
+            if (cached != null) return cached;
+            TelemetrySegment opened = TelemetrySegment.open(file, true);
+            // Only finished segments are immutable: earlier windows, or full parts of the current one
+            if (windowOf(file) < activeWindow || opened.isFull()) readers.put(file, opened);
+            return opened;
+        }
+
+        /** Segment files whose window intersects [from, to), oldest first. */
+        List<Path> filesOverlapping(long from, long to) {
+            List<Path> files = new ArrayList<>();
+            if (!Files.isDirectory(dir)) return files;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.seg")) {
+                for (Path file : stream) {
+                    long window = windowOf(file);
+                    if (window < to && window + windowMs > from) files.add(file);
+                }
+            } catch (IOException e) {
+                System.err.println("Telemetry History List Error: " + e.getMessage());
+            }
+            files.sort(Comparator.comparingLong(Series::windowOf).thenComparingInt(Series::partOf));
+            return files;
+        }
+
+        private static long windowOf(Path file) {
+            String name = file.getFileName().toString();
+            return Long.parseLong(name.substring(0, name.indexOf('-', 1)));
+        }
+
+        private static int partOf(Path file) {
+            String name = file.getFileName().toString();
+            return Integer.parseInt(name.substring(name.indexOf('-', 1) + 1, name.length() - ".seg".length()));
+        }
+    }
+
+    /**
+     * Running per-slot averages for one bucket of a coarser series. Indexed by
+     * store slot so a tick adds without allocating; flushed when the bucket rolls.
+     * Sums saved at shutdown come back keyed by unit (slots do not survive a
+     * restart) and are merged into that unit's row when the bucket is emitted.
+     */
+    private static final class Rollup {
+        private static final String OPEN_BUCKET_FILE = "open-bucket.state";
+
+        private final Series target;
+        private long bucket = Long.MIN_VALUE;
+        // vehicleId -> {speed, fuel, tire, samples} carried over from before a restart
+        private final Map<Long, double[]> carried = new HashMap<>();
+        private long[] owner = new long[1024];
+        private double[] speed = new double[1024];
+        private double[] fuel = new double[1024];
+        private double[] tire = new double[1024];
+        private int[] samples = new int[1024];
+        private int highWater;
+
+        Rollup(Series target) {
+            this.target = target;
+        }
+
+        void roll(long now) {
+            long current = now - Math.floorMod(now, target.resolutionMs);
+            if (current == bucket) return;
+            emit();
+            bucket = current;
+        }
+
+        void add(int slot, long vehicleId, float s, float f, float t) {
+            if (slot >= owner.length) grow(slot + 1);
+            if (owner[slot] != vehicleId) {
+                emitSlot(slot); // slot rebound mid-bucket: close out the previous unit
+                owner[slot] = vehicleId;
+            }
+            speed[slot] += s;
+            fuel[slot] += f;
+            tire[slot] += t;
+            samples[slot]++;
+            if (slot >= highWater) highWater = slot + 1;
+        }
+
+        void emit() {
+            for (int slot = 0; slot < highWater; slot++) emitSlot(slot);
+            for (Map.Entry<Long, double[]> unit : carried.entrySet()) {
+                double[] sums = unit.getValue();
+                double n = sums[3];
+                target.append(unit.getKey(), bucket, (float) (sums[0] / n), (float) (sums[1] / n), (float) (sums[2] / n));
+            }
+            carried.clear();
+            target.publish();
+        }
+
+        private void emitSlot(int slot) {
+            if (samples[slot] == 0) return;
+            double[] before = carried.remove(owner[slot]);
+            double s = speed[slot], f = fuel[slot], t = tire[slot], n = samples[slot];
+            if (before != null) {
+                s += before[0];
+                f += before[1];
+                t += before[2];
+                n += before[3];
+            }
+            target.append(owner[slot], bucket, (float) (s / n), (float) (f / n), (float) (t / n));
+            speed[slot] = 0;
+            fuel[slot] = 0;
+            tire[slot] = 0;
+            samples[slot] = 0;
+        }
+
+        /** Writes the open bucket's sums (per unit) so the next start can finish it. */
+        void save() {
+            Map<Long, double[]> units = new HashMap<>(carried);
+            for (int slot = 0; slot < highWater; slot++) {
+                if (samples[slot] == 0) continue;
+                double[] sums = units.computeIfAbsent(owner[slot], id -> new double[4]);
+                sums[0] += speed[slot];
+                sums[1] += fuel[slot];
+                sums[2] += tire[slot];
+                sums[3] += samples[slot];
+            }
+            if (units.isEmpty()) return;
+            Path file = target.dir.resolve(OPEN_BUCKET_FILE);
+            try {
+                Files.createDirectories(target.dir);
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                    out.writeLong(bucket);
+                    out.writeInt(units.size());
+                    for (Map.Entry<Long, double[]> unit : units.entrySet()) {
+                        out.writeLong(unit.getKey());
+                        for (double v : unit.getValue()) out.writeDouble(v);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Telemetry History Rollup Save Error: " + file + " " + e.getMessage());
+            }
+        }
+
+        /** Picks up a bucket saved by {@link #save}; the file is consumed so it is applied once. */
+        void restore() {
+            Path file = target.dir.resolve(OPEN_BUCKET_FILE);
+            if (!Files.exists(file)) return;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                bucket = in.readLong();
+                int units = in.readInt();
+                for (int i = 0; i < units; i++) {
+                    long vehicleId = in.readLong();
+                    double[] sums = new double[4];
+                    for (int k = 0; k < sums.length; k++) sums[k] = in.readDouble();
+                    carried.put(vehicleId, sums);
+                }
+            } catch (IOException e) {
+                System.err.println("Telemetry History Rollup Restore Error: " + file + " " + e.getMessage());
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Telemetry History Rollup Restore Error: " + file + " " + e.getMessage());
+            }
+        }
+
+        private void grow(int min) {
+            int capacity = Math.max(min, owner.length * 2);
+            owner = Arrays.copyOf(owner, capacity);
+            speed = Arrays.copyOf(speed, capacity);
+            fuel = Arrays.copyOf(fuel, capacity);
+            tire = Arrays.copyOf(tire, capacity);
+            samples = Arrays.copyOf(samples, capacity);
+        }
+    }
+
+    /** Growable column buffers for a query result. */
+    private static final class Points implements TelemetrySegment.RowSink {
+        private long[] timestamps = new long[256];
+        private float[] speed = new float[256];
+        private float[] fuel = new float[256];
+        private float[] tire = new float[256];
+        private int size;
+
+        @Override
+        public void accept(long timestamp, float s, float f, float t) {
+            if (size == timestamps.length) {
+                int capacity = size * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                speed = Arrays.copyOf(speed, capacity);
+                fuel = Arrays.copyOf(fuel, capacity);
+                tire = Arrays.copyOf(tire, capacity);
+            }
+            timestamps[size] = timestamp;
+            speed[size] = s;
+            fuel[size] = f;
+            tire[size] = t;
+            size++;
+        }
+
+        TelemetryHistory toHistory(long vehicleId, String resolution, long from, long to) {
+            return new TelemetryHistory(vehicleId, resolution, from, to,
+                    Arrays.copyOf(timestamps, size), Arrays.copyOf(speed, size),
+                    Arrays.copyOf(fuel, size), Arrays.copyOf(tire, size));
+        }
+    }
+}
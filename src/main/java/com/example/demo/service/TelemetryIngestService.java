@@ -0,0 +1,174 @@
+package com.example.demo.service;
+
+import com.example.demo.model.TelemetryReading;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Intake for real device telemetry (HTTP batch and STOMP /app/telemetry).
+ *
+ * Producers only enqueue into a bounded {@link MpscRingBuffer}; a full buffer
+ * is reported back so the transport can answer 429 / NACK. A single consumer
+ * thread validates, drops stale or duplicate sequence numbers, classifies with
+ * the same rule table as the simulator and writes into the telemetry store,
+ * from where the write-behind flusher persists and FleetTelemetryService broadcasts.
+ */
+@Service
+public class TelemetryIngestService {
+
+    private static final int DRAIN_BATCH = 4096;
+
+    @Autowired
+    private TelemetryStateStore store;
+
+    @Autowired
+    private TelemetryClassifier classifier;
+
+    @Value("${telemetry.ingest.buffer-size:65536}")
+    private int bufferSize = 65536;
+
+    private MpscRingBuffer<TelemetryReading> buffer;
+    private Thread consumer;
+    private volatile boolean running;
+
+    // Consumer-thread state: last accepted sequence per store slot
+    private long[] sequenceOwner = new long[1024];
+    private long[] lastSequence = new long[1024];
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejectedFull = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong unknownUnits = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        buffer = new MpscRingBuffer<>(bufferSize);
+        running = true;
+        consumer = new Thread(this::consumeLoop, "telemetry-ingest");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (consumer != null) consumer.interrupt();
+    }
+
+    // --- PRODUCER SIDE (any thread) ---
+
+    /** @return false when the buffer is full and the reading was not taken */
+    public boolean offer(TelemetryReading reading) {
+        if (reading == null) return true;
+        if (buffer.offer(reading)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        rejectedFull.incrementAndGet();
+        return false;
+    }
+
+    /** @return number of readings accepted; the remainder hit a full buffer */
+    public int offerAll(List<TelemetryReading> readings) {
+        int taken = 0;
+        for (TelemetryReading reading : readings) {
+            if (!offer(reading)) break; // keep device order: stop at the first rejection
+            taken++;
+        }
+        if (taken < readings.size()) rejectedFull.addAndGet(readings.size() - taken - 1);
+        return taken;
+    }
+
+    // --- CONSUMER SIDE (single thread) ---
+
+    private void consumeLoop() {
+        while (running) {
+            try {
+                int drained = buffer.drain(this::apply, DRAIN_BATCH);
+                if (drained == 0) LockSupport.parkNanos(200_000L);
+            } catch (Exception e) {
+                System.err.println("Telemetry Ingest Error: " + e.getMessage());
+            }
+        }
+    }
+
+    void apply(TelemetryReading r) {
+        if (!isValid(r)) {
+            invalid.incrementAndGet();
+            return;
+        }
+        int slot = store.slotOf(r.getVehicleId());
+        if (slot < 0) {
+            unknownUnits.incrementAndGet(); // no approved link: not an active unit
+            return;
+        }
+        if (!advanceSequence(slot, r.getVehicleId(), r.getSequence())) {
+            duplicates.incrementAndGet();
+            return;
+        }
+
+        double speed = r.getSpeed() != null ? r.getSpeed() : store.speed(slot);
+        double fuel = r.getFuel() != null ? r.getFuel() : store.fuel(slot);
+        double tire = r.getTirePressure() != null ? r.getTirePressure() : store.tirePressure(slot);
+        double lat = r.getLatitude() != null ? r.getLatitude() : store.latitude(slot);
+        double lon = r.getLongitude() != null ? r.getLongitude() : store.longitude(slot);
+
+        store.markIngested(slot, System.currentTimeMillis()); // simulators stop driving this unit
+        store.update(slot, speed, fuel, tire, lat, lon, classifier.classify(speed, fuel, tire));
+        applied.incrementAndGet();
+    }
+
+    private static boolean isValid(TelemetryReading r) {
+        if (r.getVehicleId() == null || r.getVehicleId() <= 0) return false;
+        if (r.getSpeed() != null && !(r.getSpeed() >= 0 && r.getSpeed() <= 300)) return false;
+        if (r.getFuel() != null && !(r.getFuel() >= 0 && r.getFuel() <= 100)) return false;
+        if (r.getTirePressure() != null && !(r.getTirePressure() >= 0 && r.getTirePressure() <= 80)) return false;
+        if ((r.getLatitude() == null) != (r.getLongitude() == null)) return false;
+        if (r.getLatitude() != null && !(Math.abs(r.getLatitude()) <= 90 && Math.abs(r.getLongitude()) <= 180)) return false;
+        return true;
+    }
+
+    /** True if {@code sequence} is newer than the last one applied for this unit, or the device sends none. */
+    private boolean advanceSequence(int slot, long vehicleId, Long sequence) {
+        if (sequence == null) return true;
+        if (slot >= sequenceOwner.length) {
+            int capacity = Math.max(slot + 1, sequenceOwner.length * 2);
+            sequenceOwner = Arrays.copyOf(sequenceOwner, capacity);
+            lastSequence = Arrays.copyOf(lastSequence, capacity);
+        }
+        if (sequenceOwner[slot] != vehicleId) {
+            // Slot (re)bound to this unit since we last saw it
+            sequenceOwner[slot] = vehicleId;
+            lastSequence[slot] = sequence;
+            return true;
+        }
+        if (sequence <= lastSequence[slot]) return false;
+        lastSequence[slot] = sequence;
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bufferCapacity", buffer.capacity());
+        stats.put("bufferDepth", buffer.size());
+        stats.put("accepted", accepted.get());
+        stats.put("rejectedBufferFull", rejectedFull.get());
+        stats.put("applied", applied.get());
+        stats.put("invalid", invalid.get());
+        stats.put("duplicates", duplicates.get());
+        stats.put("unknownUnits", unknownUnits.get());
+        return stats;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * One memory-mapped, append-only telemetry segment covering a fixed time window.
+ *
+ * Layout is columnar with a fixed row capacity so each column is a contiguous
+ * run that a range query scans sequentially:
+ * <pre>
+ *   header  (32 B): magic, format, baseTime (epoch ms), capacity, count
+ *   vehicle int[capacity]    unit id
+ *   offset  int[capacity]    ms since baseTime (timestamps stored as deltas)
+ *   speed   float[capacity]
+ *   fuel    float[capacity]
+ *   tire    float[capacity]
+ * </pre>
+ * A single writer appends; readers only look at rows below the published count.
+ */
+public class TelemetrySegment {
+
+    private static final int MAGIC = 0x4E465453; // "NFTS"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int COUNT_OFFSET = 20;
+    static final int ROW_BYTES = 4 + 4 + 4 + 4 + 4;
+
+    /** Receives matching rows from {@link #scan}. */
+    public interface RowSink {
+        void accept(long timestamp, float speed, float fuel, float tire);
+    }
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long baseTime;
+    private final int capacity;
+    private final int vehicleCol, offsetCol, speedCol, fuelCol, tireCol;
+    private int count;
+
+    private TelemetrySegment(Path path, MappedByteBuffer buffer, long baseTime, int capacity, int count) {
+        this.path = path;
+        this.buffer = buffer;
+        this.baseTime = baseTime;
+        this.capacity = capacity;
+        this.count = count;
+        this.vehicleCol = HEADER_BYTES;
+        this.offsetCol = vehicleCol + 4 * capacity;
+        this.speedCol = offsetCol + 4 * capacity;
+        this.fuelCol = speedCol + 4 * capacity;
+        this.tireCol = fuelCol + 4 * capacity;
+    }
+
+    /** Opens an existing segment, or creates it (sparse on disk) with the given capacity. */
+    public static TelemetrySegment openOrCreate(Path path, long baseTime, int capacity) throws IOException {
+        if (Files.exists(path)) return open(path, false);
+        Files.createDirectories(path.getParent());
+        long size = HEADER_BYTES + (long) ROW_BYTES * capacity;
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(size);
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT);
+            buffer.putLong(8, baseTime);
+            buffer.putInt(16, capacity);
+            buffer.putInt(COUNT_OFFSET, 0);
+            return new TelemetrySegment(path, buffer, baseTime, capacity, 0);
+        }
+    }
+
+    public static TelemetrySegment open(Path path, boolean readOnly) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), readOnly ? "r" : "rw")) {
+            MappedByteBuffer buffer = file.getChannel().map(
+                    readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0, file.length());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+                throw new IOException("Not a telemetry segment: " + path);
+            }
+            return new TelemetrySegment(path, buffer, buffer.getLong(8), buffer.getInt(16), buffer.getInt(COUNT_OFFSET));
+        }
+    }
+
+    public boolean isFull() {
+        return count >= capacity;
+    }
+
+    /** Writer only. Timestamps must fall inside this segment's window. */
+    public void append(long vehicleId, long timestamp, float speed, float fuel, float tire) {
+        int row = count;
+        buffer.putInt(vehicleCol + 4 * row, (int) vehicleId);
+        buffer.putInt(offsetCol + 4 * row, (int) (timestamp - baseTime));
+        buffer.putFloat(speedCol + 4 * row, speed);
+        buffer.putFloat(fuelCol + 4 * row, fuel);
+        buffer.putFloat(tireCol + 4 * row, tire);
+        count = row + 1;
+    }
+
+    /** Makes appended rows visible to readers (and to a restart). */
+    public void publish() {
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    /** Streams rows for {@code vehicleId} with {@code from <= timestamp < to}, in append order. */
+    public void scan(long vehicleId, long from, long to, RowSink sink) {
+        int published = buffer.getInt(COUNT_OFFSET);
+        int id = (int) vehicleId;
+        long lo = Math.max(Integer.MIN_VALUE, from - baseTime);
+        long hi = Math.min(Integer.MAX_VALUE, to - baseTime);
+        for (int row = 0; row < published; row++) {
+            if (buffer.getInt(vehicleCol + 4 * row) != id) continue;
+            int offset = buffer.getInt(offsetCol + 4 * row);
+            if (offset < lo || offset >= hi) continue;
+            sink.accept(baseTime + offset,
+                    buffer.getFloat(speedCol + 4 * row),
+                    buffer.getFloat(fuelCol + 4 * row),
+                    buffer.getFloat(tireCol + 4 * row));
+        }
+    }
+
+    public Path getPath() { return path; }
+    public long getBaseTime() { return baseTime; }
+    public int getCount() { return count; }
+}
@@ -2,8 +2,11 @@ package com.example.demo.service;
 
 import com.example.demo.entity.CustomerVehicle;
 import com.example.demo.repository.CustomerVehicleRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Random;
@@ -14,60 +17,88 @@ public class TelemetrySimulator {
     @Autowired
     private CustomerVehicleRepository repository;
 
+    @Autowired
+    private TelemetryStateStore store;
+
+    @Autowired
+    private TelemetryClassifier classifier;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Value("${telemetry.scheduler.moving-interval-ms:1000}")
+    private long movingIntervalMs = 1000;
+
+    @Value("${telemetry.scheduler.parked-interval-ms:30000}")
+    private long parkedIntervalMs = 30000;
+
     private final Random random = new Random();
+    private AdaptiveTickPlan plan;
+
+    @PostConstruct
+    public void schedule() {
+        plan = new AdaptiveTickPlan(movingIntervalMs, parkedIntervalMs);
+        // Ticks at the moving-unit cadence; the plan decides which units are due on each tick
+        tickScheduler.register("simulator", movingIntervalMs, TelemetryTickScheduler.OverrunPolicy.SKIP,
+                this::simulateTelemetry);
+    }
 
     /**
-     * Updates approved vehicles every 5 seconds.
-     * Generates random speed, drains fuel, and calculates vehicle condition.
+     * One-time load of approved units into the telemetry store.
+     * After this, membership follows link writes via CustomerVehicleChangeListener.
      */
-    @Scheduled(fixedRate = 5000)
-    public void simulateTelemetry() {
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadApprovedUnits() {
         try {
-            // FIXED: Fetching by string status "approved" to avoid "cannot find symbol" error
-            // This assumes your repository has a findByStatus(String status) method
             List<CustomerVehicle> approvedVehicles = repository.findByStatus("approved");
+            approvedVehicles.forEach(store::track);
+            System.out.println(">>> Telemetry Store: " + store.size() + " approved units loaded.");
+        } catch (Exception e) {
+            System.err.println("Telemetry Store Load Error: " + e.getMessage());
+        }
+    }
 
-            if (approvedVehicles == null || approvedVehicles.isEmpty()) {
+    /**
+     * Updates approved vehicles: moving units every second, parked ones every 30 seconds.
+     * Generates random speed (units park and pull away now and then), drains fuel while
+     * moving, and calculates vehicle condition via the TelemetryClassifier rule table.
+     * Writes go to the in-memory store; TelemetryWriteBehindFlusher persists them.
+     */
+    public void simulateTelemetry() {
+        try {
+            if (store.size() == 0) {
                 return; // No active units to simulate
             }
 
-            for (CustomerVehicle v : approvedVehicles) {
+            long now = System.currentTimeMillis();
+            // Stage raw readings, then the store derives conditions for the batch and publishes
+            // (persisted by the write-behind flusher)
+            store.batch(() -> store.forEachActive(slot -> {
+                long vehicleId = store.vehicleId(slot);
+                // Synthetic load-test units are driven by ShardedTelemetrySimulator
+                if (TelemetryStateStore.isSynthetic(vehicleId)) return;
+                // Units reporting through /app/telemetry or the batch API keep their real readings
+                if (store.isDeviceFed(slot, now)) return;
+                if (!plan.isDue(slot, vehicleId, now)) return;
+                double dtSeconds = Math.max(plan.elapsed(slot, now), movingIntervalMs) / 1000.0;
+
                 // 1. Generate core telemetry data
-                double currentSpeed = random.nextDouble() * 120.0;
+                boolean parked = store.speed(slot) == 0.0;
+                boolean moving = parked ? random.nextInt(3) == 0 : random.nextInt(100) != 0;
+                double currentSpeed = moving ? random.nextDouble() * 120.0 : 0.0;
 
-                // Fetch current fuel or default to 100.0, then drain
-                double existingFuel = (v.getFuel() != null) ? v.getFuel() : 100.0;
-                double currentFuel = Math.max(0, existingFuel - 0.1);
+                // Drain fuel from the live value (0.1% per 5 s on the move)
+                double currentFuel = moving ? Math.max(0, store.fuel(slot) - 0.02 * dtSeconds) : store.fuel(slot);
 
                 // Random tire pressure between 28.0 and 36.0 PSI
                 double currentTire = 28.0 + (random.nextDouble() * 8.0);
 
-                // 2. Set values to the entity
-                v.setSpeed(currentSpeed);
-                v.setFuel(currentFuel);
-                v.setTirePressure(currentTire);
-
-                // 3. --- ADVANCED CONDITION LOGIC ---
-                if (currentFuel < 5) {
-                    v.setVehicleCondition("CRITICAL_FUEL_LEVEL");
-                } else if (currentTire < 30) {
-                    v.setVehicleCondition("LOW_TIRE_PRESSURE");
-                } else if (currentTire > 35) {
-                    v.setVehicleCondition("OVER_INFLATED_TIRES");
-                } else if (currentSpeed > 100) {
-                    v.setVehicleCondition("HIGH_SPEED_ALERT");
-                } else if (currentFuel < 15) {
-                    v.setVehicleCondition("LOW_FUEL_RESERVE");
-                } else {
-                    v.setVehicleCondition("OPTIMAL");
-                }
-
-                // 4. Save updated telemetry back to database
-                repository.save(v);
-            }
-            System.out.println(">>> Telemetry Sync: " + approvedVehicles.size() + " units updated with advanced logic.");
+                // 2. Stage raw readings in the store
+                store.stage(slot, currentSpeed, currentFuel, currentTire);
+                plan.completed(slot, now, moving);
+            }), classifier);
         } catch (Exception e) {
             System.err.println("Telemetry Simulation Error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
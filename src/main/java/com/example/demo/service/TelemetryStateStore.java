@@ -0,0 +1,389 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.CustomerVehicle;
+import com.example.demo.model.LiveTelemetry;
+import com.example.demo.model.TelemetryCondition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Source of truth for hot telemetry (speed, fuel, tire pressure, condition).
+ * Values live in parallel primitive arrays indexed by slot; a slot is bound to
+ * a master vehicle id while that unit has an approved customer link.
+ * MySQL only sees these values through {@link TelemetryWriteBehindFlusher}.
+ * Synthetic load-test units use negative ids and are never persisted.
+ *
+ * Concurrency: value updates and scans share the read lock (writers of a given
+ * slot are expected to be single-threaded per tick); binding, unbinding and
+ * growing the arrays take the write lock. Staged batches ({@link #batch}) are
+ * serialized on their own lock, so concurrent simulators never publish or
+ * clear each other's staged slots.
+ *
+ * Slots that real devices report for ({@link #markIngested}) are device-fed for
+ * {@code telemetry.ingest.device-hold-ms}; simulators leave them alone meanwhile.
+ */
+@Component
+public class TelemetryStateStore {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock batchLock = new ReentrantLock();
+    private final Map<Long, Integer> slotByVehicle = new ConcurrentHashMap<>();
+    private final AtomicLong stamp = new AtomicLong();
+
+    @Value("${telemetry.ingest.device-hold-ms:15000}")
+    private long deviceHoldMs = 15000;
+
+    // Slot-indexed columns; vehicleIds[slot] == 0 marks a free slot
+    private long[] vehicleIds = new long[INITIAL_CAPACITY];
+    private double[] speed = new double[INITIAL_CAPACITY];
+    private double[] fuel = new double[INITIAL_CAPACITY];
+    private double[] tirePressure = new double[INITIAL_CAPACITY];
+    private double[] latitude = filled(INITIAL_CAPACITY);
+    private double[] longitude = filled(INITIAL_CAPACITY);
+    private byte[] condition = new byte[INITIAL_CAPACITY]; // TelemetryCondition codes
+    private boolean[] staged = new boolean[INITIAL_CAPACITY];
+    private long[] version = new long[INITIAL_CAPACITY];
+    private long[] ingestedAt = new long[INITIAL_CAPACITY]; // epoch ms of the last device reading, 0 if none
+
+    private int highWater = 0;
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
+
+    // --- MEMBERSHIP ---
+
+    /** Binds the link's vehicle to a slot, seeding from the row only if it is not tracked yet. */
+    public void track(CustomerVehicle link) {
+        if (link.getVehicleId() == null || slotByVehicle.containsKey(link.getVehicleId())) return;
+        lock.writeLock().lock();
+        try {
+            if (slotByVehicle.containsKey(link.getVehicleId())) return;
+            int slot = allocate();
+            vehicleIds[slot] = link.getVehicleId();
+            speed[slot] = link.getSpeed() != null ? link.getSpeed() : 0.0;
+            fuel[slot] = link.getFuel() != null ? link.getFuel() : 100.0;
+            tirePressure[slot] = link.getTirePressure() != null ? link.getTirePressure() : 32.0;
+            condition[slot] = TelemetryCondition.fromName(link.getVehicleCondition()).code();
+            version[slot] = stamp.incrementAndGet();
+            slotByVehicle.put(link.getVehicleId(), slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Binds a synthetic unit (negative id) for the load-generating simulator; returns its slot. */
+    public int trackSynthetic(long syntheticId, double lat, double lon) {
+        if (syntheticId >= 0) throw new IllegalArgumentException("Synthetic ids must be negative");
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotByVehicle.get(syntheticId);
+            if (existing != null) return existing;
+            int slot = allocate();
+            vehicleIds[slot] = syntheticId;
+            speed[slot] = 0.0;
+            fuel[slot] = 100.0;
+            tirePressure[slot] = 32.0;
+            latitude[slot] = lat;
+            longitude[slot] = lon;
+            condition[slot] = TelemetryCondition.OPTIMAL.code();
+            version[slot] = stamp.incrementAndGet();
+            slotByVehicle.put(syntheticId, slot);
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static boolean isSynthetic(long vehicleId) {
+        return vehicleId < 0;
+    }
+
+    public void untrack(Long vehicleId) {
+        if (vehicleId == null) return;
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByVehicle.remove(vehicleId);
+            if (slot == null) return;
+            vehicleIds[slot] = 0;
+            staged[slot] = false;
+            ingestedAt[slot] = 0;
+            latitude[slot] = Double.NaN;
+            longitude[slot] = Double.NaN;
+            version[slot] = stamp.incrementAndGet();
+            if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+        if (highWater == vehicleIds.length) {
+            int capacity = vehicleIds.length * 2;
+            vehicleIds = Arrays.copyOf(vehicleIds, capacity);
+            speed = Arrays.copyOf(speed, capacity);
+            fuel = Arrays.copyOf(fuel, capacity);
+            tirePressure = Arrays.copyOf(tirePressure, capacity);
+            latitude = grow(latitude, capacity);
+            longitude = grow(longitude, capacity);
+            condition = Arrays.copyOf(condition, capacity);
+            staged = Arrays.copyOf(staged, capacity);
+            version = Arrays.copyOf(version, capacity);
+            ingestedAt = Arrays.copyOf(ingestedAt, capacity);
+        }
+        return highWater++;
+    }
+
+    private static double[] filled(int capacity) {
+        double[] column = new double[capacity];
+        Arrays.fill(column, Double.NaN);
+        return column;
+    }
+
+    private static double[] grow(double[] column, int capacity) {
+        double[] grown = Arrays.copyOf(column, capacity);
+        Arrays.fill(grown, column.length, capacity, Double.NaN);
+        return grown;
+    }
+
+    // --- HOT PATH ---
+
+    /**
+     * Batch write: runs {@code work}, which stages slots with {@link #stage} /
+     * {@link #stagePosition} (possibly from several threads it waits for), then
+     * derives conditions for exactly the staged slots and publishes them. One
+     * batch at a time; the read lock is held throughout, so slots cannot be
+     * rebound or columns reallocated underneath it.
+     */
+    public void batch(Runnable work, TelemetryClassifier classifier) {
+        batchLock.lock();
+        try {
+            lock.readLock().lock();
+            try {
+                work.run();
+                publishStaged(classifier);
+            } finally {
+                lock.readLock().unlock();
+            }
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    /** Runs {@code action} for every bound slot while holding the read lock. */
+    public void forEachActive(IntConsumer action) {
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < highWater; slot++) {
+                if (vehicleIds[slot] != 0) action.accept(slot);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Single-unit write with a condition already derived by the caller. */
+    public void update(int slot, double newSpeed, double newFuel, double newTire, byte newCondition) {
+        lock.readLock().lock();
+        try {
+            speed[slot] = newSpeed;
+            fuel[slot] = newFuel;
+            tirePressure[slot] = newTire;
+            condition[slot] = newCondition;
+            version[slot] = stamp.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Single-unit write including a position fix (ingest path). */
+    public void update(int slot, double newSpeed, double newFuel, double newTire,
+                       double lat, double lon, byte newCondition) {
+        lock.readLock().lock();
+        try {
+            latitude[slot] = lat;
+            longitude[slot] = lon;
+            update(slot, newSpeed, newFuel, newTire, newCondition);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Records that a real device just reported for this slot (ingest path). */
+    public void markIngested(int slot, long nowMs) {
+        lock.readLock().lock();
+        try {
+            ingestedAt[slot] = nowMs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** True while the slot's last device reading is younger than the device hold; simulators skip it. */
+    public boolean isDeviceFed(int slot, long nowMs) {
+        long at = ingestedAt[slot];
+        return at != 0 && nowMs - at < deviceHoldMs;
+    }
+
+    /** Raw readings for a slot, published when the enclosing {@link #batch} ends. */
+    public void stage(int slot, double newSpeed, double newFuel, double newTire) {
+        speed[slot] = newSpeed;
+        fuel[slot] = newFuel;
+        tirePressure[slot] = newTire;
+        staged[slot] = true;
+    }
+
+    /** Position fix for a staged slot (NaN when the unit has no GPS). */
+    public void stagePosition(int slot, double lat, double lon) {
+        latitude[slot] = lat;
+        longitude[slot] = lon;
+        staged[slot] = true;
+    }
+
+    // Caller holds batchLock: classifies each run of consecutive staged slots, then versions them
+    private void publishStaged(TelemetryClassifier classifier) {
+        int slot = 0;
+        while (slot < highWater) {
+            if (!staged[slot]) {
+                slot++;
+                continue;
+            }
+            int runEnd = slot;
+            while (runEnd < highWater && staged[runEnd]) runEnd++;
+            classifier.classify(speed, fuel, tirePressure, condition, slot, runEnd);
+            for (; slot < runEnd; slot++) {
+                staged[slot] = false;
+                version[slot] = stamp.incrementAndGet();
+            }
+        }
+    }
+
+    public int slotOf(Long vehicleId) {
+        Integer slot = slotByVehicle.get(vehicleId);
+        return slot != null ? slot : -1;
+    }
+
+    public long vehicleId(int slot) { return vehicleIds[slot]; }
+    public double speed(int slot) { return speed[slot]; }
+    public double fuel(int slot) { return fuel[slot]; }
+    public double tirePressure(int slot) { return tirePressure[slot]; }
+    public double latitude(int slot) { return latitude[slot]; }
+    public double longitude(int slot) { return longitude[slot]; }
+    public String condition(int slot) { return TelemetryCondition.of(condition[slot]).name(); }
+    public byte conditionCode(int slot) { return condition[slot]; }
+    public long version(int slot) { return version[slot]; }
+
+    public int size() {
+        return slotByVehicle.size();
+    }
+
+    // --- DASHBOARD READS ---
+
+    public LiveTelemetry get(Long vehicleId) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(vehicleId);
+            return slot < 0 ? null : view(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<LiveTelemetry> snapshot() {
+        List<LiveTelemetry> out = new ArrayList<>(size());
+        forEachActive(slot -> out.add(view(slot)));
+        return out;
+    }
+
+    /**
+     * Detached copy of the link carrying the live values in place of the
+     * (possibly stale) persisted telemetry. The link itself is left alone: it
+     * is usually a managed entity, and writing to it on a read would let the
+     * next flush push telemetry through the status-edit path.
+     */
+    public CustomerVehicle overlay(CustomerVehicle link) {
+        if (link == null) return null;
+        CustomerVehicle copy = copyOf(link);
+        LiveTelemetry live = link.getVehicleId() != null ? get(link.getVehicleId()) : null;
+        if (live != null && "approved".equals(link.getStatus())) {
+            copy.setSpeed(live.getSpeed());
+            copy.setFuel(live.getFuel());
+            copy.setTirePressure(live.getTirePressure());
+            copy.setVehicleCondition(live.getVehicleCondition());
+        }
+        return copy;
+    }
+
+    public List<CustomerVehicle> overlay(List<CustomerVehicle> links) {
+        if (links == null) return null;
+        List<CustomerVehicle> copies = new ArrayList<>(links.size());
+        for (CustomerVehicle link : links) copies.add(overlay(link));
+        return copies;
+    }
+
+    private static CustomerVehicle copyOf(CustomerVehicle source) {
+        CustomerVehicle copy = new CustomerVehicle();
+        copy.setId(source.getId());
+        copy.setUserId(source.getUserId());
+        copy.setVehicleId(source.getVehicleId());
+        copy.setVehicleModel(source.getVehicleModel());
+        copy.setStatus(source.getStatus());
+        copy.setOperatorName(source.getOperatorName());
+        copy.setMaintenanceIssue(source.getMaintenanceIssue());
+        copy.setFuel(source.getFuel());
+        copy.setSpeed(source.getSpeed());
+        copy.setTirePressure(source.getTirePressure());
+        copy.setVehicleCondition(source.getVehicleCondition());
+        return copy;
+    }
+
+    private LiveTelemetry view(int slot) {
+        return new LiveTelemetry(vehicleIds[slot], speed[slot], fuel[slot], tirePressure[slot],
+                TelemetryCondition.of(condition[slot]).name(), latitude[slot], longitude[slot], version[slot]);
+    }
+
+    // --- CHANGE CURSORS ---
+
+    /** Independent change feed; each consumer (flusher, broadcaster) owns one. */
+    public Cursor newCursor() {
+        return new Cursor();
+    }
+
+    public final class Cursor {
+        private long[] seen = new long[0];
+
+        /** Visits slots written since this cursor last saw them, including slots that were unbound. */
+        public void forEachChanged(IntConsumer action) {
+            lock.readLock().lock();
+            try {
+                if (seen.length < version.length) seen = Arrays.copyOf(seen, version.length);
+                for (int slot = 0; slot < highWater; slot++) {
+                    long v = version[slot];
+                    if (v != seen[slot]) {
+                        action.accept(slot);
+                        seen[slot] = v;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /** Forgets a slot so the next scan visits it again (used when a write fails). */
+        public void reset(int slot) {
+            if (slot < seen.length) seen[slot] = 0;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.demo.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which telemetry topics currently have at least one STOMP subscriber.
+ *
+ * Destinations understood:
+ * <pre>
+ *   /topic/vehicles                    whole fleet
+ *   /topic/vehicles/sector/{sector}    units whose sector slug is {sector}
+ *   /topic/vehicles/{id}               one unit
+ * </pre>
+ * The broadcaster asks for the active sectors and units each tick, so it only
+ * builds frames for topics someone is listening to, once per topic.
+ */
+@Component
+public class TelemetrySubscriptionRegistry {
+
+    public static final String FLEET_TOPIC = "/topic/vehicles";
+    public static final String SECTOR_PREFIX = FLEET_TOPIC + "/sector/";
+    private static final String VEHICLE_PREFIX = FLEET_TOPIC + "/";
+
+    // sessionId -> (subscriptionId -> destination), to undo counts on unsubscribe/disconnect
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    // destination -> live subscription count
+    private final Map<String, Integer> subscribers = new ConcurrentHashMap<>();
+    private final Set<String> sectors = ConcurrentHashMap.newKeySet();
+    private final Set<Long> vehicles = ConcurrentHashMap.newKeySet();
+    // Destinations gained a subscriber since the last drain: they are owed a keyframe
+    private final Set<String> joined = ConcurrentHashMap.newKeySet();
+
+    /** Topic-safe sector key: "Sector 7G" -> "sector-7g"; null when the unit has no sector. */
+    public static String sectorKey(String sector) {
+        if (sector == null || sector.isBlank()) return null;
+        String key = sector.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-");
+        return key.replaceAll("^-|-$", "");
+    }
+
+    public static String sectorTopic(String sectorKey) {
+        return SECTOR_PREFIX + sectorKey;
+    }
+
+    public static String vehicleTopic(long vehicleId) {
+        return VEHICLE_PREFIX + vehicleId;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (destination == null || !isTelemetryTopic(destination)) return;
+        if (destination.startsWith(SECTOR_PREFIX)) {
+            // Frames are only published under the slug, so a raw name like "Sector 7G" would never receive any
+            String key = sectorKey(destination.substring(SECTOR_PREFIX.length()));
+            if (key == null || !destination.equals(sectorTopic(key))) return;
+        }
+        sessions.computeIfAbsent(headers.getSessionId(), s -> new ConcurrentHashMap<>())
+                .put(headers.getSubscriptionId(), destination);
+        increment(destination);
+        joined.add(destination);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(headers.getSessionId());
+        if (subscriptions == null) return;
+        String destination = subscriptions.remove(headers.getSubscriptionId());
+        if (destination != null) decrement(destination);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions == null) return;
+        subscriptions.values().forEach(this::decrement);
+    }
+
+    // --- QUERIES (broadcaster, once per tick) ---
+
+    public boolean hasFleetSubscribers() {
+        return subscribers.containsKey(FLEET_TOPIC);
+    }
+
+    /** Sector keys with at least one subscriber. */
+    public Set<String> activeSectors() {
+        return sectors;
+    }
+
+    /** Unit ids with at least one subscriber. */
+    public Set<Long> activeVehicles() {
+        return vehicles;
+    }
+
+    /** Destinations that gained a subscriber since the previous call. */
+    public Set<String> drainJoined() {
+        Set<String> drained = new HashSet<>();
+        for (String destination : joined) {
+            if (joined.remove(destination)) drained.add(destination);
+        }
+        return drained;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("fleetSubscribers", subscribers.getOrDefault(FLEET_TOPIC, 0));
+        stats.put("activeSectors", sectors.size());
+        stats.put("activeVehicles", vehicles.size());
+        stats.put("topics", subscribers.size());
+        return stats;
+    }
+
+    private static boolean isTelemetryTopic(String destination) {
+        return destination.equals(FLEET_TOPIC) || destination.startsWith(VEHICLE_PREFIX);
+    }
+
+    // The sector/vehicle indexes change inside compute() so they stay in step with the count per key
+    private void increment(String destination) {
+        subscribers.compute(destination, (d, n) -> {
+            if (n == null) index(d, true);
+            return n == null ? 1 : n + 1;
+        });
+    }
+
+    private void decrement(String destination) {
+        subscribers.computeIfPresent(destination, (d, n) -> {
+            if (n > 1) return n - 1;
+            index(d, false);
+            return null;
+        });
+    }
+
+    private void index(String destination, boolean add) {
+        if (destination.startsWith(SECTOR_PREFIX)) {
+            String key = destination.substring(SECTOR_PREFIX.length());
+            if (add) sectors.add(key); else sectors.remove(key);
+        } else if (destination.startsWith(VEHICLE_PREFIX)) {
+            Long id = parseId(destination.substring(VEHICLE_PREFIX.length()));
+            if (id == null) return;
+            if (add) vehicles.add(id); else vehicles.remove(id);
+        }
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the telemetry pipeline's periodic jobs on a dedicated thread pool,
+ * apart from Spring's default single-threaded @Scheduled executor, so a slow
+ * DB flush cannot hold up the broadcaster or the simulators.
+ *
+ * Each job is rescheduled only after its previous run finished, so a job never
+ * overlaps itself. A run that ends past its next planned start is an overrun:
+ * <ul>
+ *   <li>SKIP drops the missed ticks, counts them, and resumes on the period grid.</li>
+ *   <li>CATCH_UP runs the missed ticks back to back, keeping at most
+ *       {@code max-catch-up} owed; anything older is dropped and counted as skipped.</li>
+ * </ul>
+ * Jobs registered during startup begin once the context is refreshed, as @Scheduled ones do.
+ *
+ * Two lanes, each its own pool. TELEMETRY ({@code pool-size}) carries the
+ * short jobs on the 1-5 s cadence: simulators, broadcast, flush, history,
+ * traffic, active trips and the spatial index, each a few milliseconds per
+ * run. BACKGROUND ({@code background-pool-size}) carries the heavy routing
+ * and matching work (sector isochrones, the matching reconcile scan), whose
+ * runs can take seconds and must not sit on a telemetry thread.
+ */
+@Component
+public class TelemetryTickScheduler {
+
+    public enum OverrunPolicy { SKIP, CATCH_UP }
+
+    public enum Lane { TELEMETRY, BACKGROUND }
+
+    @Value("${telemetry.scheduler.pool-size:4}")
+    private int poolSize = 4;
+
+    @Value("${telemetry.scheduler.background-pool-size:2}")
+    private int backgroundPoolSize = 2;
+
+    @Value("${telemetry.scheduler.max-catch-up:5}")
+    private int maxCatchUp = 5;
+
+    private ThreadPoolTaskScheduler executor;
+    private ThreadPoolTaskScheduler background;
+    private final Map<String, TickJob> jobs = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        executor = pool(poolSize, "telemetry-tick-");
+        background = pool(backgroundPoolSize, "background-tick-");
+    }
+
+    private static ThreadPoolTaskScheduler pool(int size, String prefix) {
+        ThreadPoolTaskScheduler pool = new ThreadPoolTaskScheduler();
+        pool.setPoolSize(size);
+        pool.setThreadNamePrefix(prefix);
+        pool.setRemoveOnCancelPolicy(true);
+        pool.initialize();
+        return pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        executor.shutdown();
+        background.shutdown();
+    }
+
+    /** Adds a periodic job on the TELEMETRY lane; it starts now if the context is already up, otherwise on refresh. */
+    public void register(String name, long periodMs, OverrunPolicy policy, Runnable body) {
+        register(name, periodMs, policy, Lane.TELEMETRY, body);
+    }
+
+    /** Adds a periodic job on the given lane. */
+    public void register(String name, long periodMs, OverrunPolicy policy, Lane lane, Runnable body) {
+        TickJob job = new TickJob(name, periodMs * 1_000_000L, policy, lane, body);
+        if (jobs.putIfAbsent(name, job) != null) {
+            throw new IllegalStateException("Telemetry job already registered: " + name);
+        }
+        if (running) job.start();
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void start() {
+        if (running) return;
+        running = true;
+        jobs.values().forEach(TickJob::start);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", poolSize);
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("backgroundPoolSize", backgroundPoolSize);
+        stats.put("backgroundActiveThreads", background.getActiveCount());
+        for (TickJob job : jobs.values()) stats.put(job.name, job.stats());
+        return stats;
+    }
+
+    private final class TickJob {
+        final String name;
+        final long periodNanos;
+        final OverrunPolicy policy;
+        final Lane lane;
+        final ThreadPoolTaskScheduler pool;
+        final Runnable body;
+
+        private long planned;
+
+        private volatile long runs, skipped, overruns, caughtUp, errors;
+        private volatile long lastDurationNanos, maxDurationNanos, totalDurationNanos;
+        private volatile long lastLagNanos, maxLagNanos;
+
+        TickJob(String name, long periodNanos, OverrunPolicy policy, Lane lane, Runnable body) {
+            this.name = name;
+            this.periodNanos = periodNanos;
+            this.policy = policy;
+            this.lane = lane;
+            this.pool = lane == Lane.BACKGROUND ? background : executor;
+            this.body = body;
+        }
+
+        void start() {
+            planned = System.nanoTime();
+            pool.execute(this::run);
+        }
+
+        private void run() {
+            long started = System.nanoTime();
+            long lag = Math.max(0, started - planned);
+            // An owed tick run late rather than dropped; under SKIP a late start is just lag
+            if (policy == OverrunPolicy.CATCH_UP && lag >= periodNanos) caughtUp++;
+            try {
+                body.run();
+            } catch (Throwable e) {
+                // Errors too (OOM, StackOverflowError, AssertionError): an escape here would skip the reschedule below
+                errors++;
+                System.err.println("Telemetry Tick Error [" + name + "]: " + e);
+            }
+            long finished = System.nanoTime();
+            record(lag, finished - started);
+
+            long next = planned + periodNanos;
+            if (finished > next) {
+                overruns++;
+                long missed = (finished - next) / periodNanos + 1; // planned starts that already passed
+                if (policy == OverrunPolicy.CATCH_UP) {
+                    // Owed ticks run back to back (their start is already past); only the oldest beyond the cap are dropped
+                    long dropped = Math.max(0, missed - maxCatchUp);
+                    skipped += dropped;
+                    next += dropped * periodNanos;
+                } else {
+                    skipped += missed;
+                    next += missed * periodNanos;
+                }
+            }
+            planned = next;
+            if (running) {
+                long delay = Math.max(0, next - System.nanoTime());
+                pool.schedule(this::run, Instant.now().plusNanos(delay));
+            }
+        }
+
+        private void record(long lag, long duration) {
+            runs++;
+            lastLagNanos = lag;
+            if (lag > maxLagNanos) maxLagNanos = lag;
+            lastDurationNanos = duration;
+            if (duration > maxDurationNanos) maxDurationNanos = duration;
+            totalDurationNanos += duration;
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("periodMs", periodNanos / 1_000_000);
+            stats.put("policy", policy.name());
+            stats.put("lane", lane.name());
+            stats.put("runs", runs);
+            stats.put("overruns", overruns);
+            stats.put("skippedTicks", skipped);
+            stats.put("caughtUpTicks", caughtUp);
+            stats.put("errors", errors);
+            stats.put("lastDurationMillis", lastDurationNanos / 1_000_000.0);
+            stats.put("maxDurationMillis", maxDurationNanos / 1_000_000.0);
+            stats.put("avgDurationMillis", runs == 0 ? 0.0 : totalDurationNanos / 1_000_000.0 / runs);
+            stats.put("lastLagMillis", lastLagNanos / 1_000_000.0);
+            stats.put("maxLagMillis", maxLagNanos / 1_000_000.0);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists the telemetry store to customer_vehicles in JDBC batches.
+ * Updates are coalesced: however many ticks touched a unit since the last
+ * flush, it costs one row in the next batch.
+ */
+@Service
+public class TelemetryWriteBehindFlusher {
+
+    static final String UPDATE_SQL =
+            "UPDATE customer_vehicles SET speed = ?, fuel = ?, tire_pressure = ?, vehicle_condition = ? " +
+            "WHERE vehicle_id = ? AND status = 'approved'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Value("${telemetry.flush.interval-ms:5000}")
+    private long intervalMs = 5000;
+
+    private final TelemetryStateStore store;
+    private final TelemetryStateStore.Cursor cursor;
+
+    @Value("${telemetry.flush.batch-size:500}")
+    private int batchSize = 500;
+
+    public TelemetryWriteBehindFlusher(TelemetryStateStore store) {
+        this.store = store;
+        this.cursor = store.newCursor();
+    }
+
+    @PostConstruct
+    public void schedule() {
+        // A slow flush means dirty rows piled up meanwhile: catch up rather than wait a full interval
+        tickScheduler.register("flush", intervalMs, TelemetryTickScheduler.OverrunPolicy.CATCH_UP, this::flush);
+    }
+
+    public void flush() {
+        List<Object[]> rows = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        cursor.forEachChanged(slot -> {
+            long vehicleId = store.vehicleId(slot);
+            // Unbound since last flush, or a synthetic load-test unit: nothing to persist
+            if (vehicleId == 0 || TelemetryStateStore.isSynthetic(vehicleId)) return;
+            rows.add(new Object[]{
+                    store.speed(slot), store.fuel(slot), store.tirePressure(slot), store.condition(slot), vehicleId
+            });
+            slots.add(slot);
+        });
+        if (rows.isEmpty()) return;
+
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            int to = Math.min(rows.size(), from + batchSize);
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, rows.subList(from, to));
+            } catch (Exception e) {
+                // Leave these slots dirty so the next flush retries them
+                slots.subList(from, to).forEach(cursor::reset);
+                System.err.println("Telemetry Flush Error: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live traffic layer over the road graph, fed by fleet telemetry.
+ *
+ * Every observation of a moving unit becomes a congestion factor
+ * (free-flow speed / observed speed, clamped to [1, max-factor]) added to
+ * lock-free accumulators: one per road edge when the unit's last two snapped
+ * positions are joined by that edge, and always one per grid cell (~1 km
+ * "sector"). Each tick the window's averages are folded into exponential
+ * moving averages, factors without fresh samples decay back toward free flow,
+ * and a new immutable {@link Snapshot} of effective edge weights is published.
+ * Routing reads {@link #current()} without locking; routes over edges whose
+ * factor moved are evicted from {@link RouteCache}.
+ *
+ * Factors never drop below 1, so the weights never undercut free flow and
+ * A* stays admissible on them.
+ */
+@Service
+public class TrafficOverlay {
+
+    private static final double CELL_DEG = 0.01;
+
+    /** Immutable, versioned effective weights (seconds per edge). */
+    public static final class Snapshot {
+        private final long version;
+        private final long publishedAt;
+        private final float[] weights;
+        private final int congestedEdges;
+
+        Snapshot(long version, long publishedAt, float[] weights, int congestedEdges) {
+            this.version = version;
+            this.publishedAt = publishedAt;
+            this.weights = weights;
+            this.congestedEdges = congestedEdges;
+        }
+
+        public long getVersion() { return version; }
+        public long getPublishedAt() { return publishedAt; }
+        /** Indexed by edge id. Callers must not modify. */
+        public float[] weights() { return weights; }
+        public int getCongestedEdges() { return congestedEdges; }
+        public boolean isFreeFlow() { return congestedEdges == 0; }
+    }
+
+    /** Striped sum/count pair; safe to feed from any number of threads. */
+    private static final class Accumulator {
+        final DoubleAdder sum = new DoubleAdder();
+        final LongAdder count = new LongAdder();
+
+        void add(double value) {
+            sum.add(value);
+            count.increment();
+        }
+    }
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Autowired
+    private TelemetryStateStore store;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Autowired
+    private RouteCache routeCache;
+
+    @Value("${traffic.publish-ms:5000}")
+    private long publishMs = 5000;
+
+    @Value("${traffic.smoothing:0.3}")
+    private double smoothing = 0.3;
+
+    @Value("${traffic.decay:0.9}")
+    private double decay = 0.9;
+
+    @Value("${traffic.max-factor:4.0}")
+    private double maxFactor = 4.0;
+
+    @Value("${traffic.min-speed-kmh:3}")
+    private double minSpeedKmh = 3;
+
+    @Value("${traffic.change-threshold:0.05}")
+    private double changeThreshold = 0.05;
+
+    private RoadGraph graph;
+    private TelemetryStateStore.Cursor cursor;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    // Grid cells over the graph's bounding box
+    private double minLat, minLon;
+    private int rows, cols;
+    private int[] edgeCell;
+    private Accumulator[] cellWindow;
+
+    // Edge accumulators exist only for edges that have been driven on
+    private final ConcurrentHashMap<Integer, Accumulator> edgeWindow = new ConcurrentHashMap<>();
+
+    // Publisher-owned smoothed state: NaN = no recent samples
+    private float[] edgeFactor;
+    private float[] cellFactor;
+    private float[] published;
+    private int[] lastNode = new int[0]; // store slot -> last snapped node
+
+    private final LongAdder observations = new LongAdder();
+    private volatile long lastPublishNanos;
+
+    @PostConstruct
+    public void init() {
+        graph = roadGraphService.getGraph();
+        int n = graph.nodeCount(), m = graph.edgeCount();
+        double maxLat = -Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        minLat = Double.MAX_VALUE;
+        minLon = Double.MAX_VALUE;
+        for (int v = 0; v < n; v++) {
+            minLat = Math.min(minLat, graph.latitude(v));
+            minLon = Math.min(minLon, graph.longitude(v));
+            maxLat = Math.max(maxLat, graph.latitude(v));
+            maxLon = Math.max(maxLon, graph.longitude(v));
+        }
+        rows = n == 0 ? 1 : (int) ((maxLat - minLat) / CELL_DEG) + 1;
+        cols = n == 0 ? 1 : (int) ((maxLon - minLon) / CELL_DEG) + 1;
+        cellWindow = new Accumulator[rows * cols];
+        for (int c = 0; c < cellWindow.length; c++) cellWindow[c] = new Accumulator();
+        cellFactor = new float[rows * cols];
+        Arrays.fill(cellFactor, Float.NaN);
+
+        edgeCell = new int[m];
+        for (int e = 0; e < m; e++) {
+            int source = graph.source(e);
+            edgeCell[e] = cellOf(graph.latitude(source), graph.longitude(source));
+        }
+        edgeFactor = new float[m];
+        Arrays.fill(edgeFactor, Float.NaN);
+        published = new float[m];
+        Arrays.fill(published, 1f);
+        current.set(new Snapshot(0, System.currentTimeMillis(), graph.weights(), 0));
+
+        if (store != null && tickScheduler != null) {
+            cursor = store.newCursor();
+            // Each tick folds a fresh window of samples; a missed tick has nothing to replay
+            tickScheduler.register("traffic", publishMs, TelemetryTickScheduler.OverrunPolicy.SKIP, this::tick);
+        }
+    }
+
+    /** The latest published weights. Never null after startup. */
+    public Snapshot current() {
+        return current.get();
+    }
+
+    public void tick() {
+        long started = System.nanoTime();
+        try {
+            sampleStore();
+            publish(System.currentTimeMillis());
+        } catch (Exception e) {
+            System.err.println("Traffic Overlay Error: " + e.getMessage());
+        }
+        lastPublishNanos = System.nanoTime() - started;
+    }
+
+    // --- INGEST ---
+
+    private void sampleStore() {
+        cursor.forEachChanged(slot -> {
+            if (store.vehicleId(slot) == 0) return;
+            if (slot >= lastNode.length) {
+                int old = lastNode.length;
+                lastNode = Arrays.copyOf(lastNode, Math.max(slot + 1, old * 2));
+                Arrays.fill(lastNode, old, lastNode.length, -1);
+            }
+            lastNode[slot] = observe(store.latitude(slot), store.longitude(slot), store.speed(slot), lastNode[slot]);
+        });
+    }
+
+    /**
+     * Records one unit observation and returns the node it snapped to, which
+     * the caller passes back as {@code previousNode} next time so traversed
+     * edges can be attributed. Speeds below {@code min-speed-kmh} (parked or
+     * idling units) are not counted. Thread-safe.
+     */
+    public int observe(double lat, double lon, double speedKmh, int previousNode) {
+        if (Double.isNaN(lat) || Double.isNaN(lon)) return previousNode;
+        int node = graph.nearestNode(lat, lon);
+        if (node < 0 || speedKmh < minSpeedKmh) return node;
+
+        int edge = previousNode >= 0 && previousNode != node ? edgeBetween(previousNode, node) : -1;
+        double freeFlowKmh;
+        if (edge >= 0) {
+            freeFlowKmh = graph.length(edge) / graph.weight(edge) * 3.6;
+        } else {
+            double sum = 0;
+            int count = 0;
+            for (int e = graph.firstEdge(node); e < graph.lastEdge(node); e++, count++) {
+                sum += graph.length(e) / graph.weight(e) * 3.6;
+            }
+            if (count == 0) return node;
+            freeFlowKmh = sum / count;
+        }
+        double factor = Math.max(1.0, Math.min(maxFactor, freeFlowKmh / speedKmh));
+        if (edge >= 0) edgeWindow.computeIfAbsent(edge, e -> new Accumulator()).add(factor);
+        cellWindow[cellOf(graph.latitude(node), graph.longitude(node))].add(factor);
+        observations.increment();
+        return node;
+    }
+
+    private int edgeBetween(int from, int to) {
+        for (int e = graph.firstEdge(from); e < graph.lastEdge(from); e++) {
+            if (graph.target(e) == to) return e;
+        }
+        return -1;
+    }
+
+    // --- PUBLISH (tick thread) ---
+
+    /** Folds the current window into the smoothed factors and publishes a snapshot if any edge moved. */
+    public synchronized Snapshot publish(long now) {
+        for (int c = 0; c < cellWindow.length; c++) {
+            cellFactor[c] = fold(cellFactor[c], cellWindow[c]);
+        }
+        BitSet sampled = new BitSet(edgeFactor.length);
+        for (Map.Entry<Integer, Accumulator> entry : edgeWindow.entrySet()) {
+            int e = entry.getKey();
+            edgeFactor[e] = fold(edgeFactor[e], entry.getValue());
+            sampled.set(e);
+        }
+        // Drained accumulators are dropped; a sample racing the removal is lost, which a rolling average tolerates
+        edgeWindow.entrySet().removeIf(entry -> entry.getValue().count.sum() == 0);
+        for (int e = 0; e < edgeFactor.length; e++) {
+            if (!sampled.get(e) && !Float.isNaN(edgeFactor[e])) edgeFactor[e] = fold(edgeFactor[e], null);
+        }
+
+        BitSet changed = new BitSet();
+        float[] factors = new float[edgeFactor.length];
+        for (int e = 0; e < factors.length; e++) {
+            float factor = !Float.isNaN(edgeFactor[e]) ? edgeFactor[e] : cellFactor[edgeCell[e]];
+            if (Float.isNaN(factor)) factor = 1f;
+            factors[e] = factor;
+            if (Math.abs(factor - published[e]) > changeThreshold * published[e]) changed.set(e);
+        }
+        if (changed.isEmpty()) return current.get();
+
+        Snapshot previous = current.get();
+        float[] freeFlow = graph.weights();
+        float[] weights = new float[factors.length];
+        int congested = 0;
+        for (int e = 0; e < factors.length; e++) {
+            // Only edges that moved past the threshold take the new factor, so cached routes stay consistent
+            if (changed.get(e)) published[e] = factors[e];
+            weights[e] = freeFlow[e] * published[e];
+            if (published[e] > 1f) congested++;
+        }
+        Snapshot next = new Snapshot(previous.getVersion() + 1, now, weights, congested);
+        current.set(next);
+        if (routeCache != null) routeCache.invalidateEdges(changed);
+        return next;
+    }
+
+    /** One smoothing step: blend in the window's mean, or decay toward free flow when it is empty. */
+    private float fold(float smoothed, Accumulator window) {
+        long count = window == null ? 0 : window.count.sumThenReset();
+        double sum = window == null ? 0 : window.sum.sumThenReset();
+        if (count > 0) {
+            double mean = sum / count;
+            return (float) (Float.isNaN(smoothed) ? mean : smoothing * mean + (1 - smoothing) * smoothed);
+        }
+        if (Float.isNaN(smoothed)) return smoothed;
+        double decayed = 1 + (smoothed - 1) * decay;
+        return decayed < 1.01 ? Float.NaN : (float) decayed;
+    }
+
+    private int cellOf(double lat, double lon) {
+        int row = Math.max(0, Math.min(rows - 1, (int) ((lat - minLat) / CELL_DEG)));
+        int col = Math.max(0, Math.min(cols - 1, (int) ((lon - minLon) / CELL_DEG)));
+        return row * cols + col;
+    }
+
+    public Map<String, Object> stats() {
+        Snapshot snapshot = current.get();
+        int congestedCells = 0;
+        for (float factor : cellFactor) if (!Float.isNaN(factor) && factor > 1f) congestedCells++;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", snapshot.getVersion());
+        stats.put("publishedAt", snapshot.getPublishedAt());
+        stats.put("congestedEdges", snapshot.getCongestedEdges());
+        stats.put("congestedCells", congestedCells);
+        stats.put("cells", cellFactor.length);
+        stats.put("observations", observations.sum());
+        stats.put("lastPublishMillis", lastPublishNanos / 1_000_000.0);
+        return stats;
+    }
+}
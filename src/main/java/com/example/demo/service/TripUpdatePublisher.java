@@ -0,0 +1,156 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Pushes a user's bookings to {@code /user/{userId}/queue/trip} whenever they
+ * change, replacing the dashboard's booking poll.
+ *
+ * The payload is the same JSON array {@code GET /api/bookings/user/{userId}}
+ * returns, already encoded by {@link ActiveTripEngine}; the STOMP
+ * {@code event} header says why it was sent (CREATED, APPROVED, PICKED_UP,
+ * DROPPED, or PROGRESS from the engine tick). Only users with at least one
+ * authenticated session are sent anything.
+ */
+@Component
+public class TripUpdatePublisher {
+
+    public static final String TRIP_QUEUE = "/queue/trip";
+    private static final int RATE_WINDOW_SECONDS = 10;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    // userId -> open authenticated sessions
+    private final Map<String, Integer> connected = new ConcurrentHashMap<>();
+    private final Map<String, String> sessionUsers = new ConcurrentHashMap<>();
+
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final Map<String, LongAdder> sentByEvent = new ConcurrentHashMap<>();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private volatile long maxSendNanos;
+    private final long startedAt = System.currentTimeMillis();
+
+    // Sends per wall-clock second over the last RATE_WINDOW_SECONDS, ring-indexed by second
+    private final AtomicLongArray rateSecond = new AtomicLongArray(RATE_WINDOW_SECONDS);
+    private final AtomicLongArray rateCount = new AtomicLongArray(RATE_WINDOW_SECONDS);
+    private LongSupplier clock = System::currentTimeMillis;
+
+    // --- SESSIONS ---
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) return;
+        sessionUsers.put(sessionId, user.getName());
+        connected.merge(user.getName(), 1, Integer::sum);
+        connects.incrementAndGet();
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String userId = sessionUsers.remove(event.getSessionId());
+        if (userId == null) return;
+        connected.computeIfPresent(userId, (u, n) -> n > 1 ? n - 1 : null);
+        disconnects.incrementAndGet();
+    }
+
+    public boolean isConnected(String userId) {
+        return userId != null && connected.containsKey(userId);
+    }
+
+    // --- PUSH ---
+
+    /** Sends {@code payload} (a pre-encoded bookings array) to the user's trip queue if they are connected. */
+    public void push(String userId, String event, byte[] payload) {
+        if (payload == null || !isConnected(userId)) {
+            skipped.increment();
+            return;
+        }
+        long started = System.nanoTime();
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setNativeHeader("event", event);
+        headers.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+        try {
+            messagingTemplate.send(messagingTemplate.getUserDestinationPrefix() + userId + TRIP_QUEUE, message);
+        } catch (Exception e) {
+            System.err.println("Trip Push Error: " + e.getMessage());
+            return;
+        }
+        long elapsed = System.nanoTime() - started;
+        sent.increment();
+        countForRate(clock.getAsLong() / 1000);
+        sendNanos.add(elapsed);
+        if (elapsed > maxSendNanos) maxSendNanos = elapsed;
+        bytesSent.add(payload.length);
+        sentByEvent.computeIfAbsent(event, e -> new LongAdder()).increment();
+    }
+
+    private void countForRate(long second) {
+        int i = (int) (second % RATE_WINDOW_SECONDS);
+        long seen = rateSecond.get(i);
+        // First send in a new second reclaims the bucket; a racing increment may be lost, fine for a rate
+        if (seen != second && rateSecond.compareAndSet(i, seen, second)) rateCount.set(i, 0);
+        rateCount.incrementAndGet(i);
+    }
+
+    /** Sends per second over the last {@link #RATE_WINDOW_SECONDS} (less right after startup). */
+    private double recentRate() {
+        long now = clock.getAsLong();
+        long second = now / 1000;
+        long count = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            long s = rateSecond.get(i);
+            if (s > second - RATE_WINDOW_SECONDS && s <= second) count += rateCount.get(i);
+        }
+        double span = Math.min(RATE_WINDOW_SECONDS - 1 + (now % 1000) / 1000.0, (now - startedAt) / 1000.0);
+        return count / Math.max(1.0, span);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long messages = sent.sum();
+        stats.put("connectedUsers", connected.size());
+        stats.put("openSessions", sessionUsers.size());
+        stats.put("connects", connects.get());
+        stats.put("disconnects", disconnects.get());
+        stats.put("messagesSent", messages);
+        stats.put("messagesPerSecond", recentRate());
+        stats.put("rateWindowSeconds", RATE_WINDOW_SECONDS);
+        Map<String, Long> byEvent = new TreeMap<>();
+        sentByEvent.forEach((event, count) -> byEvent.put(event, count.sum()));
+        stats.put("messagesByEvent", byEvent);
+        stats.put("bytesSent", bytesSent.sum());
+        stats.put("skippedNotConnected", skipped.sum());
+        stats.put("avgSendMicros", messages == 0 ? 0.0 : sendNanos.sum() / 1000.0 / messages);
+        stats.put("maxSendMicros", maxSendNanos / 1000.0);
+        return stats;
+    }
+}
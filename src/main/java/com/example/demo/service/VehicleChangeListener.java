@@ -0,0 +1,52 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Vehicle;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link Vehicle}: records which units were written so the
+ * telemetry tick only reloads those rows instead of scanning the whole table,
+ * re-indexes them in {@link VehicleSpatialIndex} and queues them for
+ * {@link VehicleMatchingService}'s availability index. All are deferred until
+ * commit so none ever sees uncommitted state.
+ */
+@Component
+public class VehicleChangeListener {
+
+    private final VehicleChangeTracker tracker;
+    private final VehicleSpatialIndex spatialIndex;
+    private final VehicleMatchingService matcher;
+
+    // Matcher lazy: it needs the repositories, which need this listener first
+    public VehicleChangeListener(VehicleChangeTracker tracker, VehicleSpatialIndex spatialIndex,
+                                 @Lazy VehicleMatchingService matcher) {
+        this.tracker = tracker;
+        this.spatialIndex = spatialIndex;
+        this.matcher = matcher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Vehicle vehicle) {
+        Long id = vehicle.getId();
+        AfterCommit.run(() -> {
+            tracker.markChanged(id);
+            spatialIndex.update(vehicle);
+            matcher.onVehicleWritten(vehicle);
+        });
+    }
+
+    @PostRemove
+    public void onRemove(Vehicle vehicle) {
+        Long id = vehicle.getId();
+        AfterCommit.run(() -> {
+            tracker.markRemoved(id);
+            spatialIndex.remove(id);
+            matcher.onVehicleRemoved(id);
+        });
+    }
+}
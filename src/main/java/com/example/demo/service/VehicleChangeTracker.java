@@ -0,0 +1,49 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the ids of vehicles written since the last telemetry tick.
+ * Fed by {@link VehicleChangeListener}, drained by {@link FleetTelemetryService}.
+ */
+@Component
+public class VehicleChangeTracker {
+
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+    public void markChanged(Long id) {
+        if (id == null) return;
+        removed.remove(id);
+        changed.add(id);
+    }
+
+    public void markRemoved(Long id) {
+        if (id == null) return;
+        changed.remove(id);
+        removed.add(id);
+    }
+
+    public Set<Long> drainChanged() {
+        return drain(changed);
+    }
+
+    public Set<Long> drainRemoved() {
+        return drain(removed);
+    }
+
+    private static Set<Long> drain(Set<Long> source) {
+        Set<Long> out = new HashSet<>();
+        Iterator<Long> it = source.iterator();
+        while (it.hasNext()) {
+            out.add(it.next());
+            it.remove();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,906 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.BookingStatus;
+import com.example.demo.entity.Vehicle;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.VehicleRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matches bookings to available vehicles and reserves them.
+ *
+ * An availability index holds the units that are AVAILABLE with enough
+ * seats and fuel, in primitive columns with a fixed per-unit cost
+ * precomputed (fuel, price against the fleet median, spare seats), a grid
+ * over their positions and a per-sector list ordered by that cost. It is
+ * kept current incrementally: reservations claim a slot in place, committed
+ * vehicle writes ({@link VehicleChangeListener}) and releases are queued and
+ * applied at the start of the next run. A full rebuild from the vehicles
+ * table happens once on first use and then only as a rare reconcile
+ * ({@code matching.reconcile-ms}), which also refreshes the median price.
+ * A booking's candidates are the units nearest its pickup, or the
+ * cheapest in its pickup's sector when the pickup has no coordinates;
+ * bookings sharing a pickup share one search and get more candidates. A
+ * candidate costs its distance in km plus the unit's fixed cost, less a
+ * bonus when the unit is the model the booking asked for.
+ *
+ * All bookings in a run are solved together as an assignment problem over
+ * those candidate edges with an auction, so a booking gives up its first
+ * choice when that frees the only unit another booking can use. The smaller
+ * side bids, so the surplus side simply stays unmatched instead of bidding
+ * prices up. Pairs are committed in chunks with conditional updates: the
+ * booking is reserved only while PENDING and unassigned, the unit only while
+ * AVAILABLE (otherwise the booking's reservation is undone), and bookings
+ * that lost their unit are solved again, up to {@code max-rounds}.
+ *
+ * New bookings are matched as the intake commits them; {@link #matchPending}
+ * solves every unassigned PENDING booking at once. Runs are serialized.
+ */
+@Service
+public class VehicleMatchingService {
+
+    public static final String AVAILABLE = "AVAILABLE";
+    public static final String IN_USE = "IN_USE";
+
+    private static final double CELL_DEG = 0.02;
+    private static final long NO_CELL = Long.MIN_VALUE;
+    private static final double KM_PER_DEGREE = 111.195;
+    private static final String PENDING = BookingStatus.PENDING.name();
+
+    // Commit outcome per pair
+    private static final byte RESERVED = 1, BOOKING_CHANGED = 2, VEHICLE_TAKEN = 3;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Autowired
+    private ActiveTripEngine activeTripEngine;
+
+    @Autowired
+    private VehicleSpatialIndex spatialIndex;
+
+    @Autowired
+    private VehicleChangeTracker changeTracker;
+
+    @Autowired
+    private TripUpdatePublisher tripUpdates;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${matching.reconcile-ms:600000}")
+    private long reconcileMs = 600000;
+
+    @Value("${matching.candidates:8}")
+    private int candidates = 8;
+
+    @Value("${matching.max-candidates:128}")
+    private int maxCandidates = 128;
+
+    @Value("${matching.max-radius-km:50}")
+    private double maxRadiusKm = 50;
+
+    @Value("${matching.min-seats:1}")
+    private int minSeats = 1;
+
+    @Value("${matching.min-fuel:10}")
+    private int minFuel = 10;
+
+    @Value("${matching.weight.fuel:2.0}")
+    private double fuelWeight = 2.0;
+
+    @Value("${matching.weight.price:3.0}")
+    private double priceWeight = 3.0;
+
+    @Value("${matching.weight.seats:0.5}")
+    private double seatWeight = 0.5;
+
+    @Value("${matching.model-bonus:5.0}")
+    private double modelBonus = 5.0;
+
+    // Bid increment in cost units (km): the solve ends within bookings x epsilon of the best total
+    @Value("${matching.auction-epsilon:0.1}")
+    private double epsilon = 0.1;
+
+    @Value("${matching.max-rounds:3}")
+    private int maxRounds = 3;
+
+    @Value("${matching.commit-batch:200}")
+    private int commitBatch = 200;
+
+    /**
+     * Indexed units by slot. A slot is never reused; {@code claimed} marks one
+     * that cannot be offered (reserved, or no longer usable). Mutated only
+     * under the service lock; cell and sector arrays are replaced, not edited.
+     */
+    private static final class Availability {
+        long[] ids;
+        double[] lat, lon, fixedCost;
+        int[] seats;
+        String[] model;
+        boolean[] claimed;
+        boolean[] usable;   // passed the filters on its last known row
+        long[] cellKey;     // NO_CELL without a position
+        String[] sector, location;
+        int size;
+        final double medianPrice;
+        final Map<Long, Integer> slotById = new HashMap<>();
+        final Map<Long, int[]> cells = new HashMap<>();
+        final Map<String, int[]> sectors = new HashMap<>(); // slots by fixed cost, cheapest first
+
+        Availability(int capacity, double medianPrice) {
+            this.medianPrice = medianPrice;
+            capacity = Math.max(16, capacity);
+            ids = new long[capacity];
+            lat = new double[capacity];
+            lon = new double[capacity];
+            fixedCost = new double[capacity];
+            seats = new int[capacity];
+            model = new String[capacity];
+            claimed = new boolean[capacity];
+            usable = new boolean[capacity];
+            cellKey = new long[capacity];
+            sector = new String[capacity];
+            location = new String[capacity];
+        }
+
+        int size() { return size; }
+
+        int add(long id) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                lat = Arrays.copyOf(lat, capacity);
+                lon = Arrays.copyOf(lon, capacity);
+                fixedCost = Arrays.copyOf(fixedCost, capacity);
+                seats = Arrays.copyOf(seats, capacity);
+                model = Arrays.copyOf(model, capacity);
+                claimed = Arrays.copyOf(claimed, capacity);
+                usable = Arrays.copyOf(usable, capacity);
+                cellKey = Arrays.copyOf(cellKey, capacity);
+                sector = Arrays.copyOf(sector, capacity);
+                location = Arrays.copyOf(location, capacity);
+            }
+            int slot = size++;
+            ids[slot] = id;
+            cellKey[slot] = NO_CELL;
+            slotById.put(id, slot);
+            return slot;
+        }
+    }
+
+    /** Proposed pairs from one solve, before anything is reserved. */
+    public static final class Plan {
+        private final Availability availability;
+        private final List<Booking> bookings;
+        private final int[] bookingIndex;
+        private final int[] slot;
+        private final int edges;
+        private final long solveMicros;
+
+        Plan(Availability availability, List<Booking> bookings, int[] bookingIndex, int[] slot, int edges, long solveMicros) {
+            this.availability = availability;
+            this.bookings = bookings;
+            this.bookingIndex = bookingIndex;
+            this.slot = slot;
+            this.edges = edges;
+            this.solveMicros = solveMicros;
+        }
+
+        public int size() { return bookingIndex.length; }
+        public Booking bookingAt(int i) { return bookings.get(bookingIndex[i]); }
+        public long vehicleAt(int i) { return availability.ids[slot[i]]; }
+        public int getEdges() { return edges; }
+        public long getSolveMicros() { return solveMicros; }
+    }
+
+    // Bookings sharing a pickup share one candidate search
+    private static final class Pickup {
+        final double lat, lon; // NaN when the pickup has no coordinates
+        final String sector;
+        int members;
+        int[] slots;
+        double[] km;
+        int count;
+
+        Pickup(double lat, double lon, String sector) {
+            this.lat = lat;
+            this.lon = lon;
+            this.sector = sector;
+        }
+    }
+
+    // Markers in the change queue next to committed rows
+    private static final Vehicle RELEASED = new Vehicle();
+    private static final Vehicle REMOVED = new Vehicle();
+
+    private TransactionTemplate transactions;
+    private volatile Availability availability;
+    private volatile long lastRebuildMicros;
+    // Vehicle id -> latest committed row (or marker) not yet applied to the index; last write wins
+    private final Map<Long, Vehicle> changes = new ConcurrentHashMap<>();
+
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong vehicleConflicts = new AtomicLong();
+    private final AtomicLong bookingConflicts = new AtomicLong();
+    private final AtomicLong unmatched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private volatile long lastSolveMicros, lastEdges, lastBookings;
+
+    @PostConstruct
+    public void init() {
+        if (transactionManager != null) transactions = new TransactionTemplate(transactionManager);
+        if (tickScheduler != null) {
+            // Full table scan: keep it off the telemetry threads
+            tickScheduler.register("vehicle-matching", reconcileMs, TelemetryTickScheduler.OverrunPolicy.SKIP,
+                    TelemetryTickScheduler.Lane.BACKGROUND, this::refresh);
+        }
+    }
+
+    // --- AVAILABILITY INDEX ---
+
+    /** Full reconcile against the vehicles table; runs on first use and every {@code matching.reconcile-ms}. */
+    public synchronized void refresh() {
+        try {
+            changes.clear(); // the scan sees everything committed so far
+            rebuild(vehicleRepository.findAll());
+        } catch (Exception e) {
+            System.err.println("Vehicle Matching Error: " + e.getMessage());
+        }
+    }
+
+    /** Replaces the availability snapshot; under the service lock, so no run sees half of it. */
+    public synchronized void rebuild(Collection<Vehicle> vehicles) {
+        long started = System.nanoTime();
+        List<Vehicle> usable = new ArrayList<>();
+        for (Vehicle v : vehicles) {
+            if (isUsable(v)) usable.add(v);
+        }
+
+        double[] prices = new double[usable.size()];
+        int priced = 0;
+        for (Vehicle v : usable) {
+            if (v.getPrice() != null && v.getPrice() > 0) prices[priced++] = v.getPrice();
+        }
+        Arrays.sort(prices, 0, priced);
+        double medianPrice = priced == 0 ? 1 : prices[priced / 2];
+
+        Availability a = new Availability(usable.size(), medianPrice);
+        Map<Long, List<Integer>> cells = new HashMap<>();
+        Map<String, List<Integer>> sectors = new HashMap<>();
+        for (Vehicle v : usable) {
+            int slot = a.add(v.getId());
+            describe(a, slot, v);
+            if (a.cellKey[slot] != NO_CELL) cells.computeIfAbsent(a.cellKey[slot], k -> new ArrayList<>()).add(slot);
+            if (a.sector[slot] != null) sectors.computeIfAbsent(a.sector[slot], k -> new ArrayList<>()).add(slot);
+            if (a.location[slot] != null) sectors.computeIfAbsent(a.location[slot], k -> new ArrayList<>()).add(slot);
+        }
+        cells.forEach((key, slots) -> a.cells.put(key, toArray(slots)));
+        sectors.forEach((key, slots) -> {
+            slots.sort((x, y) -> Double.compare(a.fixedCost[x], a.fixedCost[y]));
+            a.sectors.put(key, toArray(slots));
+        });
+
+        availability = a;
+        rebuilds.incrementAndGet();
+        lastRebuildMicros = (System.nanoTime() - started) / 1_000;
+    }
+
+    /** A committed vehicle write (entity listener); applied to the index at the start of the next run. */
+    public void onVehicleWritten(Vehicle vehicle) {
+        if (vehicle == null || vehicle.getId() == null) return;
+        changes.put(vehicle.getId(), copyOf(vehicle)); // the managed entity may change again later
+    }
+
+    /** A committed vehicle delete; the unit is withdrawn on the next run. */
+    public void onVehicleRemoved(Long vehicleId) {
+        if (vehicleId != null) changes.put(vehicleId, REMOVED);
+    }
+
+    // Caller holds the service lock: folds queued changes into the index
+    private void applyChanges(Availability a) {
+        if (a == null || changes.isEmpty()) return;
+        for (Long id : new ArrayList<>(changes.keySet())) {
+            Vehicle change = changes.get(id);
+            if (change == null || !changes.remove(id, change)) continue; // replaced meanwhile: next run
+            Integer slot = a.slotById.get(id);
+            if (change == REMOVED) {
+                if (slot != null) withdraw(a, slot);
+            } else if (change == RELEASED) {
+                if (slot != null && a.usable[slot]) {
+                    a.claimed[slot] = false;
+                } else if (slot == null && vehicleRepository != null) {
+                    // Reserved before the last rebuild, so never indexed: one row by id
+                    vehicleRepository.findById(id).ifPresent(v -> upsert(a, v));
+                }
+            } else {
+                upsert(a, change);
+            }
+            applied.incrementAndGet();
+        }
+    }
+
+    // Caller holds the service lock: (re)indexes one unit from its committed row
+    private void upsert(Availability a, Vehicle v) {
+        Integer known = a.slotById.get(v.getId());
+        if (!isUsable(v)) {
+            if (known != null) withdraw(a, known);
+            return;
+        }
+        int slot = known != null ? known : a.add(v.getId());
+        if (known != null) unlink(a, slot);
+        describe(a, slot, v);
+        if (a.cellKey[slot] != NO_CELL) a.cells.put(a.cellKey[slot], with(a.cells.get(a.cellKey[slot]), slot, null));
+        if (a.sector[slot] != null) a.sectors.put(a.sector[slot], with(a.sectors.get(a.sector[slot]), slot, a.fixedCost));
+        if (a.location[slot] != null) a.sectors.put(a.location[slot], with(a.sectors.get(a.location[slot]), slot, a.fixedCost));
+    }
+
+    private static void withdraw(Availability a, int slot) {
+        unlink(a, slot);
+        a.usable[slot] = false;
+        a.claimed[slot] = true;
+    }
+
+    private static void unlink(Availability a, int slot) {
+        if (a.cellKey[slot] != NO_CELL) a.cells.put(a.cellKey[slot], without(a.cells.get(a.cellKey[slot]), slot));
+        if (a.sector[slot] != null) a.sectors.put(a.sector[slot], without(a.sectors.get(a.sector[slot]), slot));
+        if (a.location[slot] != null) a.sectors.put(a.location[slot], without(a.sectors.get(a.location[slot]), slot));
+        a.cellKey[slot] = NO_CELL;
+        a.sector[slot] = null;
+        a.location[slot] = null;
+    }
+
+    // Fills a usable unit's columns; it is offerable again
+    private void describe(Availability a, int slot, Vehicle v) {
+        a.seats[slot] = seatsOf(v);
+        a.model[slot] = v.getModel() == null ? "" : v.getModel().toLowerCase(Locale.ROOT);
+        double price = v.getPrice() != null && v.getPrice() > 0 ? v.getPrice() : a.medianPrice;
+        a.fixedCost[slot] = fuelWeight * (1 - fuelOf(v) / 100.0)
+                + priceWeight * price / a.medianPrice
+                + seatWeight * (a.seats[slot] - minSeats);
+        double[] position = positionOf(v);
+        a.lat[slot] = position == null ? Double.NaN : position[0];
+        a.lon[slot] = position == null ? Double.NaN : position[1];
+        a.cellKey[slot] = position == null ? NO_CELL : keyOf(cell(position[0]), cell(position[1]));
+        String sector = TelemetrySubscriptionRegistry.sectorKey(v.getSector());
+        String location = TelemetrySubscriptionRegistry.sectorKey(v.getLocation());
+        a.sector[slot] = sector;
+        a.location[slot] = location != null && !location.equals(sector) ? location : null;
+        a.usable[slot] = true;
+        a.claimed[slot] = false;
+    }
+
+    private boolean isUsable(Vehicle v) {
+        if (v.getId() == null || v.getStatus() == null || !AVAILABLE.equalsIgnoreCase(v.getStatus().trim())) return false;
+        return seatsOf(v) >= minSeats && fuelOf(v) >= minFuel;
+    }
+
+    // --- MATCHING ---
+
+    /** Matches every unassigned PENDING booking in one solve and pushes ASSIGNED to their users. */
+    public Map<String, Object> matchPending() {
+        List<Booking> pending = activeTripEngine != null && activeTripEngine.isSeeded()
+                ? activeTripEngine.withStatus(PENDING)
+                : bookingRepository.findByStatus(PENDING);
+        List<Booking> open = eligible(pending);
+        Map<String, Object> summary = match(open);
+        if (tripUpdates != null && activeTripEngine != null) {
+            Set<String> users = new LinkedHashSet<>();
+            for (Booking b : open) {
+                if (b.getAssignedVehicleId() != null) users.add(b.getUserId());
+            }
+            for (String userId : users) tripUpdates.push(userId, "ASSIGNED", activeTripEngine.snapshot(userId));
+        }
+        return summary;
+    }
+
+    /**
+     * Solves and reserves units for the given bookings (skipping any not
+     * PENDING or already assigned); each matched instance gets its
+     * {@code assignedVehicleId} set.
+     */
+    public synchronized Map<String, Object> match(List<Booking> bookings) {
+        long started = System.nanoTime();
+        if (availability == null && vehicleRepository != null) refresh();
+        applyChanges(availability);
+        List<Booking> remaining = eligible(bookings);
+        int considered = remaining.size(), matched = 0, lost = 0, rounds = 0, edges = 0;
+        long solveMicros = 0;
+        while (!remaining.isEmpty() && rounds < maxRounds) {
+            rounds++;
+            Plan plan = plan(remaining);
+            edges += plan.getEdges();
+            solveMicros += plan.getSolveMicros();
+            if (plan.size() == 0) break;
+            List<Booking> retry = new ArrayList<>();
+            matched += commit(plan, retry);
+            lost += retry.size();
+            remaining = retry;
+        }
+
+        runs.incrementAndGet();
+        unmatched.addAndGet(considered - matched);
+        lastSolveMicros = solveMicros;
+        lastEdges = edges;
+        lastBookings = considered;
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("bookings", considered);
+        summary.put("assigned", matched);
+        summary.put("unmatched", considered - matched);
+        summary.put("vehicleConflicts", lost);
+        summary.put("rounds", rounds);
+        summary.put("edges", edges);
+        summary.put("solveMillis", solveMicros / 1000.0);
+        summary.put("totalMillis", (System.nanoTime() - started) / 1_000_000.0);
+        return summary;
+    }
+
+    /** Best pairs for the bookings against the current snapshot; reserves nothing. */
+    public synchronized Plan plan(List<Booking> bookings) {
+        long started = System.nanoTime();
+        Availability a = availability;
+        applyChanges(a);
+        if (a == null || a.size() == 0 || bookings.isEmpty()) {
+            return new Plan(a, bookings, new int[0], new int[0], 0, 0);
+        }
+        int n = bookings.size();
+
+        // Candidate search once per distinct pickup
+        Map<String, Pickup> pickups = new HashMap<>();
+        Pickup[] pickupOf = new Pickup[n];
+        for (int i = 0; i < n; i++) {
+            String place = bookings.get(i).getPickupLocation();
+            String key = place == null ? "" : place.trim().toLowerCase(Locale.ROOT);
+            Pickup pickup = pickups.computeIfAbsent(key, k -> locate(place));
+            pickup.members++;
+            pickupOf[i] = pickup;
+        }
+        for (Pickup pickup : pickups.values()) {
+            int k = Math.min(maxCandidates, candidates + pickup.members - 1);
+            pickup.slots = new int[k];
+            pickup.km = new double[k];
+            pickup.count = Double.isNaN(pickup.lat)
+                    ? inSector(a, pickup.sector, k, pickup.slots)
+                    : nearest(a, pickup.lat, pickup.lon, k, pickup.slots, pickup.km);
+        }
+
+        // Booking -> unit edges (compressed rows), cost turned into a positive value
+        int[] start = new int[n + 1];
+        for (int i = 0; i < n; i++) start[i + 1] = start[i] + pickupOf[i].count;
+        int m = start[n];
+        int[] target = new int[m];
+        double[] value = new double[m];
+        double maxCost = 0;
+        for (int i = 0; i < n; i++) {
+            Pickup pickup = pickupOf[i];
+            String wanted = bookings.get(i).getVehicleModel();
+            wanted = wanted == null || wanted.isBlank() ? null : wanted.trim().toLowerCase(Locale.ROOT);
+            for (int c = 0, e = start[i]; c < pickup.count; c++, e++) {
+                int slot = pickup.slots[c];
+                double cost = pickup.km[c] + a.fixedCost[slot];
+                if (wanted != null && a.model[slot].contains(wanted)) cost -= modelBonus;
+                target[e] = slot;
+                value[e] = cost;
+                if (cost > maxCost) maxCost = cost;
+            }
+        }
+        // Offset past any cost difference, so one more booking matched always beats a cheaper pair
+        for (int e = 0; e < m; e++) value[e] = 2 * maxCost + 1 - value[e];
+
+        // The smaller side bids
+        int units = 0;
+        int[] degree = new int[a.size()];
+        for (int e = 0; e < m; e++) {
+            if (degree[target[e]]++ == 0) units++;
+        }
+        int[] pairBooking, pairSlot;
+        long maxBids = 50L * (n + units) + 1000;
+        if (n <= units) {
+            int[] won = auction(n, start, target, value, a.size(), epsilon, maxBids);
+            int pairs = 0;
+            for (int w : won) if (w >= 0) pairs++;
+            pairBooking = new int[pairs];
+            pairSlot = new int[pairs];
+            for (int i = 0, p = 0; i < n; i++) {
+                if (won[i] < 0) continue;
+                pairBooking[p] = i;
+                pairSlot[p++] = won[i];
+            }
+        } else {
+            int s = a.size();
+            int[] reverseStart = new int[s + 1];
+            for (int slot = 0; slot < s; slot++) reverseStart[slot + 1] = reverseStart[slot] + degree[slot];
+            int[] fill = Arrays.copyOf(reverseStart, s);
+            int[] reverseTarget = new int[m];
+            double[] reverseValue = new double[m];
+            for (int i = 0; i < n; i++) {
+                for (int e = start[i]; e < start[i + 1]; e++) {
+                    int at = fill[target[e]]++;
+                    reverseTarget[at] = i;
+                    reverseValue[at] = value[e];
+                }
+            }
+            int[] won = auction(s, reverseStart, reverseTarget, reverseValue, n, epsilon, maxBids);
+            int pairs = 0;
+            for (int w : won) if (w >= 0) pairs++;
+            pairBooking = new int[pairs];
+            pairSlot = new int[pairs];
+            for (int slot = 0, p = 0; slot < s; slot++) {
+                if (won[slot] < 0) continue;
+                pairBooking[p] = won[slot];
+                pairSlot[p++] = slot;
+            }
+        }
+        return new Plan(a, bookings, pairBooking, pairSlot, m, (System.nanoTime() - started) / 1_000);
+    }
+
+    /**
+     * Forward auction on a sparse bipartite graph. Bidder {@code i} may take
+     * {@code target[e]} for {@code e} in {@code [start[i], start[i+1])}, worth
+     * {@code value[e] > 0}, or stay unassigned (worth 0). A bid raises the
+     * object's price by the bidder's margin over its next best option plus
+     * epsilon, so the total is within bidders x epsilon of the optimum. Once
+     * {@code maxBids} is spent, bidders still waiting take their best free
+     * object outright.
+     *
+     * @return the object won per bidder, -1 for none
+     */
+    private static int[] auction(int bidders, int[] start, int[] target, double[] value, int objects,
+                                 double epsilon, long maxBids) {
+        int[] won = new int[bidders];
+        int[] owner = new int[objects];
+        double[] price = new double[objects];
+        Arrays.fill(won, -1);
+        Arrays.fill(owner, -1);
+
+        // Unassigned bidders; each is queued at most once
+        int[] queue = new int[Math.max(1, bidders)];
+        int head = 0, size = 0;
+        for (int i = 0; i < bidders; i++) {
+            if (start[i + 1] > start[i]) queue[size++] = i;
+        }
+        long bids = 0;
+        while (size > 0 && bids < maxBids) {
+            int i = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            int best = -1;
+            double bestNet = 0, secondNet = 0; // 0 = staying unassigned
+            for (int e = start[i]; e < start[i + 1]; e++) {
+                double net = value[e] - price[target[e]];
+                if (net > bestNet) {
+                    secondNet = bestNet;
+                    bestNet = net;
+                    best = target[e];
+                } else if (net > secondNet) {
+                    secondNet = net;
+                }
+            }
+            if (best < 0) continue; // every option is priced above its worth: stays unassigned
+            price[best] += bestNet - secondNet + epsilon;
+            int previous = owner[best];
+            owner[best] = i;
+            won[i] = best;
+            bids++;
+            if (previous >= 0) {
+                won[previous] = -1;
+                queue[(head + size) % queue.length] = previous;
+                size++;
+            }
+        }
+        while (size > 0) {
+            int i = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            int best = -1;
+            double bestValue = 0;
+            for (int e = start[i]; e < start[i + 1]; e++) {
+                if (owner[target[e]] < 0 && value[e] > bestValue) {
+                    bestValue = value[e];
+                    best = target[e];
+                }
+            }
+            if (best < 0) continue;
+            owner[best] = i;
+            won[i] = best;
+        }
+        return won;
+    }
+
+    // --- RESERVATION ---
+
+    // Commits the plan in chunks; bookings whose unit was taken go to retry. Returns the number reserved
+    private int commit(Plan plan, List<Booking> retry) {
+        Availability a = plan.availability;
+        int reservedHere = 0;
+        for (int from = 0; from < plan.size(); from += commitBatch) {
+            int to = Math.min(plan.size(), from + commitBatch);
+            byte[] outcome = new byte[to - from];
+            int first = from;
+            try {
+                inTransaction(() -> {
+                    for (int i = first; i < to; i++) {
+                        outcome[i - first] = reserve(plan.bookingAt(i).getId(), plan.vehicleAt(i));
+                    }
+                });
+            } catch (Exception e) {
+                failed.addAndGet(to - from);
+                System.err.println("Vehicle Matching Commit Error: " + e.getMessage());
+                continue;
+            }
+
+            // Committed: the engine, spatial index and telemetry cache learn about it (bulk updates skip the listeners)
+            for (int i = from; i < to; i++) {
+                Booking booking = plan.bookingAt(i);
+                long vehicleId = plan.vehicleAt(i);
+                byte result = outcome[i - from];
+                if (result == RESERVED) {
+                    a.claimed[plan.slot[i]] = true;
+                    booking.setAssignedVehicleId(vehicleId);
+                    booking.setVersion(next(booking.getVersion(), 1));
+                    if (activeTripEngine != null) {
+                        activeTripEngine.apply(booking.getId(), b -> {
+                            b.setAssignedVehicleId(vehicleId);
+                            b.setVersion(next(b.getVersion(), 1));
+                        });
+                    }
+                    if (spatialIndex != null) spatialIndex.restatus(vehicleId, IN_USE);
+                    if (changeTracker != null) changeTracker.markChanged(vehicleId);
+                    reservedHere++;
+                } else if (result == VEHICLE_TAKEN) {
+                    // Reserved and undone: two version bumps, unit gone until its next committed write
+                    a.claimed[plan.slot[i]] = true;
+                    booking.setVersion(next(booking.getVersion(), 2));
+                    if (activeTripEngine != null) {
+                        activeTripEngine.apply(booking.getId(), b -> b.setVersion(next(b.getVersion(), 2)));
+                    }
+                    vehicleConflicts.incrementAndGet();
+                    retry.add(booking);
+                } else {
+                    bookingConflicts.incrementAndGet();
+                }
+            }
+        }
+        reserved.addAndGet(reservedHere);
+        return reservedHere;
+    }
+
+    // One pair inside the chunk's transaction: the booking first, then the unit; undone if the unit was taken
+    private byte reserve(Long bookingId, long vehicleId) {
+        if (bookingRepository.assignVehicle(bookingId, vehicleId, PENDING) == 0) return BOOKING_CHANGED;
+        if (vehicleRepository.transition(vehicleId, AVAILABLE, IN_USE) == 1) return RESERVED;
+        bookingRepository.unassignVehicle(bookingId, vehicleId);
+        return VEHICLE_TAKEN;
+    }
+
+    /** Returns a reserved unit to AVAILABLE when its booking ends; call inside that booking's transaction. */
+    public void release(Long vehicleId) {
+        if (vehicleId == null) return;
+        if (vehicleRepository.transition(vehicleId, IN_USE, AVAILABLE) == 0) return;
+        AfterCommit.run(() -> {
+            if (spatialIndex != null) spatialIndex.restatus(vehicleId, AVAILABLE);
+            if (changeTracker != null) changeTracker.markChanged(vehicleId);
+            changes.put(vehicleId, RELEASED);
+            released.incrementAndGet();
+        });
+    }
+
+    // --- CANDIDATES ---
+
+    private Pickup locate(String place) {
+        if (roadGraphService != null && place != null) {
+            try {
+                double[] point = roadGraphService.resolve(place);
+                return new Pickup(point[0], point[1], null);
+            } catch (IllegalArgumentException e) {
+                // No coordinates: fall back to the sector list
+            }
+        }
+        return new Pickup(Double.NaN, Double.NaN, TelemetrySubscriptionRegistry.sectorKey(place));
+    }
+
+    // Up to k unclaimed units nearest the point within max-radius-km, nearest first; returns how many
+    private int nearest(Availability a, double latitude, double longitude, int k, int[] slots, double[] km) {
+        int found = 0;
+        int row0 = cell(latitude), col0 = cell(longitude);
+        // A cell in ring r is at least r - 1 cell widths away (the narrower, longitude side)
+        double ringKm = CELL_DEG * KM_PER_DEGREE * Math.cos(Math.toRadians(Math.min(89, Math.abs(latitude))));
+        int maxRing = (int) Math.ceil(maxRadiusKm / ringKm) + 1;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (found == k && km[k - 1] <= (ring - 1) * ringKm) break;
+            for (int r = row0 - ring; r <= row0 + ring; r++) {
+                boolean edgeRow = r == row0 - ring || r == row0 + ring;
+                for (int c = col0 - ring; c <= col0 + ring; c += edgeRow || ring == 0 ? 1 : 2 * ring) {
+                    int[] inCell = a.cells.get(keyOf(r, c));
+                    if (inCell == null) continue;
+                    for (int slot : inCell) {
+                        if (a.claimed[slot]) continue;
+                        double d = RoadGraph.distanceMeters(latitude, longitude, a.lat[slot], a.lon[slot]) / 1000;
+                        if (d > maxRadiusKm || (found == k && d >= km[k - 1])) continue;
+                        int at = found == k ? k - 1 : found++;
+                        while (at > 0 && km[at - 1] > d) {
+                            km[at] = km[at - 1];
+                            slots[at] = slots[at - 1];
+                            at--;
+                        }
+                        km[at] = d;
+                        slots[at] = slot;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // Up to k unclaimed units in the sector, cheapest fixed cost first (distance unknown, counted as 0)
+    private static int inSector(Availability a, String sector, int k, int[] slots) {
+        int[] inSector = sector == null ? null : a.sectors.get(sector);
+        if (inSector == null) return 0;
+        int found = 0;
+        for (int i = 0; i < inSector.length && found < k; i++) {
+            if (!a.claimed[inSector[i]]) slots[found++] = inSector[i];
+        }
+        return found;
+    }
+
+    // --- HELPERS ---
+
+    private static List<Booking> eligible(List<Booking> bookings) {
+        List<Booking> open = new ArrayList<>();
+        if (bookings == null) return open;
+        for (Booking b : bookings) {
+            if (b != null && b.getId() != null && PENDING.equals(b.getStatus()) && b.getAssignedVehicleId() == null) {
+                open.add(b);
+            }
+        }
+        return open;
+    }
+
+    private double[] positionOf(Vehicle v) {
+        if (v.getLatitude() != null && v.getLongitude() != null) return new double[]{v.getLatitude(), v.getLongitude()};
+        if (roadGraphService != null && v.getLocation() != null) {
+            try {
+                return roadGraphService.resolve(v.getLocation());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static int seatsOf(Vehicle v) {
+        return v.getSeats() != null ? v.getSeats() : 0;
+    }
+
+    // Units that never reported fuel count as half full
+    private static int fuelOf(Vehicle v) {
+        return v.getFuel() != null ? v.getFuel() : 50;
+    }
+
+    private static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEG);
+    }
+
+    private static long keyOf(int row, int col) {
+        return ((long) row << 32) ^ (col & 0xffffffffL);
+    }
+
+    // Copy with the slot added; kept ordered by cost when given one
+    private static int[] with(int[] slots, int slot, double[] cost) {
+        if (slots == null) return new int[]{slot};
+        int at = slots.length;
+        if (cost != null) {
+            while (at > 0 && cost[slots[at - 1]] > cost[slot]) at--;
+        }
+        int[] out = new int[slots.length + 1];
+        System.arraycopy(slots, 0, out, 0, at);
+        out[at] = slot;
+        System.arraycopy(slots, at, out, at + 1, slots.length - at);
+        return out;
+    }
+
+    private static int[] without(int[] slots, int slot) {
+        if (slots == null) return null;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != slot) continue;
+            int[] out = new int[slots.length - 1];
+            System.arraycopy(slots, 0, out, 0, i);
+            System.arraycopy(slots, i + 1, out, i, out.length - i);
+            return out.length == 0 ? null : out;
+        }
+        return slots;
+    }
+
+    private static Vehicle copyOf(Vehicle source) {
+        Vehicle copy = new Vehicle();
+        copy.setId(source.getId());
+        copy.setModel(source.getModel());
+        copy.setStatus(source.getStatus());
+        copy.setLocation(source.getLocation());
+        copy.setSector(source.getSector());
+        copy.setLatitude(source.getLatitude());
+        copy.setLongitude(source.getLongitude());
+        copy.setFuel(source.getFuel());
+        copy.setSeats(source.getSeats());
+        copy.setPrice(source.getPrice());
+        return copy;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] out = new int[values.size()];
+        for (int i = 0; i < out.length; i++) out[i] = values.get(i);
+        return out;
+    }
+
+    private static Long next(Long version, int bumps) {
+        return (version == null ? 0L : version) + bumps;
+    }
+
+    private void inTransaction(Runnable work) {
+        if (transactions != null) {
+            transactions.executeWithoutResult(status -> work.run());
+        } else {
+            work.run();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Availability a = availability;
+        int open = 0;
+        if (a != null) {
+            for (int slot = 0; slot < a.size(); slot++) if (!a.claimed[slot]) open++;
+        }
+        stats.put("availableUnits", open);
+        stats.put("indexedUnits", a == null ? 0 : a.size());
+        stats.put("sectors", a == null ? 0 : a.sectors.size());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("appliedChanges", applied.get());
+        stats.put("queuedChanges", changes.size());
+        stats.put("lastRebuildMillis", lastRebuildMicros / 1000.0);
+        stats.put("runs", runs.get());
+        stats.put("reserved", reserved.get());
+        stats.put("unmatched", unmatched.get());
+        stats.put("vehicleConflicts", vehicleConflicts.get());
+        stats.put("bookingConflicts", bookingConflicts.get());
+        stats.put("failed", failed.get());
+        stats.put("released", released.get());
+        stats.put("lastBookings", lastBookings);
+        stats.put("lastEdges", lastEdges);
+        stats.put("lastSolveMillis", lastSolveMicros / 1000.0);
+        return stats;
+    }
+}
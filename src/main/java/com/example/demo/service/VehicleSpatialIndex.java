@@ -0,0 +1,456 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Vehicle;
+import com.example.demo.repository.VehicleRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory grid index of vehicle positions for nearest-vehicle queries.
+ *
+ * Positions, status and seats live in slot-indexed primitive columns; each
+ * ~1 km grid cell (keyed by row and column of a fixed 0.01 degree lattice, so
+ * it covers any region) keeps the slots inside it. A k-nearest query scans
+ * rings of cells outward from the query point and stops once the k-th best
+ * match is closer than anything the next ring could hold.
+ *
+ * Kept current incrementally: vehicle writes arrive from
+ * {@link VehicleChangeListener} after commit, and a tick moves units whose
+ * live telemetry position changed. A unit's position is, in order of
+ * preference, its live telemetry fix, its stored latitude/longitude, or its
+ * resolvable location name; units with none are not indexed.
+ *
+ * Concurrency: queries share the read lock; updates take the write lock.
+ */
+@Component
+public class VehicleSpatialIndex {
+
+    private static final double CELL_DEG = 0.01;
+    private static final double METERS_PER_DEGREE = 111_195.0;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** One query match. */
+    public static final class Neighbor {
+        private final long id;
+        private final double latitude, longitude, distanceMeters;
+        private final int seats;
+        private final String status;
+
+        Neighbor(long id, double latitude, double longitude, double distanceMeters, int seats, String status) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.distanceMeters = distanceMeters;
+            this.seats = seats;
+            this.status = status;
+        }
+
+        public long getId() { return id; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public double getDistanceMeters() { return distanceMeters; }
+        public int getSeats() { return seats; }
+        public String getStatus() { return status; }
+    }
+
+    /** Slots inside one grid cell; removal swaps with the last entry. */
+    private static final class Cell {
+        int[] slots = new int[8];
+        int size;
+    }
+
+    // Repository and telemetry are only needed once running; lazy so the JPA listener can depend on this bean
+    @Autowired
+    @Lazy
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Autowired
+    private TelemetryStateStore store;
+
+    @Autowired
+    private TelemetryTickScheduler tickScheduler;
+
+    @Value("${vehicles.index.sync-ms:1000}")
+    private long syncMs = 1000;
+
+    @Value("${vehicles.index.max-radius-km:50}")
+    private double maxRadiusKm = 50;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    // Slot-indexed columns; ids[slot] == 0 marks a free slot
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] lat = new double[INITIAL_CAPACITY];
+    private double[] lon = new double[INITIAL_CAPACITY];
+    private byte[] status = new byte[INITIAL_CAPACITY];
+    private int[] seats = new int[INITIAL_CAPACITY];
+    private long[] cellKey = new long[INITIAL_CAPACITY];
+    private int[] cellIndex = new int[INITIAL_CAPACITY];
+    private int highWater = 0;
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
+
+    // Small dictionary of status codes ("IN USE" and "in_use" share one)
+    private final Map<String, Byte> statusCodes = new HashMap<>();
+    private final List<String> statusNames = new ArrayList<>();
+
+    private TelemetryStateStore.Cursor cursor;
+    private volatile boolean seeded = false;
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (store != null && tickScheduler != null) {
+            cursor = store.newCursor();
+            tickScheduler.register("spatial-index", syncMs, TelemetryTickScheduler.OverrunPolicy.SKIP, this::tick);
+        }
+    }
+
+    /** Seeds from the vehicles table on the first run, then applies telemetry movement. */
+    public void tick() {
+        try {
+            if (!seeded) seed();
+            syncTelemetry();
+        } catch (Exception e) {
+            System.err.println("Spatial Index Error: " + e.getMessage());
+        }
+    }
+
+    private synchronized void seed() {
+        if (seeded) return;
+        for (Vehicle v : vehicleRepository.findAll()) update(v);
+        seeded = true;
+    }
+
+    private void syncTelemetry() {
+        lock.writeLock().lock();
+        try {
+            cursor.forEachChanged(slot -> {
+                long id = store.vehicleId(slot);
+                Integer own = id > 0 ? slotById.get(id) : null;
+                double latitude = store.latitude(slot), longitude = store.longitude(slot);
+                if (own == null || Double.isNaN(latitude) || Double.isNaN(longitude)) return;
+                if (latitude != lat[own] || longitude != lon[own]) {
+                    place(own, latitude, longitude);
+                    moves.increment();
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- UPDATES ---
+
+    /** Re-indexes a vehicle from its entity (after a write), preferring its live telemetry position. */
+    public void update(Vehicle vehicle) {
+        if (vehicle == null || vehicle.getId() == null) return;
+        double[] position = positionOf(vehicle);
+        if (position == null) {
+            remove(vehicle.getId());
+            return;
+        }
+        upsert(vehicle.getId(), position[0], position[1], vehicle.getStatus(),
+                vehicle.getSeats() != null ? vehicle.getSeats() : 0);
+    }
+
+    public void upsert(long id, double latitude, double longitude, String statusName, int seatCount) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotById.get(id);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+            } else {
+                slot = allocate();
+                ids[slot] = id;
+                cellKey[slot] = Long.MIN_VALUE; // not in a cell yet
+                slotById.put(id, slot);
+            }
+            status[slot] = statusCode(statusName);
+            seats[slot] = seatCount;
+            place(slot, latitude, longitude);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Moves an indexed unit; returns false if it is not indexed. */
+    public boolean move(long id, double latitude, double longitude) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            if (slot == null) return false;
+            place(slot, latitude, longitude);
+            moves.increment();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Changes an indexed unit's status in place (a conditional UPDATE skips the entity listener); false if not indexed. */
+    public boolean restatus(long id, String statusName) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            if (slot == null) return false;
+            status[slot] = statusCode(statusName);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) return;
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot == null) return;
+            unlink(slot);
+            ids[slot] = 0;
+            if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void place(int slot, double latitude, double longitude) {
+        lat[slot] = latitude;
+        lon[slot] = longitude;
+        long key = keyOf(row(latitude), col(longitude));
+        if (key == cellKey[slot]) return;
+        unlink(slot);
+        Cell cell = cells.computeIfAbsent(key, k -> new Cell());
+        if (cell.size == cell.slots.length) cell.slots = Arrays.copyOf(cell.slots, cell.size * 2);
+        cellIndex[slot] = cell.size;
+        cell.slots[cell.size++] = slot;
+        cellKey[slot] = key;
+    }
+
+    private void unlink(int slot) {
+        if (cellKey[slot] == Long.MIN_VALUE) return;
+        Cell cell = cells.get(cellKey[slot]);
+        int index = cellIndex[slot];
+        int last = cell.slots[--cell.size];
+        cell.slots[index] = last;
+        cellIndex[last] = index;
+        if (cell.size == 0) cells.remove(cellKey[slot]);
+        cellKey[slot] = Long.MIN_VALUE;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+        if (highWater == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            lat = Arrays.copyOf(lat, capacity);
+            lon = Arrays.copyOf(lon, capacity);
+            status = Arrays.copyOf(status, capacity);
+            seats = Arrays.copyOf(seats, capacity);
+            cellKey = Arrays.copyOf(cellKey, capacity);
+            cellIndex = Arrays.copyOf(cellIndex, capacity);
+        }
+        return highWater++;
+    }
+
+    private byte statusCode(String name) {
+        String normalized = normalize(name);
+        Byte code = statusCodes.get(normalized);
+        if (code != null) return code;
+        if (statusNames.size() == Byte.MAX_VALUE) throw new IllegalStateException("Too many vehicle statuses");
+        byte created = (byte) statusNames.size();
+        statusNames.add(normalized);
+        statusCodes.put(normalized, created);
+        return created;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "UNKNOWN" : name.trim().toUpperCase(Locale.ROOT).replace(' ', '_');
+    }
+
+    // --- QUERIES ---
+
+    /**
+     * Up to {@code k} indexed vehicles closest to the point (great-circle
+     * distance, nearest first) within {@code vehicles.index.max-radius-km}.
+     *
+     * @param statusName only vehicles in this status (case and "IN USE" / "IN_USE" insensitive); null for any
+     * @param minSeats   only vehicles with at least this many seats
+     */
+    public List<Neighbor> nearest(double latitude, double longitude, int k, String statusName, int minSeats) {
+        if (k <= 0) return new ArrayList<>();
+        queries.increment();
+        lock.readLock().lock();
+        try {
+            int wanted = -1;
+            if (statusName != null) {
+                Byte code = statusCodes.get(normalize(statusName));
+                if (code == null) return new ArrayList<>();
+                wanted = code;
+            }
+            int[] bestSlot = new int[k];
+            double[] bestDistance = new double[k];
+            int found = 0;
+
+            int row0 = row(latitude), col0 = col(longitude);
+            // A cell in ring r is at least r - 1 cell widths away (the narrower, longitude side)
+            double ringMeters = CELL_DEG * METERS_PER_DEGREE * Math.cos(Math.toRadians(Math.min(89, Math.abs(latitude))));
+            int maxRing = (int) Math.ceil(maxRadiusKm * 1000 / ringMeters) + 1;
+            for (int ring = 0; ring <= maxRing; ring++) {
+                if (found == k && bestDistance[k - 1] <= (ring - 1) * ringMeters) break;
+                if (cells.isEmpty()) break;
+                for (int r = row0 - ring; r <= row0 + ring; r++) {
+                    boolean edgeRow = r == row0 - ring || r == row0 + ring;
+                    for (int c = col0 - ring; c <= col0 + ring; c += edgeRow || ring == 0 ? 1 : 2 * ring) {
+                        Cell cell = cells.get(keyOf(r, c));
+                        if (cell == null) continue;
+                        for (int i = 0; i < cell.size; i++) {
+                            int slot = cell.slots[i];
+                            if (wanted >= 0 && status[slot] != wanted) continue;
+                            if (seats[slot] < minSeats) continue;
+                            double d = RoadGraph.distanceMeters(latitude, longitude, lat[slot], lon[slot]);
+                            if (found == k && d >= bestDistance[k - 1]) continue;
+                            // Insertion into the sorted top-k
+                            int at = found == k ? k - 1 : found++;
+                            while (at > 0 && bestDistance[at - 1] > d) {
+                                bestDistance[at] = bestDistance[at - 1];
+                                bestSlot[at] = bestSlot[at - 1];
+                                at--;
+                            }
+                            bestDistance[at] = d;
+                            bestSlot[at] = slot;
+                        }
+                    }
+                }
+            }
+
+            List<Neighbor> out = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                int slot = bestSlot[i];
+                if (bestDistance[i] > maxRadiusKm * 1000) break;
+                out.add(new Neighbor(ids[slot], lat[slot], lon[slot], bestDistance[i], seats[slot],
+                        statusNames.get(status[slot])));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Every indexed vehicle within {@code radiusMeters} of the point, nearest first; filters as in {@link #nearest}. */
+    public List<Neighbor> within(double latitude, double longitude, double radiusMeters, String statusName, int minSeats) {
+        queries.increment();
+        lock.readLock().lock();
+        try {
+            int wanted = -1;
+            if (statusName != null) {
+                Byte code = statusCodes.get(normalize(statusName));
+                if (code == null) return new ArrayList<>();
+                wanted = code;
+            }
+            List<Neighbor> out = new ArrayList<>();
+            double ringMeters = CELL_DEG * METERS_PER_DEGREE * Math.cos(Math.toRadians(Math.min(89, Math.abs(latitude))));
+            int rings = (int) Math.ceil(Math.min(radiusMeters, maxRadiusKm * 1000) / ringMeters) + 1;
+            int row0 = row(latitude), col0 = col(longitude);
+            for (int r = row0 - rings; r <= row0 + rings; r++) {
+                for (int c = col0 - rings; c <= col0 + rings; c++) {
+                    Cell cell = cells.get(keyOf(r, c));
+                    if (cell == null) continue;
+                    for (int i = 0; i < cell.size; i++) {
+                        int slot = cell.slots[i];
+                        if (wanted >= 0 && status[slot] != wanted) continue;
+                        if (seats[slot] < minSeats) continue;
+                        double d = RoadGraph.distanceMeters(latitude, longitude, lat[slot], lon[slot]);
+                        if (d > radiusMeters) continue;
+                        out.add(new Neighbor(ids[slot], lat[slot], lon[slot], d, seats[slot], statusNames.get(status[slot])));
+                    }
+                }
+            }
+            out.sort((a, b) -> Double.compare(a.distanceMeters, b.distanceMeters));
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("vehicles", slotById.size());
+            stats.put("cells", cells.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("seeded", seeded);
+        stats.put("queries", queries.sum());
+        stats.put("moves", moves.sum());
+        return stats;
+    }
+
+    // --- HELPERS ---
+
+    private double[] positionOf(Vehicle vehicle) {
+        if (store != null) {
+            int slot = store.slotOf(vehicle.getId());
+            if (slot >= 0 && !Double.isNaN(store.latitude(slot))) {
+                return new double[]{store.latitude(slot), store.longitude(slot)};
+            }
+        }
+        if (vehicle.getLatitude() != null && vehicle.getLongitude() != null) {
+            return new double[]{vehicle.getLatitude(), vehicle.getLongitude()};
+        }
+        if (roadGraphService != null && vehicle.getLocation() != null) {
+            try {
+                return roadGraphService.resolve(vehicle.getLocation());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static int row(double latitude) {
+        return (int) Math.floor(latitude / CELL_DEG);
+    }
+
+    private static int col(double longitude) {
+        return (int) Math.floor(longitude / CELL_DEG);
+    }
+
+    private static long keyOf(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,487 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Pickup-and-delivery vehicle routing over a precomputed travel-time matrix.
+ *
+ * Locations are indexed vehicle starts first, then each booking's pickup and
+ * drop: vehicle {@code v} starts at location {@code v}, booking {@code b} is
+ * picked up at {@code vehicles + 2b} and dropped at {@code vehicles + 2b + 1}.
+ * A route is a sequence of stop codes (location minus {@code vehicles}), so a
+ * stop is a pickup when even and its booking is {@code stop >> 1}. Routes are
+ * open: a vehicle ends at its last drop. Nothing ever drives to a vehicle
+ * start, so the matrix has a row per location but a column per stop only:
+ * leg (location, stop) is at {@code location * 2 * bookings + stop}.
+ *
+ * A route is feasible when every drop follows its pickup, on-board bookings
+ * never exceed the vehicle's seats (one seat per booking), and total time and
+ * metres stay within the route limit and the vehicle's fuel range. The
+ * objective is total driving plus dwell time, with a large penalty per
+ * booking left unassigned.
+ *
+ * {@link #solve} builds a solution by cheapest insertion in booking order, then
+ * improves it with randomised local search (relocate, swap, 2-opt, insert
+ * unassigned) in short rounds until the time budget runs out. Each round
+ * shuffles the vehicles into one disjoint group per worker thread, so workers
+ * only ever touch their own routes and need no locking; regrouping between
+ * rounds lets bookings migrate anywhere. Only improving moves are kept.
+ */
+public final class VrpSolver {
+
+    private static final int RELOCATE = 0, SWAP = 1, TWO_OPT = 2, INSERT = 3;
+    private static final String[] MOVE_NAMES = {"relocate", "swap", "twoOpt", "insert"};
+
+    static final float UNASSIGNED_PENALTY = 1_000_000f;
+    private static final float INFEASIBLE = Float.POSITIVE_INFINITY;
+    private static final float UNREACHABLE = 10_000_000f; // seconds; keeps insertion estimates finite
+    private static final long ROUND_MILLIS = 50;
+
+    private final int vehicles, bookings, stops;
+    private final float[] durations; // size x stops seconds, -1 = unreachable
+    private final float[] meters;
+    private final int[] seats;
+    private final float[] rangeMeters;
+    private final float maxRouteSeconds;
+    private final float stopSeconds;
+
+    private final int[][] routes;
+    private final int[] lengths;
+    private final float[] costs;
+    private final int[] unassigned;
+    private int unassignedCount;
+
+    private float constructionCost;
+    private final long[] accepted = new long[MOVE_NAMES.length];
+    private long iterations;
+    private int rounds;
+    private double solveMillis;
+
+    public VrpSolver(int vehicles, int bookings, float[] durations, float[] meters, int[] seats,
+                     float[] rangeMeters, float maxRouteSeconds, float stopSeconds) {
+        this.vehicles = vehicles;
+        this.bookings = bookings;
+        int size = vehicles + 2 * bookings;
+        this.stops = 2 * bookings;
+        if ((long) durations.length != (long) size * stops || (long) meters.length != (long) size * stops) {
+            throw new IllegalArgumentException("Matrix must be " + size + "x" + stops);
+        }
+        this.durations = durations;
+        this.meters = meters;
+        this.seats = seats;
+        this.rangeMeters = rangeMeters;
+        this.maxRouteSeconds = maxRouteSeconds;
+        this.stopSeconds = stopSeconds;
+        this.routes = new int[vehicles][2 * bookings];
+        this.lengths = new int[vehicles];
+        this.costs = new float[vehicles];
+        this.unassigned = new int[bookings];
+    }
+
+    /** Construction plus local search on {@code pool} until {@code budgetMillis} have passed. */
+    public void solve(ForkJoinPool pool, long budgetMillis, long seed) {
+        long start = System.nanoTime();
+        long deadline = start + budgetMillis * 1_000_000L;
+        int groups = Math.max(1, Math.min(pool.getParallelism(), vehicles));
+        Worker[] workers = new Worker[groups];
+        for (int g = 0; g < groups; g++) workers[g] = new Worker(new Random(seed + g));
+
+        construct(workers[0]);
+        constructionCost = totalCost();
+
+        Random shuffler = new Random(seed);
+        int[] order = new int[vehicles];
+        for (int v = 0; v < vehicles; v++) order[v] = v;
+        List<Callable<Void>> tasks = new ArrayList<>(groups);
+        while (vehicles > 0 && System.nanoTime() < deadline) {
+            rounds++;
+            for (int i = vehicles - 1; i > 0; i--) {
+                int j = shuffler.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+            for (int g = 0; g < groups; g++) {
+                workers[g].routeCount = 0;
+                workers[g].poolCount = 0;
+            }
+            for (int i = 0; i < vehicles; i++) {
+                Worker worker = workers[i % groups];
+                worker.routeIds[worker.routeCount++] = order[i];
+            }
+            for (int i = 0; i < unassignedCount; i++) {
+                Worker worker = workers[i % groups];
+                worker.pool[worker.poolCount++] = unassigned[i];
+            }
+
+            long roundEnd = Math.min(deadline, System.nanoTime() + ROUND_MILLIS * 1_000_000L);
+            tasks.clear();
+            for (Worker worker : workers) {
+                tasks.add(() -> {
+                    worker.improve(roundEnd);
+                    return null;
+                });
+            }
+            runAll(pool, tasks);
+
+            unassignedCount = 0;
+            for (Worker worker : workers) {
+                for (int i = 0; i < worker.poolCount; i++) unassigned[unassignedCount++] = worker.pool[i];
+            }
+        }
+        for (Worker worker : workers) {
+            iterations += worker.iterations;
+            for (int m = 0; m < accepted.length; m++) accepted[m] += worker.accepted[m];
+        }
+        solveMillis = (System.nanoTime() - start) / 1e6;
+    }
+
+    // --- CONSTRUCTION ---
+
+    private void construct(Worker worker) {
+        for (int b = 0; b < bookings; b++) {
+            int bestVehicle = -1;
+            float bestDelta = INFEASIBLE;
+            for (int v = 0; v < vehicles; v++) {
+                float cost = worker.bestInsertion(v, routes[v], lengths[v], b, worker.candidate, costs[v] + bestDelta);
+                if (cost - costs[v] < bestDelta) {
+                    bestDelta = cost - costs[v];
+                    bestVehicle = v;
+                    System.arraycopy(worker.candidate, 0, worker.kept, 0, lengths[v] + 2);
+                }
+            }
+            if (bestVehicle < 0) {
+                unassigned[unassignedCount++] = b;
+                continue;
+            }
+            lengths[bestVehicle] += 2;
+            System.arraycopy(worker.kept, 0, routes[bestVehicle], 0, lengths[bestVehicle]);
+            costs[bestVehicle] += bestDelta;
+        }
+    }
+
+    // --- LOCAL SEARCH ---
+
+    /** Per-group search state and scratch buffers; touches only its own routes during a round. */
+    private final class Worker {
+        final Random random;
+        final int[] routeIds = new int[vehicles];
+        int routeCount;
+        final int[] pool = new int[bookings];
+        int poolCount;
+
+        final int[] removedA = new int[2 * bookings], removedB = new int[2 * bookings];
+        final int[] candidate = new int[2 * bookings], kept = new int[2 * bookings], keptB = new int[2 * bookings];
+        final int[] pickupSeen = new int[bookings];
+        int stamp;
+
+        long iterations;
+        final long[] accepted = new long[MOVE_NAMES.length];
+
+        Worker(Random random) {
+            this.random = random;
+        }
+
+        void improve(long deadline) {
+            if (routeCount == 0) return;
+            for (int i = 0; ; i++) {
+                if ((i & 63) == 0 && System.nanoTime() >= deadline) return;
+                iterations++;
+                if (poolCount > 0 && random.nextInt(10) < 3) {
+                    insertUnassigned();
+                    continue;
+                }
+                int move = random.nextInt(20);
+                if (move < 9) relocate();
+                else if (move < 15) swap();
+                else twoOpt();
+            }
+        }
+
+        /** Moves one booking (pickup and drop) to its best position in a random route of the group. */
+        void relocate() {
+            int a = routeIds[random.nextInt(routeCount)];
+            if (lengths[a] == 0) return;
+            int booking = routes[a][random.nextInt(lengths[a])] >> 1;
+            int b = routeIds[random.nextInt(routeCount)];
+            int removedLength = remove(routes[a], lengths[a], booking, removedA);
+            float costA = evaluate(a, removedA, removedLength);
+            if (a == b) {
+                float cost = bestInsertion(a, removedA, removedLength, booking, kept, costs[a]);
+                if (cost < costs[a] - 1e-3f) commit(a, kept, lengths[a], cost, RELOCATE);
+                return;
+            }
+            float budget = costs[a] + costs[b] - costA;
+            float costB = bestInsertion(b, routes[b], lengths[b], booking, kept, budget);
+            if (costA + costB < costs[a] + costs[b] - 1e-3f) {
+                commit(a, removedA, removedLength, costA, -1);
+                commit(b, kept, lengths[b] + 2, costB, RELOCATE);
+            }
+        }
+
+        /** Exchanges one booking each between two routes, each reinserted at its best position. */
+        void swap() {
+            if (routeCount < 2) return;
+            int a = routeIds[random.nextInt(routeCount)];
+            int b = routeIds[random.nextInt(routeCount)];
+            if (a == b || lengths[a] == 0 || lengths[b] == 0) return;
+            int first = routes[a][random.nextInt(lengths[a])] >> 1;
+            int second = routes[b][random.nextInt(lengths[b])] >> 1;
+            int lengthA = remove(routes[a], lengths[a], first, removedA);
+            int lengthB = remove(routes[b], lengths[b], second, removedB);
+            float before = costs[a] + costs[b];
+            float costA = bestInsertion(a, removedA, lengthA, second, kept, before);
+            if (costA == INFEASIBLE) return;
+            float costB = bestInsertion(b, removedB, lengthB, first, keptB, before - costA);
+            if (costA + costB < before - 1e-3f) {
+                commit(a, kept, lengthA + 2, costA, -1);
+                commit(b, keptB, lengthB + 2, costB, SWAP);
+            }
+        }
+
+        /** Reverses a stop segment within one route; precedence is rechecked by evaluation. */
+        void twoOpt() {
+            int a = routeIds[random.nextInt(routeCount)];
+            int n = lengths[a];
+            if (n < 3) return;
+            int i = random.nextInt(n - 1);
+            int j = i + 1 + random.nextInt(n - i - 1);
+            int[] route = routes[a];
+            System.arraycopy(route, 0, candidate, 0, n);
+            for (int x = i, y = j; x < y; x++, y--) {
+                int tmp = candidate[x];
+                candidate[x] = candidate[y];
+                candidate[y] = tmp;
+            }
+            float cost = evaluate(a, candidate, n);
+            if (cost < costs[a] - 1e-3f) commit(a, candidate, n, cost, TWO_OPT);
+        }
+
+        /** Places one of the group's unassigned bookings in the cheapest feasible route of the group. */
+        void insertUnassigned() {
+            int index = random.nextInt(poolCount);
+            int booking = pool[index];
+            int bestRoute = -1;
+            float bestDelta = INFEASIBLE;
+            for (int r = 0; r < routeCount; r++) {
+                int v = routeIds[r];
+                float cost = bestInsertion(v, routes[v], lengths[v], booking, candidate, costs[v] + bestDelta);
+                if (cost - costs[v] < bestDelta) {
+                    bestDelta = cost - costs[v];
+                    bestRoute = v;
+                    System.arraycopy(candidate, 0, kept, 0, lengths[v] + 2);
+                }
+            }
+            if (bestRoute < 0) return;
+            commit(bestRoute, kept, lengths[bestRoute] + 2, costs[bestRoute] + bestDelta, INSERT);
+            pool[index] = pool[--poolCount];
+        }
+
+        void commit(int v, int[] sequence, int length, float cost, int move) {
+            System.arraycopy(sequence, 0, routes[v], 0, length);
+            lengths[v] = length;
+            costs[v] = cost;
+            if (move >= 0) accepted[move]++;
+        }
+
+        /**
+         * Cheapest feasible insertion of {@code booking} into {@code sequence} for
+         * vehicle {@code v}. Positions are screened with an O(1) leg delta and only
+         * those that could beat {@code limit} (and the best so far) are evaluated
+         * in full. Writes the winner into {@code out}; returns its route cost, or
+         * +infinity when nothing feasible beats the limit.
+         */
+        float bestInsertion(int v, int[] sequence, int n, int booking, int[] out, float limit) {
+            int pickup = vehicles + 2 * booking, drop = pickup + 1;
+            float base = n == 0 ? 0f : evaluateUnchecked(v, sequence, n);
+            float best = limit;
+            int bestI = -1, bestJ = -1;
+            float direct = leg(pickup, drop) + 2 * stopSeconds;
+            for (int i = 0; i <= n; i++) {
+                int before = i == 0 ? v : vehicles + sequence[i - 1];
+                int after = i == n ? -1 : vehicles + sequence[i];
+                float opened = leg(before, pickup) - tail(before, after);
+                // Drop right after the pickup
+                float delta = opened + direct + tail(drop, after);
+                if (base + delta < best) {
+                    float cost = evaluateInserted(v, sequence, n, i, i, booking);
+                    if (cost < best) {
+                        best = cost;
+                        bestI = i;
+                        bestJ = i;
+                    }
+                }
+                float pickupDelta = opened + tail(pickup, after) + stopSeconds;
+                for (int j = i + 1; j <= n; j++) {
+                    int dropBefore = vehicles + sequence[j - 1];
+                    int dropAfter = j == n ? -1 : vehicles + sequence[j];
+                    delta = pickupDelta + leg(dropBefore, drop) + tail(drop, dropAfter)
+                            - tail(dropBefore, dropAfter) + stopSeconds;
+                    if (base + delta < best) {
+                        float cost = evaluateInserted(v, sequence, n, i, j, booking);
+                        if (cost < best) {
+                            best = cost;
+                            bestI = i;
+                            bestJ = j;
+                        }
+                    }
+                }
+            }
+            if (bestI < 0) return INFEASIBLE;
+            build(sequence, n, bestI, bestJ, booking, out);
+            return best;
+        }
+
+        // Trial sequences go to the candidate buffer, which callers never pass as input
+        private float evaluateInserted(int v, int[] sequence, int n, int i, int j, int booking) {
+            build(sequence, n, i, j, booking, candidate);
+            return evaluate(v, candidate, n + 2);
+        }
+
+        /** Route cost, or +infinity when it breaks precedence, seats, duration or fuel range. */
+        float evaluate(int v, int[] sequence, int n) {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(pickupSeen, 0);
+                stamp = 1;
+            }
+            int at = v, load = 0;
+            float time = 0, distance = 0;
+            for (int k = 0; k < n; k++) {
+                int stop = sequence[k];
+                int location = vehicles + stop;
+                float legTime = durations[cell(at, location)];
+                if (legTime < 0) return INFEASIBLE;
+                time += legTime + stopSeconds;
+                distance += meters[cell(at, location)];
+                if ((stop & 1) == 0) {
+                    if (++load > seats[v]) return INFEASIBLE;
+                    pickupSeen[stop >> 1] = stamp;
+                } else {
+                    if (pickupSeen[stop >> 1] != stamp) return INFEASIBLE;
+                    load--;
+                }
+                at = location;
+            }
+            if (time > maxRouteSeconds || distance > rangeMeters[v]) return INFEASIBLE;
+            return time;
+        }
+    }
+
+    // --- ROUTE HELPERS ---
+
+    // Cost of an already-feasible sequence (committed or with a booking removed)
+    private float evaluateUnchecked(int v, int[] sequence, int n) {
+        int at = v;
+        float time = 0;
+        for (int k = 0; k < n; k++) {
+            int location = vehicles + sequence[k];
+            time += leg(at, location) + stopSeconds;
+            at = location;
+        }
+        return time;
+    }
+
+    // Flat index of the leg from any location to a stop location
+    private int cell(int from, int to) {
+        return from * stops + to - vehicles;
+    }
+
+    private float leg(int from, int to) {
+        float time = durations[cell(from, to)];
+        return time < 0 ? UNREACHABLE : time;
+    }
+
+    // Open routes: nothing follows the last stop
+    private float tail(int from, int to) {
+        return to < 0 ? 0f : leg(from, to);
+    }
+
+    /** Copies {@code sequence} without the booking's two stops; returns the new length. */
+    private static int remove(int[] sequence, int n, int booking, int[] out) {
+        int length = 0;
+        for (int k = 0; k < n; k++) {
+            if (sequence[k] >> 1 != booking) out[length++] = sequence[k];
+        }
+        return length;
+    }
+
+    /** Sequence with the pickup inserted before position i and the drop before position j (j >= i). */
+    private static void build(int[] sequence, int n, int i, int j, int booking, int[] out) {
+        int pickup = 2 * booking;
+        int length = 0;
+        for (int k = 0; k <= n; k++) {
+            if (k == i) out[length++] = pickup;
+            if (k == j) out[length++] = pickup + 1;
+            if (k < n) out[length++] = sequence[k];
+        }
+    }
+
+    private static void runAll(ForkJoinPool pool, List<Callable<Void>> tasks) {
+        for (Future<Void> task : pool.invokeAll(tasks)) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Route optimisation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Route optimisation failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    // --- RESULT ---
+
+    public int routeLength(int vehicle) { return lengths[vehicle]; }
+    public int stop(int vehicle, int index) { return routes[vehicle][index]; }
+    /** Driving plus dwell seconds of the vehicle's route. */
+    public float routeSeconds(int vehicle) { return costs[vehicle]; }
+
+    public float routeMeters(int vehicle) {
+        int at = vehicle;
+        float distance = 0;
+        for (int k = 0; k < lengths[vehicle]; k++) {
+            int location = vehicles + routes[vehicle][k];
+            distance += meters[cell(at, location)];
+            at = location;
+        }
+        return distance;
+    }
+
+    /** Bookings no feasible route could take. */
+    public int[] unassigned() { return Arrays.copyOf(unassigned, unassignedCount); }
+
+    public float totalCost() {
+        float total = unassignedCount * UNASSIGNED_PENALTY;
+        for (int v = 0; v < vehicles; v++) total += costs[v];
+        return total;
+    }
+
+    public Map<String, Object> metrics() {
+        float finalCost = totalCost();
+        int used = 0;
+        for (int v = 0; v < vehicles; v++) if (lengths[v] > 0) used++;
+        Map<String, Object> moves = new LinkedHashMap<>();
+        for (int m = 0; m < MOVE_NAMES.length; m++) moves.put(MOVE_NAMES[m], accepted[m]);
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("constructionCost", constructionCost);
+        metrics.put("finalCost", finalCost);
+        metrics.put("improvementPercent", constructionCost == 0 ? 0.0 : 100.0 * (constructionCost - finalCost) / constructionCost);
+        metrics.put("assigned", bookings - unassignedCount);
+        metrics.put("unassigned", unassignedCount);
+        metrics.put("vehiclesUsed", used);
+        metrics.put("iterations", iterations);
+        metrics.put("rounds", rounds);
+        metrics.put("acceptedMoves", moves);
+        metrics.put("solveMillis", solveMillis);
+        return metrics;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.service.ActiveTripEngine;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ActiveTripEngineTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private BookingRepository repository;
+    private ActiveTripEngine engine;
+
+    @BeforeEach
+    public void setup() {
+        repository = mock(BookingRepository.class);
+        engine = new ActiveTripEngine(mapper);
+        ReflectionTestUtils.setField(engine, "bookingRepository", repository);
+    }
+
+    @Test
+    public void testSeedsAdvancesActiveTripsAndServesSnapshots() throws Exception {
+        Booking active = booking(1L, "driver-a", "TRIP_ACTIVE", LocalDateTime.now().minusMinutes(60));
+        Booking pending = booking(2L, "driver-a", "PENDING", LocalDateTime.now());
+        Booking other = booking(3L, "driver-b", "PENDING", LocalDateTime.now());
+        when(repository.findAll()).thenReturn(List.of(active, pending, other));
+
+        assertNull(engine.snapshot("driver-a"));
+        engine.tick();
+        verify(repository, times(1)).findAll();
+
+        JsonNode own = mapper.readTree(engine.snapshot("driver-a"));
+        assertEquals(2, own.size());
+        JsonNode trip = own.get(0);
+        assertEquals(1L, trip.get("id").asLong());
+        // 100 km over 2 h, one hour in: half way
+        assertEquals(50, trip.get("progress").asInt());
+        assertEquals(50, trip.get("energy").asInt());
+        assertEquals("50.00", trip.get("distance").asText());
+        assertEquals("1.0", trip.get("duration").asText());
+        int velocity = trip.get("velocity").asInt();
+        assertTrue(velocity >= 60 && velocity < 80);
+        assertEquals("100", own.get(1).get("distance").asText());
+
+        // Entities handed over are never mutated; other users see only their own rows
+        assertEquals("100", active.getDistance());
+        assertEquals(1, mapper.readTree(engine.snapshot("driver-b")).size());
+        assertEquals("[]", new String(engine.snapshot("nobody")));
+
+        // Reads between ticks return the same bytes; later ticks do not reload the table
+        assertSame(engine.snapshot("driver-a"), engine.snapshot("driver-a"));
+        engine.tick();
+        verify(repository, times(1)).findAll();
+        assertEquals(2L, engine.stats().get("ticks"));
+    }
+
+    @Test
+    public void testCommittedChangesRepublishTheirUser() throws Exception {
+        when(repository.findAll()).thenReturn(List.of());
+        engine.tick();
+
+        Booking booking = booking(7L, "driver-a", "PENDING", LocalDateTime.now());
+        engine.upsert(booking);
+        byte[] pending = engine.snapshot("driver-a");
+        assertEquals("PENDING", mapper.readTree(pending).get(0).get("status").asText());
+
+        booking.setStatus("TRIP_ACTIVE");
+        engine.upsert(booking);
+        byte[] started = engine.snapshot("driver-a");
+        assertNotSame(pending, started);
+        JsonNode trip = mapper.readTree(started).get(0);
+        assertEquals("TRIP_ACTIVE", trip.get("status").asText());
+        assertEquals(0, trip.get("progress").asInt());
+        assertEquals(1, engine.stats().get("activeTrips"));
+
+        engine.remove(7L);
+        assertEquals("[]", new String(engine.snapshot("driver-a")));
+        assertEquals(0, engine.stats().get("activeTrips"));
+        assertEquals(0, engine.stats().get("bookings"));
+
+        // Fallback rendering works on copies
+        Booking unseeded = booking(8L, "driver-c", "TRIP_ACTIVE", LocalDateTime.now().minusMinutes(30));
+        Booking view = engine.render(List.of(unseeded)).get(0);
+        assertEquals(25, view.getProgress());
+        assertEquals("100", unseeded.getDistance());
+    }
+
+    @Test
+    public void testSeedKeepsNewerListenerWrites() throws Exception {
+        Booking stale = booking(4L, "driver-a", "PENDING", LocalDateTime.now());
+        stale.setVersion(1L);
+        Booking gone = booking(5L, "driver-a", "PENDING", LocalDateTime.now());
+        // Listener writes commit while the seed query is still running
+        when(repository.findAll()).thenAnswer(invocation -> {
+            Booking approved = booking(4L, "driver-a", "APPROVED", LocalDateTime.now());
+            approved.setVersion(2L);
+            engine.upsert(approved);
+            engine.remove(5L);
+            return List.of(stale, gone);
+        });
+
+        engine.tick();
+        JsonNode own = mapper.readTree(engine.snapshot("driver-a"));
+        assertEquals(1, own.size());
+        assertEquals("APPROVED", own.get(0).get("status").asText());
+        assertEquals(2L, engine.find(4L).getVersion());
+    }
+
+    private static Booking booking(Long id, String userId, String status, LocalDateTime start) {
+        Booking b = new Booking();
+        b.setId(id);
+        b.setUserId(userId);
+        b.setStatus(status);
+        b.setVehicleModel("EV-Sedan");
+        b.setBookingTime(start);
+        b.setDistance("100");
+        b.setDuration("2");
+        return b;
+    }
+}
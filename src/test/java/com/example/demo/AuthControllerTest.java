@@ -4,6 +4,7 @@ import com.example.demo.repository.BookingRepository;
 import com.example.demo.config.JwtUtil;
 import com.example.demo.controller.AuthController;
 import com.example.demo.entity.User;
+import com.example.demo.entity.Vehicle;
 import com.example.demo.entity.UserProfile;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.repository.UserProfileRepository;
@@ -11,13 +12,19 @@ import com.example.demo.repository.VehicleRepository;
 import com.example.demo.repository.CustomerVehicleRepository;
 import com.example.demo.repository.AuditLogRepository;
 import com.example.demo.repository.FeedbackRepository;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.VehicleSpatialIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -137,4 +144,56 @@ public class AuthControllerTest {
         assertEquals(400, response.getStatusCode().value());
         assertTrue(response.getBody().toString().contains("Email not found"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRedistribute_OnlyPullsNearbyUnitsOutsideTargetSector() {
+        VehicleSpatialIndex index = new VehicleSpatialIndex();
+        index.upsert(1, 12.9700, 77.7500, "AVAILABLE", 4);  // ~0.2 km, already in the target sector
+        index.upsert(2, 12.9720, 77.7510, "AVAILABLE", 4);  // ~0.4 km
+        index.upsert(3, 13.2000, 77.7000, "AVAILABLE", 4);  // ~25 km away
+        RoadGraphService roadGraph = mock(RoadGraphService.class);
+        when(roadGraph.resolve("Whitefield")).thenReturn(new double[]{12.9690, 77.7485});
+        when(roadGraph.resolve("Koramangala")).thenReturn(new double[]{12.9352, 77.6245});
+        ReflectionTestUtils.setField(authController, "spatialIndex", index);
+        ReflectionTestUtils.setField(authController, "roadGraphService", roadGraph);
+        when(vehicleRepository.findAllById(any())).thenReturn(List.of(
+                vehicle(1L, "Koramangala"), vehicle(2L, "Whitefield"), vehicle(3L, "Yelahanka")));
+
+        ResponseEntity<?> response = authController.redistributeVehiclesDirect(
+                Map.of("fromSector", "Whitefield", "toSector", "Koramangala", "unitCount", 3));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(1, ((Map<?, ?>) response.getBody()).get("movedUnits"));
+        verify(vehicleRepository).saveAll(argThat(moved -> {
+            List<Long> ids = new ArrayList<>();
+            moved.forEach(v -> ids.add(v.getId()));
+            return ids.equals(List.of(2L));
+        }));
+    }
+
+    @Test
+    public void testRedistribute_NoUnitsNearOriginIsBadRequest() {
+        VehicleSpatialIndex index = new VehicleSpatialIndex();
+        index.upsert(3, 13.2000, 77.7000, "AVAILABLE", 4);
+        RoadGraphService roadGraph = mock(RoadGraphService.class);
+        when(roadGraph.resolve("Whitefield")).thenReturn(new double[]{12.9690, 77.7485});
+        ReflectionTestUtils.setField(authController, "spatialIndex", index);
+        ReflectionTestUtils.setField(authController, "roadGraphService", roadGraph);
+        when(vehicleRepository.findAllById(any())).thenReturn(List.of());
+        when(vehicleRepository.findTopNByLocationAndStatus(eq("Whitefield"), eq("AVAILABLE"), any())).thenReturn(List.of());
+
+        ResponseEntity<?> response = authController.redistributeVehiclesDirect(
+                Map.of("fromSector", "Whitefield", "toSector", "Koramangala", "unitCount", 2));
+
+        assertEquals(400, response.getStatusCode().value());
+        verify(vehicleRepository, never()).saveAll(any());
+    }
+
+    private static Vehicle vehicle(Long id, String location) {
+        Vehicle v = new Vehicle();
+        v.setId(id);
+        v.setLocation(location);
+        v.setStatus("AVAILABLE");
+        return v;
+    }
+}
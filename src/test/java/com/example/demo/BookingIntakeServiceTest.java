@@ -0,0 +1,134 @@
+package com.example.demo;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.model.BookingTicket;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.service.BookingIntakeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class BookingIntakeServiceTest {
+
+    private BookingRepository repository;
+    private BookingIntakeService intake;
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    private CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        repository = mock(BookingRepository.class);
+        when(repository.saveAll(anyList())).thenAnswer(call -> {
+            release.await(5, TimeUnit.SECONDS);
+            List<Booking> rows = (List<Booking>) call.getArgument(0);
+            for (Booking b : rows) {
+                if ("explode".equals(b.getDropLocation())) throw new IllegalStateException("constraint violation");
+            }
+            synchronized (batchSizes) {
+                batchSizes.add(rows.size());
+            }
+            for (Booking b : rows) b.setId(ids.incrementAndGet());
+            return rows;
+        });
+        intake = new BookingIntakeService();
+        ReflectionTestUtils.setField(intake, "bookingRepository", repository);
+    }
+
+    @AfterEach
+    public void teardown() {
+        release.countDown();
+        intake.stop();
+    }
+
+    @Test
+    public void testQueuedBookingsCommitInBatchesAndResolveTickets() throws Exception {
+        release = new CountDownLatch(1);
+        intake.start();
+        List<BookingTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 300; i++) tickets.add(intake.submit(booking("u" + (i % 7), "Sector 7G")));
+        BookingTicket bad = intake.submit(booking("u1", "explode"));
+        BookingTicket blank = intake.submit(booking("u2", " "));
+        release.countDown();
+
+        awaitResolved(tickets);
+        awaitResolved(List.of(bad, blank));
+        for (BookingTicket ticket : tickets) {
+            assertEquals(BookingTicket.COMMITTED, ticket.getStatus());
+            assertNotNull(ticket.getBookingId());
+            assertSame(ticket, intake.ticket(ticket.getTicket()));
+        }
+        assertEquals(BookingTicket.FAILED, bad.getStatus());
+        assertEquals(BookingTicket.REJECTED, blank.getStatus());
+        assertEquals("DROP_REQUIRED", blank.getMessage());
+
+        // Far fewer transactions than bookings; the failed batch was retried row by row
+        assertTrue(intake.stats().get("batches") instanceof Long);
+        assertTrue((Long) intake.stats().get("batches") < 50, "batches: " + intake.stats().get("batches"));
+        assertEquals(300L, intake.stats().get("committed"));
+        assertEquals(1L, intake.stats().get("failed"));
+        assertTrue(batchSizes.stream().anyMatch(size -> size > 1));
+    }
+
+    @Test
+    public void testFullBufferRefusesInsteadOfBlocking() throws Exception {
+        ReflectionTestUtils.setField(intake, "bufferSize", 4);
+        ReflectionTestUtils.setField(intake, "batchSize", 1);
+        release = new CountDownLatch(1);
+        intake.start();
+        BookingTicket first = intake.submit(booking("u1", "Industrial Hub"));
+        // Wait until the consumer holds the first booking inside saveAll
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((Integer) intake.stats().get("bufferDepth") > 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+
+        int taken = 0;
+        for (int i = 0; i < 10; i++) if (intake.submit(booking("u1", "Industrial Hub")) != null) taken++;
+        assertEquals(4, taken);
+        assertEquals(6L, intake.stats().get("rejectedBufferFull"));
+
+        release.countDown();
+        awaitResolved(List.of(first));
+        assertEquals(BookingTicket.COMMITTED, first.getStatus());
+    }
+
+    @Test
+    public void testIdleConsumerWakesOnSubmit() throws Exception {
+        intake.start();
+        // Let the consumer find the buffer empty and park
+        Thread.sleep(200);
+        long started = System.currentTimeMillis();
+        BookingTicket ticket = intake.submit(booking("u3", "Harbor Gate"));
+        while (!ticket.isResolved() && System.currentTimeMillis() - started < 5000) Thread.sleep(1);
+        assertEquals(BookingTicket.COMMITTED, ticket.getStatus());
+        assertTrue(System.currentTimeMillis() - started < 2000, "woke after " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    private static void awaitResolved(List<BookingTicket> tickets) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        for (BookingTicket ticket : tickets) {
+            while (!ticket.isResolved() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            assertTrue(ticket.isResolved(), "ticket " + ticket.getTicket() + " still " + ticket.getStatus());
+        }
+    }
+
+    private static Booking booking(String userId, String drop) {
+        Booking b = new Booking();
+        b.setUserId(userId);
+        b.setVehicleModel("EV-Sedan");
+        b.setPickupLocation("Central Command");
+        b.setDropLocation(drop);
+        return b;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.demo;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.BookingStatus;
+import com.example.demo.entity.TripHistory;
+import com.example.demo.model.RouteResponse;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TripHistoryRepository;
+import com.example.demo.service.ActiveTripEngine;
+import com.example.demo.service.AiRouteService;
+import com.example.demo.service.BookingStateService;
+import com.example.demo.service.EtaPredictionService;
+import com.example.demo.service.IdempotencyStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BookingStateServiceTest {
+
+    private BookingRepository bookings;
+    private TripHistoryRepository history;
+    private ActiveTripEngine engine;
+    private BookingStateService service;
+
+    @BeforeEach
+    public void setup() {
+        bookings = mock(BookingRepository.class);
+        history = mock(TripHistoryRepository.class);
+        engine = new ActiveTripEngine(new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(engine, "bookingRepository", bookings);
+        when(bookings.findAll()).thenReturn(List.of());
+        engine.tick();
+
+        service = new BookingStateService();
+        ReflectionTestUtils.setField(service, "bookingRepository", bookings);
+        ReflectionTestUtils.setField(service, "tripHistoryRepository", history);
+        ReflectionTestUtils.setField(service, "activeTripEngine", engine);
+    }
+
+    @Test
+    public void testStateMachineAllowsOnlyForwardMoves() {
+        assertTrue(BookingStatus.PENDING.canMoveTo(BookingStatus.APPROVED));
+        assertTrue(BookingStatus.APPROVED.canMoveTo(BookingStatus.TRIP_ACTIVE));
+        assertTrue(BookingStatus.TRIP_ACTIVE.canMoveTo(BookingStatus.COMPLETED));
+        assertTrue(BookingStatus.APPROVED.canMoveTo(BookingStatus.REJECTED));
+        assertFalse(BookingStatus.PENDING.canMoveTo(BookingStatus.TRIP_ACTIVE));
+        assertFalse(BookingStatus.TRIP_ACTIVE.canMoveTo(BookingStatus.REJECTED));
+        assertFalse(BookingStatus.COMPLETED.canMoveTo(BookingStatus.PENDING));
+        assertEquals(List.of("PENDING", "APPROVED"), BookingStatus.REJECTED.sourceNames());
+    }
+
+    @Test
+    public void testTransitionsUseTheEngineCopyAndOneConditionalStatement() {
+        engine.upsert(booking(1L, "7", "APPROVED"));
+        when(bookings.start(eq(1L), eq(List.of("APPROVED")), eq("TRIP_ACTIVE"), any())).thenReturn(1);
+
+        BookingStateService.Result started = service.start("7");
+        assertTrue(started.isApplied());
+        verify(bookings, never()).findById(any());
+        verify(bookings, never()).findFirstByUserIdAndStatusOrderByIdAsc(any(), any());
+        // The engine saw the committed move without the entity listener
+        Booking held = engine.find(1L);
+        assertEquals("TRIP_ACTIVE", held.getStatus());
+        assertEquals(1L, held.getVersion());
+        assertEquals(1, engine.stats().get("activeTrips"));
+
+        // A second tap finds no APPROVED booking anywhere
+        assertEquals(BookingStateService.Outcome.NOT_FOUND, service.start("7").getOutcome());
+    }
+
+    @Test
+    public void testLosingARaceReportsTheWinningStateAndWritesNoHistory() {
+        engine.upsert(booking(2L, "7", "TRIP_ACTIVE"));
+        when(bookings.deleteByIdAndStatus(2L, "TRIP_ACTIVE")).thenReturn(0);
+        when(bookings.findStatusById(2L)).thenReturn(Optional.empty());
+        assertEquals(BookingStateService.Outcome.NOT_FOUND, service.complete("7").getOutcome());
+        verify(history, never()).save(any());
+
+        when(bookings.deleteByIdAndStatus(2L, "TRIP_ACTIVE")).thenReturn(1);
+        BookingStateService.Result completed = service.complete("7");
+        assertTrue(completed.isApplied());
+        verify(history, times(1)).save(any(TripHistory.class));
+        assertNull(engine.find(2L));
+
+        engine.upsert(booking(3L, "8", "PENDING"));
+        when(bookings.approve(eq(3L), any(), eq("APPROVED"), any(), any())).thenReturn(0);
+        when(bookings.findStatusById(3L)).thenReturn(Optional.of("REJECTED"));
+        BookingStateService.Result approved = service.approve(3L);
+        assertEquals(BookingStateService.Outcome.CONFLICT, approved.getOutcome());
+        assertEquals("REJECTED", approved.getCurrentStatus());
+        assertEquals("PENDING", engine.find(3L).getStatus());
+    }
+
+    @Test
+    public void testApprovePlansBeforeOpeningTheTransaction() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        AiRouteService routes = mock(AiRouteService.class);
+        RouteResponse route = new RouteResponse();
+        route.setTotalDistance(12.5);
+        when(routes.getOptimizedRoute("Hebbal", "Whitefield")).thenReturn(route);
+        EtaPredictionService eta = mock(EtaPredictionService.class);
+        when(eta.predictMinutes(eq(12.5), any(), any())).thenReturn(45.0);
+        ReflectionTestUtils.setField(service, "aiRouteService", routes);
+        ReflectionTestUtils.setField(service, "etaPredictionService", eta);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        service.init();
+
+        Booking pending = booking(4L, "9", "PENDING");
+        pending.setPickupLocation("Hebbal");
+        pending.setDropLocation("Whitefield");
+        engine.upsert(pending);
+        when(bookings.approve(4L, List.of("PENDING"), "APPROVED", "12.50", "0.8")).thenReturn(1);
+
+        assertTrue(service.approve(4L).isApplied());
+        InOrder order = inOrder(routes, eta, transactionManager, bookings);
+        order.verify(routes).getOptimizedRoute("Hebbal", "Whitefield");
+        order.verify(eta).predictMinutes(eq(12.5), any(), any());
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(bookings).approve(4L, List.of("PENDING"), "APPROVED", "12.50", "0.8");
+        order.verify(transactionManager).commit(any());
+        assertEquals("12.50", engine.find(4L).getDistance());
+    }
+
+    @Test
+    public void testIdempotencyKeyReplaysTheFirstResponse() {
+        IdempotencyStore store = new IdempotencyStore();
+        AtomicInteger runs = new AtomicInteger();
+        ResponseEntity<?> first = store.execute("drop", "7", "user:7", "k1", () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok(Map.of("message", "NODE_RELEASED"));
+        });
+        ResponseEntity<?> retry = store.execute("drop", "7", "user:7", "k1", () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(404).body(Map.of("message", "NO_ACTIVE_TRIP"));
+        });
+        assertSame(first, retry);
+        assertEquals(1, runs.get());
+
+        // A retry racing the first attempt is refused; server errors can be retried for real
+        store.execute("drop", "7", "user:7", "k2", () -> {
+            assertEquals(409, store.execute("drop", "7", "user:7", "k2", () -> ResponseEntity.ok().build()).getStatusCode().value());
+            return ResponseEntity.status(500).build();
+        });
+        assertEquals(200, store.execute("drop", "7", "user:7", "k2", () -> ResponseEntity.ok().build()).getStatusCode().value());
+        assertEquals(1L, store.stats().get("replayed"));
+        assertEquals(1L, store.stats().get("rejectedInProgress"));
+    }
+
+    @Test
+    public void testIdempotencyKeyIsPinnedToCallerAndTarget() {
+        IdempotencyStore store = new IdempotencyStore();
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<ResponseEntity<?>> approve = () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok(Map.of("message", "BOOKING_AUTHORIZED"));
+        };
+        store.execute("approve", "admin", "booking:3", "k", approve);
+
+        // Same caller, same key, different booking: refused rather than replayed
+        ResponseEntity<?> other = store.execute("approve", "admin", "booking:7", "k", approve);
+        assertEquals(422, other.getStatusCode().value());
+        assertEquals(1, runs.get());
+
+        // Another caller reusing the key gets its own execution
+        assertEquals(200, store.execute("approve", "manager", "booking:7", "k", approve).getStatusCode().value());
+        assertEquals(2, runs.get());
+        assertEquals(1L, store.stats().get("rejectedMismatch"));
+    }
+
+    private static Booking booking(Long id, String userId, String status) {
+        Booking b = new Booking();
+        b.setId(id);
+        b.setUserId(userId);
+        b.setStatus(status);
+        b.setVersion(0L);
+        b.setBookingTime(LocalDateTime.now());
+        b.setDistance("100");
+        b.setDuration("2");
+        return b;
+    }
+}
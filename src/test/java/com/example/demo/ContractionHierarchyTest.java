@@ -0,0 +1,74 @@
+package com.example.demo;
+
+import com.example.demo.service.ContractionHierarchy;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.RouteSearch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContractionHierarchyTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testHierarchyMatchesDijkstraAndUnpacksToRoadEdges() throws Exception {
+        Random random = new Random(5);
+        RoadGraph.Builder builder = new RoadGraph.Builder();
+        for (int i = 0; i < 400; i++) builder.addNode(12.9 + random.nextDouble() * 0.1, 77.5 + random.nextDouble() * 0.1);
+        for (int i = 0; i < 1600; i++) {
+            int a = random.nextInt(400), b = random.nextInt(400);
+            if (random.nextBoolean()) builder.addRoad(a, b, 0, 20 + random.nextInt(40));
+            else builder.addEdge(a, b, 0, 20 + random.nextInt(40));
+        }
+        RoadGraph graph = builder.build();
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, dir.resolve("random.ch"));
+        RouteSearch search = new RouteSearch(graph);
+
+        for (int q = 0; q < 500; q++) {
+            int s = random.nextInt(400), t = random.nextInt(400);
+            float expected = search.bidirectional(s, t, graph.weights());
+            float actual = search.contracted(s, t, hierarchy);
+            assertEquals(expected, actual, 1e-2f);
+            if (actual == Float.POSITIVE_INFINITY || s == t) continue;
+
+            int at = s;
+            float sum = 0;
+            for (int i = 0; i < search.pathEdgeCount(); i++) {
+                int e = search.pathEdge(i);
+                assertEquals(at, graph.source(e));
+                sum += graph.weight(e);
+                at = graph.target(e);
+            }
+            assertEquals(t, at);
+            assertEquals(actual, sum, 1e-2f);
+        }
+    }
+
+    @Test
+    public void testPersistedHierarchyReopensAndRejectsOtherGraphs() throws Exception {
+        RoadGraph graph = RoadGraphService.syntheticGrid(30, 1L);
+        Path file = dir.resolve("grid.ch");
+        ContractionHierarchy built = ContractionHierarchy.build(graph, file);
+        ContractionHierarchy mapped = ContractionHierarchy.open(file, graph);
+        assertEquals(built.edgeCount(), mapped.edgeCount());
+        assertTrue(mapped.shortcutCount() > 0);
+
+        RouteSearch search = new RouteSearch(graph);
+        int corner = graph.nodeCount() - 1;
+        assertEquals(search.bidirectional(0, corner, graph.weights()), search.contracted(0, corner, mapped), 1e-2f);
+
+        RoadGraph reweighted = RoadGraphService.syntheticGrid(30, 2L);
+        assertThrows(IOException.class, () -> ContractionHierarchy.open(file, reweighted));
+        ContractionHierarchy rebuilt = ContractionHierarchy.openOrBuild(reweighted, file);
+        assertEquals(search.bidirectional(0, corner, reweighted.weights()),
+                new RouteSearch(reweighted).contracted(0, corner, rebuilt), 1e-2f);
+    }
+}
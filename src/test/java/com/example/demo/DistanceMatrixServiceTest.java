@@ -0,0 +1,122 @@
+package com.example.demo;
+
+import com.example.demo.model.DistanceMatrix;
+import com.example.demo.service.ContractionHierarchy;
+import com.example.demo.service.DistanceMatrixService;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.RouteSearch;
+import com.example.demo.service.TrafficOverlay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistanceMatrixServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private RoadGraphService graphService;
+    private DistanceMatrixService matrixService;
+
+    @BeforeEach
+    public void setup() {
+        graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(graphService, "gridSize", 60);
+        ReflectionTestUtils.setField(graphService, "hierarchyEnabled", false);
+        graphService.load();
+        TrafficOverlay overlay = new TrafficOverlay();
+        ReflectionTestUtils.setField(overlay, "roadGraphService", graphService);
+        overlay.init();
+
+        matrixService = new DistanceMatrixService();
+        ReflectionTestUtils.setField(matrixService, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(matrixService, "trafficOverlay", overlay);
+        ReflectionTestUtils.setField(matrixService, "maxCells", 10_000);
+        matrixService.init();
+    }
+
+    @AfterEach
+    public void teardown() {
+        matrixService.shutdown();
+    }
+
+    @Test
+    public void testMatrixMatchesPointToPointSearches() {
+        RoadGraph graph = graphService.getGraph();
+        Random random = new Random(3);
+        int[] sources = new int[30];
+        int[] targets = new int[25];
+        for (int i = 0; i < sources.length; i++) sources[i] = random.nextInt(graph.nodeCount());
+        for (int j = 0; j < targets.length; j++) targets[j] = random.nextInt(graph.nodeCount());
+        targets[3] = targets[7];      // duplicate destination
+        targets[4] = sources[2];      // origin == destination for one pair
+
+        DistanceMatrix matrix = matrixService.compute(sources, targets);
+        assertEquals(30 * 25, matrix.getDurations().length);
+
+        RouteSearch search = new RouteSearch(graph);
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < targets.length; j++) {
+                float expected = search.bidirectional(sources[i], targets[j], graph.weights());
+                assertEquals(expected, matrix.duration(i, j), 1e-2f);
+                assertEquals(search.pathLengthMeters(), matrix.distance(i, j), 1.0);
+            }
+        }
+        assertEquals(0f, matrix.duration(2, 4));
+    }
+
+    @Test
+    public void testHierarchyBucketsMatchDijkstraMatrix() throws Exception {
+        RoadGraph graph = graphService.getGraph();
+        Random random = new Random(9);
+        int[] sources = new int[40];
+        int[] targets = new int[35];
+        for (int i = 0; i < sources.length; i++) sources[i] = random.nextInt(graph.nodeCount());
+        for (int j = 0; j < targets.length; j++) targets[j] = random.nextInt(graph.nodeCount());
+        targets[5] = sources[1];
+        DistanceMatrix dijkstra = matrixService.compute(sources, targets);
+
+        // Free flow and a hierarchy: compute() switches to buckets
+        ReflectionTestUtils.setField(graphService, "hierarchy",
+                ContractionHierarchy.build(graph, dir.resolve("grid.ch")));
+        DistanceMatrix buckets = matrixService.compute(sources, targets);
+        DistanceMatrix freeFlow = matrixService.computeFreeFlow(sources, targets);
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < targets.length; j++) {
+                assertEquals(dijkstra.duration(i, j), buckets.duration(i, j), 1e-2f);
+                assertEquals(dijkstra.distance(i, j), buckets.distance(i, j), 1.0);
+                assertEquals(buckets.duration(i, j), freeFlow.duration(i, j));
+            }
+        }
+        assertEquals(0f, buckets.duration(1, 5));
+    }
+
+    @Test
+    public void testNamedPlacesAndLimits() {
+        DistanceMatrix matrix = matrixService.compute(List.of("Sector 7G", "12.95,77.60"),
+                List.of("Central Command", "Industrial Hub", "Sector 7G"));
+        assertEquals(2, matrix.getOrigins());
+        assertEquals(3, matrix.getDestinations());
+        assertEquals(0f, matrix.duration(0, 2));
+        assertTrue(matrix.duration(0, 0) > 0);
+
+        List<String> many = Collections.nCopies(101, "Sector 7G");
+        assertThrows(IllegalArgumentException.class, () -> matrixService.compute(many, many));
+        assertThrows(IllegalArgumentException.class, () -> matrixService.compute(List.of(), List.of("Sector 7G")));
+        assertThrows(IllegalArgumentException.class, () -> matrixService.compute(List.of("Atlantis"), List.of("Sector 7G")));
+
+        // 50k x 50k overflows an int cell count; refused before anything is allocated
+        int[] fleet = new int[50_000];
+        assertThrows(IllegalArgumentException.class, () -> matrixService.computeFreeFlow(fleet, fleet));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo;
+
+import com.example.demo.entity.TripHistory;
+import com.example.demo.repository.TripHistoryRepository;
+import com.example.demo.service.EtaModel;
+import com.example.demo.service.EtaPredictionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EtaModelTest {
+
+    // Known ground truth: 3 min overhead, 0.8 min/km, +0.5 min/km in the evening peak, +0.2 for the van
+    private static double truth(double km, int hourOfWeek, String model) {
+        int hour = hourOfWeek % 24;
+        double pace = 0.8 + (hour >= 17 && hour < 20 ? 0.5 : 0) + ("van".equals(model) ? 0.2 : 0);
+        return 3 + km * pace;
+    }
+
+    @Test
+    public void testRecoversPaceAndPredictsConsistently(@TempDir Path dir) throws Exception {
+        Random random = new Random(8);
+        String[] models = {"sedan", "van", "Sedan ", null};
+        EtaModel.Samples samples = new EtaModel.Samples();
+        for (int i = 0; i < 4000; i++) {
+            double km = 1 + random.nextDouble() * 60;
+            int hour = random.nextInt(168);
+            String model = models[random.nextInt(models.length)];
+            String normalized = model == null ? null : model.trim().toLowerCase();
+            samples.add(km, hour, model, truth(km, hour, normalized) * (1 + random.nextGaussian() * 0.05));
+        }
+        EtaModel model = EtaModel.train(samples, 1.0, 8, 1, 0);
+        double[] errors = model.evaluate(samples, 1, 0);
+        assertTrue(errors[1] < 5, "MAPE " + errors[1]);
+
+        assertEquals(truth(30, 18, "van"), model.predict(30, 18, model.modelIndex("VAN")), 1.0);
+        assertEquals(truth(30, 10, "sedan"), model.predict(30, 10, model.modelIndex("sedan")), 1.0);
+        assertEquals(-1, model.modelIndex("bus"));
+
+        // Batch path equals the single path; file round trip is exact
+        int n = 100;
+        double[] km = new double[n], out = new double[n];
+        int[] hours = new int[n], indexes = new int[n];
+        for (int i = 0; i < n; i++) {
+            km[i] = random.nextDouble() * 80;
+            hours[i] = random.nextInt(168);
+            indexes[i] = random.nextInt(3) - 1;
+        }
+        model.predict(km, hours, indexes, out, n);
+        model.write(dir.resolve("eta.bin"));
+        EtaModel reloaded = EtaModel.read(dir.resolve("eta.bin"));
+        for (int i = 0; i < n; i++) {
+            assertEquals(model.predict(km[i], hours[i], indexes[i]), out[i]);
+            assertEquals(out[i], reloaded.predict(km[i], hours[i], indexes[i]));
+        }
+        assertEquals(model.modelIndex("van"), reloaded.modelIndex("van"));
+    }
+
+    @Test
+    public void testServiceTrainsFromHistoryAndFallsBackWithoutData(@TempDir Path dir) {
+        TripHistoryRepository repository = mock(TripHistoryRepository.class);
+        EtaPredictionService service = new EtaPredictionService();
+        ReflectionTestUtils.setField(service, "tripHistoryRepository", repository);
+        ReflectionTestUtils.setField(service, "modelPath", dir.resolve("eta.bin").toString());
+
+        when(repository.findAll()).thenReturn(new ArrayList<>());
+        assertEquals("INSUFFICIENT_DATA", service.train().get("state"));
+        assertEquals(60.0, service.predictMinutes(77.6, LocalDateTime.now(), "van"), 1e-9);
+
+        Random random = new Random(4);
+        List<TripHistory> trips = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2026, 3, 2, 0, 0);
+        for (int i = 0; i < 600; i++) {
+            double km = 2 + random.nextDouble() * 40;
+            LocalDateTime start = base.plusMinutes(random.nextInt(7 * 24 * 60));
+            double minutes = truth(km, EtaModel.hourOfWeek(start), "van");
+            TripHistory trip = new TripHistory();
+            trip.setVehicleModel("Van");
+            trip.setDistance(String.format(Locale.ROOT, "%.2f", km));
+            trip.setDuration(String.format(Locale.ROOT, "%.4f", minutes / 60));
+            trip.setCompletedAt(start.plusSeconds(Math.round(minutes * 60)));
+            trips.add(trip);
+        }
+        TripHistory broken = new TripHistory();
+        broken.setDistance("n/a");
+        broken.setDuration("3.2");
+        broken.setCompletedAt(base);
+        trips.add(broken);
+        when(repository.findAll()).thenReturn(trips);
+
+        Map<String, Object> result = service.train();
+        assertEquals("TRAINED", result.get("state"));
+        assertEquals(1, result.get("skipped"));
+        assertTrue((Double) result.get("holdoutMaeMinutes") < 1.0, result.toString());
+        assertTrue(dir.resolve("eta.bin").toFile().isFile());
+        double predicted = service.predictMinutes(20, LocalDateTime.of(2026, 3, 3, 18, 0), "van");
+        assertEquals(truth(20, 18, "van"), predicted, 1.0);
+
+        // The background retry stops reading history once a model is serving
+        service.trainIfMissing();
+        verify(repository, times(2)).findAll();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo;
+
+import com.example.demo.model.Isochrone;
+import com.example.demo.model.SectorCoverage;
+import com.example.demo.service.IsochroneService;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.RouteSearch;
+import com.example.demo.service.TrafficOverlay;
+import com.example.demo.service.VehicleSpatialIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IsochroneServiceTest {
+
+    private RoadGraphService graphService;
+    private VehicleSpatialIndex spatialIndex;
+    private IsochroneService isochroneService;
+
+    @BeforeEach
+    public void setup() {
+        graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(graphService, "gridSize", 80);
+        ReflectionTestUtils.setField(graphService, "hierarchyEnabled", false);
+        graphService.load();
+        TrafficOverlay overlay = new TrafficOverlay();
+        ReflectionTestUtils.setField(overlay, "roadGraphService", graphService);
+        overlay.init();
+        spatialIndex = new VehicleSpatialIndex();
+
+        isochroneService = new IsochroneService();
+        ReflectionTestUtils.setField(isochroneService, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(isochroneService, "trafficOverlay", overlay);
+        ReflectionTestUtils.setField(isochroneService, "spatialIndex", spatialIndex);
+        isochroneService.init();
+    }
+
+    @AfterEach
+    public void teardown() {
+        isochroneService.shutdown();
+    }
+
+    @Test
+    public void testBoundedSearchSettlesExactlyTheReachableNodes() {
+        RoadGraph graph = graphService.getGraph();
+        int source = graph.nearestNode(12.9716, 77.5946);
+        float limit = 300f;
+        float[] bounded = new float[graph.nodeCount()];
+        Arrays.fill(bounded, -1f);
+        RouteSearch search = new RouteSearch(graph);
+        search.bounded(source, graph.weights(), limit, (node, duration, meters) -> bounded[node] = duration);
+
+        int[] all = new int[graph.nodeCount()];
+        for (int i = 0; i < all.length; i++) all[i] = i;
+        float[] durations = new float[all.length], meters = new float[all.length];
+        search.oneToMany(source, all, graph.weights(), durations, meters, 0);
+        int reachable = 0;
+        for (int node = 0; node < all.length; node++) {
+            if (durations[node] >= 0 && durations[node] <= limit) {
+                reachable++;
+                assertEquals(durations[node], bounded[node], 1e-3f);
+            } else {
+                assertEquals(-1f, bounded[node]);
+            }
+        }
+        assertTrue(reachable > 10 && reachable < all.length);
+    }
+
+    @Test
+    public void testPolygonCoversReachableNodesAndIsCached() {
+        RoadGraph graph = graphService.getGraph();
+        Isochrone small = isochroneService.compute("Sector 7G", 3);
+        Isochrone large = isochroneService.compute("Sector 7G", 6);
+        assertTrue(small.getPolygon().length >= 6);
+        assertTrue(large.getAreaKm2() > small.getAreaKm2());
+        assertSame(small, isochroneService.compute("12.9716,77.5946", 3));
+        assertEquals(1L, isochroneService.stats().get("hits"));
+
+        // Nodes within the budget lie inside the outline (bar a few exactly on it); the farthest node does not
+        Isochrone eight = isochroneService.compute("Sector 7G", 8);
+        int source = graph.nearestNode(12.9716, 77.5946);
+        float[] durations = new float[graph.nodeCount()], meters = new float[graph.nodeCount()];
+        int[] all = new int[graph.nodeCount()];
+        for (int i = 0; i < all.length; i++) all[i] = i;
+        new RouteSearch(graph).oneToMany(source, all, graph.weights(), durations, meters, 0);
+        int reachable = 0, inside = 0, farthest = 0;
+        for (int node = 0; node < all.length; node++) {
+            if (durations[node] > durations[farthest]) farthest = node;
+            if (durations[node] < 0 || durations[node] > 480) continue;
+            reachable++;
+            if (contains(eight.getPolygon(), graph.latitude(node), graph.longitude(node))) inside++;
+        }
+        assertEquals(reachable, eight.getReachableNodes());
+        assertTrue(inside >= reachable * 0.97, inside + " of " + reachable);
+        assertFalse(contains(eight.getPolygon(), graph.latitude(farthest), graph.longitude(farthest)));
+
+        assertThrows(IllegalArgumentException.class, () -> isochroneService.compute("Sector 7G", 0));
+        assertThrows(IllegalArgumentException.class, () -> isochroneService.compute("nowhere", 5));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCoverageFindsGapsAndSuggestsMoves() {
+        double[] hub = graphService.getPlaces().get("industrial hub");
+        for (long id = 1; id <= 4; id++) spatialIndex.upsert(id, hub[0], hub[1] + id * 1e-4, "AVAILABLE", 4);
+        spatialIndex.upsert(9, hub[0], hub[1], "IN USE", 4);
+
+        Map<String, Object> coverage = isochroneService.coverage(2);
+        List<SectorCoverage> sectors = (List<SectorCoverage>) coverage.get("sectors");
+        assertEquals(graphService.getPlaces().size(), sectors.size());
+        SectorCoverage industrial = sectors.stream().filter(s -> s.getSector().equals("industrial hub")).findFirst().get();
+        assertEquals(4, industrial.getAvailableUnits());
+        assertEquals(3, industrial.getSurplus());
+
+        List<String> gaps = (List<String>) coverage.get("gaps");
+        List<Map<String, Object>> moves = (List<Map<String, Object>>) coverage.get("suggestedMoves");
+        assertFalse(gaps.isEmpty());
+        assertFalse(gaps.contains("industrial hub"));
+        assertEquals(Math.min(3, gaps.size()), moves.size());
+        for (Map<String, Object> move : moves) assertEquals("industrial hub", move.get("fromSector"));
+    }
+
+    // Same even-odd rule the service uses, over flat [lat, lon] vertices
+    private static boolean contains(double[] polygon, double lat, double lon) {
+        boolean inside = false;
+        for (int i = 0, j = polygon.length - 2; i < polygon.length; j = i, i += 2) {
+            if ((polygon[i] > lat) != (polygon[j] > lat)
+                    && lon < (polygon[j + 1] - polygon[i + 1]) * (lat - polygon[i]) / (polygon[j] - polygon[i]) + polygon[i + 1]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.demo;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.Vehicle;
+import com.example.demo.model.LoadPlan;
+import com.example.demo.service.DistanceMatrixService;
+import com.example.demo.service.LoadOptimizerService;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.TrafficOverlay;
+import com.example.demo.service.VehicleSpatialIndex;
+import com.example.demo.service.VrpSolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadOptimizerTest {
+
+    @Test
+    public void testSolverKeepsRoutesFeasibleAndImprovesConstruction() {
+        int vehicles = 12, bookings = 80, size = vehicles + 2 * bookings;
+        Random random = new Random(4);
+        double[] x = new double[size], y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = random.nextDouble() * 10_000;
+            y[i] = random.nextDouble() * 10_000;
+        }
+        // Rows: every location; columns: stops only
+        int columns = 2 * bookings;
+        float[] meters = new float[size * columns], durations = new float[size * columns];
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < columns; b++) {
+                meters[a * columns + b] = (float) Math.hypot(x[a] - x[vehicles + b], y[a] - y[vehicles + b]);
+                durations[a * columns + b] = meters[a * columns + b] / 10f;
+            }
+        }
+        int[] seats = new int[vehicles];
+        float[] range = new float[vehicles];
+        for (int v = 0; v < vehicles; v++) {
+            seats[v] = 2 + v % 3;
+            range[v] = v == 0 ? 0f : 150_000f; // vehicle 0 has no fuel
+        }
+        float maxRouteSeconds = 7200f, stopSeconds = 30f;
+
+        VrpSolver solver = new VrpSolver(vehicles, bookings, durations, meters, seats, range, maxRouteSeconds, stopSeconds);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            solver.solve(pool, 300, 1L);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Set<Integer> served = new HashSet<>();
+        for (int v = 0; v < vehicles; v++) {
+            if (v == 0) assertEquals(0, solver.routeLength(v));
+            Set<Integer> onBoard = new HashSet<>();
+            int at = v;
+            float seconds = 0, distance = 0;
+            for (int k = 0; k < solver.routeLength(v); k++) {
+                int stop = solver.stop(v, k);
+                int location = vehicles + stop;
+                seconds += durations[at * columns + stop] + stopSeconds;
+                distance += meters[at * columns + stop];
+                if ((stop & 1) == 0) {
+                    assertTrue(served.add(stop >> 1), "booking served twice");
+                    onBoard.add(stop >> 1);
+                    assertTrue(onBoard.size() <= seats[v], "over capacity");
+                } else {
+                    assertTrue(onBoard.remove(stop >> 1), "drop before pickup");
+                }
+                at = location;
+            }
+            assertTrue(onBoard.isEmpty());
+            assertTrue(seconds <= maxRouteSeconds + 1e-2f);
+            assertTrue(distance <= range[v]);
+            assertEquals(seconds, solver.routeSeconds(v), 1e-1f);
+        }
+        for (int b : solver.unassigned()) assertTrue(served.add(b));
+        assertEquals(bookings, served.size());
+
+        Map<String, Object> metrics = solver.metrics();
+        float construction = (Float) metrics.get("constructionCost");
+        float finalCost = (Float) metrics.get("finalCost");
+        assertTrue(finalCost < construction, "local search should improve on cheapest insertion");
+        assertEquals(finalCost, solver.totalCost());
+    }
+
+    @Test
+    public void testVehicleCapKeepsUnitsNearestThePickups() {
+        RoadGraphService graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(graphService, "gridSize", 40);
+        ReflectionTestUtils.setField(graphService, "hierarchyEnabled", false);
+        graphService.load();
+        TrafficOverlay overlay = new TrafficOverlay();
+        ReflectionTestUtils.setField(overlay, "roadGraphService", graphService);
+        overlay.init();
+        DistanceMatrixService matrixService = new DistanceMatrixService();
+        ReflectionTestUtils.setField(matrixService, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(matrixService, "trafficOverlay", overlay);
+        matrixService.init();
+        VehicleSpatialIndex index = new VehicleSpatialIndex();
+        LoadOptimizerService optimizer = new LoadOptimizerService();
+        ReflectionTestUtils.setField(optimizer, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(optimizer, "distanceMatrixService", matrixService);
+        ReflectionTestUtils.setField(optimizer, "spatialIndex", index);
+        ReflectionTestUtils.setField(optimizer, "maxVehicles", 2);
+        optimizer.init();
+
+        try {
+            double[] hub = graphService.resolve("Sector 7G");
+            RoadGraph graph = graphService.getGraph();
+            List<Vehicle> vehicles = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                // Units 0-7 parked in the far corner, 8 and 9 next to the pickup
+                double lat = i < 8 ? graph.latitude(0) : hub[0] + 0.001 * (i - 7);
+                double lon = i < 8 ? graph.longitude(0) : hub[1];
+                Vehicle v = new Vehicle();
+                v.setId(200L + i);
+                v.setLocation(lat + "," + lon);
+                v.setSeats(4);
+                v.setFuel(80);
+                vehicles.add(v);
+                index.upsert(v.getId(), lat, lon, "AVAILABLE", 4);
+            }
+            Booking booking = new Booking();
+            booking.setId(1L);
+            booking.setPickupLocation("Sector 7G");
+            booking.setDropLocation("Central Command");
+
+            LoadPlan plan = optimizer.optimize(vehicles, List.of(booking), 50);
+            Set<Long> planned = new HashSet<>();
+            for (LoadPlan.VehicleRoute route : plan.getVehicles()) planned.add(route.getId());
+            assertEquals(Set.of(208L, 209L), planned);
+            assertEquals(10, plan.getMetrics().get("availableVehicles"));
+            assertEquals(2, plan.getMetrics().get("vehicles"));
+            assertEquals(1, plan.getMetrics().get("vehiclesUsed"));
+        } finally {
+            optimizer.shutdown();
+            matrixService.shutdown();
+        }
+    }
+
+    @Test
+    public void testServicePlansEntitiesOverRoadGraph() {
+        RoadGraphService graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(graphService, "gridSize", 40);
+        ReflectionTestUtils.setField(graphService, "hierarchyEnabled", false);
+        graphService.load();
+        TrafficOverlay overlay = new TrafficOverlay();
+        ReflectionTestUtils.setField(overlay, "roadGraphService", graphService);
+        overlay.init();
+        DistanceMatrixService matrixService = new DistanceMatrixService();
+        ReflectionTestUtils.setField(matrixService, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(matrixService, "trafficOverlay", overlay);
+        matrixService.init();
+        LoadOptimizerService optimizer = new LoadOptimizerService();
+        ReflectionTestUtils.setField(optimizer, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(optimizer, "distanceMatrixService", matrixService);
+        optimizer.init();
+
+        try {
+            List<Vehicle> vehicles = new ArrayList<>();
+            String[] places = {"Sector 7G", "Industrial Hub", "Central Command", "12.95,77.60"};
+            for (int i = 0; i < 4; i++) {
+                Vehicle v = new Vehicle();
+                v.setId(100L + i);
+                v.setModel("Van " + i);
+                v.setLocation(places[i]);
+                v.setSeats(i == 3 ? null : 4);
+                v.setFuel(80);
+                vehicles.add(v);
+            }
+            Vehicle lost = new Vehicle();
+            lost.setId(999L);
+            lost.setLocation("Atlantis");
+            vehicles.add(lost);
+
+            List<Booking> bookings = new ArrayList<>();
+            Random random = new Random(8);
+            for (int i = 0; i < 20; i++) {
+                Booking b = new Booking();
+                b.setId((long) i + 1);
+                b.setPickupLocation(String.format("%.4f,%.4f", 12.92 + random.nextDouble() * 0.06, 77.57 + random.nextDouble() * 0.06));
+                b.setDropLocation(i == 5 ? "Nowhere" : places[random.nextInt(3)]);
+                bookings.add(b);
+            }
+
+            LoadPlan plan = optimizer.optimize(vehicles, bookings, 100);
+            assertEquals(4, plan.getVehicles().size());
+            assertTrue(plan.getUnassignedBookings().contains(6L));
+            assertEquals(1, plan.getMetrics().get("unroutable"));
+
+            int stops = 0;
+            for (LoadPlan.VehicleRoute route : plan.getVehicles()) {
+                assertEquals(4, route.getSeats());
+                assertTrue(route.getLoadPercentage() <= 100);
+                double lastEta = -1;
+                for (LoadPlan.Stop stop : route.getStops()) {
+                    assertTrue(stop.getEtaMinutes() >= lastEta);
+                    lastEta = stop.getEtaMinutes();
+                }
+                stops += route.getStops().size();
+            }
+            assertEquals(2 * (19 - (plan.getUnassignedBookings().size() - 1)), stops);
+        } finally {
+            optimizer.shutdown();
+            matrixService.shutdown();
+        }
+    }
+}
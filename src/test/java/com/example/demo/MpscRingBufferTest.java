@@ -0,0 +1,69 @@
+package com.example.demo;
+
+import com.example.demo.service.MpscRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void testOffer_RejectsWhenFull() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) assertTrue(buffer.offer(i));
+        assertFalse(buffer.offer(99));
+
+        List<Integer> out = new ArrayList<>();
+        assertEquals(2, buffer.drain(out::add, 2));
+        assertEquals(List.of(0, 1), out);
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(5));
+        assertFalse(buffer.offer(6));
+
+        buffer.drain(out::add, 10);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), out);
+    }
+
+    @Test
+    public void testConcurrentProducers_NothingLostOrDuplicated() throws Exception {
+        MpscRingBuffer<Long> buffer = new MpscRingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            Thread t = new Thread(() -> {
+                try { start.await(); } catch (InterruptedException e) { return; }
+                for (long i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) Thread.onSpinWait();
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+
+        boolean[] seen = new boolean[producers * perProducer];
+        long[] lastPerProducer = new long[producers];
+        Arrays.fill(lastPerProducer, -1);
+        int[] received = {0};
+        start.countDown();
+        while (received[0] < seen.length) {
+            buffer.drain(v -> {
+                assertFalse(seen[v.intValue()], "duplicate " + v);
+                seen[v.intValue()] = true;
+                int producer = (int) (v / perProducer);
+                assertTrue(v > lastPerProducer[producer], "per-producer order");
+                lastPerProducer[producer] = v;
+                received[0]++;
+            }, 256);
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(0, buffer.size());
+    }
+}
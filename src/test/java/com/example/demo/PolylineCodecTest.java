@@ -0,0 +1,126 @@
+package com.example.demo;
+
+import com.example.demo.controller.RouteController;
+import com.example.demo.model.EncodedRoute;
+import com.example.demo.model.RouteResponse;
+import com.example.demo.service.AiRouteService;
+import com.example.demo.service.PolylineCodec;
+import com.example.demo.service.RoadGraph;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PolylineCodecTest {
+
+    // Winding road of ~2,000 points around Bengaluru, one every ~20 m
+    private static double[] winding(int points) {
+        Random random = new Random(2);
+        double[] path = new double[points * 2];
+        double lat = 12.97, lon = 77.59, heading = 0;
+        for (int i = 0; i < points; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.6;
+            lat += Math.cos(heading) * 0.00018;
+            lon += Math.sin(heading) * 0.00018;
+            path[2 * i] = lat;
+            path[2 * i + 1] = lon;
+        }
+        return path;
+    }
+
+    @Test
+    public void testEncodingsRoundTripAndMatchReferencePolyline() {
+        // Reference example from the encoded polyline format description
+        double[] reference = {38.5, -120.2, 40.7, -120.95, 43.252, -126.453};
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", PolylineCodec.encode(reference, 5));
+        assertArrayEquals(reference, PolylineCodec.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@", 5), 1e-9);
+
+        double[] path = winding(2000);
+        double[] text = PolylineCodec.decode(PolylineCodec.encode(path, 5), 5);
+        double[] binary = PolylineCodec.decodeBinary(PolylineCodec.encodeBinary(path, 6));
+        assertEquals(path.length, text.length);
+        assertArrayEquals(path, text, 0.6e-5);
+        assertArrayEquals(path, binary, 0.6e-6);
+        assertArrayEquals(new double[0], PolylineCodec.decodeBinary(PolylineCodec.encodeBinary(new double[0], 6)));
+
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode("_p~iF~ps|U_", 5));
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decodeBinary(new byte[]{6, 5, (byte) 0x80}));
+    }
+
+    @Test
+    public void testSimplifyKeepsShapeWithinTolerance() {
+        double[] path = winding(2000);
+        double tolerance = PolylineCodec.toleranceForZoom(14, path[0]);
+        double[] simplified = PolylineCodec.simplify(path, tolerance);
+        assertTrue(simplified.length < path.length / 3);
+        assertEquals(path[0], simplified[0]);
+        assertEquals(path[path.length - 1], simplified[simplified.length - 1]);
+
+        // Every dropped point lies within the tolerance of the simplified line (plus projection slack)
+        for (int i = 0; i < path.length; i += 2) {
+            double best = Double.MAX_VALUE;
+            for (int j = 0; j + 3 < simplified.length; j += 2) {
+                best = Math.min(best, segmentDistance(path[i], path[i + 1], simplified[j], simplified[j + 1],
+                        simplified[j + 2], simplified[j + 3]));
+            }
+            assertTrue(best <= tolerance * 1.01 + 0.01, "point " + i / 2 + " is " + best + " m off");
+        }
+        assertSame(path, PolylineCodec.simplify(path, 0));
+        assertTrue(PolylineCodec.toleranceForZoom(5, 12.97) > PolylineCodec.toleranceForZoom(15, 12.97));
+    }
+
+    private static double segmentDistance(double lat, double lon, double lat1, double lon1, double lat2, double lon2) {
+        double k = Math.cos(Math.toRadians(lat1));
+        double px = (lon - lon1) * k, py = lat - lat1, dx = (lon2 - lon1) * k, dy = lat2 - lat1;
+        double length2 = dx * dx + dy * dy;
+        double t = length2 == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / length2));
+        return RoadGraph.distanceMeters(lat, lon, lat1 + t * dy, lon1 + t * dx / k);
+    }
+
+    @Test
+    public void testControllerNegotiatesCompactFormats() throws Exception {
+        RouteResponse route = new RouteResponse();
+        route.setPath(winding(2000));
+        route.setTotalDistance(36.0);
+        route.setEstimatedTime(42.5);
+        route.setSuggestion("AI_OPTIMIZED");
+        AiRouteService routeService = mock(AiRouteService.class);
+        when(routeService.getOptimizedRoute(any(), any(), any())).thenReturn(route);
+        RouteController controller = new RouteController();
+        ReflectionTestUtils.setField(controller, "aiRouteService", routeService);
+        ObjectMapper mapper = new ObjectMapper();
+
+        ResponseEntity<?> json = controller.getRoute("a", "b", null, null, null);
+        assertEquals(MediaType.APPLICATION_JSON, json.getHeaders().getContentType());
+        String jsonBody = mapper.writeValueAsString(json.getBody());
+        assertTrue(jsonBody.startsWith("{\"coordinates\":[[12.97"));
+
+        ResponseEntity<?> polyline = controller.getRoute("a", "b", null, null,
+                "application/json;q=0.5, " + PolylineCodec.POLYLINE_JSON);
+        assertEquals(PolylineCodec.POLYLINE_JSON, String.valueOf(polyline.getHeaders().getContentType()));
+        EncodedRoute encoded = (EncodedRoute) polyline.getBody();
+        assertEquals(2000, encoded.getPoints());
+        assertEquals(42.5, encoded.getEstimatedTime());
+        int polylineBytes = mapper.writeValueAsBytes(encoded).length;
+        assertTrue(jsonBody.length() >= 5 * polylineBytes, jsonBody.length() + " vs " + polylineBytes);
+
+        ResponseEntity<?> binary = controller.getRoute("a", "b", null, null, "application/octet-stream");
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, binary.getHeaders().getContentType());
+        assertEquals("42.5", binary.getHeaders().getFirst("X-Route-Eta-Minutes"));
+        assertTrue(jsonBody.length() >= 8 * ((byte[]) binary.getBody()).length);
+
+        ResponseEntity<?> zoomed = controller.getRoute("a", "b", null, 12, null);
+        assertTrue(((RouteResponse) zoomed.getBody()).getPath().length < route.getPath().length / 5);
+        assertEquals(4000, route.getPath().length); // the cached original is untouched
+
+        assertEquals(400, controller.getRoute("a", "b", null, null, "not a type").getStatusCode().value());
+    }
+}
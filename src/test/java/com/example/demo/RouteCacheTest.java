@@ -0,0 +1,105 @@
+package com.example.demo;
+
+import com.example.demo.model.RouteResponse;
+import com.example.demo.service.RouteCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteCacheTest {
+
+    private static RouteCache.Entry route(int... edges) {
+        return new RouteCache.Entry(new RouteResponse(), edges);
+    }
+
+    @Test
+    public void testRepeatQueriesHitAndLeastRecentlyUsedIsEvicted() {
+        RouteCache cache = new RouteCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        AtomicInteger computed = new AtomicInteger();
+
+        RouteCache.Entry first = cache.get(1, 2, "ch", () -> { computed.incrementAndGet(); return route(10); });
+        assertSame(first, cache.get(1, 2, "ch", () -> { computed.incrementAndGet(); return route(10); }));
+        assertEquals(1, computed.get());
+
+        cache.get(3, 4, "ch", () -> route(11));
+        cache.get(1, 2, "ch", () -> route(10)); // touch 1->2 so 3->4 is the eldest
+        cache.get(5, 6, "ch", () -> route(12));
+        cache.get(3, 4, "ch", () -> { computed.incrementAndGet(); return route(11); });
+        assertEquals(2, computed.get());
+
+        Map<String, Object> stats = cache.stats();
+        assertEquals(2, stats.get("size"));
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(4L, stats.get("misses"));
+        assertEquals(2L, stats.get("evictions"));
+    }
+
+    @Test
+    public void testConcurrentMissesComputeOnce() throws Exception {
+        RouteCache cache = new RouteCache();
+        AtomicInteger computed = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] calls = new Future<?>[8];
+            for (int i = 0; i < calls.length; i++) {
+                calls[i] = pool.submit(() -> cache.get(7, 8, "ch", () -> {
+                    computed.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return route(1, 2, 3);
+                }));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> call : calls) call.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, computed.get());
+        Map<String, Object> stats = cache.stats();
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(7L, (Long) stats.get("hits") + (Long) stats.get("coalesced"));
+    }
+
+    @Test
+    public void testTrafficChangeEvictsOnlyRoutesOverChangedEdges() {
+        RouteCache cache = new RouteCache();
+        cache.get(1, 2, "ch", () -> route(10, 11, 12));
+        cache.get(3, 4, "ch", () -> route(20, 21));
+        cache.get(5, 6, "ch", () -> new RouteCache.Entry(null, new int[0])); // no route, cached too
+
+        BitSet changed = new BitSet();
+        changed.set(11);
+        assertEquals(1, cache.invalidateEdges(changed));
+
+        AtomicInteger computed = new AtomicInteger();
+        cache.get(1, 2, "ch", () -> { computed.incrementAndGet(); return route(10, 11, 12); });
+        cache.get(3, 4, "ch", () -> { computed.incrementAndGet(); return route(20, 21); });
+        assertNull(cache.get(5, 6, "ch", () -> { computed.incrementAndGet(); return route(); }).getRoute());
+        assertEquals(1, computed.get());
+        assertEquals(1L, cache.stats().get("invalidations"));
+    }
+
+    @Test
+    public void testFailuresAreNotCached() {
+        RouteCache cache = new RouteCache();
+        assertThrows(IllegalStateException.class,
+                () -> cache.get(1, 2, "ch", () -> { throw new IllegalStateException("graph unavailable"); }));
+        assertNotNull(cache.get(1, 2, "ch", () -> route(4)).getRoute());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo;
+
+import com.example.demo.model.RouteResponse;
+import com.example.demo.service.AiRouteService;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.RouteCache;
+import com.example.demo.service.RouteSearch;
+import com.example.demo.service.TrafficOverlay;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteSearchTest {
+
+    @TempDir
+    Path dir;
+
+    // Plain O(n^2) Dijkstra as the reference
+    private static float[] reference(RoadGraph graph, int source) {
+        float[] dist = new float[graph.nodeCount()];
+        boolean[] done = new boolean[graph.nodeCount()];
+        Arrays.fill(dist, Float.POSITIVE_INFINITY);
+        dist[source] = 0;
+        for (int round = 0; round < graph.nodeCount(); round++) {
+            int u = -1;
+            for (int v = 0; v < dist.length; v++) if (!done[v] && (u < 0 || dist[v] < dist[u])) u = v;
+            if (u < 0 || dist[u] == Float.POSITIVE_INFINITY) break;
+            done[u] = true;
+            for (int e = graph.firstEdge(u); e < graph.lastEdge(u); e++) {
+                dist[graph.target(e)] = Math.min(dist[graph.target(e)], dist[u] + graph.weight(e));
+            }
+        }
+        return dist;
+    }
+
+    private static RoadGraph randomGraph(Random random, int nodes, int edges) {
+        RoadGraph.Builder builder = new RoadGraph.Builder();
+        for (int i = 0; i < nodes; i++) builder.addNode(12.9 + random.nextDouble() * 0.1, 77.5 + random.nextDouble() * 0.1);
+        for (int i = 0; i < edges; i++) {
+            // lengths never below the straight line keep the A* heuristic admissible
+            builder.addEdge(random.nextInt(nodes), random.nextInt(nodes), 0, 10 + random.nextInt(60));
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testSearchesMatchReferenceDijkstra() {
+        Random random = new Random(7);
+        for (int g = 0; g < 5; g++) {
+            RoadGraph graph = randomGraph(random, 300, 1200);
+            RouteSearch search = new RouteSearch(graph);
+            for (int q = 0; q < 40; q++) {
+                int s = random.nextInt(graph.nodeCount());
+                int t = random.nextInt(graph.nodeCount());
+                float expected = reference(graph, s)[t];
+
+                float bidirectional = search.bidirectional(s, t, graph.weights());
+                assertEquals(expected, bidirectional, 1e-2f);
+                assertPathConnects(graph, search, s, t, expected);
+
+                float astar = search.astar(s, t, graph.weights());
+                assertEquals(expected, astar, 1e-2f);
+                assertPathConnects(graph, search, s, t, expected);
+            }
+        }
+    }
+
+    private static void assertPathConnects(RoadGraph graph, RouteSearch search, int s, int t, float cost) {
+        if (cost == Float.POSITIVE_INFINITY || s == t) return;
+        int at = s;
+        float sum = 0;
+        for (int i = 0; i < search.pathEdgeCount(); i++) {
+            int e = search.pathEdge(i);
+            assertEquals(at, graph.source(e));
+            sum += graph.weight(e);
+            at = graph.target(e);
+        }
+        assertEquals(t, at);
+        assertEquals(cost, sum, 1e-2f);
+    }
+
+    @Test
+    public void testNearestNodeMatchesLinearScan() {
+        RoadGraph graph = RoadGraphService.syntheticGrid(50, 3L);
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            double lat = 12.80 + random.nextDouble() * 0.35;
+            double lon = 77.45 + random.nextDouble() * 0.35;
+            int expected = 0;
+            for (int v = 1; v < graph.nodeCount(); v++) {
+                if (RoadGraph.distanceMeters(lat, lon, graph.latitude(v), graph.longitude(v))
+                        < RoadGraph.distanceMeters(lat, lon, graph.latitude(expected), graph.longitude(expected))) expected = v;
+            }
+            assertEquals(expected, graph.nearestNode(lat, lon));
+        }
+    }
+
+    @Test
+    public void testRouteServiceReadsCsvGraph() throws Exception {
+        Path csv = dir.resolve("graph.csv");
+        Files.writeString(csv, String.join("\n",
+                "# tiny network",
+                "N,100,12.9716,77.5946",
+                "N,200,12.9500,77.6000",
+                "N,300,12.9352,77.6245",
+                "N,400,12.9600,77.6200",
+                "E,100,200,2500,40,0",
+                "E,200,300,3200,40,0",
+                "E,100,400,1800,20,1",
+                "E,400,300,2900,20,1"));
+        RoadGraphService graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(graphService, "graphPath", csv.toString());
+        ReflectionTestUtils.setField(graphService, "hierarchyEnabled", false);
+        graphService.load();
+        assertEquals(4, graphService.getGraph().nodeCount());
+        assertEquals(6, graphService.getGraph().edgeCount());
+
+        AiRouteService routeService = new AiRouteService();
+        ReflectionTestUtils.setField(routeService, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(routeService, "routeCache", new RouteCache());
+        TrafficOverlay overlay = new TrafficOverlay();
+        ReflectionTestUtils.setField(overlay, "roadGraphService", graphService);
+        overlay.init();
+        ReflectionTestUtils.setField(routeService, "trafficOverlay", overlay);
+
+        RouteResponse route = routeService.getOptimizedRoute("Sector 7G", "central command");
+        assertEquals(3, route.getCoordinates().size());
+        assertEquals(5.7, route.getTotalDistance(), 1e-3);
+        assertEquals(5700 / (40 / 3.6) / 60, route.getEstimatedTime(), 1e-3);
+
+        // The one-way detour only runs 100 -> 400 -> 300, so the reverse trip uses the two-way road
+        RouteResponse back = routeService.getOptimizedRoute("12.9352,77.6245", "12.9716,77.5946", "bidirectional");
+        assertEquals(5.7, back.getTotalDistance(), 1e-3);
+
+        assertThrows(IllegalArgumentException.class, () -> routeService.getOptimizedRoute("Atlantis", "Sector 7G"));
+        assertThrows(IllegalArgumentException.class, () -> routeService.getOptimizedRoute("Sector 7G", "Industrial Hub", "bfs"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo;
+
+import com.example.demo.model.TelemetryCondition;
+import com.example.demo.service.TelemetryClassifier;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TelemetryClassifierTest {
+
+    // The if/else chain TelemetrySimulator used before the rule table
+    static String legacyCondition(double speed, double fuel, double tire) {
+        if (fuel < 5) return "CRITICAL_FUEL_LEVEL";
+        else if (tire < 30) return "LOW_TIRE_PRESSURE";
+        else if (tire > 35) return "OVER_INFLATED_TIRES";
+        else if (speed > 100) return "HIGH_SPEED_ALERT";
+        else if (fuel < 15) return "LOW_FUEL_RESERVE";
+        return "OPTIMAL";
+    }
+
+    @Test
+    public void testBatchClassify_MatchesLegacyChain() {
+        TelemetryClassifier classifier = new TelemetryClassifier(TelemetryClassifier.DEFAULT_RULES);
+        Random random = new Random(42);
+        int n = 10_000;
+        double[] speed = new double[n], fuel = new double[n], tire = new double[n];
+        for (int i = 0; i < n; i++) {
+            speed[i] = random.nextDouble() * 120.0;
+            fuel[i] = random.nextDouble() * 30.0;
+            tire[i] = 28.0 + random.nextDouble() * 8.0;
+        }
+
+        byte[] codes = new byte[n];
+        classifier.classify(speed, fuel, tire, codes, 0, n);
+
+        for (int i = 0; i < n; i++) {
+            String expected = legacyCondition(speed[i], fuel[i], tire[i]);
+            assertEquals(expected, TelemetryCondition.of(codes[i]).name());
+            assertEquals(expected, TelemetryCondition.of(classifier.classify(speed[i], fuel[i], tire[i])).name());
+        }
+    }
+
+    @Test
+    public void testCustomRuleTable() {
+        TelemetryClassifier classifier = new TelemetryClassifier("speed>80:HIGH_SPEED_ALERT, fuel<20:LOW_FUEL_RESERVE");
+        assertEquals(TelemetryCondition.HIGH_SPEED_ALERT.code(), classifier.classify(90, 10, 32));
+        assertEquals(TelemetryCondition.LOW_FUEL_RESERVE.code(), classifier.classify(70, 10, 32));
+        assertEquals(TelemetryCondition.OPTIMAL.code(), classifier.classify(70, 50, 40));
+    }
+
+    @Test
+    public void testInvalidRuleIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TelemetryClassifier("fuel=5:OPTIMAL"));
+    }
+}
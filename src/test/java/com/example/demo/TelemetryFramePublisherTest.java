@@ -0,0 +1,73 @@
+package com.example.demo;
+
+import com.example.demo.model.TelemetryFrame;
+import com.example.demo.service.TelemetryFramePublisher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TelemetryFramePublisherTest {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private TelemetryFramePublisher publisher;
+
+    @BeforeEach
+    public void setup() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        publisher = new TelemetryFramePublisher(new ObjectMapper());
+        ReflectionTestUtils.setField(publisher, "messagingTemplate", messagingTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Message<byte[]>> sent(int times) {
+        ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(times)).send(eq("/topic/vehicles"), captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void testKeyframeIsEncodedOncePerVersion() {
+        AtomicInteger built = new AtomicInteger();
+        publisher.sendKeyframe("/topic/vehicles", 3, () -> {
+            built.incrementAndGet();
+            return TelemetryFrame.keyframe(3, List.of());
+        });
+        publisher.sendKeyframe("/topic/vehicles", 3, () -> {
+            built.incrementAndGet();
+            return TelemetryFrame.keyframe(3, List.of());
+        });
+
+        assertEquals(1, built.get());
+        List<Message<byte[]>> messages = sent(2);
+        assertSame(messages.get(0).getPayload(), messages.get(1).getPayload()); // shared bytes, not a copy
+        assertTrue(publisher.hasKeyframe("/topic/vehicles", 3));
+        assertFalse(publisher.hasKeyframe("/topic/vehicles", 4));
+    }
+
+    @Test
+    public void testFrameIsSentAsJsonBytes() {
+        publisher.send("/topic/vehicles", TelemetryFrame.delta(9, List.of(), List.of(5L)));
+
+        Message<byte[]> message = sent(1).get(0);
+        String json = new String(message.getPayload(), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"type\":\"DELTA\""));
+        assertTrue(json.contains("\"removed\":[5]"));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+    }
+}
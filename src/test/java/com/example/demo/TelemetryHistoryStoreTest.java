@@ -0,0 +1,123 @@
+package com.example.demo;
+
+import com.example.demo.model.TelemetryHistory;
+import com.example.demo.service.TelemetryHistoryStore;
+import com.example.demo.service.TelemetryStateStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TelemetryHistoryStoreTest {
+
+    private static final long T0 = 1_700_000_040_000L; // minute-aligned
+
+    @TempDir
+    Path dir;
+
+    private TelemetryStateStore store;
+    private int slot;
+
+    @BeforeEach
+    public void setup() {
+        store = new TelemetryStateStore();
+        slot = store.trackSynthetic(-7L, 12.97, 77.59);
+    }
+
+    private TelemetryHistoryStore history() {
+        return new TelemetryHistoryStore(store, dir.toString(), 15, 1024, 48, 30, 365);
+    }
+
+    @Test
+    public void testRawRangeReturnsSamplesInOrder() {
+        TelemetryHistoryStore history = history();
+        for (int i = 0; i < 6; i++) {
+            store.update(slot, 10.0 * i, 90.0 - i, 32.0, (byte) 0);
+            history.record(T0 + i * 5_000L);
+        }
+
+        TelemetryHistory range = history.range(-7L, T0 + 5_000L, T0 + 20_000L, "raw");
+
+        assertEquals(3, range.getPoints());
+        assertArrayEquals(new long[]{T0 + 5_000L, T0 + 10_000L, T0 + 15_000L}, range.getTimestamps());
+        assertArrayEquals(new float[]{10f, 20f, 30f}, range.getSpeed());
+        assertEquals(0, history.range(-8L, T0, T0 + 60_000L, "raw").getPoints());
+    }
+
+    @Test
+    public void testMinuteRollupAveragesClosedBucket() {
+        TelemetryHistoryStore history = history();
+        store.update(slot, 40.0, 80.0, 30.0, (byte) 0);
+        history.record(T0);
+        store.update(slot, 60.0, 70.0, 34.0, (byte) 0);
+        history.record(T0 + 30_000L);
+        store.update(slot, 0.0, 70.0, 32.0, (byte) 0);
+        history.record(T0 + 60_000L); // opens the next bucket, closing the first
+
+        TelemetryHistory range = history.range(-7L, T0, T0 + 120_000L, "1m");
+
+        assertEquals(1, range.getPoints());
+        assertEquals(T0, range.getTimestamps()[0]);
+        assertEquals(50f, range.getSpeed()[0], 1e-4);
+        assertEquals(75f, range.getFuel()[0], 1e-4);
+        assertEquals(32f, range.getTirePressure()[0], 1e-4);
+    }
+
+    @Test
+    public void testOpenRollupBucketIsFinishedAfterRestart() {
+        TelemetryHistoryStore first = history();
+        store.update(slot, 40.0, 80.0, 30.0, (byte) 0);
+        first.record(T0);
+        first.close();
+
+        // Same minute after the restart, in a different store slot
+        TelemetryStateStore restarted = new TelemetryStateStore();
+        restarted.trackSynthetic(-3L, 12.97, 77.59);
+        int moved = restarted.trackSynthetic(-7L, 12.97, 77.59);
+        TelemetryHistoryStore reopened = new TelemetryHistoryStore(restarted, dir.toString(), 15, 1024, 48, 30, 365);
+        restarted.update(moved, 60.0, 70.0, 34.0, (byte) 0);
+        reopened.record(T0 + 30_000L);
+        reopened.record(T0 + 60_000L);
+
+        TelemetryHistory range = reopened.range(-7L, T0, T0 + 120_000L, "1m");
+        assertEquals(1, range.getPoints());
+        assertEquals(50f, range.getSpeed()[0], 1e-4);
+        assertEquals(32f, range.getTirePressure()[0], 1e-4);
+    }
+
+    @Test
+    public void testFinishedSegmentsAreMappedOnce() {
+        TelemetryHistoryStore history = history();
+        ReflectionTestUtils.setField(history, "maxOpenSegments", 2);
+        long window = 15 * 60_000L;
+        for (int i = 0; i < 4; i++) {
+            store.update(slot, 10.0 + i, 80.0, 32.0, (byte) 0);
+            history.record(T0 + i * window);
+        }
+
+        for (int query = 0; query < 3; query++) {
+            assertEquals(4, history.range(-7L, T0, T0 + 4 * window, "raw").getPoints());
+        }
+        // Three finished windows, at most two kept mapped; the active one is never cached
+        assertEquals(2, history.stats().get("openReadSegments"));
+    }
+
+    @Test
+    public void testSegmentsSurviveRestart() {
+        TelemetryHistoryStore first = history();
+        store.update(slot, 42.0, 50.0, 31.0, (byte) 0);
+        first.record(T0);
+        first.close();
+
+        TelemetryHistoryStore reopened = history();
+        store.update(slot, 43.0, 50.0, 31.0, (byte) 0);
+        reopened.record(T0 + 5_000L);
+
+        TelemetryHistory range = reopened.range(-7L, T0, T0 + 10_000L, "raw");
+        assertArrayEquals(new float[]{42f, 43f}, range.getSpeed());
+    }
+}
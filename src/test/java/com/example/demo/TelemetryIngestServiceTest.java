@@ -0,0 +1,75 @@
+package com.example.demo;
+
+import com.example.demo.entity.CustomerVehicle;
+import com.example.demo.model.TelemetryReading;
+import com.example.demo.service.TelemetryClassifier;
+import com.example.demo.service.TelemetryIngestService;
+import com.example.demo.service.TelemetryStateStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TelemetryIngestServiceTest {
+
+    private TelemetryStateStore store;
+    private TelemetryIngestService ingest;
+
+    @BeforeEach
+    public void setup() {
+        store = new TelemetryStateStore();
+        CustomerVehicle link = new CustomerVehicle();
+        link.setVehicleId(7L);
+        store.track(link);
+        ingest = new TelemetryIngestService();
+        ReflectionTestUtils.setField(ingest, "store", store);
+        ReflectionTestUtils.setField(ingest, "classifier", new TelemetryClassifier(TelemetryClassifier.DEFAULT_RULES));
+        ingest.start();
+    }
+
+    @AfterEach
+    public void teardown() {
+        ingest.stop();
+    }
+
+    @Test
+    public void testReadingsWithoutSequenceAreAllApplied() throws Exception {
+        ingest.offerAll(List.of(reading(null, 40.0), reading(null, 55.0)));
+        awaitProcessed(2);
+
+        assertEquals(2L, ingest.stats().get("applied"));
+        assertEquals(0L, ingest.stats().get("duplicates"));
+        assertEquals(55.0, store.speed(store.slotOf(7L)), 1e-9);
+    }
+
+    @Test
+    public void testSequencedReplaysAreDropped() throws Exception {
+        ingest.offerAll(List.of(reading(5L, 40.0), reading(5L, 90.0), reading(4L, 90.0), reading(6L, 60.0)));
+        awaitProcessed(4);
+
+        assertEquals(2L, ingest.stats().get("applied"));
+        assertEquals(2L, ingest.stats().get("duplicates"));
+        assertEquals(60.0, store.speed(store.slotOf(7L)), 1e-9);
+    }
+
+    private void awaitProcessed(long count) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            long done = (Long) ingest.stats().get("applied") + (Long) ingest.stats().get("duplicates");
+            if (done >= count) return;
+            Thread.sleep(10);
+        }
+        fail("ingest consumer did not drain");
+    }
+
+    private static TelemetryReading reading(Long sequence, double speed) {
+        TelemetryReading r = new TelemetryReading();
+        r.setVehicleId(7L);
+        r.setSequence(sequence);
+        r.setSpeed(speed);
+        return r;
+    }
+}
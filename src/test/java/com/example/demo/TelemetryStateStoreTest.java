@@ -0,0 +1,127 @@
+package com.example.demo;
+
+import com.example.demo.entity.CustomerVehicle;
+import com.example.demo.model.TelemetryCondition;
+import com.example.demo.service.AdaptiveTickPlan;
+import com.example.demo.service.TelemetryClassifier;
+import com.example.demo.service.TelemetrySimulator;
+import com.example.demo.service.TelemetryStateStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TelemetryStateStoreTest {
+
+    private TelemetryStateStore store;
+    private TelemetryClassifier classifier;
+    private int[] slots;
+
+    @BeforeEach
+    public void setup() {
+        store = new TelemetryStateStore();
+        classifier = new TelemetryClassifier(TelemetryClassifier.DEFAULT_RULES);
+        slots = new int[200];
+        for (int i = 0; i < slots.length; i++) slots[i] = store.trackSynthetic(-(i + 1L), 12.97, 77.59);
+    }
+
+    @Test
+    public void testBatchPublishesOnlyWhatItStaged() {
+        // A slot written directly keeps its own condition through someone else's batch
+        store.update(slots[5], 10, 50, 32, TelemetryCondition.LOW_TIRE_PRESSURE.code());
+        long directVersion = store.version(slots[5]);
+
+        store.batch(() -> store.stage(slots[6], 150, 50, 32), classifier);
+        assertEquals("LOW_TIRE_PRESSURE", store.condition(slots[5]));
+        assertEquals(directVersion, store.version(slots[5]));
+        assertEquals("HIGH_SPEED_ALERT", store.condition(slots[6]));
+        assertTrue(store.version(slots[6]) > directVersion);
+    }
+
+    @Test
+    public void testConcurrentBatchesEachPublishTheirOwnSlots() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            Future<?> fast = pool.submit(() -> run(go, 0, 100, 150, 50));
+            Future<?> dry = pool.submit(() -> run(go, 100, 200, 40, 10));
+            go.countDown();
+            fast.get();
+            dry.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        for (int i = 0; i < 100; i++) assertEquals("HIGH_SPEED_ALERT", store.condition(slots[i]));
+        for (int i = 100; i < 200; i++) assertEquals("LOW_FUEL_RESERVE", store.condition(slots[i]));
+    }
+
+    @Test
+    public void testSimulatorSkipsDeviceFedUnits() {
+        int fed = store.slotOf(track(41L));
+        int simulated = store.slotOf(track(42L));
+        long now = System.currentTimeMillis();
+        store.markIngested(fed, now);
+        assertTrue(store.isDeviceFed(fed, now));
+        assertFalse(store.isDeviceFed(fed, now + 15_000)); // hold lapses: simulator takes over again
+
+        TelemetrySimulator simulator = new TelemetrySimulator();
+        ReflectionTestUtils.setField(simulator, "store", store);
+        ReflectionTestUtils.setField(simulator, "classifier", classifier);
+        ReflectionTestUtils.setField(simulator, "plan", new AdaptiveTickPlan(1000, 30000));
+        long fedVersion = store.version(fed);
+        long simulatedVersion = store.version(simulated);
+
+        simulator.simulateTelemetry();
+        assertEquals(fedVersion, store.version(fed));
+        assertTrue(store.version(simulated) > simulatedVersion);
+    }
+
+    @Test
+    public void testOverlayLeavesTheEntityUntouched() {
+        CustomerVehicle link = new CustomerVehicle();
+        link.setVehicleId(11L);
+        link.setStatus("approved");
+        link.setSpeed(0.0);
+        link.setFuel(90.0);
+        store.track(link);
+        store.update(store.slotOf(11L), 72.0, 40.0, 31.0, TelemetryCondition.LOW_TIRE_PRESSURE.code());
+
+        CustomerVehicle view = store.overlay(List.of(link)).get(0);
+        assertNotSame(link, view);
+        assertEquals(72.0, view.getSpeed(), 1e-9);
+        assertEquals("LOW_TIRE_PRESSURE", view.getVehicleCondition());
+        assertEquals(0.0, link.getSpeed(), 1e-9);
+        assertEquals(90.0, link.getFuel(), 1e-9);
+        assertNull(link.getVehicleCondition());
+    }
+
+    private Long track(long vehicleId) {
+        CustomerVehicle link = new CustomerVehicle();
+        link.setVehicleId(vehicleId);
+        store.track(link);
+        return vehicleId;
+    }
+
+    // Every slot a batch staged must come out of it re-versioned, whoever else was batching
+    private Void run(CountDownLatch go, int from, int to, double speed, double fuel) throws InterruptedException {
+        go.await();
+        long[] before = new long[to - from];
+        for (int round = 0; round < 300; round++) {
+            for (int i = from; i < to; i++) before[i - from] = store.version(slots[i]);
+            store.batch(() -> {
+                for (int i = from; i < to; i++) store.stage(slots[i], speed, fuel, 32);
+            }, classifier);
+            for (int i = from; i < to; i++) {
+                assertTrue(store.version(slots[i]) > before[i - from], "slot " + i + " not published");
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo;
+
+import com.example.demo.service.TelemetrySubscriptionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TelemetrySubscriptionRegistryTest {
+
+    private TelemetrySubscriptionRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        registry = new TelemetrySubscriptionRegistry();
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String session, String subscription, String destination) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId(session);
+        headers.setSubscriptionId(subscription);
+        if (destination != null) headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private void subscribe(String session, String subscription, String destination) {
+        registry.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, session, subscription, destination)));
+    }
+
+    @Test
+    public void testSectorStaysActiveUntilLastSubscriberLeaves() {
+        subscribe("s1", "a", "/topic/vehicles/sector/sector-7g");
+        subscribe("s2", "b", "/topic/vehicles/sector/sector-7g");
+        assertEquals(Set.of("sector-7g"), registry.activeSectors());
+        assertEquals(Set.of("/topic/vehicles/sector/sector-7g"), registry.drainJoined());
+        assertTrue(registry.drainJoined().isEmpty());
+
+        registry.onDisconnect(new SessionDisconnectEvent(this,
+                frame(StompCommand.DISCONNECT, "s1", null, null), "s1", CloseStatus.NORMAL));
+        assertEquals(Set.of("sector-7g"), registry.activeSectors());
+
+        registry.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(StompCommand.UNSUBSCRIBE, "s2", "b", null)));
+        assertTrue(registry.activeSectors().isEmpty());
+    }
+
+    @Test
+    public void testVehicleAndFleetTopicsAreIndexed() {
+        subscribe("s1", "a", "/topic/vehicles/42");
+        subscribe("s1", "b", "/topic/vehicles");
+        subscribe("s1", "c", "/topic/other");
+
+        assertEquals(Set.of(42L), registry.activeVehicles());
+        assertTrue(registry.hasFleetSubscribers());
+        assertEquals(2, registry.stats().get("topics"));
+    }
+
+    @Test
+    public void testSectorKeyIsTopicSafe() {
+        assertEquals("sector-7g", TelemetrySubscriptionRegistry.sectorKey("  Sector 7G "));
+        assertEquals("industrial-hub", TelemetrySubscriptionRegistry.sectorKey("Industrial Hub!"));
+        assertNull(TelemetrySubscriptionRegistry.sectorKey(" "));
+
+        subscribe("s1", "a", "/topic/vehicles/sector/Sector 7G"); // not a slug: would never receive frames
+        assertTrue(registry.activeSectors().isEmpty());
+    }
+}
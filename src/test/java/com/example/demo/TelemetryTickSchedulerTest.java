@@ -0,0 +1,128 @@
+package com.example.demo;
+
+import com.example.demo.service.AdaptiveTickPlan;
+import com.example.demo.service.TelemetryTickScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TelemetryTickSchedulerTest {
+
+    private TelemetryTickScheduler scheduler;
+
+    @BeforeEach
+    public void setup() {
+        scheduler = new TelemetryTickScheduler();
+        scheduler.init();
+        scheduler.start();
+    }
+
+    @AfterEach
+    public void teardown() {
+        scheduler.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> job(String name) {
+        return (Map<String, Object>) scheduler.stats().get(name);
+    }
+
+    @Test
+    public void testSlowJobSkipsTicksWithoutOverlapping() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        scheduler.register("slow", 20, TelemetryTickScheduler.OverrunPolicy.SKIP, () -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(70);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            concurrent.decrementAndGet();
+        });
+        Thread.sleep(500);
+
+        Map<String, Object> stats = job("slow");
+        assertEquals(1, maxConcurrent.get());
+        assertTrue((Long) stats.get("runs") >= 2);
+        assertTrue((Long) stats.get("overruns") >= 1);
+        assertTrue((Long) stats.get("skippedTicks") >= (Long) stats.get("overruns"));
+        assertEquals(0L, stats.get("caughtUpTicks"));
+    }
+
+    @Test
+    public void testBackgroundJobsDoNotHoldUpTelemetryJobs() throws Exception {
+        scheduler.shutdown();
+        scheduler = new TelemetryTickScheduler();
+        ReflectionTestUtils.setField(scheduler, "poolSize", 1);
+        ReflectionTestUtils.setField(scheduler, "backgroundPoolSize", 1);
+        scheduler.init();
+        scheduler.start();
+
+        AtomicInteger ticks = new AtomicInteger();
+        scheduler.register("heavy", 10, TelemetryTickScheduler.OverrunPolicy.SKIP,
+                TelemetryTickScheduler.Lane.BACKGROUND, () -> {
+                    try {
+                        Thread.sleep(400);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        scheduler.register("fast", 20, TelemetryTickScheduler.OverrunPolicy.SKIP, ticks::incrementAndGet);
+        Thread.sleep(300);
+
+        assertTrue(ticks.get() >= 5, "telemetry lane stalled: " + ticks.get());
+        assertEquals("BACKGROUND", job("heavy").get("lane"));
+        assertEquals("TELEMETRY", job("fast").get("lane"));
+    }
+
+    @Test
+    public void testFailingJobKeepsTicking() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.register("failing", 10, TelemetryTickScheduler.OverrunPolicy.CATCH_UP, () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("boom");
+        });
+        Thread.sleep(150);
+
+        assertTrue(runs.get() >= 3);
+        assertTrue((Long) job("failing").get("errors") >= 3);
+        assertThrows(IllegalStateException.class,
+                () -> scheduler.register("failing", 10, TelemetryTickScheduler.OverrunPolicy.SKIP, () -> { }));
+    }
+
+    @Test
+    public void testJobThrowingErrorKeepsTicking() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.register("asserting", 10, TelemetryTickScheduler.OverrunPolicy.SKIP, () -> {
+            runs.incrementAndGet();
+            throw new AssertionError("invariant broken");
+        });
+        Thread.sleep(150);
+
+        assertTrue(runs.get() >= 3);
+        assertTrue((Long) job("asserting").get("errors") >= 3);
+    }
+
+    @Test
+    public void testAdaptivePlanSpacesParkedUnits() {
+        AdaptiveTickPlan plan = new AdaptiveTickPlan(1_000, 30_000);
+        long t0 = 1_000_000L;
+
+        assertTrue(plan.isDue(0, 7L, t0)); // new unit: due immediately
+        plan.completed(0, t0, false);       // parked
+        assertFalse(plan.isDue(0, 7L, t0 + 10_000));
+        assertTrue(plan.isDue(0, 7L, t0 + 30_000));
+        plan.completed(0, t0 + 30_000, true); // pulled away
+        assertEquals(1_000, plan.elapsed(0, t0 + 31_000)); // simulation step for the next update
+        assertTrue(plan.isDue(0, 7L, t0 + 31_000));
+
+        assertTrue(plan.isDue(0, 8L, t0 + 30_100)); // slot rebound to another unit
+    }
+}
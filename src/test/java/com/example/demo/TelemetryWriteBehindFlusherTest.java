@@ -0,0 +1,86 @@
+package com.example.demo;
+
+import com.example.demo.entity.CustomerVehicle;
+import com.example.demo.service.TelemetryStateStore;
+import com.example.demo.service.TelemetryWriteBehindFlusher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TelemetryWriteBehindFlusherTest {
+
+    private TelemetryStateStore store;
+    private JdbcTemplate jdbcTemplate;
+    private TelemetryWriteBehindFlusher flusher;
+
+    @BeforeEach
+    public void setup() {
+        store = new TelemetryStateStore();
+        jdbcTemplate = mock(JdbcTemplate.class);
+        flusher = new TelemetryWriteBehindFlusher(store);
+        ReflectionTestUtils.setField(flusher, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(flusher, "batchSize", 500);
+    }
+
+    private static CustomerVehicle approvedLink(long vehicleId) {
+        CustomerVehicle link = new CustomerVehicle();
+        link.setVehicleId(vehicleId);
+        link.setStatus("approved");
+        link.setFuel(80.0);
+        return link;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlush_CoalescesRepeatedUpdatesIntoOneRow() {
+        store.track(approvedLink(7L));
+        int slot = store.slotOf(7L);
+        store.update(slot, 10.0, 79.9, 31.0, (byte) 0);
+        store.update(slot, 20.0, 79.8, 32.0, (byte) 0);
+        store.update(slot, 30.0, 79.7, 33.0, (byte) 0);
+
+        flusher.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals(30.0, rows.getValue().get(0)[0]);
+        assertEquals(7L, rows.getValue().get(0)[4]);
+
+        // Nothing changed since: no further round-trips
+        flusher.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void testFlush_ThousandUnitTickIsTwoBatches() {
+        for (long id = 1; id <= 1000; id++) store.track(approvedLink(id));
+        store.forEachActive(slot -> store.update(slot, 50.0, 60.0, 32.0, (byte) 0));
+
+        flusher.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void testFlush_FailedBatchIsRetried() {
+        store.track(approvedLink(3L));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(new int[]{1});
+
+        flusher.flush();
+        flusher.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+}
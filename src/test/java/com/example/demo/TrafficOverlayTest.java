@@ -0,0 +1,138 @@
+package com.example.demo;
+
+import com.example.demo.model.RouteResponse;
+import com.example.demo.service.AiRouteService;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.RouteCache;
+import com.example.demo.service.TrafficOverlay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficOverlayTest {
+
+    private RoadGraphService graphService;
+    private RoadGraph graph;
+    private RouteCache cache;
+    private TrafficOverlay overlay;
+
+    @BeforeEach
+    public void setup() {
+        graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(graphService, "gridSize", 40);
+        ReflectionTestUtils.setField(graphService, "hierarchyEnabled", false);
+        graphService.load();
+        graph = graphService.getGraph();
+        cache = new RouteCache();
+        overlay = new TrafficOverlay();
+        ReflectionTestUtils.setField(overlay, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(overlay, "routeCache", cache);
+        overlay.init();
+    }
+
+    // Drives one unit along edge from -> to at the given speed
+    private void traverse(int edge, double speedKmh, int times) {
+        int from = graph.source(edge), to = graph.target(edge);
+        for (int i = 0; i < times; i++) {
+            int at = overlay.observe(graph.latitude(from), graph.longitude(from), speedKmh, -1);
+            overlay.observe(graph.latitude(to), graph.longitude(to), speedKmh, at);
+        }
+    }
+
+    @Test
+    public void testSlowTraversalRaisesEdgeWeightAndEvictsCachedRoutes() {
+        int edge = graph.firstEdge(graph.nodeCount() / 2);
+        float freeFlow = graph.weight(edge);
+        double freeFlowKmh = graph.length(edge) / freeFlow * 3.6;
+
+        AtomicInteger computed = new AtomicInteger();
+        cache.get(1, 2, "ch", () -> { computed.incrementAndGet(); return new RouteCache.Entry(new RouteResponse(), new int[]{edge}); });
+        cache.get(3, 4, "ch", () -> new RouteCache.Entry(new RouteResponse(), new int[]{0}));
+
+        traverse(edge, freeFlowKmh / 2, 5); // half of free-flow speed
+        TrafficOverlay.Snapshot snapshot = overlay.publish(System.currentTimeMillis());
+
+        assertEquals(1, snapshot.getVersion());
+        assertEquals(freeFlow * 2, snapshot.weights()[edge], freeFlow * 0.05);
+        assertEquals(graph.weight(0), snapshot.weights()[0], 1e-6f); // far corner untouched
+        assertTrue(snapshot.getCongestedEdges() > 1); // neighbours pick up the cell average
+
+        cache.get(1, 2, "ch", () -> { computed.incrementAndGet(); return new RouteCache.Entry(new RouteResponse(), new int[]{edge}); });
+        assertEquals(2, computed.get());
+        assertEquals(1L, cache.stats().get("invalidations"));
+    }
+
+    @Test
+    public void testRouteInFlightDuringPublishIsNotCached() throws Exception {
+        int edge = graph.firstEdge(graph.nodeCount() / 2);
+        double freeFlowKmh = graph.length(edge) / graph.weight(edge) * 3.6;
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch published = new CountDownLatch(1);
+        AtomicInteger computed = new AtomicInteger();
+
+        // A load that started on the old weights finishes only after the publish
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<?> stale = pool.submit(() -> cache.get(1, 2, "ch", () -> {
+            computed.incrementAndGet();
+            loading.countDown();
+            try {
+                published.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new RouteCache.Entry(new RouteResponse(), new int[]{edge});
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        traverse(edge, freeFlowKmh / 2, 5);
+        overlay.publish(System.currentTimeMillis());
+        published.countDown();
+        stale.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        cache.get(1, 2, "ch", () -> { computed.incrementAndGet(); return new RouteCache.Entry(new RouteResponse(), new int[]{edge}); });
+        assertEquals(2, computed.get());
+    }
+
+    @Test
+    public void testFactorsDecayBackToFreeFlowAndParkedUnitsAreIgnored() {
+        int edge = graph.firstEdge(graph.nodeCount() / 3);
+        traverse(edge, 1.0, 3); // below min-speed: parked, not congestion
+        assertEquals(0, overlay.publish(System.currentTimeMillis()).getVersion());
+
+        traverse(edge, 5.0, 3);
+        assertTrue(overlay.publish(System.currentTimeMillis()).getCongestedEdges() > 0);
+        TrafficOverlay.Snapshot snapshot = overlay.current();
+        for (int i = 0; i < 60 && !snapshot.isFreeFlow(); i++) snapshot = overlay.publish(System.currentTimeMillis());
+        assertTrue(snapshot.isFreeFlow());
+        assertEquals(graph.weight(edge), snapshot.weights()[edge], 1e-3f);
+    }
+
+    @Test
+    public void testEtaReflectsCongestion() {
+        AiRouteService routeService = new AiRouteService();
+        ReflectionTestUtils.setField(routeService, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(routeService, "routeCache", cache);
+        ReflectionTestUtils.setField(routeService, "trafficOverlay", overlay);
+
+        RouteResponse before = routeService.getOptimizedRoute("Sector 7G", "Central Command", "bidirectional");
+        // Jam every road in the city to a quarter of free-flow speed
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            traverse(e, graph.length(e) / graph.weight(e) * 3.6 / 4, 1);
+        }
+        overlay.publish(System.currentTimeMillis());
+        RouteResponse after = routeService.getOptimizedRoute("Sector 7G", "Central Command", "bidirectional");
+
+        assertEquals(before.getEstimatedTime() * 4, after.getEstimatedTime(), before.getEstimatedTime() * 0.1);
+        assertTrue(after.getSuggestion().contains("traffic delay"));
+    }
+}
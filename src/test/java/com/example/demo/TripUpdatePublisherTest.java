@@ -0,0 +1,187 @@
+package com.example.demo;
+
+import com.example.demo.config.JwtAuthenticationFilter;
+import com.example.demo.config.JwtUtil;
+import com.example.demo.config.StompAuthChannelInterceptor;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.TripUpdatePublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TripUpdatePublisherTest {
+
+    private SimpMessagingTemplate template;
+    private TripUpdatePublisher publisher;
+
+    @BeforeEach
+    public void setup() {
+        template = mock(SimpMessagingTemplate.class);
+        when(template.getUserDestinationPrefix()).thenReturn("/user/");
+        publisher = new TripUpdatePublisher();
+        ReflectionTestUtils.setField(publisher, "messagingTemplate", template);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String session) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId(session);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private void connect(String session, String userId) {
+        Principal user = new UsernamePasswordAuthenticationToken(userId, null, Collections.emptyList());
+        publisher.onConnected(new SessionConnectedEvent(this, frame(StompCommand.CONNECTED, session), user));
+    }
+
+    private void disconnect(String session) {
+        publisher.onDisconnect(new SessionDisconnectEvent(this, frame(StompCommand.DISCONNECT, session), session, CloseStatus.NORMAL));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPushesOnlyToConnectedUsers() {
+        byte[] payload = "[{\"id\":1}]".getBytes();
+        publisher.push("42", "APPROVED", payload);
+        verify(template, never()).send(any(String.class), any(Message.class));
+
+        connect("s1", "42");
+        connect("s2", "42");
+        publisher.push("42", "APPROVED", payload);
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(template).send(eq("/user/42/queue/trip"), (Message<byte[]>) sent.capture());
+        assertSame(payload, sent.getValue().getPayload());
+        assertEquals("APPROVED", NativeMessageHeaderAccessor.getFirstNativeHeader("event", sent.getValue().getHeaders()));
+
+        // Still connected until the last session closes
+        disconnect("s1");
+        assertTrue(publisher.isConnected("42"));
+        disconnect("s2");
+        assertFalse(publisher.isConnected("42"));
+        publisher.push("42", "PROGRESS", payload);
+
+        Map<String, Object> stats = publisher.stats();
+        assertEquals(1L, stats.get("messagesSent"));
+        assertEquals(2L, stats.get("skippedNotConnected"));
+        assertEquals(Map.of("APPROVED", 1L), stats.get("messagesByEvent"));
+        assertEquals(2L, stats.get("connects"));
+        assertEquals(0, stats.get("openSessions"));
+    }
+
+    @Test
+    public void testMessagesPerSecondCoversRecentSendsOnly() {
+        long[] now = {System.currentTimeMillis()};
+        ReflectionTestUtils.setField(publisher, "clock", (LongSupplier) () -> now[0]);
+        connect("s1", "42");
+        for (int i = 0; i < 5; i++) publisher.push("42", "PROGRESS", new byte[1]);
+        assertEquals(5.0, (double) publisher.stats().get("messagesPerSecond"), 1e-9);
+
+        // A minute of silence: the lifetime count stays, the rate drops to zero
+        now[0] += 60_000;
+        Map<String, Object> stats = publisher.stats();
+        assertEquals(5L, stats.get("messagesSent"));
+        assertEquals(0.0, (double) stats.get("messagesPerSecond"), 1e-9);
+
+        publisher.push("42", "PROGRESS", new byte[1]);
+        assertEquals(0.1, (double) publisher.stats().get("messagesPerSecond"), 0.02);
+    }
+
+    @Test
+    public void testConnectTokenNamesSessionAfterUserId() {
+        JwtUtil jwtUtil = new JwtUtil();
+        UserRepository users = mock(UserRepository.class);
+        User user = new User();
+        user.setUserId(42L);
+        user.setEmail("driver@fleet.io");
+        when(users.findByEmail("driver@fleet.io")).thenReturn(Optional.of(user));
+        StompAuthChannelInterceptor interceptor = new StompAuthChannelInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(interceptor, "userRepository", users);
+
+        Message<?> connected = interceptor.preSend(connect("Bearer " + jwtUtil.generateToken("driver@fleet.io")), null);
+        assertEquals("42", StompHeaderAccessor.wrap(connected).getUser().getName());
+
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(connect(null), null));
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(connect("Bearer not-a-token"), null));
+
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setDestination("/queue/trip-user42");
+        subscribe.setUser(StompHeaderAccessor.wrap(connected).getUser());
+        assertThrows(MessageDeliveryException.class, () ->
+                interceptor.preSend(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()), null));
+        assertEquals(1L, interceptor.getAuthenticatedConnects());
+        assertEquals(1L, interceptor.getAnonymousConnects());
+        assertEquals(3L, interceptor.getRejectedFrames());
+    }
+
+    @Test
+    public void testAnonymousSessionCannotSubscribeToTelemetry() {
+        StompAuthChannelInterceptor interceptor = new StompAuthChannelInterceptor();
+
+        StompHeaderAccessor anonymous = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        anonymous.setDestination("/topic/vehicles");
+        assertThrows(MessageDeliveryException.class, () ->
+                interceptor.preSend(MessageBuilder.createMessage(new byte[0], anonymous.getMessageHeaders()), null));
+
+        StompHeaderAccessor signedIn = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        signedIn.setDestination("/topic/vehicles");
+        signedIn.setUser(new UsernamePasswordAuthenticationToken("42", null, Collections.emptyList()));
+        Message<byte[]> frame = MessageBuilder.createMessage(new byte[0], signedIn.getMessageHeaders());
+        assertSame(frame, interceptor.preSend(frame, null));
+        assertEquals(1L, interceptor.getRejectedFrames());
+    }
+
+    @Test
+    public void testAnonymousSessionCannotSendToApp() {
+        StompAuthChannelInterceptor interceptor = new StompAuthChannelInterceptor();
+
+        StompHeaderAccessor anonymous = StompHeaderAccessor.create(StompCommand.SEND);
+        anonymous.setDestination("/app/telemetry");
+        assertThrows(MessageDeliveryException.class, () ->
+                interceptor.preSend(MessageBuilder.createMessage(new byte[0], anonymous.getMessageHeaders()), null));
+
+        // Device telemetry needs a driver or admin; a customer session is refused
+        StompHeaderAccessor customer = StompHeaderAccessor.create(StompCommand.SEND);
+        customer.setDestination("/app/telemetry");
+        customer.setUser(new UsernamePasswordAuthenticationToken("41", null, JwtAuthenticationFilter.authoritiesFor(4)));
+        assertThrows(MessageDeliveryException.class, () ->
+                interceptor.preSend(MessageBuilder.createMessage(new byte[0], customer.getMessageHeaders()), null));
+
+        StompHeaderAccessor signedIn = StompHeaderAccessor.create(StompCommand.SEND);
+        signedIn.setDestination("/app/telemetry");
+        signedIn.setUser(new UsernamePasswordAuthenticationToken("42", null, JwtAuthenticationFilter.authoritiesFor(3)));
+        Message<byte[]> frame = MessageBuilder.createMessage(new byte[0], signedIn.getMessageHeaders());
+        assertSame(frame, interceptor.preSend(frame, null));
+        assertEquals(2L, interceptor.getRejectedFrames());
+    }
+
+    private static Message<byte[]> connect(String authorization) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.CONNECT);
+        if (authorization != null) headers.addNativeHeader("Authorization", authorization);
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.Vehicle;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.VehicleRepository;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.VehicleMatchingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class VehicleMatchingServiceTest {
+
+    private BookingRepository bookings;
+    private VehicleRepository vehicles;
+    private VehicleMatchingService matcher;
+
+    @BeforeEach
+    public void setup() {
+        bookings = mock(BookingRepository.class);
+        vehicles = mock(VehicleRepository.class);
+        matcher = new VehicleMatchingService();
+        ReflectionTestUtils.setField(matcher, "bookingRepository", bookings);
+        ReflectionTestUtils.setField(matcher, "vehicleRepository", vehicles);
+        ReflectionTestUtils.setField(matcher, "roadGraphService", new RoadGraphService());
+        ReflectionTestUtils.setField(matcher, "maxRadiusKm", 2.0);
+    }
+
+    @Test
+    public void testBatchSolveGivesUpANearerUnitAnotherBookingNeeds() {
+        // B (1.5 km north of A) can only reach unit 1; greedy would hand unit 1 to A and leave B without one
+        matcher.rebuild(List.of(
+                vehicle(1L, 12.9700, 77.59, "Tata Nexon EV", 100),
+                vehicle(2L, 12.9610, 77.59, "Tata Nexon EV", 100)));
+        Booking a = booking(10L, "12.9700,77.59", null);
+        Booking b = booking(11L, "12.9835,77.59", null);
+
+        VehicleMatchingService.Plan plan = matcher.plan(List.of(a, b));
+        assertEquals(2, plan.size());
+        for (int i = 0; i < plan.size(); i++) {
+            assertEquals(plan.bookingAt(i) == a ? 2L : 1L, plan.vehicleAt(i));
+        }
+    }
+
+    @Test
+    public void testSectorFallbackPrefersTheRequestedModel() {
+        Vehicle nexon = vehicle(1L, null, null, "Tata Nexon EV", 100);
+        Vehicle innova = vehicle(2L, null, null, "Toyota Innova", 60);
+        Vehicle dry = vehicle(3L, null, null, "Toyota Innova", 5);
+        Vehicle busy = vehicle(4L, null, null, "Toyota Innova", 100);
+        busy.setStatus("IN_USE");
+        matcher.rebuild(List.of(nexon, innova, dry, busy));
+        assertEquals(2, matcher.stats().get("availableUnits"));
+
+        // No coordinates for the pickup: candidates come from the sector list
+        VehicleMatchingService.Plan plan = matcher.plan(List.of(booking(10L, "Sector 9", "innova")));
+        assertEquals(1, plan.size());
+        assertEquals(2L, plan.vehicleAt(0));
+        assertEquals(0, matcher.plan(List.of(booking(11L, "Sector 4", null))).size());
+    }
+
+    @Test
+    public void testReservationMovesOnWhenTheUnitWasTakenMeanwhile() {
+        matcher.rebuild(List.of(
+                vehicle(1L, 12.9700, 77.59, "Tata Nexon EV", 100),
+                vehicle(2L, 12.9650, 77.59, "Tata Nexon EV", 100)));
+        when(bookings.assignVehicle(eq(10L), anyLong(), eq("PENDING"))).thenReturn(1);
+        when(vehicles.transition(1L, "AVAILABLE", "IN_USE")).thenReturn(0);
+        when(vehicles.transition(2L, "AVAILABLE", "IN_USE")).thenReturn(1);
+
+        Booking a = booking(10L, "12.9700,77.59", null);
+        Map<String, Object> summary = matcher.match(List.of(a));
+        assertEquals(1, summary.get("assigned"));
+        assertEquals(1, summary.get("vehicleConflicts"));
+        assertEquals(2L, a.getAssignedVehicleId());
+        assertEquals(3L, a.getVersion()); // reserve + undo on unit 1, reserve on unit 2
+        verify(bookings).unassignVehicle(10L, 1L);
+
+        // Already assigned: a second run leaves it alone
+        assertEquals(0, matcher.match(List.of(a)).get("bookings"));
+        assertEquals(0, matcher.stats().get("availableUnits"));
+    }
+
+    @Test
+    public void testIndexFollowsWritesAndReleasesWithoutRescanning() {
+        when(vehicles.findAll()).thenReturn(List.of(vehicle(1L, 12.9700, 77.59, "Tata Nexon EV", 100)));
+        when(bookings.assignVehicle(anyLong(), anyLong(), eq("PENDING"))).thenReturn(1);
+        when(vehicles.transition(anyLong(), eq("AVAILABLE"), eq("IN_USE"))).thenReturn(1);
+        when(vehicles.transition(anyLong(), eq("IN_USE"), eq("AVAILABLE"))).thenReturn(1);
+
+        Booking first = booking(10L, "12.9700,77.59", null);
+        assertEquals(1, matcher.match(List.of(first)).get("assigned"));
+        assertEquals(1L, first.getAssignedVehicleId());
+
+        // A unit added after the scan, and a write that grounds another: both picked up from the listener feed
+        matcher.onVehicleWritten(vehicle(2L, 12.9705, 77.59, "Tata Nexon EV", 100));
+        matcher.onVehicleWritten(vehicle(3L, 12.9701, 77.59, "Tata Nexon EV", 4));
+        VehicleMatchingService.Plan plan = matcher.plan(List.of(booking(11L, "12.9700,77.59", null)));
+        assertEquals(1, plan.size());
+        assertEquals(2L, plan.vehicleAt(0));
+
+        // The first trip ends: its unit is offered again, nearest to the pickup
+        matcher.release(1L);
+        plan = matcher.plan(List.of(booking(12L, "12.9700,77.59", null)));
+        assertEquals(1L, plan.vehicleAt(0));
+
+        matcher.onVehicleRemoved(1L);
+        assertEquals(2L, matcher.plan(List.of(booking(13L, "12.9700,77.59", null))).vehicleAt(0));
+        verify(vehicles, times(1)).findAll();
+        assertEquals(1L, matcher.stats().get("rebuilds"));
+    }
+
+    private static Vehicle vehicle(Long id, Double lat, Double lon, String model, int fuel) {
+        Vehicle v = new Vehicle();
+        v.setId(id);
+        v.setModel(model);
+        v.setStatus("AVAILABLE");
+        v.setSector("Sector 9");
+        v.setLatitude(lat);
+        v.setLongitude(lon);
+        v.setSeats(4);
+        v.setFuel(fuel);
+        v.setPrice(1200.0);
+        return v;
+    }
+
+    private static Booking booking(Long id, String pickup, String model) {
+        Booking b = new Booking();
+        b.setId(id);
+        b.setUserId("7");
+        b.setStatus("PENDING");
+        b.setVersion(0L);
+        b.setPickupLocation(pickup);
+        b.setDropLocation("Central Command");
+        b.setVehicleModel(model);
+        return b;
+    }
+}
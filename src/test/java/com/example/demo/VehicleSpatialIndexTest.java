@@ -0,0 +1,117 @@
+package com.example.demo;
+
+import com.example.demo.entity.Vehicle;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.VehicleSpatialIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VehicleSpatialIndexTest {
+
+    private static final String[] STATUSES = {"AVAILABLE", "IN USE", "MAINTENANCE"};
+
+    @Test
+    public void testNearestMatchesBruteForceThroughMovesAndRemovals() {
+        VehicleSpatialIndex index = new VehicleSpatialIndex();
+        Random random = new Random(5);
+        int n = 5000;
+        double[] lat = new double[n + 1], lon = new double[n + 1];
+        int[] seats = new int[n + 1];
+        String[] status = new String[n + 1];
+        boolean[] present = new boolean[n + 1];
+        for (int id = 1; id <= n; id++) {
+            lat[id] = 12.8 + random.nextDouble() * 0.4;
+            lon[id] = 77.4 + random.nextDouble() * 0.4;
+            seats[id] = 2 + random.nextInt(6);
+            status[id] = STATUSES[random.nextInt(STATUSES.length)];
+            present[id] = true;
+            index.upsert(id, lat[id], lon[id], status[id], seats[id]);
+        }
+        // Move a third, drop a tenth
+        for (int id = 1; id <= n; id += 3) {
+            lat[id] += (random.nextDouble() - 0.5) * 0.05;
+            lon[id] += (random.nextDouble() - 0.5) * 0.05;
+            assertTrue(index.move(id, lat[id], lon[id]));
+        }
+        for (int id = 2; id <= n; id += 10) {
+            index.remove((long) id);
+            present[id] = false;
+        }
+        assertFalse(index.move(2, 0, 0));
+        assertEquals(n - (n + 7) / 10, index.size());
+
+        for (int q = 0; q < 200; q++) {
+            double qLat = 12.75 + random.nextDouble() * 0.5, qLon = 77.35 + random.nextDouble() * 0.5;
+            int k = 1 + random.nextInt(8);
+            String wanted = q % 3 == 0 ? null : "AVAILABLE";
+            int minSeats = q % 2 == 0 ? 0 : 5;
+
+            List<double[]> expected = new ArrayList<>();
+            for (int id = 1; id <= n; id++) {
+                if (!present[id] || seats[id] < minSeats || (wanted != null && !wanted.equals(status[id]))) continue;
+                expected.add(new double[]{RoadGraph.distanceMeters(qLat, qLon, lat[id], lon[id]), id});
+            }
+            expected.sort((a, b) -> Double.compare(a[0], b[0]));
+
+            List<VehicleSpatialIndex.Neighbor> found = index.nearest(qLat, qLon, k, wanted, minSeats);
+            assertEquals(Math.min(k, expected.size()), found.size());
+            for (int i = 0; i < found.size(); i++) {
+                assertEquals(expected.get(i)[0], found.get(i).getDistanceMeters(), 1e-6, "query " + q + " rank " + i);
+                VehicleSpatialIndex.Neighbor hit = found.get(i);
+                assertTrue(hit.getSeats() >= minSeats);
+                if (wanted != null) assertEquals(wanted, hit.getStatus());
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateUsesStoredPositionThenLocationAndNormalizesStatus() {
+        VehicleSpatialIndex index = new VehicleSpatialIndex();
+        RoadGraphService graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(index, "roadGraphService", graphService);
+
+        Vehicle stored = new Vehicle();
+        stored.setId(1L);
+        stored.setStatus("in use");
+        stored.setLatitude(12.97);
+        stored.setLongitude(77.59);
+        stored.setLocation("not a place");
+        index.update(stored);
+
+        Vehicle named = new Vehicle();
+        named.setId(2L);
+        named.setStatus("AVAILABLE");
+        named.setSeats(6);
+        named.setLocation("12.98, 77.60");
+        index.update(named);
+
+        Vehicle nowhere = new Vehicle();
+        nowhere.setId(3L);
+        nowhere.setLocation("unknown");
+        index.update(nowhere);
+        assertEquals(2, index.size());
+
+        List<VehicleSpatialIndex.Neighbor> inUse = index.nearest(12.97, 77.59, 5, "IN_USE", 0);
+        assertEquals(1, inUse.size());
+        assertEquals(1L, inUse.get(0).getId());
+        assertEquals(0.0, inUse.get(0).getDistanceMeters(), 1e-9);
+        assertEquals(2L, index.nearest(12.97, 77.59, 5, "available", 6).get(0).getId());
+        assertTrue(index.nearest(12.97, 77.59, 5, "AVAILABLE", 7).isEmpty());
+        assertTrue(index.nearest(12.97, 77.59, 5, "RETIRED", 0).isEmpty());
+
+        // Beyond the radius cap nothing is returned
+        assertTrue(index.nearest(40.0, -74.0, 5, null, 0).isEmpty());
+
+        // Losing its position removes the unit
+        named.setLocation(null);
+        index.update(named);
+        assertEquals(1, index.size());
+    }
+}
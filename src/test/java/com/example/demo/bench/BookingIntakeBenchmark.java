@@ -0,0 +1,98 @@
+package com.example.demo.bench;
+
+import com.example.demo.controller.BookingController;
+import com.example.demo.entity.Booking;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.service.BookingIntakeService;
+import com.example.demo.service.IdempotencyStore;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.anyList;
+
+/**
+ * Manual benchmark (not run by surefire): drives the create handler at a
+ * fixed request rate from several client threads and reports its latency
+ * (p50, p99, max) while the intake consumer commits into a stand-in
+ * repository that costs 3 ms per transaction plus 20 us per row. Excludes
+ * HTTP and JSON binding, which are the same as before the queue.
+ *
+ * Run: mvn test-compile && java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *      com.example.demo.bench.BookingIntakeBenchmark [requestsPerSecond] [seconds] [threads]
+ */
+public class BookingIntakeBenchmark {
+
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws Exception {
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        BookingRepository repository = Mockito.mock(BookingRepository.class);
+        AtomicLong ids = new AtomicLong();
+        Mockito.when(repository.saveAll(anyList())).thenAnswer(call -> {
+            List<Booking> rows = (List<Booking>) call.getArgument(0);
+            LockSupport.parkNanos(3_000_000L + rows.size() * 20_000L);
+            for (Booking b : rows) b.setId(ids.incrementAndGet());
+            return rows;
+        });
+        BookingIntakeService intake = new BookingIntakeService();
+        ReflectionTestUtils.setField(intake, "bookingRepository", repository);
+        intake.start();
+        BookingController controller = new BookingController();
+        ReflectionTestUtils.setField(controller, "bookingIntakeService", intake);
+        ReflectionTestUtils.setField(controller, "idempotencyStore", new IdempotencyStore());
+
+        int total = rate * seconds;
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        long intervalNanos = 1_000_000_000L / rate;
+        long begin = System.nanoTime() + 50_000_000L;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < total) {
+                    // Open-loop pacing: latency counts from the scheduled send time, so stalls are not hidden
+                    long scheduled = begin + i * intervalNanos;
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                    Booking b = new Booking();
+                    b.setUserId("driver-" + (i % 5000));
+                    b.setVehicleModel("EV-Sedan");
+                    b.setPickupLocation("Sector 7G");
+                    b.setDropLocation("Industrial Hub");
+                    int status = controller.createBooking(b, null, null).getStatusCode().value();
+                    if (status != 202) refused.incrementAndGet();
+                    latencies[i] = System.nanoTime() - scheduled;
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while ((Long) intake.stats().get("committed") < total - refused.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Map<String, Object> stats = intake.stats();
+        intake.stop();
+
+        Arrays.sort(latencies);
+        System.out.printf("%d req/s x %d s on %d threads: create p50 %.3f ms, p99 %.3f ms, max %.2f ms, %d refused%n",
+                rate, seconds, threads, latencies[total / 2] / 1e6, latencies[(int) (total * 0.99)] / 1e6,
+                latencies[total - 1] / 1e6, refused.get());
+        System.out.printf("committed %s in %s transactions (largest %s), avg queue-to-commit %.1f ms%n",
+                stats.get("committed"), stats.get("batches"), stats.get("largestBatch"), stats.get("avgQueueToCommitMillis"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.bench;
+
+import com.example.demo.service.EtaModel;
+
+import java.util.Random;
+
+/**
+ * Manual benchmark (not run by surefire): trains the ETA model on synthetic
+ * trip history with rush hours, weekend relief and per-model pace, reports
+ * holdout accuracy against the legacy fixed-speed estimate, then measures
+ * batched inference throughput.
+ *
+ * Run: mvn test-compile && java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *      com.example.demo.bench.EtaModelBenchmark [trips] [batch]
+ */
+public class EtaModelBenchmark {
+
+    private static final String[] MODELS = {"Tesla Model 3", "Toyota Innova", "Tata Ace", "Ather 450X", "Force Traveller"};
+    private static final double[] MODEL_PACE = {0.0, 0.1, 0.35, -0.05, 0.4};
+
+    public static void main(String[] args) {
+        int trips = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int batch = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+
+        Random random = new Random(21);
+        EtaModel.Samples samples = new EtaModel.Samples();
+        for (int i = 0; i < trips; i++) {
+            double km = 1 + Math.abs(random.nextGaussian()) * 25;
+            int hourOfWeek = random.nextInt(168);
+            int model = random.nextInt(MODELS.length);
+            samples.add(km, hourOfWeek, MODELS[model], simulate(km, hourOfWeek, model, random));
+        }
+
+        int folds = 5;
+        long start = System.nanoTime();
+        EtaModel model = EtaModel.train(samples, 1.0, 32, folds, 0);
+        double trainMillis = (System.nanoTime() - start) / 1e6;
+        double[] errors = model.evaluate(samples, folds, 0);
+
+        // Legacy estimate: every trip at the 248.25 km / 3.2 h average speed
+        double legacyAbsolute = 0, legacyPercentage = 0;
+        int holdout = 0;
+        for (int i = 0; i < samples.size(); i += folds) {
+            double error = Math.abs(samples.distanceKm(i) / 77.6 * 60 - samples.minutes(i));
+            legacyAbsolute += error;
+            legacyPercentage += error / Math.max(1, samples.minutes(i));
+            holdout++;
+        }
+        System.out.printf("trained on %d trips in %.1f ms%n", model.samples(), trainMillis);
+        System.out.printf("holdout (%d trips): model MAE %.2f min, MAPE %.1f%% | fixed speed MAE %.2f min, MAPE %.1f%%%n",
+                holdout, errors[0], errors[1], legacyAbsolute / holdout, 100 * legacyPercentage / holdout);
+
+        double[] km = new double[batch], out = new double[batch];
+        int[] hours = new int[batch], indexes = new int[batch];
+        for (int i = 0; i < batch; i++) {
+            km[i] = samples.distanceKm(i);
+            hours[i] = samples.hourOfWeek(i);
+            indexes[i] = model.modelIndex(samples.vehicleModel(i));
+        }
+        double sink = 0;
+        for (int round = 0; round < 5; round++) {
+            int repeats = 20_000;
+            start = System.nanoTime();
+            for (int r = 0; r < repeats; r++) {
+                model.predict(km, hours, indexes, out, batch);
+                sink += out[r % batch];
+            }
+            double nanos = (double) (System.nanoTime() - start) / ((long) repeats * batch);
+            System.out.printf("round %d: batch of %d, %.2f ns per prediction (%.0f M/s)%n", round, batch, nanos,
+                    1e3 / nanos);
+        }
+        System.out.println("checksum " + Math.round(sink));
+    }
+
+    // 2.5 min overhead, 1.1 min/km base, peaks at 8-10 and 17-20, lighter weekends, 10% noise
+    private static double simulate(double km, int hourOfWeek, int model, Random random) {
+        int hour = hourOfWeek % 24;
+        boolean weekend = hourOfWeek / 24 >= 5;
+        double pace = 1.1 + MODEL_PACE[model];
+        if (!weekend && (hour >= 8 && hour < 10 || hour >= 17 && hour < 20)) pace += 0.9;
+        if (hour < 6) pace -= 0.4;
+        if (weekend) pace -= 0.15;
+        return Math.max(1, (2.5 + km * pace) * (1 + random.nextGaussian() * 0.1));
+    }
+}
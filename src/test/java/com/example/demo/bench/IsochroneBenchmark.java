@@ -0,0 +1,72 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Isochrone;
+import com.example.demo.service.IsochroneService;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.TrafficOverlay;
+import com.example.demo.service.VehicleSpatialIndex;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Manual benchmark (not run by surefire): isochrones over the 200 x 200
+ * synthetic city grid for several budgets, cold (bounded Dijkstra + outline)
+ * and cached, plus the parallel all-sector refresh.
+ *
+ * Run: mvn test-compile && java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *      com.example.demo.bench.IsochroneBenchmark [points]
+ */
+public class IsochroneBenchmark {
+
+    public static void main(String[] args) {
+        int points = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        RoadGraph graph = RoadGraphService.syntheticGrid(200, 42L);
+        RoadGraphService graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(graphService, "graph", graph);
+        TrafficOverlay overlay = new TrafficOverlay();
+        ReflectionTestUtils.setField(overlay, "roadGraphService", graphService);
+        overlay.init();
+        IsochroneService service = new IsochroneService();
+        ReflectionTestUtils.setField(service, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(service, "trafficOverlay", overlay);
+        ReflectionTestUtils.setField(service, "spatialIndex", new VehicleSpatialIndex());
+        service.init();
+
+        try {
+            Random random = new Random(6);
+            for (int minutes : new int[]{5, 10, 20, 30}) {
+                long cold = 0, nodes = 0;
+                double area = 0;
+                String[] places = new String[points];
+                for (int i = 0; i < points; i++) {
+                    int node = random.nextInt(graph.nodeCount());
+                    places[i] = graph.latitude(node) + "," + graph.longitude(node);
+                    long start = System.nanoTime();
+                    Isochrone isochrone = service.compute(places[i], minutes);
+                    cold += System.nanoTime() - start;
+                    nodes += isochrone.getReachableNodes();
+                    area += isochrone.getAreaKm2();
+                }
+                long start = System.nanoTime();
+                for (String place : places) service.compute(place, minutes);
+                long cached = System.nanoTime() - start;
+                System.out.printf("%2d min: cold %.2f ms, cached %.1f us per isochrone (%d nodes, %.1f km2 avg)%n",
+                        minutes, cold / 1e6 / points, cached / 1e3 / points, nodes / points, area / points);
+            }
+            for (int round = 0; round < 3; round++) {
+                ReflectionTestUtils.setField(service, "maxAgeMs", 0L);
+                ((Map<?, ?>) ReflectionTestUtils.getField(service, "cache")).clear();
+                long start = System.nanoTime();
+                service.refreshSectors();
+                System.out.printf("all-sector refresh (%d sectors x 2 budgets): %.1f ms%n",
+                        graphService.getPlaces().size(), (System.nanoTime() - start) / 1e6);
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.bench;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.Vehicle;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.VehicleMatchingService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Manual benchmark (not run by surefire): solves pending bookings against
+ * available vehicles spread over a ~45 km metro area (defaults 10,000 x
+ * 5,000) and reports the snapshot rebuild time, the solve time (candidate
+ * search, edges, auction) and the pairs found with their average pickup
+ * distance. Two layouts: every booking at its own pickup, and bookings
+ * bunched on 200 shared pickups. Reservation statements are not included.
+ *
+ * Run: mvn test-compile && java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *      com.example.demo.bench.MatchingBenchmark [bookings] [vehicles]
+ */
+public class MatchingBenchmark {
+
+    public static void main(String[] args) {
+        int bookings = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int vehicles = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        String[] models = {"Tesla Model 3", "Tata Nexon EV", "Toyota Innova", "Mahindra XUV"};
+        Random random = new Random(23);
+
+        List<Vehicle> fleet = new ArrayList<>(vehicles);
+        Map<Long, double[]> positions = new HashMap<>();
+        for (int i = 0; i < vehicles; i++) {
+            Vehicle v = new Vehicle();
+            v.setId((long) i + 1);
+            v.setModel(models[random.nextInt(models.length)]);
+            v.setStatus("AVAILABLE");
+            v.setSector("Sector " + random.nextInt(20));
+            v.setLatitude(12.75 + random.nextDouble() * 0.4);
+            v.setLongitude(77.40 + random.nextDouble() * 0.4);
+            v.setSeats(2 + random.nextInt(6));
+            v.setFuel(5 + random.nextInt(96));
+            v.setPrice(800 + random.nextInt(2400) * 1.0);
+            fleet.add(v);
+            positions.put(v.getId(), new double[]{v.getLatitude(), v.getLongitude()});
+        }
+
+        VehicleMatchingService matcher = new VehicleMatchingService();
+        ReflectionTestUtils.setField(matcher, "roadGraphService", new RoadGraphService());
+        long start = System.nanoTime();
+        matcher.rebuild(fleet);
+        System.out.printf("rebuilt availability for %d vehicles in %.1f ms%n", vehicles, (System.nanoTime() - start) / 1e6);
+
+        String[] hotspots = new String[200];
+        for (int i = 0; i < hotspots.length; i++) hotspots[i] = point(random);
+        for (String layout : new String[]{"scattered", "shared pickups"}) {
+            List<Booking> pending = new ArrayList<>(bookings);
+            for (int i = 0; i < bookings; i++) {
+                Booking b = new Booking();
+                b.setId((long) i + 1);
+                b.setUserId(String.valueOf(i % 3000));
+                b.setStatus("PENDING");
+                b.setVehicleModel(i % 4 == 0 ? models[random.nextInt(models.length)] : null);
+                b.setPickupLocation(layout.equals("scattered") ? point(random) : hotspots[random.nextInt(hotspots.length)]);
+                pending.add(b);
+            }
+            for (int round = 0; round < 5; round++) {
+                start = System.nanoTime();
+                VehicleMatchingService.Plan plan = matcher.plan(pending);
+                double wallMs = (System.nanoTime() - start) / 1e6;
+                double km = 0;
+                for (int i = 0; i < plan.size(); i++) {
+                    String[] at = plan.bookingAt(i).getPickupLocation().split(",");
+                    double[] unit = positions.get(plan.vehicleAt(i));
+                    km += RoadGraph.distanceMeters(Double.parseDouble(at[0]), Double.parseDouble(at[1]), unit[0], unit[1]) / 1000;
+                }
+                System.out.printf("%s round %d: %d x %d solved in %.1f ms, %d edges, %d pairs, avg pickup %.2f km%n",
+                        layout, round, bookings, vehicles, wallMs, plan.getEdges(), plan.size(),
+                        plan.size() == 0 ? 0 : km / plan.size());
+            }
+        }
+    }
+
+    private static String point(Random random) {
+        return String.format(Locale.ROOT, "%.5f,%.5f", 12.75 + random.nextDouble() * 0.4, 77.40 + random.nextDouble() * 0.4);
+    }
+}
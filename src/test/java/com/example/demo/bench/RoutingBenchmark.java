@@ -0,0 +1,121 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.DistanceMatrix;
+import com.example.demo.model.RouteResponse;
+import com.example.demo.service.ContractionHierarchy;
+import com.example.demo.service.DistanceMatrixService;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.RouteSearch;
+import com.example.demo.service.TrafficOverlay;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Manual benchmark (not run by surefire): 10,000 random origin/destination
+ * pairs on the synthetic city grid, answered by the former hard-coded stub,
+ * bidirectional Dijkstra, A* and the contraction hierarchy. Reports average,
+ * p50 and p99 latency per query and the mean nodes settled, then times a
+ * 200 x 200 distance matrix.
+ *
+ * Run: mvn test-compile && java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *      com.example.demo.bench.RoutingBenchmark [gridSize] [chFile]
+ */
+public class RoutingBenchmark {
+
+    private static final int PAIRS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int gridSize = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Path chFile = Paths.get(args.length > 1 ? args[1] : "data/routing/bench-" + gridSize + ".ch");
+
+        RoadGraph graph = RoadGraphService.syntheticGrid(gridSize, 42L);
+        long start = System.nanoTime();
+        ContractionHierarchy hierarchy = ContractionHierarchy.openOrBuild(graph, chFile);
+        System.out.printf("graph %d nodes / %d edges, hierarchy %d edges (%d shortcuts) ready in %.0f ms%n",
+                graph.nodeCount(), graph.edgeCount(), hierarchy.edgeCount(), hierarchy.shortcutCount(),
+                (System.nanoTime() - start) / 1e6);
+
+        Random random = new Random(7);
+        int[] sources = new int[PAIRS];
+        int[] targets = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            sources[i] = random.nextInt(graph.nodeCount());
+            targets[i] = random.nextInt(graph.nodeCount());
+        }
+        RouteSearch search = new RouteSearch(graph);
+        float[] weights = graph.weights();
+
+        run("stub (canned path)", i -> { legacyStub(); return 0; }, search);
+        run("bidirectional dijkstra", i -> { search.bidirectional(sources[i], targets[i], weights); return 0; }, search);
+        run("a*", i -> { search.astar(sources[i], targets[i], weights); return 0; }, search);
+        run("contraction hierarchy", i -> { search.contracted(sources[i], targets[i], hierarchy); return 0; }, search);
+
+        matrix(graph, random);
+    }
+
+    // 200 x 200 many-to-many matrix through DistanceMatrixService on its own pool
+    private static void matrix(RoadGraph graph, Random random) {
+        RoadGraphService graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(graphService, "graph", graph);
+        TrafficOverlay overlay = new TrafficOverlay();
+        ReflectionTestUtils.setField(overlay, "roadGraphService", graphService);
+        overlay.init();
+        DistanceMatrixService matrixService = new DistanceMatrixService();
+        ReflectionTestUtils.setField(matrixService, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(matrixService, "trafficOverlay", overlay);
+        matrixService.init();
+        try {
+            int[] origins = new int[200];
+            int[] destinations = new int[200];
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 200; i++) {
+                    origins[i] = random.nextInt(graph.nodeCount());
+                    destinations[i] = random.nextInt(graph.nodeCount());
+                }
+                DistanceMatrix matrix = matrixService.compute(origins, destinations);
+                System.out.printf("matrix 200x200 (%d threads)  %8.1f ms%n",
+                        Runtime.getRuntime().availableProcessors(), matrix.getComputeMillis());
+            }
+        } finally {
+            matrixService.shutdown();
+        }
+    }
+
+    private static void run(String name, IntUnaryOperator query, RouteSearch search) {
+        for (int i = 0; i < 2_000; i++) query.applyAsInt(i % PAIRS); // warm-up
+        long[] nanos = new long[PAIRS];
+        long settled = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            long start = System.nanoTime();
+            query.applyAsInt(i);
+            nanos[i] = System.nanoTime() - start;
+            settled += search.settledNodes();
+        }
+        long total = 0;
+        for (long n : nanos) total += n;
+        Arrays.sort(nanos);
+        System.out.printf("%-24s avg %8.1f us | p50 %8.1f us | p99 %8.1f us | settled %7d%n", name,
+                total / 1e3 / PAIRS, nanos[PAIRS / 2] / 1e3, nanos[PAIRS * 99 / 100] / 1e3,
+                name.startsWith("stub") ? 0 : settled / PAIRS);
+    }
+
+    // What AiRouteService answered before the road graph: the same three points for any query
+    private static RouteResponse legacyStub() {
+        RouteResponse response = new RouteResponse();
+        List<double[]> path = Arrays.asList(
+                new double[]{12.9716, 77.5946},
+                new double[]{12.9500, 77.6000},
+                new double[]{12.9352, 77.6245});
+        response.setCoordinates(path);
+        response.setTotalDistance(5.5);
+        response.setEstimatedTime(5.5 * 2 * 1.4);
+        return response;
+    }
+}
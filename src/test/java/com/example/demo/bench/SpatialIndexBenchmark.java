@@ -0,0 +1,69 @@
+package com.example.demo.bench;
+
+import com.example.demo.service.VehicleSpatialIndex;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Manual benchmark (not run by surefire): indexes 50,000 vehicles spread over
+ * a ~45 km metro area and reports nearest-available query latency (average,
+ * p50, p99) alongside the cost of a full scan, plus move throughput.
+ *
+ * Run: mvn test-compile && java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *      com.example.demo.bench.SpatialIndexBenchmark [vehicles] [queries] [k]
+ */
+public class SpatialIndexBenchmark {
+
+    public static void main(String[] args) {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        String[] statuses = {"AVAILABLE", "IN USE", "IN USE", "MAINTENANCE"};
+
+        VehicleSpatialIndex index = new VehicleSpatialIndex();
+        Random random = new Random(11);
+        double[] lat = new double[vehicles], lon = new double[vehicles];
+        long start = System.nanoTime();
+        for (int i = 0; i < vehicles; i++) {
+            lat[i] = 12.75 + random.nextDouble() * 0.4;
+            lon[i] = 77.40 + random.nextDouble() * 0.4;
+            index.upsert(i + 1, lat[i], lon[i], statuses[random.nextInt(statuses.length)], 2 + random.nextInt(6));
+        }
+        System.out.printf("indexed %d vehicles in %.1f ms%n", vehicles, (System.nanoTime() - start) / 1e6);
+
+        for (int round = 0; round < 3; round++) {
+            long[] latency = new long[queries];
+            long found = 0;
+            for (int q = 0; q < queries; q++) {
+                double qLat = 12.75 + random.nextDouble() * 0.4, qLon = 77.40 + random.nextDouble() * 0.4;
+                long t = System.nanoTime();
+                found += index.nearest(qLat, qLon, k, "AVAILABLE", q % 2 == 0 ? 0 : 6).size();
+                latency[q] = System.nanoTime() - t;
+            }
+            Arrays.sort(latency);
+            System.out.printf("round %d: k=%d avg %.1f us, p50 %.1f us, p99 %.1f us (%d hits)%n", round, k,
+                    Arrays.stream(latency).average().orElse(0) / 1e3, latency[queries / 2] / 1e3,
+                    latency[(int) (queries * 0.99)] / 1e3, found);
+        }
+
+        // Reference: one linear scan over every position
+        start = System.nanoTime();
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < vehicles; i++) {
+            double dLat = lat[i] - 12.97, dLon = lon[i] - 77.59;
+            best = Math.min(best, dLat * dLat + dLon * dLon);
+        }
+        System.out.printf("linear scan: %.1f us (best %.2e)%n", (System.nanoTime() - start) / 1e3, best);
+
+        start = System.nanoTime();
+        int moves = 200_000;
+        for (int m = 0; m < moves; m++) {
+            int i = random.nextInt(vehicles);
+            lat[i] += (random.nextDouble() - 0.5) * 0.002;
+            lon[i] += (random.nextDouble() - 0.5) * 0.002;
+            index.move(i + 1, lat[i], lon[i]);
+        }
+        System.out.printf("%d moves: %.0f ns each%n", moves, (double) (System.nanoTime() - start) / moves);
+    }
+}
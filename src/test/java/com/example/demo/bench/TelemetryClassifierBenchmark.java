@@ -0,0 +1,64 @@
+package com.example.demo.bench;
+
+import com.example.demo.service.TelemetryClassifier;
+
+import java.util.Random;
+
+/**
+ * Manual benchmark (not run by surefire): rule-table batch classification
+ * versus the old per-entity boxed if/else chain, 100k units per tick.
+ *
+ * Run: mvn test-compile && java -cp target/classes:target/test-classes \
+ *      com.example.demo.bench.TelemetryClassifierBenchmark
+ */
+public class TelemetryClassifierBenchmark {
+
+    private static final int UNITS = 100_000;
+    private static final int WARMUP = 200;
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        double[] speed = new double[UNITS], fuel = new double[UNITS], tire = new double[UNITS];
+        Double[] boxedSpeed = new Double[UNITS], boxedFuel = new Double[UNITS], boxedTire = new Double[UNITS];
+        for (int i = 0; i < UNITS; i++) {
+            speed[i] = random.nextDouble() * 120.0;
+            fuel[i] = random.nextDouble() * 30.0;
+            tire[i] = 28.0 + random.nextDouble() * 8.0;
+            boxedSpeed[i] = speed[i];
+            boxedFuel[i] = fuel[i];
+            boxedTire[i] = tire[i];
+        }
+
+        TelemetryClassifier classifier = new TelemetryClassifier(TelemetryClassifier.DEFAULT_RULES);
+        byte[] codes = new byte[UNITS];
+        String[] conditions = new String[UNITS];
+
+        for (int i = 0; i < WARMUP; i++) {
+            classifier.classify(speed, fuel, tire, codes, 0, UNITS);
+            legacy(boxedSpeed, boxedFuel, boxedTire, conditions);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) classifier.classify(speed, fuel, tire, codes, 0, UNITS);
+        double batchMs = (System.nanoTime() - start) / 1e6 / ROUNDS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) legacy(boxedSpeed, boxedFuel, boxedTire, conditions);
+        double legacyMs = (System.nanoTime() - start) / 1e6 / ROUNDS;
+
+        System.out.printf("rule table (SoA): %.3f ms / %d units%n", batchMs, UNITS);
+        System.out.printf("legacy if/else  : %.3f ms / %d units%n", legacyMs, UNITS);
+    }
+
+    private static void legacy(Double[] speed, Double[] fuel, Double[] tire, String[] out) {
+        for (int i = 0; i < out.length; i++) {
+            if (fuel[i] < 5) out[i] = "CRITICAL_FUEL_LEVEL";
+            else if (tire[i] < 30) out[i] = "LOW_TIRE_PRESSURE";
+            else if (tire[i] > 35) out[i] = "OVER_INFLATED_TIRES";
+            else if (speed[i] > 100) out[i] = "HIGH_SPEED_ALERT";
+            else if (fuel[i] < 15) out[i] = "LOW_FUEL_RESERVE";
+            else out[i] = "OPTIMAL";
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.bench;
+
+import com.example.demo.entity.Vehicle;
+import com.example.demo.model.TelemetryFrame;
+import com.example.demo.model.VehicleSnapshot;
+import com.example.demo.service.TelemetryFramePublisher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Manual benchmark (not run by surefire): one 5k-unit keyframe fanned out
+ * through the simple broker to 10 .. 5,000 sessions, comparing
+ * convertAndSend(object) with the pre-encoded, version-cached publisher.
+ * Reports time and bytes allocated by the sending thread per broadcast.
+ *
+ * Run: mvn test-compile && java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *      com.example.demo.bench.TelemetryFanoutBenchmark
+ * (cp.txt from: mvn dependency:build-classpath -Dmdep.outputFile=cp.txt)
+ */
+public class TelemetryFanoutBenchmark {
+
+    private static final String TOPIC = "/topic/vehicles";
+    private static final int UNITS = 5_000;
+    private static final int[] SESSIONS = {10, 100, 1_000, 5_000};
+    private static final int ROUNDS = 50;
+
+    public static void main(String[] args) {
+        TelemetryFrame frame = TelemetryFrame.keyframe(1, fleet());
+
+        for (int sessions : SESSIONS) {
+            AtomicLong delivered = new AtomicLong();
+            MessageChannel outbound = (message, timeout) -> {
+                delivered.incrementAndGet();
+                return true;
+            };
+            ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+            SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(
+                    new ExecutorSubscribableChannel(), outbound, brokerChannel, List.of("/topic"));
+            broker.start();
+            for (int s = 0; s < sessions; s++) broker.handleMessage(subscribe("session-" + s));
+
+            SimpMessagingTemplate template = new SimpMessagingTemplate(brokerChannel);
+            template.setMessageConverter(new MappingJackson2MessageConverter());
+            TelemetryFramePublisher publisher = new TelemetryFramePublisher(new ObjectMapper());
+            ReflectionTestUtils.setField(publisher, "messagingTemplate", template);
+
+            Runnable legacy = () -> template.convertAndSend(TOPIC, frame);
+            Runnable shared = () -> publisher.sendKeyframe(TOPIC, 1, () -> frame);
+
+            for (int i = 0; i < 20; i++) { legacy.run(); shared.run(); }
+            System.out.printf("%5d sessions | convertAndSend: %s | pre-encoded: %s%n",
+                    sessions, measure(legacy), measure(shared));
+            broker.stop();
+        }
+    }
+
+    private static String measure(Runnable broadcast) {
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) broadcast.run();
+        double ms = (System.nanoTime() - start) / 1e6 / ROUNDS;
+        double kb = (allocatedBytes() - allocated) / 1024.0 / ROUNDS;
+        return String.format("%7.3f ms %9.1f KB", ms, kb);
+    }
+
+    private static org.springframework.messaging.Message<byte[]> subscribe(String session) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        headers.setSessionId(session);
+        headers.setSubscriptionId("sub-0");
+        headers.setDestination(TOPIC);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private static List<VehicleSnapshot> fleet() {
+        List<VehicleSnapshot> fleet = new ArrayList<>(UNITS);
+        for (int i = 1; i <= UNITS; i++) {
+            Vehicle v = new Vehicle();
+            v.setId((long) i);
+            v.setModel("Model-" + (i % 40));
+            v.setStatus(i % 3 == 0 ? "IN_USE" : "AVAILABLE");
+            v.setSector("Sector " + (i % 12));
+            v.setFuel(20 + i % 80);
+            v.setSpeed(i % 90 * 1.0);
+            v.setTirePressure(30.0 + i % 5);
+            v.setVehicleCondition("OPTIMAL");
+            fleet.add(new VehicleSnapshot(v));
+        }
+        return fleet;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
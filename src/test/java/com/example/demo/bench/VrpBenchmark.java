@@ -0,0 +1,89 @@
+package com.example.demo.bench;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.Vehicle;
+import com.example.demo.model.LoadPlan;
+import com.example.demo.service.ContractionHierarchy;
+import com.example.demo.service.DistanceMatrixService;
+import com.example.demo.service.LoadOptimizerService;
+import com.example.demo.service.RoadGraph;
+import com.example.demo.service.RoadGraphService;
+import com.example.demo.service.TrafficOverlay;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Manual benchmark (not run by surefire): plans 500 bookings on 100 vehicles
+ * over the synthetic city grid through {@link LoadOptimizerService} and
+ * reports matrix time, total time and the solution metrics.
+ *
+ * Run: mvn test-compile && java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *      com.example.demo.bench.VrpBenchmark [bookings] [vehicles] [budgetMs] [chFile]
+ */
+public class VrpBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int bookingCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int vehicleCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        long budget = args.length > 2 ? Long.parseLong(args[2]) : 1200;
+        Path chFile = Paths.get(args.length > 3 ? args[3] : "data/routing/bench-200.ch");
+
+        RoadGraph graph = RoadGraphService.syntheticGrid(200, 42L);
+        RoadGraphService graphService = new RoadGraphService();
+        ReflectionTestUtils.setField(graphService, "graph", graph);
+        ReflectionTestUtils.setField(graphService, "hierarchy", ContractionHierarchy.openOrBuild(graph, chFile));
+        TrafficOverlay overlay = new TrafficOverlay();
+        ReflectionTestUtils.setField(overlay, "roadGraphService", graphService);
+        overlay.init();
+        DistanceMatrixService matrixService = new DistanceMatrixService();
+        ReflectionTestUtils.setField(matrixService, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(matrixService, "trafficOverlay", overlay);
+        matrixService.init();
+        LoadOptimizerService optimizer = new LoadOptimizerService();
+        ReflectionTestUtils.setField(optimizer, "roadGraphService", graphService);
+        ReflectionTestUtils.setField(optimizer, "distanceMatrixService", matrixService);
+        optimizer.init();
+
+        Random random = new Random(3);
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < vehicleCount; i++) {
+            Vehicle v = new Vehicle();
+            v.setId((long) i + 1);
+            v.setModel("Unit " + i);
+            v.setLocation(randomPoint(graph, random));
+            v.setSeats(4 + random.nextInt(3) * 2);
+            v.setFuel(40 + random.nextInt(61));
+            vehicles.add(v);
+        }
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < bookingCount; i++) {
+            Booking b = new Booking();
+            b.setId((long) i + 1);
+            b.setPickupLocation(randomPoint(graph, random));
+            b.setDropLocation(randomPoint(graph, random));
+            bookings.add(b);
+        }
+
+        try {
+            for (int run = 0; run < 3; run++) {
+                long start = System.nanoTime();
+                LoadPlan plan = optimizer.optimize(vehicles, bookings, budget);
+                System.out.printf("run %d: %d bookings x %d vehicles in %.0f ms%n  %s%n", run, bookingCount,
+                        vehicleCount, (System.nanoTime() - start) / 1e6, plan.getMetrics());
+            }
+        } finally {
+            optimizer.shutdown();
+            matrixService.shutdown();
+        }
+    }
+
+    private static String randomPoint(RoadGraph graph, Random random) {
+        int node = random.nextInt(graph.nodeCount());
+        return graph.latitude(node) + "," + graph.longitude(node);
+    }
+}